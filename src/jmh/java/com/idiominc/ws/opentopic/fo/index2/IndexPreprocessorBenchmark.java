@@ -0,0 +1,88 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package com.idiominc.ws.opentopic.fo.index2;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.DocumentBuilder;
+
+import org.dita.dost.SyntheticCorpus;
+import org.dita.dost.TestUtils;
+import org.dita.dost.util.XMLUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+import com.idiominc.ws.opentopic.fo.index2.configuration.IndexConfiguration;
+import com.idiominc.ws.opentopic.fo.index2.configuration.ParseException;
+
+/**
+ * Process index terms of a merged document with {@link IndexPreprocessor} and group them
+ * with the English index configuration, as {@link IndexPreprocessorTask} does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IndexPreprocessorBenchmark {
+
+    private static final String PREFIX = "opentopic-index";
+    private static final String NAMESPACE = "http://www.idiominc.com/opentopic/index";
+
+    @Param({"100", "1000"})
+    public int size;
+
+    private Document merged;
+    private IndexConfiguration configuration;
+
+    @Setup
+    public void setUp() throws IOException, SAXException, ParseException {
+        final File tempDir = new File(TestUtils.createTempDir(IndexPreprocessorBenchmark.class), Integer.toString(size));
+        try {
+            SyntheticCorpus.generate(tempDir, size);
+            final DocumentBuilder builder = XMLUtils.getDocumentBuilder();
+            merged = builder.newDocument();
+            final Element root = merged.createElement("bookmap");
+            root.setAttribute("class", "- map/map bookmap/bookmap ");
+            merged.appendChild(root);
+            for (int i = 0; i < size; i++) {
+                final Document topic = builder.parse(new File(tempDir, SyntheticCorpus.getTopic(i)));
+                root.appendChild(merged.importNode(topic.getDocumentElement(), true));
+            }
+        } finally {
+            TestUtils.forceDelete(tempDir);
+        }
+        final File config = new File("src" + File.separator + "main" + File.separator + "plugins" + File.separator
+                + "org.dita.pdf2" + File.separator + "cfg" + File.separator + "common" + File.separator
+                + "index" + File.separator + "en.xml");
+        configuration = IndexConfiguration.parse(XMLUtils.getDocumentBuilder().parse(config));
+    }
+
+    @Benchmark
+    public Document process() throws ProcessException {
+        final IndexPreprocessor preprocessor = new IndexPreprocessor(PREFIX, NAMESPACE);
+        preprocessor.setLogger(new TestUtils.TestLogger());
+        final IndexPreprocessResult result = preprocessor.process(merged);
+        preprocessor.createAndAddIndexGroups(result.getIndexEntries(), configuration, result.getDocument(), Locale.US);
+        return result.getDocument();
+    }
+
+}
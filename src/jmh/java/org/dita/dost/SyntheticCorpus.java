@@ -0,0 +1,143 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Generator for synthetic DITA corpora used by benchmarks.
+ *
+ * <p>The corpus consists of a root map {@code root.ditamap} that defines a key for each topic, and topics
+ * {@code topics/topicN.dita}. Documents have no document type declaration and default attributes are written
+ * out explicitly, so the corpus can be parsed without DTDs both as source and as temporary files. Each topic
+ * contains index terms, profiled content, links, key references and a content reference to the next topic.</p>
+ */
+public final class SyntheticCorpus {
+
+    /** Root map file name. */
+    public static final String MAP = "root.ditamap";
+    /** DITAVAL file name. */
+    public static final String DITAVAL = "filter.ditaval";
+    /** Conref push topic file name. */
+    public static final String PUSH_TOPIC = "topics/push.dita";
+    /** Number of paragraphs in each topic. */
+    public static final int PARAGRAPHS = 20;
+
+    private static final String DOMAINS = "(topic hi-d) (topic indexing-d)";
+
+    private SyntheticCorpus() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Get topic file path.
+     *
+     * @param i topic index
+     * @return topic file path relative to corpus directory
+     */
+    public static String getTopic(final int i) {
+        return "topics/topic" + i + ".dita";
+    }
+
+    /**
+     * Generate corpus.
+     *
+     * @param dir corpus directory
+     * @param size number of topics
+     * @throws IOException if writing corpus failed
+     */
+    public static void generate(final File dir, final int size) throws IOException {
+        new File(dir, "topics").mkdirs();
+        writeMap(new File(dir, MAP), size);
+        for (int i = 0; i < size; i++) {
+            writeTopic(new File(dir, getTopic(i)), i, size);
+        }
+        writeDitaval(new File(dir, DITAVAL));
+        writePushTopic(new File(dir, PUSH_TOPIC), size);
+    }
+
+    private static void writeMap(final File file, final int size) throws IOException {
+        try (Writer out = open(file)) {
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            out.write("<map xmlns:ditaarch=\"http://dita.oasis-open.org/architecture/2005/\" class=\"- map/map \""
+                    + " ditaarch:DITAArchVersion=\"1.2\" domains=\"" + DOMAINS + "\" id=\"root\">\n");
+            out.write("  <title class=\"- topic/title \">Synthetic corpus</title>\n");
+            for (int i = 0; i < size; i++) {
+                out.write("  <topicref class=\"- map/topicref \" keys=\"key" + i + "\" href=\"" + getTopic(i) + "\">\n");
+                out.write("    <topicmeta class=\"- map/topicmeta \"><linktext class=\"- map/linktext \">Key " + i
+                        + "</linktext></topicmeta>\n");
+                out.write("  </topicref>\n");
+            }
+            out.write("</map>\n");
+        }
+    }
+
+    private static void writeTopic(final File file, final int i, final int size) throws IOException {
+        final int next = (i + 1) % size;
+        final int prev = (i + size - 1) % size;
+        try (Writer out = open(file)) {
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            out.write("<topic xmlns:ditaarch=\"http://dita.oasis-open.org/architecture/2005/\" class=\"- topic/topic \""
+                    + " ditaarch:DITAArchVersion=\"1.2\" domains=\"" + DOMAINS + "\" id=\"topic" + i + "\">\n");
+            out.write("  <title class=\"- topic/title \">Topic " + i + "</title>\n");
+            out.write("  <shortdesc class=\"- topic/shortdesc \">Short description of topic " + i + ".</shortdesc>\n");
+            out.write("  <prolog class=\"- topic/prolog \"><metadata class=\"- topic/metadata \"><keywords class=\"- topic/keywords \">");
+            out.write("<indexterm class=\"- topic/indexterm \">" + (char) ('a' + i % 26) + "term " + i
+                    + "<indexterm class=\"- topic/indexterm \">Subterm " + i % 10 + "</indexterm></indexterm>");
+            out.write("<indexterm class=\"- topic/indexterm \">" + (char) ('A' + i % 26) + "common</indexterm>");
+            out.write("</keywords></metadata></prolog>\n");
+            out.write("  <body class=\"- topic/body \">\n");
+            out.write("    <p class=\"- topic/p \" id=\"p" + i + "\">Reusable paragraph " + i + ".</p>\n");
+            for (int j = 0; j < PARAGRAPHS; j++) {
+                out.write("    <p class=\"- topic/p \" id=\"p" + i + "_" + j + "\">Paragraph " + j + " with"
+                        + " <ph class=\"- topic/ph \" audience=\"novice\">novice</ph> and"
+                        + " <ph class=\"- topic/ph \" audience=\"expert\">expert</ph> content,"
+                        + " <b class=\"+ topic/ph hi-d/b \" platform=\"linux windows\">highlighted</b> text and"
+                        + " <indexterm class=\"- topic/indexterm \">" + (char) ('a' + j % 26) + "inline " + j + "</indexterm>"
+                        + " an index term.</p>\n");
+            }
+            out.write("    <p class=\"- topic/p \"><xref class=\"- topic/xref \" href=\"topic" + next + ".dita\"/>"
+                    + " <xref class=\"- topic/xref \" keyref=\"key" + prev + "\"/></p>\n");
+            out.write("    <p class=\"- topic/p \" conref=\"topic" + next + ".dita#topic" + next + "/p" + next + "\"/>\n");
+            out.write("  </body>\n");
+            out.write("</topic>\n");
+        }
+    }
+
+    private static void writeDitaval(final File file) throws IOException {
+        try (Writer out = open(file)) {
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            out.write("<val>\n");
+            out.write("  <prop att=\"audience\" val=\"novice\" action=\"exclude\"/>\n");
+            out.write("  <prop att=\"platform\" val=\"windows\" action=\"exclude\"/>\n");
+            out.write("</val>\n");
+        }
+    }
+
+    private static void writePushTopic(final File file, final int size) throws IOException {
+        try (Writer out = open(file)) {
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            out.write("<topic xmlns:ditaarch=\"http://dita.oasis-open.org/architecture/2005/\" class=\"- topic/topic \""
+                    + " ditaarch:DITAArchVersion=\"1.2\" domains=\"" + DOMAINS + "\" id=\"push\">\n");
+            out.write("  <title class=\"- topic/title \">Push</title>\n");
+            out.write("  <body class=\"- topic/body \">\n");
+            for (int i = 0; i < size; i++) {
+                out.write("    <p class=\"- topic/p \" conaction=\"mark\" conref=\"topic" + i + ".dita#topic" + i + "/p" + i + "\"/>\n");
+                out.write("    <p class=\"- topic/p \" conaction=\"pushafter\">Pushed after " + i + ".</p>\n");
+            }
+            out.write("  </body>\n");
+            out.write("</topic>\n");
+        }
+    }
+
+    private static Writer open(final File file) throws IOException {
+        return new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.module;
+
+import static org.dita.dost.util.Constants.*;
+import static org.dita.dost.util.Job.Generate.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.dita.dost.SyntheticCorpus;
+import org.dita.dost.TestUtils;
+import org.dita.dost.exception.DITAOTException;
+import org.dita.dost.pipeline.AbstractFacade;
+import org.dita.dost.pipeline.PipelineFacade;
+import org.dita.dost.pipeline.PipelineHashIO;
+import org.dita.dost.util.CatalogUtils;
+import org.dita.dost.util.Job;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Run {@link DebugAndFilterModule} filter chain over the corpus with DITAVAL filtering. The job is
+ * generated once with {@link GenMapAndTopicListModule} and each invocation runs in a fresh copy of
+ * the resulting temporary directory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DebugAndFilterModuleBenchmark {
+
+    @Param({"100", "1000"})
+    public int size;
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private File tempDir;
+    private File srcDir;
+    private File listDir;
+    private File workDir;
+    private PipelineHashIO pipelineInput;
+    private Job job;
+
+    @Setup
+    public void setUp() throws IOException, DITAOTException {
+        final File ditaDir = new File("src" + File.separator + "main").getAbsoluteFile();
+        CatalogUtils.setDitaDir(ditaDir);
+        tempDir = new File(TestUtils.createTempDir(DebugAndFilterModuleBenchmark.class), size + "-" + parallel);
+        srcDir = new File(tempDir, "src");
+        SyntheticCorpus.generate(srcDir, size);
+        listDir = new File(tempDir, "list");
+        workDir = new File(tempDir, "temp");
+        listDir.mkdirs();
+
+        pipelineInput = new PipelineHashIO();
+        pipelineInput.setAttribute(ANT_INVOKER_PARAM_INPUTMAP, new File(srcDir, SyntheticCorpus.MAP).getAbsolutePath());
+        pipelineInput.setAttribute(ANT_INVOKER_PARAM_BASEDIR, srcDir.getAbsolutePath());
+        pipelineInput.setAttribute(ANT_INVOKER_EXT_PARAM_INPUTDIR, srcDir.getAbsolutePath());
+        pipelineInput.setAttribute(ANT_INVOKER_EXT_PARAM_OUTPUTDIR, new File(tempDir, "out").getAbsolutePath());
+        pipelineInput.setAttribute(ANT_INVOKER_EXT_PARAM_DITADIR, ditaDir.getAbsolutePath());
+        pipelineInput.setAttribute(ANT_INVOKER_PARAM_DITAVAL, new File(srcDir, SyntheticCorpus.DITAVAL).getAbsolutePath());
+        pipelineInput.setAttribute(ANT_INVOKER_EXT_PARAM_TRANSTYPE, "xhtml");
+        pipelineInput.setAttribute(ANT_INVOKER_EXT_PARAM_VALIDATE, Boolean.FALSE.toString());
+        pipelineInput.setAttribute(ANT_INVOKER_EXT_PARAM_GENERATECOPYOUTTER, Integer.toString(NOT_GENERATEOUTTER.type));
+        pipelineInput.setAttribute(ANT_INVOKER_EXT_PARAM_OUTTERCONTROL, "warn");
+        pipelineInput.setAttribute(ANT_INVOKER_EXT_PARAM_ONLYTOPICINMAP, Boolean.FALSE.toString());
+        pipelineInput.setAttribute(ANT_INVOKER_EXT_PARAN_SETSYSTEMID, "no");
+        pipelineInput.setAttribute(ANT_INVOKER_EXT_PARAM_GENERATE_DEBUG_ATTR, Boolean.TRUE.toString());
+        pipelineInput.setAttribute(ANT_INVOKER_EXT_PARAM_PARALLEL, Boolean.toString(parallel));
+
+        execute("GenMapAndTopicList", new Job(listDir));
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() throws IOException {
+        TestUtils.forceDelete(workDir);
+        TestUtils.copy(listDir, workDir);
+        job = new Job(workDir);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Benchmark
+    public void execute() throws DITAOTException {
+        execute("DebugAndFilter", job);
+    }
+
+    private void execute(final String module, final Job job) throws DITAOTException {
+        final AbstractFacade facade = new PipelineFacade();
+        facade.setLogger(new TestUtils.TestLogger());
+        facade.setJob(job);
+        facade.execute(module, pipelineInput);
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.reader;
+
+import static org.dita.dost.util.Constants.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.dita.dost.SyntheticCorpus;
+import org.dita.dost.TestUtils;
+import org.dita.dost.util.CatalogUtils;
+import org.dita.dost.util.Job;
+import org.dita.dost.util.XMLUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Parse the corpus through the gen-list filter chain, {@link KeydefFilter} followed by
+ * {@link GenListModuleReader}, as {@code GenMapAndTopicListModule} does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GenListModuleReaderBenchmark {
+
+    @Param({"100", "1000"})
+    public int size;
+
+    private File tempDir;
+    private Job job;
+    private URI map;
+    private final List<URI> files = new ArrayList<>();
+
+    @Setup
+    public void setUp() throws IOException {
+        CatalogUtils.setDitaDir(new File("src" + File.separator + "main").getAbsoluteFile());
+        tempDir = new File(TestUtils.createTempDir(GenListModuleReaderBenchmark.class), Integer.toString(size));
+        final File srcDir = new File(tempDir, "src");
+        SyntheticCorpus.generate(srcDir, size);
+        final File jobDir = new File(tempDir, "temp");
+        jobDir.mkdirs();
+        job = new Job(jobDir);
+        map = new File(srcDir, SyntheticCorpus.MAP).toURI();
+        files.add(map);
+        for (int i = 0; i < size; i++) {
+            files.add(srcDir.toURI().resolve(SyntheticCorpus.getTopic(i)));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Benchmark
+    public void parse(final Blackhole bh) throws IOException, SAXException {
+        final XMLReader reader = XMLUtils.getXMLReader();
+        reader.setFeature(FEATURE_NAMESPACE_PREFIX, true);
+        reader.setEntityResolver(CatalogUtils.getCatalogResolver());
+        final KeydefFilter keydefFilter = new KeydefFilter();
+        keydefFilter.setLogger(new TestUtils.TestLogger());
+        keydefFilter.setInputFile(map);
+        keydefFilter.setJob(job);
+        keydefFilter.setParent(reader);
+        final GenListModuleReader listFilter = new GenListModuleReader();
+        listFilter.setLogger(new TestUtils.TestLogger());
+        listFilter.setInputDir(map.resolve("."));
+        listFilter.setPrimaryDitamap(map);
+        listFilter.setJob(job);
+        listFilter.setParent(keydefFilter);
+        listFilter.setContentHandler(new DefaultHandler());
+        for (final URI file: files) {
+            keydefFilter.setCurrentDir(file.resolve("."));
+            listFilter.setCurrentFile(file);
+            listFilter.parse(file.toString());
+            bh.consume(listFilter.getNonCopytoResult());
+            listFilter.reset();
+        }
+        bh.consume(keydefFilter.getKeysDMap());
+    }
+
+}
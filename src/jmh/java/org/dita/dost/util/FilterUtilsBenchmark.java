@@ -0,0 +1,107 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.dita.dost.TestUtils;
+import org.dita.dost.util.FilterUtils.Action;
+import org.dita.dost.util.FilterUtils.FilterKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.Attributes;
+
+/**
+ * Evaluate {@link FilterUtils#needExclude(Attributes, String[][])} for typical profiling attribute combinations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FilterUtilsBenchmark {
+
+    private FilterUtils filterUtils;
+    private Attributes none;
+    private Attributes single;
+    private Attributes multiple;
+    private Attributes groups;
+    private Attributes extProps;
+    private String[][] extPropsNames;
+
+    @Setup
+    public void setUp() {
+        final Map<FilterKey, Action> fm = new HashMap<>();
+        fm.put(new FilterKey("audience", "novice"), Action.EXCLUDE);
+        fm.put(new FilterKey("audience", "expert"), Action.INCLUDE);
+        fm.put(new FilterKey("platform", "windows"), Action.EXCLUDE);
+        fm.put(new FilterKey("platform", "linux"), Action.INCLUDE);
+        fm.put(new FilterKey("product", "prod1"), Action.INCLUDE);
+        fm.put(new FilterKey("os", "osx"), Action.EXCLUDE);
+        filterUtils = new FilterUtils(false, fm);
+        filterUtils.setLogger(new TestUtils.TestLogger());
+
+        none = new XMLUtils.AttributesBuilder()
+                .add("class", "- topic/p ")
+                .add("id", "p1")
+                .build();
+        single = new XMLUtils.AttributesBuilder()
+                .add("class", "- topic/p ")
+                .add("audience", "expert")
+                .build();
+        multiple = new XMLUtils.AttributesBuilder()
+                .add("class", "- topic/p ")
+                .add("audience", "expert administrator")
+                .add("platform", "linux windows")
+                .add("product", "prod1 prod2")
+                .build();
+        groups = new XMLUtils.AttributesBuilder()
+                .add("class", "- topic/p ")
+                .add("props", "os(osx linux) edition(pro)")
+                .build();
+        extProps = new XMLUtils.AttributesBuilder()
+                .add("class", "- topic/p ")
+                .add("os", "osx")
+                .build();
+        extPropsNames = new String[][] { { "props", "os" } };
+    }
+
+    @Benchmark
+    public boolean noProfiling() {
+        return filterUtils.needExclude(none, null);
+    }
+
+    @Benchmark
+    public boolean singleValue() {
+        return filterUtils.needExclude(single, null);
+    }
+
+    @Benchmark
+    public boolean multipleAttributes() {
+        return filterUtils.needExclude(multiple, null);
+    }
+
+    @Benchmark
+    public boolean groupValues() {
+        return filterUtils.needExclude(groups, null);
+    }
+
+    @Benchmark
+    public boolean specializedProps() {
+        return filterUtils.needExclude(extProps, extPropsNames);
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import static org.dita.dost.util.Constants.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.dita.dost.TestUtils;
+import org.dita.dost.util.Job.FileInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Read and write job configuration with {@link Job}. Written jobs contain a file entry with a
+ * realistic mix of flags for every topic.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JobBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private File tempDir;
+    private File readDir;
+    private File writeDir;
+    private Job job;
+
+    @Setup
+    public void setUp() throws IOException {
+        tempDir = new File(TestUtils.createTempDir(JobBenchmark.class), Integer.toString(size));
+        readDir = new File(tempDir, "read");
+        writeDir = new File(tempDir, "write");
+        readDir.mkdirs();
+        final Job job = createJob(readDir);
+        job.write();
+        job.exportXml();
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() throws IOException {
+        TestUtils.forceDelete(writeDir);
+        writeDir.mkdirs();
+        job = createJob(writeDir);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    private Job createJob(final File dir) throws IOException {
+        final Job job = new Job(dir);
+        job.setProperty(INPUT_DIR, "/src");
+        job.setProperty(INPUT_DIR_URI, "file:/src/");
+        job.setInputFile(URI.create("file:/src/root.ditamap"));
+        job.add(new FileInfo.Builder()
+                .uri(URI.create("root.ditamap"))
+                .src(URI.create("file:/src/root.ditamap"))
+                .format(ATTR_FORMAT_VALUE_DITAMAP)
+                .hasKeyref(true)
+                .build());
+        for (int i = 0; i < size; i++) {
+            final String path = "topics/group" + i % 10 + "/topic" + i + ".dita";
+            job.add(new FileInfo.Builder()
+                    .uri(URI.create(path))
+                    .src(URI.create("file:/src/" + path))
+                    .format(ATTR_FORMAT_VALUE_DITA)
+                    .hasLink(true)
+                    .isTarget(true)
+                    .hasConref(i % 3 == 0)
+                    .hasKeyref(i % 2 == 0)
+                    .isConrefTarget(i % 5 == 0)
+                    .build());
+        }
+        return job;
+    }
+
+    @Benchmark
+    public Job read() throws IOException {
+        return new Job(readDir);
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        job.write();
+    }
+
+    @Benchmark
+    public void writeAndExportXml() throws IOException {
+        job.write();
+        job.exportXml();
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import java.io.File;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Path and URI resolution with {@link URLUtils} and {@link FileUtils}, as done for every link
+ * attribute during preprocessing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class URLUtilsBenchmark {
+
+    private static final int COUNT = 16;
+
+    private final String[] hrefs = new String[COUNT];
+    private final URI[] bases = new URI[COUNT];
+    private final URI[] targets = new URI[COUNT];
+    private final File[] baseFiles = new File[COUNT];
+    private final File[] targetFiles = new File[COUNT];
+    private final File[] hrefFiles = new File[COUNT];
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < COUNT; i++) {
+            hrefs[i] = "../topics/group " + i + "/topic" + i + ".dita#topic" + i + "/p" + i;
+            bases[i] = URI.create("file:/src/maps/group" + i % 4 + "/map" + i + ".ditamap");
+            targets[i] = URI.create("file:/src/topics/group%20" + i + "/topic" + i + ".dita#topic" + i);
+            baseFiles[i] = new File("maps" + File.separator + "group" + i % 4 + File.separator + "map" + i + ".ditamap");
+            targetFiles[i] = new File("topics" + File.separator + "group " + i + File.separator + "topic" + i + ".dita");
+            hrefFiles[i] = new File(".." + File.separator + ".." + File.separator + targetFiles[i].getPath());
+        }
+    }
+
+    @Benchmark
+    public void toURI(final Blackhole bh) {
+        for (final String href: hrefs) {
+            bh.consume(URLUtils.toURI(href));
+        }
+    }
+
+    @Benchmark
+    public void resolve(final Blackhole bh) {
+        for (int i = 0; i < COUNT; i++) {
+            bh.consume(bases[i].resolve(URLUtils.toURI(hrefs[i])));
+        }
+    }
+
+    @Benchmark
+    public void stripFragment(final Blackhole bh) {
+        for (final URI target: targets) {
+            bh.consume(URLUtils.stripFragment(target));
+        }
+    }
+
+    @Benchmark
+    public void getRelativePathUri(final Blackhole bh) {
+        for (int i = 0; i < COUNT; i++) {
+            bh.consume(URLUtils.getRelativePath(bases[i], targets[i]));
+        }
+    }
+
+    @Benchmark
+    public void getRelativePathFile(final Blackhole bh) {
+        for (int i = 0; i < COUNT; i++) {
+            bh.consume(FileUtils.getRelativePath(baseFiles[i], targetFiles[i]));
+        }
+    }
+
+    @Benchmark
+    public void resolveFile(final Blackhole bh) {
+        for (int i = 0; i < COUNT; i++) {
+            bh.consume(FileUtils.resolve(baseFiles[i].getParentFile(), hrefFiles[i]));
+        }
+    }
+
+}
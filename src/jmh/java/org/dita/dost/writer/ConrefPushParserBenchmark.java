@@ -0,0 +1,98 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.writer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.dita.dost.SyntheticCorpus;
+import org.dita.dost.TestUtils;
+import org.dita.dost.exception.DITAOTException;
+import org.dita.dost.reader.ConrefPushReader;
+import org.dita.dost.reader.ConrefPushReader.MoveKey;
+import org.dita.dost.util.CatalogUtils;
+import org.dita.dost.util.FileUtils;
+import org.dita.dost.util.Job;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.DocumentFragment;
+
+/**
+ * Push content into every corpus topic with {@link ConrefPushParser}. The push table is read from
+ * the corpus push topic once and each invocation runs in a fresh copy of the corpus.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConrefPushParserBenchmark {
+
+    @Param({"100", "1000"})
+    public int size;
+
+    private File tempDir;
+    private File srcDir;
+    private File workDir;
+    private final Map<File, Hashtable<MoveKey, DocumentFragment>> pushMap = new HashMap<>();
+    private Job job;
+
+    @Setup
+    public void setUp() throws IOException {
+        CatalogUtils.setDitaDir(new File("src" + File.separator + "main").getAbsoluteFile());
+        tempDir = new File(TestUtils.createTempDir(ConrefPushParserBenchmark.class), Integer.toString(size));
+        srcDir = new File(tempDir, "src");
+        workDir = new File(tempDir, "temp");
+        SyntheticCorpus.generate(srcDir, size);
+
+        final ConrefPushReader reader = new ConrefPushReader();
+        reader.setLogger(new TestUtils.TestLogger());
+        reader.read(new File(srcDir, SyntheticCorpus.PUSH_TOPIC).getAbsoluteFile());
+        for (final Map.Entry<File, Hashtable<MoveKey, DocumentFragment>> e: reader.getPushMap().entrySet()) {
+            pushMap.put(FileUtils.getRelativePath(new File(srcDir, "dummy"), e.getKey()), e.getValue());
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() throws IOException {
+        TestUtils.forceDelete(workDir);
+        TestUtils.copy(srcDir, workDir);
+        job = new Job(workDir);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Benchmark
+    public void write() throws DITAOTException {
+        for (final Map.Entry<File, Hashtable<MoveKey, DocumentFragment>> e: pushMap.entrySet()) {
+            final ConrefPushParser parser = new ConrefPushParser();
+            parser.setLogger(new TestUtils.TestLogger());
+            parser.setJob(job);
+            parser.setTempDir(workDir);
+            parser.setMoveTable(new Hashtable<>(e.getValue()));
+            parser.write(new File(workDir, e.getKey().getPath()).getAbsoluteFile());
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.writer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.dita.dost.SyntheticCorpus;
+import org.dita.dost.TestUtils;
+import org.dita.dost.exception.DITAOTException;
+import org.dita.dost.reader.KeyrefReader;
+import org.dita.dost.util.CatalogUtils;
+import org.dita.dost.util.Job;
+import org.dita.dost.util.KeyScope;
+import org.dita.dost.util.XMLUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+
+/**
+ * Resolve key references in every corpus topic with {@link KeyrefPaser}. Key definitions are read from
+ * the corpus map once and each invocation runs in a fresh copy of the corpus.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeyrefPaserBenchmark {
+
+    @Param({"100", "1000"})
+    public int size;
+
+    private File tempDir;
+    private File srcDir;
+    private File workDir;
+    private KeyScope keyDefinition;
+    private Job job;
+
+    @Setup
+    public void setUp() throws IOException, SAXException {
+        CatalogUtils.setDitaDir(new File("src" + File.separator + "main").getAbsoluteFile());
+        tempDir = new File(TestUtils.createTempDir(KeyrefPaserBenchmark.class), Integer.toString(size));
+        srcDir = new File(tempDir, "src");
+        workDir = new File(tempDir, "temp");
+        SyntheticCorpus.generate(srcDir, size);
+
+        final File map = new File(srcDir, SyntheticCorpus.MAP);
+        final KeyrefReader reader = new KeyrefReader();
+        reader.setLogger(new TestUtils.TestLogger());
+        reader.read(map.toURI(), XMLUtils.getDocumentBuilder().parse(map));
+        keyDefinition = reader.getKeyDefinition();
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() throws IOException {
+        TestUtils.forceDelete(workDir);
+        TestUtils.copy(srcDir, workDir);
+        job = new Job(workDir);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Benchmark
+    public void write() throws DITAOTException {
+        for (int i = 0; i < size; i++) {
+            final File topic = new File(SyntheticCorpus.getTopic(i));
+            final KeyrefPaser parser = new KeyrefPaser();
+            parser.setLogger(new TestUtils.TestLogger());
+            parser.setJob(job);
+            parser.setKeyDefinition(keyDefinition);
+            parser.setCurrentFile(topic);
+            parser.write(topic);
+        }
+    }
+
+}
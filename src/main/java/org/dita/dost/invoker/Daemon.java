@@ -0,0 +1,333 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.invoker;
+
+import static org.dita.dost.util.Constants.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.SecureRandom;
+import java.util.Properties;
+
+import org.dita.dost.platform.Integrator;
+
+/**
+ * Build daemon. The daemon is a long-running process that runs builds requested by {@link DaemonClient}
+ * over a local socket. Each build runs in its own Ant project, but the JVM and process-wide caches, e.g.
+ * plug-in configuration, compiled stylesheets, the grammar pool and the catalog resolver, are shared
+ * between builds.
+ *
+ * <p>Builds are run one at a time, because Ant redirects the process standard streams during a build.
+ * The daemon only listens on the loopback interface and clients must present the secret token from the
+ * daemon state file in the DITA-OT directory. The daemon stops when plug-in configuration changes,
+ * the requests it has accepted are rejected and clients run them in their own JVM.</p>
+ *
+ * @since 2.2
+ */
+public final class Daemon {
+
+    /** Daemon state file name in DITA-OT directory. */
+    static final String STATE_FILE = ".daemon";
+    static final String PROPERTY_PORT = "port";
+    static final String PROPERTY_TOKEN = "token";
+
+    static final byte COMMAND_BUILD = 1;
+    static final byte COMMAND_STOP = 2;
+
+    static final byte FRAME_OUT = 1;
+    static final byte FRAME_ERR = 2;
+    static final byte FRAME_EXIT = 3;
+    static final byte FRAME_REJECT = 4;
+
+    /** Default time to wait for a client to send its request, in milliseconds. */
+    static final int DEFAULT_REQUEST_TIMEOUT = 10000;
+
+    private final File stateFile;
+    private final ServerSocket server;
+    private final String token;
+    private final File pluginConfiguration;
+    private final long pluginConfigurationModified;
+    private final int requestTimeout;
+
+    /**
+     * Create new daemon and write daemon state file.
+     *
+     * @param ditaDir DITA-OT directory
+     * @param port port to listen on, {@code 0} to use any free port
+     * @throws IOException if creating server socket or writing state file failed
+     */
+    Daemon(final File ditaDir, final int port) throws IOException {
+        this(ditaDir, port, DEFAULT_REQUEST_TIMEOUT);
+    }
+
+    /**
+     * Create new daemon and write daemon state file.
+     *
+     * @param ditaDir DITA-OT directory
+     * @param port port to listen on, {@code 0} to use any free port
+     * @param requestTimeout time to wait for a client to send its request, in milliseconds
+     * @throws IOException if creating server socket or writing state file failed
+     */
+    Daemon(final File ditaDir, final int port, final int requestTimeout) throws IOException {
+        this.requestTimeout = requestTimeout;
+        stateFile = new File(ditaDir, STATE_FILE);
+        server = new ServerSocket(port, 50, InetAddress.getByName(null));
+        token = new BigInteger(130, new SecureRandom()).toString(32);
+        pluginConfiguration = getPluginConfiguration();
+        pluginConfigurationModified = pluginConfiguration != null ? pluginConfiguration.lastModified() : 0L;
+        writeState();
+    }
+
+    /**
+     * Get generated plug-in configuration file.
+     *
+     * @return configuration file, {@code null} if not available as a file
+     */
+    private static File getPluginConfiguration() {
+        final URL url = Daemon.class.getClassLoader().getResource(Integrator.class.getPackage().getName() + "/" + GEN_CONF_PROPERTIES);
+        if (url != null && "file".equals(url.getProtocol())) {
+            try {
+                return new File(url.toURI());
+            } catch (final URISyntaxException e) {
+                // not a local file
+            }
+        }
+        return null;
+    }
+
+    private void writeState() throws IOException {
+        final Properties state = new Properties();
+        state.setProperty(PROPERTY_PORT, Integer.toString(server.getLocalPort()));
+        state.setProperty(PROPERTY_TOKEN, token);
+        try (OutputStream out = new FileOutputStream(stateFile)) {
+            // token grants the right to run builds, only owner may read it
+            stateFile.setReadable(false, false);
+            stateFile.setReadable(true, true);
+            state.store(out, "DITA-OT build daemon");
+        }
+    }
+
+    /**
+     * Read daemon state file.
+     *
+     * @param ditaDir DITA-OT directory
+     * @return daemon state, {@code null} if daemon state file doesn't exist
+     * @throws IOException if reading state file failed
+     */
+    static Properties readState(final File ditaDir) throws IOException {
+        final File f = new File(ditaDir, STATE_FILE);
+        if (!f.exists()) {
+            return null;
+        }
+        final Properties state = new Properties();
+        try (InputStream in = new FileInputStream(f)) {
+            state.load(in);
+        }
+        return state;
+    }
+
+    /**
+     * Get port the daemon listens on.
+     *
+     * @return local port
+     */
+    int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Accept and process requests until a stop request is received or the daemon is closed.
+     */
+    void run() {
+        try {
+            while (!server.isClosed()) {
+                try (Socket socket = server.accept()) {
+                    if (!handle(socket)) {
+                        break;
+                    }
+                } catch (final SocketTimeoutException e) {
+                    System.err.println("Timed out waiting for build request");
+                } catch (final IOException e) {
+                    if (!server.isClosed()) {
+                        System.err.println("Failed to process build request: " + e.getMessage());
+                    }
+                }
+            }
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Stop accepting requests and remove daemon state file.
+     */
+    void close() {
+        try {
+            server.close();
+        } catch (final IOException e) {
+            // ignore
+        }
+        stateFile.delete();
+    }
+
+    /**
+     * Handle single request.
+     *
+     * @param socket client connection
+     * @return {@code true} if daemon should continue accepting requests, otherwise {@code false}
+     */
+    private boolean handle(final Socket socket) throws IOException {
+        // a client that never sends its request must not block other clients
+        socket.setSoTimeout(requestTimeout);
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        if (!token.equals(in.readUTF())) {
+            return true;
+        }
+        switch (in.readByte()) {
+            case COMMAND_STOP:
+                return false;
+            case COMMAND_BUILD:
+                final File baseDir = new File(in.readUTF());
+                final String[] args = new String[in.readInt()];
+                for (int i = 0; i < args.length; i++) {
+                    args[i] = in.readUTF();
+                }
+                if (pluginConfiguration != null && pluginConfiguration.lastModified() != pluginConfigurationModified) {
+                    // loaded plug-in configuration is stale, client must run the build itself
+                    out.writeByte(FRAME_REJECT);
+                    out.flush();
+                    return false;
+                }
+                socket.setSoTimeout(0);
+                final int exitCode = build(args, baseDir, out);
+                synchronized (out) {
+                    out.writeByte(FRAME_EXIT);
+                    out.writeInt(exitCode);
+                    out.flush();
+                }
+                return true;
+            default:
+                throw new IOException("Unsupported daemon command");
+        }
+    }
+
+    /**
+     * Run build with output streamed to client.
+     *
+     * @return build exit code
+     */
+    private int build(final String[] args, final File baseDir, final DataOutputStream out) {
+        final PrintStream buildOut = new PrintStream(new FrameOutputStream(out, FRAME_OUT), true);
+        final PrintStream buildErr = new PrintStream(new FrameOutputStream(out, FRAME_ERR), true);
+        final PrintStream savedOut = System.out;
+        final PrintStream savedErr = System.err;
+        System.setOut(buildOut);
+        System.setErr(buildErr);
+        try {
+            return Main.run(args, baseDir, buildOut, buildErr);
+        } catch (final Throwable e) {
+            e.printStackTrace(buildErr);
+            return 1;
+        } finally {
+            System.setOut(savedOut);
+            System.setErr(savedErr);
+            buildOut.flush();
+            buildErr.flush();
+        }
+    }
+
+    /**
+     * Output stream that writes data as typed frames to the client connection.
+     */
+    private static final class FrameOutputStream extends OutputStream {
+
+        private final DataOutputStream out;
+        private final byte type;
+
+        FrameOutputStream(final DataOutputStream out, final byte type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            synchronized (out) {
+                out.writeByte(type);
+                out.writeInt(len);
+                out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (out) {
+                out.flush();
+            }
+        }
+
+    }
+
+    /**
+     * Start daemon and process requests until stopped.
+     *
+     * @param ditaDir DITA-OT directory
+     * @param port port to listen on, {@code 0} to use any free port
+     * @throws IOException if starting daemon failed
+     */
+    static void start(final File ditaDir, final int port) throws IOException {
+        final Daemon daemon = new Daemon(ditaDir, port);
+        System.out.println("DITA-OT build daemon listening on port " + daemon.getPort());
+        daemon.run();
+    }
+
+    /**
+     * Stop running daemon.
+     *
+     * @param ditaDir DITA-OT directory
+     * @return {@code true} if a running daemon was stopped, otherwise {@code false}
+     */
+    static boolean stop(final File ditaDir) {
+        try {
+            final Properties state = readState(ditaDir);
+            if (state == null) {
+                return false;
+            }
+            try (Socket socket = new Socket(InetAddress.getByName(null), Integer.parseInt(state.getProperty(PROPERTY_PORT)))) {
+                final DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                out.writeUTF(state.getProperty(PROPERTY_TOKEN));
+                out.writeByte(COMMAND_STOP);
+                out.flush();
+                // wait for daemon to close connection
+                socket.getInputStream().read();
+            }
+            return true;
+        } catch (final IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,194 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.invoker;
+
+import static org.dita.dost.invoker.Daemon.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.tools.ant.launch.AntMain;
+
+/**
+ * Command line client for {@link Daemon}. Builds are sent to a running daemon, if one is available,
+ * and run in the current JVM with {@link Main} otherwise.
+ *
+ * <pre>
+ * dita -daemon start [port]
+ * dita -daemon stop
+ * </pre>
+ *
+ * @since 2.2
+ */
+public final class DaemonClient implements AntMain {
+
+    private static final String ARGUMENT_DAEMON = "-daemon";
+
+    @Override
+    public void startAnt(final String[] args, final Properties additionalUserProperties, final ClassLoader coreLoader) {
+        final File ditaDir = new File(System.getProperty("dita.dir"));
+        if (args.length > 0 && args[0].equals(ARGUMENT_DAEMON)) {
+            System.exit(daemon(Arrays.copyOfRange(args, 1, args.length), ditaDir));
+            return;
+        }
+        if (!isInstall(args)) {
+            final List<String> buildArgs = new ArrayList<>(Arrays.asList(args));
+            if (additionalUserProperties != null) {
+                for (final Enumeration<?> e = additionalUserProperties.propertyNames(); e.hasMoreElements();) {
+                    final String key = (String) e.nextElement();
+                    buildArgs.add("-D" + key + "=" + additionalUserProperties.getProperty(key));
+                }
+            }
+            final Integer exitCode = run(buildArgs.toArray(new String[buildArgs.size()]), ditaDir,
+                    new File(System.getProperty("user.dir")), System.out, System.err);
+            if (exitCode != null) {
+                System.exit(exitCode);
+                return;
+            }
+        }
+        new Main().startAnt(args, additionalUserProperties, coreLoader);
+    }
+
+    /**
+     * Plug-in installation changes configuration the daemon has already loaded, so it must not run in the daemon.
+     */
+    private static boolean isInstall(final String[] args) {
+        for (final String arg: args) {
+            if (arg.equals("-install") || arg.equals("-uninstall")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Handle daemon control command.
+     *
+     * @param args command arguments
+     * @param ditaDir DITA-OT directory
+     * @return exit code
+     */
+    private static int daemon(final String[] args, final File ditaDir) {
+        if (args.length > 0 && args[0].equals("start")) {
+            try {
+                Daemon.start(ditaDir, args.length > 1 ? Integer.parseInt(args[1]) : 0);
+                return 0;
+            } catch (final IOException | NumberFormatException e) {
+                System.err.println("Error: Failed to start daemon: " + e.getMessage());
+                return 1;
+            }
+        } else if (args.length > 0 && args[0].equals("stop")) {
+            if (!Daemon.stop(ditaDir)) {
+                System.err.println("Error: Daemon is not running");
+                return 1;
+            }
+            return 0;
+        } else {
+            System.err.println("Usage: dita -daemon start [port]\n   or: dita -daemon stop");
+            return 1;
+        }
+    }
+
+    /**
+     * Run build in daemon.
+     *
+     * @param args command line arguments
+     * @param ditaDir DITA-OT directory
+     * @param baseDir directory to resolve relative file arguments against
+     * @param out output stream
+     * @param err error stream
+     * @return exit code, {@code null} if daemon is not running or it rejected the build
+     */
+    Integer run(final String[] args, final File ditaDir, final File baseDir, final PrintStream out, final PrintStream err) {
+        final Properties state;
+        try {
+            state = readState(ditaDir);
+        } catch (final IOException e) {
+            return null;
+        }
+        if (state == null) {
+            return null;
+        }
+        final int port;
+        try {
+            port = Integer.parseInt(state.getProperty(PROPERTY_PORT));
+        } catch (final NumberFormatException e) {
+            return null;
+        }
+        final Socket socket;
+        try {
+            socket = new Socket(InetAddress.getByName(null), port);
+        } catch (final IOException e) {
+            // daemon not running, stale state file
+            return null;
+        }
+        try {
+            final DataOutputStream req = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            req.writeUTF(state.getProperty(PROPERTY_TOKEN));
+            req.writeByte(COMMAND_BUILD);
+            req.writeUTF(baseDir.getAbsolutePath());
+            req.writeInt(args.length);
+            for (final String arg: args) {
+                req.writeUTF(arg);
+            }
+            req.flush();
+
+            final DataInputStream res = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            byte[] buf = new byte[8192];
+            while (true) {
+                final byte type;
+                try {
+                    type = res.readByte();
+                } catch (final EOFException e) {
+                    err.println("Error: Daemon closed connection");
+                    return 1;
+                }
+                switch (type) {
+                    case FRAME_OUT:
+                    case FRAME_ERR:
+                        final int len = res.readInt();
+                        if (len > buf.length) {
+                            buf = new byte[len];
+                        }
+                        res.readFully(buf, 0, len);
+                        final PrintStream dst = type == FRAME_OUT ? out : err;
+                        dst.write(buf, 0, len);
+                        dst.flush();
+                        break;
+                    case FRAME_EXIT:
+                        return res.readInt();
+                    case FRAME_REJECT:
+                        return null;
+                    default:
+                        err.println("Error: Unsupported daemon response");
+                        return 1;
+                }
+            }
+        } catch (final IOException e) {
+            err.println("Error: Failed to communicate with daemon: " + e.getMessage());
+            return 1;
+        } finally {
+            try {
+                socket.close();
+            } catch (final IOException e) {
+                // ignore
+            }
+        }
+    }
+
+}
@@ -20,8 +20,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import org.apache.tools.ant.BuildEvent;
 import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.BuildListener;
 import org.apache.tools.ant.Project;
+import org.apache.tools.ant.Target;
 import org.apache.tools.ant.Task;
 import org.apache.tools.ant.types.Mapper;
 import org.apache.tools.ant.types.XMLCatalog;
@@ -31,6 +34,7 @@ import org.dita.dost.module.AbstractPipelineModule;
 import org.dita.dost.module.XsltModule;
 import org.dita.dost.pipeline.PipelineFacade;
 import org.dita.dost.pipeline.PipelineHashIO;
+import org.dita.dost.util.BuildProfile;
 import org.dita.dost.util.Job;
 
 /**
@@ -39,6 +43,11 @@ import org.dita.dost.util.Job;
  * @author Deborah Pickett
  */
 public final class ExtensibleAntInvoker extends Task {
+
+    /** Ant property for build profile output file. */
+    public static final String ANT_PROPERTY_BUILD_PROFILE = "build.profile";
+    /** Ant reference for build profile. */
+    private static final String ANT_REFERENCE_BUILD_PROFILE = "build.profile";
     
     /** Pipeline. */
     private final PipelineFacade pipeline;
@@ -138,7 +147,9 @@ public final class ExtensibleAntInvoker extends Task {
         final DITAOTAntLogger logger = new DITAOTAntLogger(getProject());
         logger.setTask(this);
         pipeline.setLogger(logger);
-        pipeline.setJob(getJob(tempDir, getProject()));
+        final Job job = getJob(tempDir, getProject());
+        pipeline.setJob(job);
+        initProfile(getProject());
         try {
             for (final Module m: modules) {
                 final PipelineHashIO pipelineInput = new PipelineHashIO();
@@ -162,6 +173,10 @@ public final class ExtensibleAntInvoker extends Task {
                     x.setFilenameParam(xm.filenameparameter);
                     x.setFiledirParam(xm.filedirparameter);
                     x.setReloadstylesheet(xm.reloadstylesheet);
+                    x.setParallel(xm.parallel);
+                    if (xm.threads > 0) {
+                        x.setThreads(xm.threads);
+                    }
                     x.setXMLCatalog(xm.xmlcatalog);
                     if (xm.mapper != null) {
                     	x.setMapper(xm.mapper.getImplementation());
@@ -175,7 +190,12 @@ public final class ExtensibleAntInvoker extends Task {
                         }
                     }
                     start = System.currentTimeMillis();
-                    pipeline.execute(x, pipelineInput);
+                    BuildProfile.moduleStarted(xm.style != null ? xm.style.getName() : XsltModule.class.getSimpleName());
+                    try {
+                        pipeline.execute(x, pipelineInput);
+                    } finally {
+                        BuildProfile.moduleFinished();
+                    }
                     end = System.currentTimeMillis();
                 } else {
                     for (final Param p : m.params) {
@@ -190,13 +210,22 @@ public final class ExtensibleAntInvoker extends Task {
                         }
                     }
                     start = System.currentTimeMillis();
-                    pipeline.execute(m.getImplementation(), pipelineInput);
+                    BuildProfile.moduleStarted(m.getImplementation().getSimpleName());
+                    try {
+                        pipeline.execute(m.getImplementation(), pipelineInput);
+                    } finally {
+                        BuildProfile.moduleFinished();
+                    }
                     end = System.currentTimeMillis();
                 }
                 logger.debug("Module processing took " + (end - start) + " ms");
+                // keep XML job file in sync for Ant and XSLT consumers between modules
+                job.exportXml();
             }
         } catch (final DITAOTException e) {
             throw new BuildException("Failed to run pipeline: " + e.getMessage(), e);
+        } catch (final IOException e) {
+            throw new BuildException("Failed to export job configuration: " + e.getMessage(), e);
         }
     }
     
@@ -224,6 +253,83 @@ public final class ExtensibleAntInvoker extends Task {
         return job;
     }
     
+    /**
+     * Start build profiling if profile output file has been set and profiling has not been started
+     * for the Ant project. Profile is written when the build finishes.
+     *
+     * @param project Ant project
+     */
+    private static void initProfile(final Project project) {
+        final String out = project.getProperty(ANT_PROPERTY_BUILD_PROFILE);
+        if (out == null || out.isEmpty() || project.getReference(ANT_REFERENCE_BUILD_PROFILE) != null) {
+            return;
+        }
+        final BuildProfile profile = BuildProfile.start();
+        project.addReference(ANT_REFERENCE_BUILD_PROFILE, profile);
+        project.addBuildListener(new ProfileListener(profile, project.resolveFile(out)));
+    }
+
+    /**
+     * Build listener that records target timings and writes build profile.
+     */
+    private static final class ProfileListener implements BuildListener {
+
+        private final BuildProfile profile;
+        private final File out;
+        private final Map<Target, Long> starts = new HashMap<>();
+
+        ProfileListener(final BuildProfile profile, final File out) {
+            this.profile = profile;
+            this.out = out;
+        }
+
+        @Override
+        public void targetStarted(final BuildEvent event) {
+            starts.put(event.getTarget(), System.nanoTime());
+        }
+
+        @Override
+        public void targetFinished(final BuildEvent event) {
+            final Long start = starts.remove(event.getTarget());
+            if (start != null) {
+                profile.addTarget(event.getTarget().getName(), System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public void buildFinished(final BuildEvent event) {
+            BuildProfile.stop();
+            event.getProject().removeBuildListener(this);
+            try {
+                profile.write(out);
+                event.getProject().log("Build profile written to " + out.getAbsolutePath(), Project.MSG_INFO);
+            } catch (final IOException e) {
+                event.getProject().log("Failed to write build profile " + out.getAbsolutePath() + ": " + e.getMessage(), Project.MSG_ERR);
+            }
+        }
+
+        @Override
+        public void buildStarted(final BuildEvent event) {
+            // NOOP
+        }
+
+        @Override
+        public void taskStarted(final BuildEvent event) {
+            // NOOP
+        }
+
+        @Override
+        public void taskFinished(final BuildEvent event) {
+            // NOOP
+        }
+
+        @Override
+        public void messageLogged(final BuildEvent event) {
+            // NOOP
+        }
+
+    }
+    
     private Set<File> readListFile(final List<Xslt.IncludesFile> includes, final DITAOTAntLogger logger) {
     	final Set<File> inc = new HashSet<>();
     	for (final Xslt.IncludesFile i: includes) {
@@ -297,6 +403,8 @@ public final class ExtensibleAntInvoker extends Task {
         private String filedirparameter;
         private XMLCatalog xmlcatalog;
         private boolean reloadstylesheet;
+        private boolean parallel;
+        private int threads;
         
         // Ant setters
         
@@ -327,6 +435,14 @@ public final class ExtensibleAntInvoker extends Task {
         	this.reloadstylesheet = reloadstylesheet;
         }
         
+        public void setParallel(final boolean parallel) {
+            this.parallel = parallel;
+        }
+        
+        public void setThreads(final int threads) {
+            this.threads = threads;
+        }
+        
         public void setIn(final File in) {
         	this.in = in;
         }
@@ -75,7 +75,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
             this.property = property;
         }
 
-        abstract String getValue(final String value);
+        abstract String getValue(final File baseDir, final String value);
     }
 
     private static class StringArgument extends Argument {
@@ -84,7 +84,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
         }
 
         @Override
-        String getValue(final String value) {
+        String getValue(final File baseDir, final String value) {
             return value;
         }
     }
@@ -95,8 +95,8 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
         }
 
         @Override
-        String getValue(final String value) {
-            return new File(value).getAbsolutePath();
+        String getValue(final File baseDir, final String value) {
+            return resolve(baseDir, value).getAbsolutePath();
         }
     }
 
@@ -106,8 +106,8 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
         }
 
         @Override
-        String getValue(final String value) {
-            final File f = new File(value);
+        String getValue(final File baseDir, final String value) {
+            final File f = resolve(baseDir, value);
             if (f.exists()) {
                 return f.getAbsolutePath();
             } else {
@@ -205,6 +205,9 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
     /** The default build file name. {@value} */
     public static final String DEFAULT_BUILD_FILENAME = "build.xml";
 
+    /** Directory relative file arguments are resolved against. */
+    private final File baseDir;
+
     /** Our current message output status. Follows Project.MSG_XXX. */
     private int msgOutputLevel = Project.MSG_WARN;
 
@@ -219,10 +222,10 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
     private String uninstallId;
 
     /** Stream to use for logging. */
-    private static PrintStream out = System.out;
+    private PrintStream out;
 
     /** Stream that we are using for logging error messages. */
-    private static PrintStream err = System.err;
+    private PrintStream err;
 
     /** The build targets. */
     private final Vector<String> targets = new Vector<>();
@@ -275,7 +278,13 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
      * Whether or not a logfile is being used. This is used to check if the
      * output streams must be closed.
      */
-    private static boolean isLogFileUsed = false;
+    private boolean isLogFileUsed = false;
+
+    /**
+     * Whether relative -D values that name existing files are resolved against base directory. Used when
+     * the process working directory is not the directory the build was started from.
+     */
+    private boolean resolveDefines = false;
 
     /**
      * optional thread priority
@@ -391,7 +400,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
      * 
      * @since Ant 1.6
      */
-    private static void handleLogfile() {
+    private void handleLogfile() {
         if (isLogFileUsed) {
             FileUtils.close(out);
             FileUtils.close(err);
@@ -413,6 +422,68 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
      * Constructor used when creating Main for later arg processing and startup
      */
     public Main() {
+        this(new File(System.getProperty("user.dir")));
+    }
+
+    /**
+     * Constructor used when arguments are relative to a directory other than the current working directory.
+     * 
+     * @param baseDir absolute directory to resolve relative file arguments against
+     */
+    Main(final File baseDir) {
+        this(baseDir, System.out, System.err);
+    }
+
+    /**
+     * Constructor used when arguments are relative to a directory other than the current working directory
+     * and output is written to streams other than standard streams.
+     * 
+     * @param baseDir absolute directory to resolve relative file arguments against
+     * @param out output stream
+     * @param err error stream
+     */
+    Main(final File baseDir, final PrintStream out, final PrintStream err) {
+        this.baseDir = baseDir;
+        this.out = out;
+        this.err = err;
+    }
+
+    /**
+     * Run build in the current JVM without exiting. Used by {@link Daemon} to run builds in a long-running process.
+     * Output is written to the given streams and user input is disabled. The process working directory is
+     * not the directory the build was started from, so relative -D values that name existing files are
+     * resolved against base directory.
+     * 
+     * @param args command line arguments
+     * @param baseDir absolute directory to resolve relative file arguments against
+     * @param out output stream
+     * @param err error stream
+     * @return exit code
+     */
+    static int run(final String[] args, final File baseDir, final PrintStream out, final PrintStream err) {
+        final int[] exitCode = new int[1];
+        final Main m = new Main(baseDir, out, err) {
+            @Override
+            protected void exit(final int code) {
+                exitCode[0] = code;
+            }
+        };
+        m.allowInput = false;
+        m.resolveDefines = true;
+        m.startAnt(args, null, null);
+        return exitCode[0];
+    }
+
+    /**
+     * Resolve file argument.
+     * 
+     * @param baseDir absolute directory to resolve relative paths against
+     * @param path file path
+     * @return resolved file
+     */
+    private static File resolve(final File baseDir, final String path) {
+        final File f = new File(path);
+        return f.isAbsolute() ? f : new File(baseDir, path);
     }
 
     /**
@@ -457,7 +528,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
                 allowInput = false;
             } else if (arg.equals("-logfile") || arg.equals("-l")) {
                 try {
-                    final File logFile = new File(args[i + 1]);
+                    final File logFile = resolve(baseDir, args[i + 1]);
                     i++;
                     logTo = new PrintStream(new FileOutputStream(logFile));
                     isLogFileUsed = true;
@@ -539,7 +610,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
             targets.clear();
             if (installFile != null) {
                 targets.add("install");                
-                final File f = new File(installFile.replace('/', File.separatorChar)).getAbsoluteFile();
+                final File f = resolve(baseDir, installFile.replace('/', File.separatorChar)).getAbsoluteFile();
                 if (f.exists()) {
                     definedProps.put("plugin.file", f.getAbsolutePath());
                 } else {
@@ -566,7 +637,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
             }
             // default values
             if (!definedProps.containsKey("output.dir")) {
-                definedProps.put("output.dir", new File(new File("."), "out").getAbsolutePath());
+                definedProps.put("output.dir", new File(baseDir, "out").getAbsolutePath());
             }
             if (!definedProps.containsKey("base.temp.dir") && !definedProps.containsKey("dita.temp.dir")) {
                 definedProps.put("base.temp.dir", new File(System.getProperty("java.io.tmpdir")).getAbsolutePath());
@@ -578,7 +649,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
             // but -find then search for it
             if (searchForFile) {
                 if (searchForThis != null) {
-                    buildFile = findBuildFile(System.getProperty("user.dir"), searchForThis);
+                    buildFile = findBuildFile(baseDir.getPath(), searchForThis);
                     if (buildFile == null) {
                         throw new BuildException("Could not locate a build file!");
                     }
@@ -592,7 +663,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
                         if (msgOutputLevel >= Project.MSG_VERBOSE) {
                             System.out.println("Searching the default build file: " + searchForThis);
                         }
-                        buildFile = findBuildFile(System.getProperty("user.dir"), searchForThis);
+                        buildFile = findBuildFile(baseDir.getPath(), searchForThis);
                     } while (buildFile == null && it.hasNext());
                     if (buildFile == null) {
                         throw new BuildException("Could not locate a build file!");
@@ -603,7 +674,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
                 final Iterator<ProjectHelper> it = ProjectHelperRepository.getInstance().getHelpers();
                 do {
                     final ProjectHelper helper = it.next();
-                    buildFile = new File(helper.getDefaultBuildFile());
+                    buildFile = resolve(baseDir, helper.getDefaultBuildFile());
                     if (msgOutputLevel >= Project.MSG_VERBOSE) {
                         System.out.println("Trying the default build file: " + buildFile);
                     }
@@ -673,7 +744,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
     /** Handle the -buildfile, -file, -f argument */
     private int handleArgBuildFile(final String[] args, int pos) {
         try {
-            buildFile = new File(args[++pos].replace('/', File.separatorChar));
+            buildFile = resolve(baseDir, args[++pos].replace('/', File.separatorChar));
         } catch (final ArrayIndexOutOfBoundsException aioobe) {
             throw new BuildException("You must specify a buildfile when using the -buildfile argument");
         }
@@ -719,6 +790,12 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
         if (RESERVED_PROPERTIES.containsKey(name)) {
             throw new BuildException("Property " + name + " cannot be set with -D, use " + RESERVED_PROPERTIES.get(name) + " instead");
         }
+        if (resolveDefines && !value.isEmpty()) {
+            final File f = resolve(baseDir, value);
+            if (!new File(value).isAbsolute() && f.exists()) {
+                value = f.getAbsolutePath();
+            }
+        }
         definedProps.put(name, value);
         return argPos;
     }
@@ -739,7 +816,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
         }
         final Argument a = ARGUMENTS.get(name);
         
-        definedProps.put(a.property, a.getValue(value));
+        definedProps.put(a.property, a.getValue(baseDir, value));
         return argPos;
     }
     
@@ -759,7 +836,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
         }
         final Argument a = LEGACY_ARGUMENTS.get(name);
         
-        definedProps.put(a.property, a.getValue(value));
+        definedProps.put(a.property, a.getValue(baseDir, value));
         return argPos;
     }
 
@@ -832,7 +909,7 @@ public class Main extends org.apache.tools.ant.Main implements AntMain {
             final Properties props = new Properties();
             FileInputStream fis = null;
             try {
-                fis = new FileInputStream(filename);
+                fis = new FileInputStream(resolve(baseDir, filename));
                 props.load(fis);
             } catch (final IOException e) {
                 System.out.println("Could not load property file " + filename + ": " + e.getMessage());
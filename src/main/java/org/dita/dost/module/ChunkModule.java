@@ -16,10 +16,12 @@ import static org.dita.dost.util.FileUtils.*;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
@@ -53,6 +55,7 @@ final public class ChunkModule extends AbstractPipelineModuleImpl {
      * using to save relative path when do rename action for newly chunked file
      */
     private final Map<String, String> relativePath2fix = new HashMap<>();
+    private boolean parallel;
 
     /**
      * Constructor.
@@ -71,6 +74,7 @@ final public class ChunkModule extends AbstractPipelineModuleImpl {
     @Override
     public AbstractPipelineOutput execute(final AbstractPipelineInput input) throws DITAOTException {
         final String transtype = input.getAttribute(ANT_INVOKER_EXT_PARAM_TRANSTYPE);
+        parallel = Boolean.valueOf(input.getAttribute(ANT_INVOKER_EXT_PARAM_PARALLEL));
         // change to xml property
         final ChunkMapReader mapReader = new ChunkMapReader();
         mapReader.setLogger(logger);
@@ -141,25 +145,64 @@ final public class ChunkModule extends AbstractPipelineModuleImpl {
     }
 
     /**
-     * Update href attributes in ditamap and topic files.
+     * Update href attributes in ditamap and topic files. Only files that may refer to moved or renamed files
+     * are rewritten. Files are processed concurrently when parallel processing is enabled.
      */
-    private void updateRefOfDita(final Map<String, String> changeTable, final Map<String, String> conflictTable) {
-        final TopicRefWriter topicRefWriter = new TopicRefWriter();
-        topicRefWriter.setLogger(logger);
-        topicRefWriter.setJob(job);
-        topicRefWriter.setChangeTable(changeTable);
-        topicRefWriter.setup(conflictTable);
-        try {
-            for (final FileInfo f : job.getFileInfo()) {
-                if (ATTR_FORMAT_VALUE_DITA.equals(f.format) || ATTR_FORMAT_VALUE_DITAMAP.equals(f.format)) {
-                    topicRefWriter.setFixpath(relativePath2fix.get(f.file.toString()));
-                    topicRefWriter.write(new File(job.tempDir.getAbsoluteFile(), f.file.getPath()).getAbsoluteFile());
+    private void updateRefOfDita(final Map<String, String> changeTable, final Map<String, String> conflictTable)
+            throws DITAOTException {
+        final List<FileInfo> files = new ArrayList<>();
+        for (final FileInfo f : job.getFileInfo()) {
+            if (ATTR_FORMAT_VALUE_DITA.equals(f.format) || ATTR_FORMAT_VALUE_DITAMAP.equals(f.format)) {
+                files.add(f);
+            }
+        }
+        if (parallel) {
+            ParallelUtils.execute(files, ParallelUtils.DEFAULT_THREADS, new ParallelUtils.WorkerFactory<FileInfo>() {
+                @Override
+                public ParallelUtils.Worker<FileInfo> newWorker() {
+                    final RefUpdater updater = new RefUpdater(changeTable, conflictTable);
+                    return new ParallelUtils.Worker<FileInfo>() {
+                        @Override
+                        public void process(final FileInfo f) {
+                            updater.update(f);
+                        }
+                    };
                 }
+            });
+        } else {
+            final RefUpdater updater = new RefUpdater(changeTable, conflictTable);
+            for (final FileInfo f : files) {
+                updater.update(f);
+            }
+        }
+    }
+
+    /**
+     * Reference updater for a single thread.
+     */
+    private final class RefUpdater {
+
+        private final TopicRefWriter topicRefWriter = new TopicRefWriter();
+
+        RefUpdater(final Map<String, String> changeTable, final Map<String, String> conflictTable) {
+            topicRefWriter.setLogger(logger);
+            topicRefWriter.setJob(job);
+            topicRefWriter.setChangeTable(changeTable);
+            topicRefWriter.setup(conflictTable);
+        }
+
+        void update(final FileInfo f) {
+            final File file = new File(job.tempDir.getAbsoluteFile(), f.file.getPath()).getAbsoluteFile();
+            topicRefWriter.setFixpath(relativePath2fix.get(f.file.toString()));
+            try {
+                if (topicRefWriter.isAffected(file)) {
+                    topicRefWriter.write(file);
+                }
+            } catch (final IOException e) {
+                logger.error("Failed to read " + file.getAbsolutePath() + ": " + e.getMessage(), e);
+            } catch (final DITAOTException e) {
+                logger.error(e.getMessage(), e);
             }
-        } catch (final RuntimeException e) {
-            throw e;
-        } catch (final DITAOTException ex) {
-            logger.error(ex.getMessage(), ex);
         }
 
     }
@@ -172,12 +215,12 @@ final public class ChunkModule extends AbstractPipelineModuleImpl {
 
         final Set<URI> hrefTopics = new HashSet<>();
         for (final FileInfo f : job.getFileInfo()) {
-            if (f.isNonConrefTarget) {
+            if (f.isNonConrefTarget()) {
                 hrefTopics.add(f.uri);
             }
         }
         for (final FileInfo f : job.getFileInfo()) {
-            if (f.isSkipChunk) {
+            if (f.isSkipChunk()) {
                 final URI s = f.uri;
                 if (s.getFragment() == null) {
                     // This entry does not have an anchor, we assume that this
@@ -329,12 +372,12 @@ final public class ChunkModule extends AbstractPipelineModuleImpl {
         for (final URI file : chunkedDitamapSet) {
             final FileInfo f = job.getOrCreateFileInfo(file);
             f.format = ATTR_FORMAT_VALUE_DITAMAP;
-            f.isResourceOnly = false;
+            f.setResourceOnly(false);
         }
         for (final URI file : chunkedTopicSet) {
             final FileInfo f = job.getOrCreateFileInfo(file);
             f.format = ATTR_FORMAT_VALUE_DITA;
-            f.isResourceOnly = false;
+            f.setResourceOnly(false);
         }
 
         try {
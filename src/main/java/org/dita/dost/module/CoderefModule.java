@@ -15,6 +15,7 @@ import org.dita.dost.pipeline.AbstractPipelineInput;
 import org.dita.dost.pipeline.AbstractPipelineOutput;
 import org.dita.dost.util.Job.FileInfo;
 import org.dita.dost.util.Job.FileInfo.Filter;
+import org.dita.dost.util.Job.FileInfo.Flag;
 import org.dita.dost.writer.CoderefResolver;
 /**
  * Coderef Module class.
@@ -38,10 +39,10 @@ final class CoderefModule extends AbstractPipelineModuleImpl {
     @Override
     public AbstractPipelineOutput execute(final AbstractPipelineInput input)
             throws DITAOTException {
-        final Collection<FileInfo> fis = job.getFileInfo(new Filter() {
+        final Collection<FileInfo> fis = job.getFileInfo(Flag.HAS_CODEREF, new Filter() {
             @Override
             public boolean accept(final FileInfo f) {
-                return f.hasCoderef;
+                return !f.isUpToDate();
             }
         });
         if (!fis.isEmpty()) {
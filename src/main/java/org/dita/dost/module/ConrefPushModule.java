@@ -19,7 +19,7 @@ import org.dita.dost.pipeline.AbstractPipelineOutput;
 import org.dita.dost.reader.ConrefPushReader;
 import org.dita.dost.reader.ConrefPushReader.MoveKey;
 import org.dita.dost.util.Job.FileInfo;
-import org.dita.dost.util.Job.FileInfo.Filter;
+import org.dita.dost.util.Job.FileInfo.Flag;
 import org.dita.dost.writer.ConrefPushParser;
 import org.w3c.dom.DocumentFragment;
 
@@ -31,12 +31,7 @@ final class ConrefPushModule extends AbstractPipelineModuleImpl {
     @Override
     public AbstractPipelineOutput execute(final AbstractPipelineInput input)
             throws DITAOTException {
-        final Collection<FileInfo> fis = job.getFileInfo(new Filter() {
-            @Override
-            public boolean accept(FileInfo f) {
-                return f.isConrefPush;
-            }
-        });
+        final Collection<FileInfo> fis = job.getFileInfo(Flag.IS_CONREF_PUSH);
         if (!fis.isEmpty()) {
             final ConrefPushReader reader = new ConrefPushReader();
             reader.setLogger(logger);
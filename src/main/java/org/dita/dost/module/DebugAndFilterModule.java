@@ -38,6 +38,7 @@ import org.apache.xml.resolver.tools.CatalogResolver;
 import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.exception.DITAOTXMLErrorHandler;
 import org.dita.dost.log.MessageUtils;
+import org.dita.dost.module.SubjectSchemeCache.SubjectScheme;
 import org.dita.dost.pipeline.AbstractPipelineInput;
 import org.dita.dost.pipeline.AbstractPipelineOutput;
 import org.dita.dost.reader.DitaValReader;
@@ -71,30 +72,30 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
     private URI inputMap;
     /** use grammar pool cache */
     private boolean gramcache = true;
+    /** Reuse parse results of list generation in debug and filter stage. */
+    private boolean fused;
+    /** Parse cache, {@code null} if not used. */
+    private ParseCache parseCache;
+    /** Grammar fingerprint for parse cache, calculated once per execution. */
+    private byte[] grammarFingerprint;
+    /** Parse cache is a spool in temporary directory. */
+    private boolean spool;
     private boolean setSystemId;
     /** Profiling is enabled. */
     private boolean profilingEnabled;
     private boolean validate;
     private String transtype;
     private boolean forceUnique;
+    /** Process topics in parallel. */
+    private boolean parallel;
     /** Absolute DITA-OT base path. */
     private File ditaDir;
     private File ditavalFile;
-    private FilterUtils filterUtils;
-    /** Absolute path to current destination file. */
-    private File outputFile;
-    private Map<String, Map<String, Set<String>>> validateMap;
-    private Map<String, Map<String, String>> defaultValueMap;
-    /** XMLReader instance for parsing dita file */
-    private XMLReader reader;
-    /** Absolute path to current source file. */
-    private URI currentFile;
     private Map<URI, Set<URI>> dic;
-    private SubjectSchemeReader subjectSchemeReader;
     private FilterUtils baseFilterUtils;
+    /** Subject scheme information by set of subject scheme files. */
+    private SubjectSchemeCache subjectSchemes;
     private ForceUniqueFilter forceUniqueFilter;
-    private DitaWriterFilter ditaWriterFilter;
-    private TopicFragmentFilter topicFragmentFilter;
 
     @Override
     public AbstractPipelineOutput execute(final AbstractPipelineInput input) throws DITAOTException {
@@ -105,15 +106,54 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
             readArguments(input);
             init();
 
+            final List<FileInfo> maps = new ArrayList<>();
+            final List<FileInfo> topics = new ArrayList<>();
             for (final FileInfo f: job.getFileInfo()) {
-                if (isFormatDita(f.format) || ATTR_FORMAT_VALUE_DITAMAP.equals(f.format)
-                        || f.isConrefTarget || f.isCopyToSource) {
-                    processFile(f);
+                if (ATTR_FORMAT_VALUE_DITAMAP.equals(f.format)) {
+                    maps.add(f);
+                } else if (isFormatDita(f.format) || f.isConrefTarget() || f.isCopyToSource()) {
+                    if (f.isUpToDate()) {
+                        // already processed by previous incremental build
+                        if (isFormatDita(f.format)) {
+                            f.format = ATTR_FORMAT_VALUE_DITA;
+                        }
+                    } else {
+                        topics.add(f);
+                    }
+                }
+            }
+
+            // Maps are always processed serially, because force unique processing spans all maps
+            final FileProcessor processor = new FileProcessor();
+            for (final FileInfo f: maps) {
+                processor.processFile(f);
+            }
+            if (parallel) {
+                ParallelUtils.execute(topics, ParallelUtils.DEFAULT_THREADS, new ParallelUtils.WorkerFactory<FileInfo>() {
+                    @Override
+                    public ParallelUtils.Worker<FileInfo> newWorker() throws SAXException {
+                        final FileProcessor processor = new FileProcessor();
+                        return new ParallelUtils.Worker<FileInfo>() {
+                            @Override
+                            public void process(final FileInfo f) {
+                                processor.processFile(f);
+                            }
+                        };
+                    }
+                });
+            } else {
+                for (final FileInfo f: topics) {
+                    processor.processFile(f);
                 }
             }
 
             performCopytoTask();
 
+            if (spool) {
+                // parse results spooled by list generation are no longer needed
+                parseCache.clear();
+            }
+
             job.write();
         } catch (final Exception e) {
             e.printStackTrace();
@@ -123,142 +163,204 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
         return null;
     }
 
-    private void processFile(final FileInfo f) {
-        currentFile = f.src;
-        if (!exists(f.src)) { //copytoMap.containsKey(f.file)
-            logger.debug("Ignoring a copy-to file " + f.src);
-            return;
-        }
-        outputFile = new File(job.tempDir, f.file.getPath());
-        final File outputDir = outputFile.getParentFile();
-        if (!outputDir.exists() && !outputDir.mkdirs()) {
-            logger.error("Failed to create output directory " + outputDir.getAbsolutePath());
-            return;
-        }
-        logger.info("Processing " + f.src);
+    private void init() throws IOException, DITAOTException, SAXException {
+        // Output subject schemas
+        outputSubjectScheme();
+        dic = SubjectSchemeReader.readMapFromXML(new File(job.tempDir, FILE_NAME_SUBJECT_DICTIONARY));
 
-        final Set<URI> schemaSet = dic.get(f.uri);
-        if (schemaSet != null && !schemaSet.isEmpty()) {
-            logger.debug("Loading subject schemes");
-            subjectSchemeReader.reset();
-            for (final URI schema : schemaSet) {
-                subjectSchemeReader.loadSubjectScheme(new File(job.tempDir.toURI().resolve(schema.getPath() + SUBJECT_SCHEME_EXTENSION)));
-            }
-            validateMap = subjectSchemeReader.getValidValuesMap();
-            defaultValueMap = subjectSchemeReader.getDefaultValueMap();
-        } else {
-            validateMap = Collections.EMPTY_MAP;
-            defaultValueMap = Collections.EMPTY_MAP;
-        }
         if (profilingEnabled) {
-            filterUtils = baseFilterUtils.refine(subjectSchemeReader.getSubjectSchemeMap());
+            final DitaValReader filterReader = new DitaValReader();
+            filterReader.setLogger(logger);
+            filterReader.initXMLReader(setSystemId);
+            Map<FilterKey, Action> filterMap;
+            if (ditavalFile != null) {
+                filterReader.read(ditavalFile.getAbsoluteFile());
+                filterMap = filterReader.getFilterMap();
+            } else {
+                filterMap = Collections.EMPTY_MAP;
+            }
+            baseFilterUtils = new FilterUtils(printTranstype.contains(transtype), filterMap);
+            baseFilterUtils.setLogger(logger);
         }
+        subjectSchemes = new SubjectSchemeCache(job, logger, baseFilterUtils);
 
-        InputSource in = null;
-        OutputStream out = null;
-        try {
-            out = new FileOutputStream(outputFile);
+        CatalogUtils.setDitaDir(ditaDir);
+
+        forceUniqueFilter = new ForceUniqueFilter();
+        forceUniqueFilter.setLogger(logger);
+        forceUniqueFilter.setJob(job);
+        forceUniqueFilter.setEntityResolver(CatalogUtils.getCatalogResolver());
+    }
+
+    /**
+     * Thread confined file processor. Each processor owns its XML reader and reusable filters.
+     */
+    private final class FileProcessor {
 
-            reader.setErrorHandler(new DITAOTXMLErrorHandler(currentFile.toString(), logger));
+        /** XMLReader instance for parsing dita file */
+        private final XMLReader reader;
+        private final DitaWriterFilter ditaWriterFilter;
+        private final TopicFragmentFilter topicFragmentFilter;
+        private final SAXTransformerFactory stf;
 
-            final TransformerFactory tf = TransformerFactory.newInstance();
-//            final Transformer serializer = tf.newTransformer();
-            final SAXTransformerFactory stf = (SAXTransformerFactory) tf;
-            final TransformerHandler serializer = stf.newTransformerHandler();
+        FileProcessor() throws SAXException {
+            reader = initXmlReader();
+            stf = (SAXTransformerFactory) TransformerFactory.newInstance();
 
-            XMLReader parser = getXmlReader(f.format);
-            XMLReader xmlSource = parser;
-            for (final XMLFilter filter: getProcessingPipe(currentFile)) {
-                filter.setParent(xmlSource);
-                xmlSource = filter;
+            ditaWriterFilter = new DitaWriterFilter();
+            ditaWriterFilter.setLogger(logger);
+            ditaWriterFilter.setJob(job);
+            ditaWriterFilter.setEntityResolver(reader.getEntityResolver());
+
+            topicFragmentFilter = new TopicFragmentFilter(ATTRIBUTE_NAME_CONREF, ATTRIBUTE_NAME_CONREFEND);
+        }
+
+        void processFile(final FileInfo f) {
+            final URI currentFile = f.src;
+            if (!exists(f.src)) { //copytoMap.containsKey(f.file)
+                logger.debug("Ignoring a copy-to file " + f.src);
+                return;
+            }
+            final File outputFile = new File(job.tempDir, f.file.getPath());
+            final File outputDir = outputFile.getParentFile();
+            if (!outputDir.exists() && !outputDir.mkdirs() && !outputDir.exists()) {
+                logger.error("Failed to create output directory " + outputDir.getAbsolutePath());
+                return;
             }
-            // ContentHandler must be reset so e.g. Saxon 9.1 will reassign ContentHandler
-            // when reusing filter with multiple Transformers.
-            xmlSource.setContentHandler(null);
+            logger.info("Processing " + f.src);
 
+            final SubjectScheme subjectScheme = subjectSchemes.get(dic.get(f.uri));
+
+            final long start = BuildProfile.now();
+            InputSource in = null;
+            OutputStream out = null;
             try {
-                final LexicalHandler lexicalHandler = new DTDForwardHandler(xmlSource);
-                parser.setProperty("http://xml.org/sax/properties/lexical-handler", lexicalHandler);
-                parser.setFeature("http://xml.org/sax/features/lexical-handler", true);
-            } catch (final SAXNotRecognizedException e) {}
-
-            in = new InputSource(f.src.toString());
-//            final Source source = new SAXSource(xmlSource, in);
-            final Result result = new StreamResult(out);
-//            serializer.transform(source, result);
-            serializer.setResult(result);
-            xmlSource.setContentHandler(serializer);
-            xmlSource.parse(new InputSource(f.src.toString()));
-        } catch (final RuntimeException e) {
-            throw e;
-        } catch (final Exception e) {
-            logger.error(e.getMessage(), e) ;
-        } finally {
-            if (out != null) {
+                out = new FileOutputStream(outputFile);
+
+                reader.setErrorHandler(new DITAOTXMLErrorHandler(currentFile.toString(), logger));
+
+                final TransformerHandler serializer = stf.newTransformerHandler();
+
+                XMLReader parser = getXmlReader(f.format);
+                XMLReader xmlSource = parser;
+                for (final XMLFilter filter: getProcessingPipe(f, outputFile, subjectScheme)) {
+                    filter.setParent(xmlSource);
+                    xmlSource = filter;
+                }
+                // ContentHandler must be reset so e.g. Saxon 9.1 will reassign ContentHandler
+                // when reusing filter with multiple Transformers.
+                xmlSource.setContentHandler(null);
+
                 try {
-                    out.close();
-                }catch (final Exception e) {
+                    final LexicalHandler lexicalHandler = new DTDForwardHandler(xmlSource);
+                    parser.setProperty("http://xml.org/sax/properties/lexical-handler", lexicalHandler);
+                    parser.setFeature("http://xml.org/sax/features/lexical-handler", true);
+                } catch (final SAXNotRecognizedException e) {}
+
+                in = new InputSource(f.src.toString());
+//                final Source source = new SAXSource(xmlSource, in);
+                final Result result = new StreamResult(out);
+//                serializer.transform(source, result);
+                serializer.setResult(result);
+                xmlSource.setContentHandler(serializer);
+                xmlSource.parse(new InputSource(f.src.toString()));
+                BuildProfile.fileProcessed(BuildProfile.PARSE, f.src, start);
+            } catch (final RuntimeException e) {
+                throw e;
+            } catch (final Exception e) {
+                logger.error(e.getMessage(), e) ;
+            } finally {
+                if (out != null) {
+                    try {
+                        out.close();
+                    }catch (final Exception e) {
+                        logger.error(e.getMessage(), e) ;
+                    }
+                }
+                try {
+                    close(in);
+                } catch (final IOException e) {
                     logger.error(e.getMessage(), e) ;
                 }
             }
-            try {
-                close(in);
-            } catch (final IOException e) {
-                logger.error(e.getMessage(), e) ;
-            }
-        }
 
-        if (isFormatDita(f.format)) {
-            f.format = ATTR_FORMAT_VALUE_DITA;
+            if (isFormatDita(f.format)) {
+                f.format = ATTR_FORMAT_VALUE_DITA;
+            }
         }
-    }
 
-    private XMLReader getXmlReader(final String format) throws SAXException {
-        for (final Map.Entry<String, String> e: parserMap.entrySet()) {
-            if (format != null && format.equals(e.getKey())) {
-                try {
-                    return (XMLReader) this.getClass().forName(e.getValue()).newInstance();
-                } catch (final InstantiationException | ClassNotFoundException | IllegalAccessException ex) {
-                    throw new SAXException(ex);
+        private XMLReader getXmlReader(final String format) throws SAXException {
+            for (final Map.Entry<String, String> e: parserMap.entrySet()) {
+                if (format != null && format.equals(e.getKey())) {
+                    try {
+                        return (XMLReader) this.getClass().forName(e.getValue()).newInstance();
+                    } catch (final InstantiationException | ClassNotFoundException | IllegalAccessException ex) {
+                        throw new SAXException(ex);
+                    }
                 }
             }
-        }
-        return reader;
-    }
-
+            return reader;
+        }
+
+        /**
+         * Get pipe line filters
+         *
+         * @param f file being processed
+         * @param outputFile absolute path to destination file
+         * @param subjectScheme subject scheme information for the file
+         */
+        private List<XMLFilter> getProcessingPipe(final FileInfo f, final File outputFile, final SubjectScheme subjectScheme) {
+            final URI currentFile = f.src;
+            final List<XMLFilter> pipe = new ArrayList<>();
+
+            if (genDebugInfo) {
+                final DebugFilter debugFilter = new DebugFilter();
+                debugFilter.setLogger(logger);
+                debugFilter.setInputFile(currentFile);
+                pipe.add(debugFilter);
+            }
 
-    private void init() throws IOException, DITAOTException, SAXException {
-        // Output subject schemas
-        outputSubjectScheme();
-        subjectSchemeReader = new SubjectSchemeReader();
-        subjectSchemeReader.setLogger(logger);
-        dic = SubjectSchemeReader.readMapFromXML(new File(job.tempDir, FILE_NAME_SUBJECT_DICTIONARY));
+            if (subjectScheme.filterUtils != null) {
+                final ProfilingFilter profilingFilter = new ProfilingFilter();
+                profilingFilter.setLogger(logger);
+                profilingFilter.setFilterUtils(subjectScheme.filterUtils);
+                pipe.add(profilingFilter);
+            }
 
-        if (profilingEnabled) {
-            final DitaValReader filterReader = new DitaValReader();
-            filterReader.setLogger(logger);
-            filterReader.initXMLReader(setSystemId);
-            Map<FilterKey, Action> filterMap;
-            if (ditavalFile != null) {
-                filterReader.read(ditavalFile.getAbsoluteFile());
-                filterMap = filterReader.getFilterMap();
-            } else {
-                filterMap = Collections.EMPTY_MAP;
+            final ValidationFilter validationFilter = new ValidationFilter();
+            validationFilter.setLogger(logger);
+            validationFilter.setValidateMap(subjectScheme.validateMap);
+            validationFilter.setCurrentFile(currentFile);
+            validationFilter.setJob(job);
+            validationFilter.setProcessingMode(processingMode);
+            pipe.add(validationFilter);
+
+            final NormalizeFilter normalizeFilter = new NormalizeFilter();
+            normalizeFilter.setLogger(logger);
+            pipe.add(normalizeFilter);
+
+            if (forceUnique && ATTR_FORMAT_VALUE_DITAMAP.equals(f.format)) {
+                forceUniqueFilter.setCurrentFile(currentFile);
+                pipe.add(forceUniqueFilter);
             }
-            baseFilterUtils = new FilterUtils(printTranstype.contains(transtype), filterMap);
-            baseFilterUtils.setLogger(logger);
-        }
 
-        initXmlReader();
+            pipe.add(topicFragmentFilter);
+
+            ditaWriterFilter.setDefaultValueMap(subjectScheme.defaultValueMap);
+            ditaWriterFilter.setCurrentFile(currentFile);
+            ditaWriterFilter.setOutputFile(outputFile);
+            pipe.add(ditaWriterFilter);
+
+            return pipe;
+        }
 
-        initFilters();
     }
+
     /**
      * Init xml reader used for pipeline parsing.
      */
-     private void initXmlReader() throws SAXException {
-        CatalogUtils.setDitaDir(ditaDir);
-        reader = XMLUtils.getXMLReader();
+    private XMLReader initXmlReader() throws SAXException {
+        final XMLReader reader = XMLUtils.getXMLReader();
         if (validate) {
             reader.setFeature(FEATURE_VALIDATION, true);
             try {
@@ -271,7 +373,7 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
         final CatalogResolver resolver = CatalogUtils.getCatalogResolver();
         reader.setEntityResolver(resolver);
         if (gramcache) {
-            final XMLGrammarPool grammarPool = GrammarPoolManager.getGrammarPool();
+            final XMLGrammarPool grammarPool = GrammarPoolManager.getGrammarPool(grammarFingerprint);
             try {
                 reader.setProperty("http://apache.org/xml/properties/internal/grammar-pool", grammarPool);
                 logger.info("Using Xerces grammar pool for DTD and schema caching.");
@@ -281,72 +383,10 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
                 logger.warn("Failed to set Xerces grammar pool for parser: " + e.getMessage());
             }
         }
-    }
-
-    /**
-     * Initialize reusable filters.
-     */
-    private void initFilters() {
-        forceUniqueFilter = new ForceUniqueFilter();
-        forceUniqueFilter.setLogger(logger);
-        forceUniqueFilter.setJob(job);
-        forceUniqueFilter.setEntityResolver(reader.getEntityResolver());
-
-        ditaWriterFilter = new DitaWriterFilter();
-        ditaWriterFilter.setLogger(logger);
-        ditaWriterFilter.setJob(job);
-        ditaWriterFilter.setEntityResolver(reader.getEntityResolver());
-
-        topicFragmentFilter = new TopicFragmentFilter(ATTRIBUTE_NAME_CONREF, ATTRIBUTE_NAME_CONREFEND);
-    }
-
-    /**
-     * Get pipe line filters
-     *
-     * @param fileToParse absolute URI to current file being processed
-     */
-    private List<XMLFilter> getProcessingPipe(final URI fileToParse) {
-        final List<XMLFilter> pipe = new ArrayList<>();
-
-        if (genDebugInfo) {
-            final DebugFilter debugFilter = new DebugFilter();
-            debugFilter.setLogger(logger);
-            debugFilter.setInputFile(currentFile);
-            pipe.add(debugFilter);
+        if (parseCache != null) {
+            return new CachingXMLReader(reader, parseCache, grammarFingerprint, ditaDir);
         }
-
-        if (filterUtils != null) {
-            final ProfilingFilter profilingFilter = new ProfilingFilter();
-            profilingFilter.setLogger(logger);
-            profilingFilter.setFilterUtils(filterUtils);
-            pipe.add(profilingFilter);
-        }
-
-        final ValidationFilter validationFilter = new ValidationFilter();
-        validationFilter.setLogger(logger);
-        validationFilter.setValidateMap(validateMap);
-        validationFilter.setCurrentFile(fileToParse);
-        validationFilter.setJob(job);
-        validationFilter.setProcessingMode(processingMode);
-        pipe.add(validationFilter);
-
-        final NormalizeFilter normalizeFilter = new NormalizeFilter();
-        normalizeFilter.setLogger(logger);
-        pipe.add(normalizeFilter);
-
-        if (forceUnique) {
-            forceUniqueFilter.setCurrentFile(currentFile);
-            pipe.add(forceUniqueFilter);
-        }
-
-        pipe.add(topicFragmentFilter);
-
-        ditaWriterFilter.setDefaultValueMap(defaultValueMap);
-        ditaWriterFilter.setCurrentFile(currentFile);
-        ditaWriterFilter.setOutputFile(outputFile);
-        pipe.add(ditaWriterFilter);
-
-        return pipe;
+        return reader;
     }
 
     private void readArguments(AbstractPipelineInput input) {
@@ -366,10 +406,25 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
             }
         }
         gramcache = "yes".equalsIgnoreCase(input.getAttribute(ANT_INVOKER_EXT_PARAM_GRAMCACHE));
+        fused = Boolean.valueOf(input.getAttribute(ANT_INVOKER_EXT_PARAM_FUSED));
+        final String parseCacheDir = input.getAttribute(ANT_INVOKER_EXT_PARAM_PARSE_CACHE_DIR);
+        if (parseCacheDir != null) {
+            final String parseCacheSize = input.getAttribute(ANT_INVOKER_EXT_PARAM_PARSE_CACHE_SIZE);
+            parseCache = ParseCache.getInstance(new File(parseCacheDir), parseCacheSize != null
+                                                ? Long.parseLong(parseCacheSize) * 1024 * 1024
+                                                : ParseCache.DEFAULT_MAX_SIZE);
+        } else if (fused) {
+            parseCache = ParseCache.getInstance(new File(job.tempDir, ParseCache.SPOOL_DIR_NAME), Long.MAX_VALUE);
+            spool = true;
+        }
+        if (parseCache != null || gramcache) {
+            grammarFingerprint = CachingXMLReader.getGrammarFingerprint(ditaDir);
+        }
         validate = Boolean.valueOf(input.getAttribute(ANT_INVOKER_EXT_PARAM_VALIDATE));
         setSystemId = "yes".equals(input.getAttribute(ANT_INVOKER_EXT_PARAN_SETSYSTEMID));
         forceUnique = Boolean.valueOf(input.getAttribute(ANT_INVOKER_EXT_PARAN_FORCE_UNIQUE));
         genDebugInfo = Boolean.valueOf(input.getAttribute(ANT_INVOKER_EXT_PARAM_GENERATE_DEBUG_ATTR));
+        parallel = Boolean.valueOf(input.getAttribute(ANT_INVOKER_EXT_PARAM_PARALLEL));
         final String mode = input.getAttribute(ANT_INVOKER_EXT_PARAM_PROCESSING_MODE);
         processingMode = mode != null ? Mode.valueOf(mode.toUpperCase()) : Mode.LAX;
 
@@ -581,9 +636,11 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
      */
     private void performCopytoTask() {
         final Map<File, File> copyTo = new HashMap<>(copytoMap);
+        final Set<File> generated = new HashSet<>();
         if (forceUniqueFilter != null) {
             for (final Map.Entry<URI, URI> e: forceUniqueFilter.copyToMap.entrySet()) {
                 copyTo.put(toFile(e.getKey()), toFile(e.getValue()));
+                generated.add(toFile(e.getKey()));
             }
         }
         
@@ -592,14 +649,17 @@ public final class DebugAndFilterModule extends AbstractPipelineModuleImpl {
             final File copytoSource = entry.getValue();
             final File srcFile = new File(job.tempDir, copytoSource.getPath());
             final File targetFile = new File(job.tempDir, copytoTarget.getPath());
+            final FileInfo src = job.getFileInfo(toURI(copytoSource));
 
-            if (targetFile.exists()) {
+            if (src != null && src.isUpToDate() && targetFile.exists()) {
+                // generated from unchanged source by previous incremental build
+                job.add(new FileInfo.Builder(src).uri(toURI(copytoTarget)).isCopyToSource(false).build());
+            } else if (targetFile.exists() && !generated.contains(copytoTarget)) {
                 logger.warn(MessageUtils.getInstance().getMessage("DOTX064W", copytoTarget.getPath()).toString());
             } else {
                 final File inputMapInTemp = new File(job.tempDir, job.getInputMap().getPath()).getAbsoluteFile();
                 copyFileWithPIReplaced(srcFile, targetFile, copytoTarget, inputMapInTemp);
                 // add new file info into job
-                final FileInfo src = job.getFileInfo(toURI(copytoSource));
                 final FileInfo.Builder b = src != null ? new FileInfo.Builder(src) : new FileInfo.Builder();
                 final FileInfo dst = b.uri(toURI(copytoTarget)).isCopyToSource(false).build();
                 job.add(dst);
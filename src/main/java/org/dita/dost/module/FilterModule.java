@@ -11,7 +11,9 @@ import static org.dita.dost.util.FilterUtils.*;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -23,6 +25,7 @@ import org.dita.dost.reader.DitaValReader;
 import org.dita.dost.reader.SubjectSchemeReader;
 import org.dita.dost.util.FilterUtils;
 import org.dita.dost.util.Job.FileInfo;
+import org.dita.dost.util.ParallelUtils;
 import org.dita.dost.writer.ProfilingFilter;
 
 /**
@@ -30,6 +33,9 @@ import org.dita.dost.writer.ProfilingFilter;
  */
 final class FilterModule extends AbstractPipelineModuleImpl {
 
+    private Map<URI, Set<URI>> dic;
+    private SubjectSchemeCache subjectSchemes;
+
     @Override
     public AbstractPipelineOutput execute(final AbstractPipelineInput input) throws DITAOTException {
         if (logger == null) {
@@ -37,6 +43,7 @@ final class FilterModule extends AbstractPipelineModuleImpl {
         }
         final String transtype = input.getAttribute(ANT_INVOKER_EXT_PARAM_TRANSTYPE);
         final File ditavalFile = input.getAttribute(ANT_INVOKER_PARAM_DITAVAL) != null ? new File(input.getAttribute(ANT_INVOKER_PARAM_DITAVAL)) : null;
+        final boolean parallel = Boolean.valueOf(input.getAttribute(ANT_INVOKER_EXT_PARAM_PARALLEL));
 
         final DitaValReader ditaValReader = new DitaValReader();
         ditaValReader.setLogger(logger);
@@ -48,49 +55,39 @@ final class FilterModule extends AbstractPipelineModuleImpl {
         } else {
             filterMap = Collections.EMPTY_MAP;
         }
-        final FilterUtils filterUtils = new FilterUtils(printTranstype.contains(transtype), filterMap);
-        filterUtils.setLogger(logger);
+        final FilterUtils baseFilterUtils = new FilterUtils(printTranstype.contains(transtype), filterMap);
+        baseFilterUtils.setLogger(logger);
+        subjectSchemes = new SubjectSchemeCache(job, logger, baseFilterUtils);
 
-        final ProfilingFilter writer = new ProfilingFilter();
-        writer.setLogger(logger);
-        writer.setJob(job);
-        writer.setFilterUtils(filterUtils);
-
-        final SubjectSchemeReader subjectSchemeReader = new SubjectSchemeReader();
-        subjectSchemeReader.setLogger(logger);
-        Map<URI, Set<URI>> dic;
         try {
             dic = SubjectSchemeReader.readMapFromXML(new File(job.tempDir, FILE_NAME_SUBJECT_DICTIONARY));
         } catch (final IOException e) {
             throw new DITAOTException(e);
         }
 
+        final List<FileInfo> files = new ArrayList<>();
         for (final FileInfo f: job.getFileInfo()) {
             if (ATTR_FORMAT_VALUE_DITA.equals(f.format) || ATTR_FORMAT_VALUE_DITAMAP.equals(f.format)) {
-                final File file = new File(job.tempDir, f.file.getPath());
-                logger.info("Processing " + file.getAbsolutePath());
-
-                subjectSchemeReader.reset();
-                final Set<URI> schemaSet = dic.get(f.uri);
-                if (schemaSet != null && !schemaSet.isEmpty()) {
-                    logger.info("Loading subject schemes");
-                    for (final URI schema : schemaSet) {
-                        subjectSchemeReader.loadSubjectScheme(new File(job.tempDir.toURI().resolve(schema.getPath() + SUBJECT_SCHEME_EXTENSION)));
-                    }
-                }
-
-                writer.setFilterUtils(filterUtils.refine(subjectSchemeReader.getSubjectSchemeMap()));
-
-                try {
-                    writer.write(file.getAbsoluteFile());
-                    if (!writer.hasElementOutput()) {
-                        logger.info("All content in " + file.getAbsolutePath() + " was filtered out");
-                        job.remove(f);
-                        FileUtils.delete(file);
-                    }
-                } catch (final Exception e) {
-                    logger.error("Failed to profile " + file.getAbsolutePath() + ": " + e.getMessage());
+                files.add(f);
+            }
+        }
+        if (parallel) {
+            ParallelUtils.execute(files, ParallelUtils.DEFAULT_THREADS, new ParallelUtils.WorkerFactory<FileInfo>() {
+                @Override
+                public ParallelUtils.Worker<FileInfo> newWorker() {
+                    final ProfilingFilter writer = newProfilingFilter();
+                    return new ParallelUtils.Worker<FileInfo>() {
+                        @Override
+                        public void process(final FileInfo f) {
+                            filter(writer, f);
+                        }
+                    };
                 }
+            });
+        } else {
+            final ProfilingFilter writer = newProfilingFilter();
+            for (final FileInfo f: files) {
+                filter(writer, f);
             }
         }
 
@@ -103,4 +100,37 @@ final class FilterModule extends AbstractPipelineModuleImpl {
         return null;
     }
 
+    private ProfilingFilter newProfilingFilter() {
+        final ProfilingFilter writer = new ProfilingFilter();
+        writer.setLogger(logger);
+        writer.setJob(job);
+        return writer;
+    }
+
+    /**
+     * Filter a single file. Files with all content filtered out are removed.
+     *
+     * @param writer thread confined profiling filter
+     * @param f file to filter
+     */
+    private void filter(final ProfilingFilter writer, final FileInfo f) {
+        final File file = new File(job.tempDir, f.file.getPath());
+        logger.info("Processing " + file.getAbsolutePath());
+
+        writer.setFilterUtils(subjectSchemes.get(dic.get(f.uri)).filterUtils);
+
+        try {
+            writer.write(file.getAbsoluteFile());
+            if (!writer.hasElementOutput()) {
+                logger.info("All content in " + file.getAbsolutePath() + " was filtered out");
+                synchronized (job) {
+                    job.remove(f);
+                }
+                FileUtils.delete(file);
+            }
+        } catch (final Exception e) {
+            logger.error("Failed to profile " + file.getAbsolutePath() + ": " + e.getMessage());
+        }
+    }
+
 }
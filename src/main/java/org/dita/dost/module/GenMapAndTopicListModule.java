@@ -36,6 +36,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.stream.XMLOutputFactory;
@@ -127,9 +129,9 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
     /** List of files waiting for parsing. Values are absolute URI references. */
     private final Queue<Reference> waitList;
 
-    /** List of parsed files */
-    private final List<URI> doneList;
-    private final List<URI> failureList;
+    /** Set of parsed files */
+    private final Set<URI> doneList;
+    private final Set<URI> failureList;
 
     /** Set of outer dita files */
     private final Set<URI> outDitaFilesSet;
@@ -179,8 +181,26 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
 
     /** use grammar pool cache */
     private boolean gramcache = true;
+    /** Reuse parse results of list generation in debug and filter stage. */
+    private boolean fused;
+    /** Parse cache, {@code null} if not used. */
+    private ParseCache parseCache;
+    /** Grammar fingerprint for parse cache, calculated once per execution. */
+    private byte[] grammarFingerprint;
 
     private boolean setSystemid = true;
+    /** Parse files in parallel. */
+    private boolean parallel;
+    /** Incremental processing. */
+    private boolean incremental;
+    /** Build manifest of current build, {@code null} if not incremental. */
+    private BuildManifest manifest;
+    /** Build manifest of previous build, {@code null} if not available. */
+    private BuildManifest previousManifest;
+    /** Absolute URIs of key definition targets. */
+    private final Set<URI> keyTargetSet;
+    /** Absolute URIs of topics that are up to date from the previous build. */
+    private final Set<URI> upToDateSet;
 
     /**
      * Create a new instance and do the initialization.
@@ -202,8 +222,8 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
         hrefTargetSet = new HashSet<>(128);
         coderefTargetSet = new HashSet<>(16);
         waitList = new LinkedList<>();
-        doneList = new LinkedList<>();
-        failureList = new LinkedList<>();
+        doneList = new HashSet<>(128);
+        failureList = new HashSet<>(16);
         conrefTargetSet = new HashSet<>(128);
         nonConrefCopytoTargetSet = new HashSet<>(128);
         copytoMap = new HashMap<>();
@@ -214,6 +234,8 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
         conrefpushSet = new HashSet<>(128);
         keyrefSet = new HashSet<>(128);
         coderefSet = new HashSet<>(128);
+        keyTargetSet = new HashSet<>(128);
+        upToDateSet = new HashSet<>(128);
 
         schemeDictionary = new HashMap<>();
 
@@ -234,11 +256,18 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
             initXMLReader(ditaDir, xmlValidate);
             
             addToWaitList(new Reference(rootFile));
-            processWaitList();
+            if (parallel && !INDEX_TYPE_ECLIPSEHELP.equals(transtype)) {
+                processWaitListParallel();
+            } else {
+                processWaitList();
+            }
 
             updateBaseDirectory();
             handleConref();
             handleCopyto();
+            if (manifest != null) {
+                updateManifest();
+            }
             outputResult();
         } catch (final DITAOTException e) {
             throw e;
@@ -253,11 +282,7 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
      * Initialize reusable filters.
      */
     private void initFilters() {
-        listFilter = new GenListModuleReader();
-        listFilter.setLogger(logger);
-        listFilter.setInputDir(rootFile.resolve("."));
-        listFilter.setPrimaryDitamap(rootFile);
-        listFilter.setJob(job);
+        listFilter = newListFilter();
         
         if (profilingEnabled) {
             filterUtils = parseFilterFile();
@@ -266,12 +291,26 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
         exportAnchorsFilter = new ExportAnchorsFilter();
         exportAnchorsFilter.setInputFile(rootFile);
         
-        keydefFilter = new KeydefFilter();
+        keydefFilter = newKeydefFilter();
+        
+        nullHandler = new DefaultHandler();
+    }
+
+    private GenListModuleReader newListFilter() {
+        final GenListModuleReader listFilter = new GenListModuleReader();
+        listFilter.setLogger(logger);
+        listFilter.setInputDir(rootFile.resolve("."));
+        listFilter.setPrimaryDitamap(rootFile);
+        listFilter.setJob(job);
+        return listFilter;
+    }
+
+    private KeydefFilter newKeydefFilter() {
+        final KeydefFilter keydefFilter = new KeydefFilter();
         keydefFilter.setLogger(logger);
         keydefFilter.setInputFile(rootFile);
         keydefFilter.setJob(job);
-        
-        nullHandler = new DefaultHandler();
+        return keydefFilter;
     }
 
     /**
@@ -282,7 +321,22 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
      * @throws SAXException parsing exception
      */
     private void initXMLReader(final File ditaDir, final boolean validate) throws SAXException {
-        reader = XMLUtils.getXMLReader();
+        if (!validate) {
+            final String msg = MessageUtils.getInstance().getMessage("DOTJ037W").toString();
+            logger.warn(msg);
+        }
+        CatalogUtils.setDitaDir(ditaDir);
+        reader = newXMLReader(validate);
+    }
+
+    /**
+     * Create new XML reader. Each parsing thread must use its own reader.
+     *
+     * @param validate whether validate input file
+     * @throws SAXException parsing exception
+     */
+    private XMLReader newXMLReader(final boolean validate) throws SAXException {
+        final XMLReader reader = XMLUtils.getXMLReader();
         // to check whether the current parsing file's href value is out of inputmap.dir
         reader.setFeature(FEATURE_NAMESPACE_PREFIX, true);
         if (validate) {
@@ -292,12 +346,9 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
             } catch (final SAXNotRecognizedException e) {
                 // Not Xerces, ignore exception
             }
-        } else {
-            final String msg = MessageUtils.getInstance().getMessage("DOTJ037W").toString();
-            logger.warn(msg);
         }
         if (gramcache) {
-            final XMLGrammarPool grammarPool = GrammarPoolManager.getGrammarPool();
+            final XMLGrammarPool grammarPool = GrammarPoolManager.getGrammarPool(grammarFingerprint);
             try {
                 reader.setProperty("http://apache.org/xml/properties/internal/grammar-pool", grammarPool);
                 logger.info("Using Xerces grammar pool for DTD and schema caching.");
@@ -307,8 +358,11 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
                 logger.warn("Failed to set Xerces grammar pool for parser: " + e.getMessage());
             }
         }
-        CatalogUtils.setDitaDir(ditaDir);
         reader.setEntityResolver(CatalogUtils.getCatalogResolver());
+        if (parseCache != null) {
+            return new CachingXMLReader(reader, parseCache, grammarFingerprint, ditaDir);
+        }
+        return reader;
     }
     
     private void parseInputParameters(final AbstractPipelineInput input) throws IOException {
@@ -320,9 +374,24 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
         xmlValidate = Boolean.valueOf(input.getAttribute(ANT_INVOKER_EXT_PARAM_VALIDATE));
         transtype = input.getAttribute(ANT_INVOKER_EXT_PARAM_TRANSTYPE);
         gramcache = "yes".equalsIgnoreCase(input.getAttribute(ANT_INVOKER_EXT_PARAM_GRAMCACHE));
+        fused = Boolean.valueOf(input.getAttribute(ANT_INVOKER_EXT_PARAM_FUSED));
+        final String parseCacheDir = input.getAttribute(ANT_INVOKER_EXT_PARAM_PARSE_CACHE_DIR);
+        if (parseCacheDir != null) {
+            final String parseCacheSize = input.getAttribute(ANT_INVOKER_EXT_PARAM_PARSE_CACHE_SIZE);
+            parseCache = ParseCache.getInstance(new File(parseCacheDir), parseCacheSize != null
+                                                ? Long.parseLong(parseCacheSize) * 1024 * 1024
+                                                : ParseCache.DEFAULT_MAX_SIZE);
+        } else if (fused) {
+            parseCache = ParseCache.getInstance(new File(job.tempDir, ParseCache.SPOOL_DIR_NAME), Long.MAX_VALUE);
+        }
+        if (parseCache != null || gramcache) {
+            grammarFingerprint = CachingXMLReader.getGrammarFingerprint(ditaDir);
+        }
         setSystemid = "yes".equalsIgnoreCase(input.getAttribute(ANT_INVOKER_EXT_PARAN_SETSYSTEMID));
         final String mode = input.getAttribute(ANT_INVOKER_EXT_PARAM_PROCESSING_MODE);
         processingMode = mode != null ? Mode.valueOf(mode.toUpperCase()) : Mode.LAX;
+        parallel = Boolean.valueOf(input.getAttribute(ANT_INVOKER_EXT_PARAM_PARALLEL));
+        incremental = Boolean.valueOf(input.getAttribute(ANT_INVOKER_EXT_PARAM_INCREMENTAL));
 
         // For the output control
         job.setGeneratecopyouter(input.getAttribute(ANT_INVOKER_EXT_PARAM_GENERATECOPYOUTTER));
@@ -385,11 +454,86 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
 
         // Set the mapDir
         job.setInputFile(rootFile);
+
+        // previous manifest is no longer valid after temporary files have been modified
+        final File manifestFile = new File(job.tempDir, BuildManifest.FILE_NAME);
+        if (incremental) {
+            previousManifest = BuildManifest.read(manifestFile);
+            manifest = new BuildManifest();
+            manifest.setFingerprint(getFingerprint());
+        }
+        manifestFile.delete();
+        new File(job.tempDir, BuildManifest.PENDING_FILE_NAME).delete();
+    }
+
+    /**
+     * Get fingerprint of build parameters that affect all files.
+     */
+    private String getFingerprint() throws IOException {
+        final StringBuilder buf = new StringBuilder();
+        buf.append(rootFile).append('\n')
+            .append(transtype).append('\n')
+            .append(xmlValidate).append('\n')
+            .append(processingMode).append('\n')
+            .append(profilingEnabled).append('\n')
+            .append(job.getGeneratecopyouter()).append('\n')
+            .append(job.getOutterControl()).append('\n')
+            .append(job.getOnlyTopicInMap()).append('\n')
+            .append(new TreeMap<>(configuration)).append('\n');
+        if (profilingEnabled && ditavalFile != null && ditavalFile.exists()) {
+            buf.append(BuildManifest.digest(ditavalFile));
+        }
+        return BuildManifest.digest(buf.toString());
     }
 
     private void processWaitList() throws DITAOTException {
         while (!waitList.isEmpty()) {
-            processFile(waitList.remove());
+            processFile(waitList.peek());
+        }
+    }
+
+    /**
+     * Process wait list in parallel. The wait list is processed in waves: all files currently
+     * in the wait list are parsed concurrently, each worker thread using its own reader and
+     * filters, and parse results are then merged in wait list order. Merging in the same order
+     * as serial processing keeps the results identical to {@link #processWaitList()}.
+     */
+    private void processWaitListParallel() throws DITAOTException {
+        while (!waitList.isEmpty()) {
+            final List<Reference> wave = new ArrayList<>(waitList);
+            final Map<URI, ParseResult> results = new ConcurrentHashMap<>();
+            ParallelUtils.execute(wave, ParallelUtils.DEFAULT_THREADS, new ParallelUtils.WorkerFactory<Reference>() {
+                @Override
+                public ParallelUtils.Worker<Reference> newWorker() throws SAXException {
+                    final XMLReader reader = newXMLReader(xmlValidate);
+                    return new ParallelUtils.Worker<Reference>() {
+                        @Override
+                        public void process(final Reference ref) {
+                            logger.info("Processing " + ref.filename);
+                            final ParseResult result = new ParseResult(newListFilter(), newKeydefFilter());
+                            result.failure = parseFile(ref, reader, result.listFilter, result.keydefFilter);
+                            results.put(ref.filename, result);
+                        }
+                    };
+                }
+            });
+            for (final Reference ref: wave) {
+                final ParseResult result = results.get(ref.filename);
+                processParseResult(ref, result.listFilter, result.keydefFilter, result.failure);
+                listFilter.addCumulativeResults(result.listFilter);
+            }
+        }
+    }
+
+    /** Results of parsing a single file in parallel processing. */
+    private static final class ParseResult {
+        final GenListModuleReader listFilter;
+        final KeydefFilter keydefFilter;
+        Exception failure;
+
+        ParseResult(final GenListModuleReader listFilter, final KeydefFilter keydefFilter) {
+            this.listFilter = listFilter;
+            this.keydefFilter = keydefFilter;
         }
     }
     
@@ -397,8 +541,11 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
      * Get pipe line filters
      * 
      * @param fileToParse absolute path to current file being processed
+     * @param listFilter list filter to use
+     * @param keydefFilter key definition filter to use
      */
-    private List<XMLFilter> getProcessingPipe(final URI fileToParse) {
+    private List<XMLFilter> getProcessingPipe(final URI fileToParse, final GenListModuleReader listFilter,
+                                              final KeydefFilter keydefFilter) {
         assert fileToParse.isAbsolute();
         final List<XMLFilter> pipe = new ArrayList<>();
 
@@ -434,25 +581,74 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
      * @throws DITAOTException if processing failed
      */
     private void processFile(final Reference ref) throws DITAOTException {
-        currentFile = ref.filename;
-        assert currentFile.isAbsolute();
-        logger.info("Processing " + currentFile);
-        final String[] params = { currentFile.toString() };
-        
+        logger.info("Processing " + ref.filename);
+        final Exception failure = parseFile(ref, reader, listFilter, keydefFilter);
+        processParseResult(ref, listFilter, keydefFilter, failure);
+        listFilter.reset();
+        keydefFilter.reset();
+    }
+
+    /**
+     * Parse a file through list and key definition filters. Safe to call concurrently
+     * if each thread uses its own reader and filters.
+     *
+     * @param ref system path of the file to parse
+     * @param reader XML reader to use
+     * @param listFilter list filter to use
+     * @param keydefFilter key definition filter to use
+     * @return {@code null} if parsing succeeded, otherwise the cause of failure
+     */
+    private Exception parseFile(final Reference ref, final XMLReader reader,
+                                final GenListModuleReader listFilter, final KeydefFilter keydefFilter) {
+        final URI file = ref.filename;
+        assert file.isAbsolute();
+        final long start = BuildProfile.now();
         try {
-            XMLReader xmlSource = getXmlReader(ref.format);
-            for (final XMLFilter f: getProcessingPipe(currentFile)) {
+            XMLReader xmlSource = getXmlReader(ref.format, reader);
+            for (final XMLFilter f: getProcessingPipe(file, listFilter, keydefFilter)) {
                 f.setParent(xmlSource);
                 f.setEntityResolver(CatalogUtils.getCatalogResolver());
                 xmlSource = f;
             }
             xmlSource.setContentHandler(nullHandler);            
             
-            xmlSource.parse(currentFile.toString());
+            xmlSource.parse(file.toString());
+            BuildProfile.fileProcessed(BuildProfile.PARSE, file, start);
+        } catch (final RuntimeException e) {
+            throw e;
+        } catch (final Exception e) {
+            return e;
+        }
+        return null;
+    }
+
+    /**
+     * Process results from parsing a single file and move it from the wait list to the done list.
+     *
+     * @param ref system path of the processed file, must be the head of the wait list
+     * @param listFilter list filter used to parse the file
+     * @param keydefFilter key definition filter used to parse the file
+     * @param failure cause of parse failure, {@code null} if parsing succeeded
+     * @throws DITAOTException if processing failed
+     */
+    private void processParseResult(final Reference ref, final GenListModuleReader listFilter,
+                                    final KeydefFilter keydefFilter, final Exception failure) throws DITAOTException {
+        currentFile = ref.filename;
+        assert waitList.peek() == ref;
+        waitList.remove();
+        final String[] params = { currentFile.toString() };
+        
+        try {
+            if (failure != null) {
+                throw failure;
+            }
 
             if (listFilter.isValidInput()) {
-                processParseResult(currentFile);
-                categorizeCurrentFile(ref);
+                processParseResult(currentFile, listFilter, keydefFilter);
+                categorizeCurrentFile(ref, listFilter);
+                if (manifest != null) {
+                    addToManifest(currentFile, listFilter, keydefFilter);
+                }
             } else if (!currentFile.equals(rootFile)) {
                 logger.warn(MessageUtils.getInstance().getMessage("DOTJ021W", params).toString());
                 failureList.add(currentFile);
@@ -503,12 +699,9 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
         }
 
         doneList.add(currentFile);
-        listFilter.reset();
-        keydefFilter.reset();
-
     }
 
-    private XMLReader getXmlReader(final String format) throws SAXException {
+    private XMLReader getXmlReader(final String format, final XMLReader reader) throws SAXException {
         for (final Map.Entry<String, String> e: parserMap.entrySet()) {
             if (format != null && format.equals(e.getKey())) {
                 try {
@@ -525,11 +718,14 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
      * Process results from parsing a single topic
      *
      * @param currentFile absolute URI processes files
+     * @param listFilter list filter used to parse the file
+     * @param keydefFilter key definition filter used to parse the file
      */
-    private void processParseResult(final URI currentFile) {
+    private void processParseResult(final URI currentFile, final GenListModuleReader listFilter,
+                                    final KeydefFilter keydefFilter) {
         // Category non-copyto result and update uplevels accordingly
         for (final Reference file: listFilter.getNonCopytoResult()) {
-            categorizeReferenceFile(file);
+            categorizeReferenceFile(file, listFilter);
             updateUplevels(file.filename);
         }
 
@@ -589,12 +785,111 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
         }
     }
 
+    /**
+     * Add parsed file and its dependencies to build manifest.
+     *
+     * @param currentFile absolute URI of the parsed file
+     * @param listFilter list filter used to parse the file
+     * @param keydefFilter key definition filter used to parse the file
+     * @throws IOException if reading file contents failed
+     */
+    private void addToManifest(final URI currentFile, final GenListModuleReader listFilter,
+                               final KeydefFilter keydefFilter) throws IOException {
+        for (final KeyDef k: keydefFilter.getKeysDMap().values()) {
+            if (k.href != null && ATTR_SCOPE_VALUE_LOCAL.equals(k.scope)) {
+                keyTargetSet.add(stripFragment(k.href));
+            }
+        }
+        final Set<URI> deps = new HashSet<>();
+        deps.addAll(listFilter.getHrefTargets());
+        deps.addAll(listFilter.getConrefTargets());
+        deps.addAll(listFilter.getCoderefTargets());
+        manifest.put(currentFile, BuildManifest.digest(toFile(currentFile)),
+                BuildManifest.digest(listFilter.getLinkText()), deps);
+        // coderef targets are not parsed, record their contents so that changes to them are detected
+        for (final URI target: listFilter.getCoderefTargets()) {
+            final File file = toFile(target);
+            if (manifest.get(target) == null && file.exists()) {
+                manifest.put(target, BuildManifest.digest(file), BuildManifest.digest(""),
+                        Collections.<URI>emptySet());
+            }
+        }
+    }
+
+    /**
+     * Compare build manifest to the manifest of the previous build and collect topics that are up to date.
+     * Changes to maps, build parameters or link text of topics, and use of conref push or chunking
+     * require processing all files.
+     */
+    private void updateManifest() {
+        // key references can only be resolved after all key definitions have been read
+        for (final URI file: keyrefSet) {
+            final BuildManifest.Entry e = manifest.get(file);
+            if (e != null) {
+                final Set<URI> deps = new HashSet<>(e.dependencies);
+                deps.addAll(keyTargetSet);
+                manifest.put(file, e.hash, e.linkTextHash, deps);
+            }
+        }
+        // copy-to targets are generated from copy-to sources
+        for (final Map.Entry<URI, URI> copyto: copytoMap.entrySet()) {
+            final BuildManifest.Entry e = manifest.get(copyto.getValue());
+            if (e != null) {
+                manifest.put(copyto.getKey(), e.hash, e.linkTextHash, Collections.singleton(copyto.getValue()));
+            }
+        }
+
+        final BuildManifest previous = previousManifest;
+        String reason = null;
+        Set<URI> changed = Collections.emptySet();
+        if (previous == null) {
+            reason = "no previous build";
+        } else if (!manifest.getFingerprint().equals(previous.getFingerprint())) {
+            reason = "build parameters changed";
+        } else if (!conrefpushSet.isEmpty()) {
+            reason = "conref push is used";
+        } else if (!chunkTopicSet.isEmpty()) {
+            reason = "chunking is used";
+        } else {
+            changed = manifest.getChanged(previous);
+            for (final URI file: changed) {
+                final BuildManifest.Entry cur = manifest.get(file);
+                final BuildManifest.Entry prev = previous.get(file);
+                if (cur == null || prev == null || fullMapSet.contains(file)) {
+                    reason = "map or file set changed";
+                    break;
+                } else if (!cur.linkTextHash.equals(prev.linkTextHash)) {
+                    reason = "topic title changed";
+                    break;
+                }
+            }
+        }
+        if (reason != null) {
+            logger.info("Processing all files: " + reason);
+            return;
+        }
+
+        final Set<URI> affected = manifest.getAffected(changed);
+        int topics = 0;
+        for (final URI file: manifest.getFiles()) {
+            if (!fullMapSet.contains(file) && !coderefTargetSet.contains(file)) {
+                topics++;
+                if (!affected.contains(file)) {
+                    upToDateSet.add(file);
+                }
+            }
+        }
+        logger.info("Processing " + (topics - upToDateSet.size()) + " of " + topics
+                + " topics, " + changed.size() + " changed");
+    }
+
     /**
      * Categorize current file type
      * 
      * @param ref file path
+     * @param listFilter list filter used to parse the file
      */
-    private void categorizeCurrentFile(final Reference ref) {
+    private void categorizeCurrentFile(final Reference ref, final GenListModuleReader listFilter) {
         final URI currentFile = ref.filename;
         if (listFilter.hasConaction()) {
             conrefpushSet.add(currentFile);
@@ -639,8 +934,9 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
      * Categorize file.
      * 
      * @param file file system path with optional format
+     * @param listFilter list filter used to parse the referencing file
      */
-    private void categorizeReferenceFile(final Reference file) {
+    private void categorizeReferenceFile(final Reference file, final GenListModuleReader listFilter) {
         // avoid files referred by coderef being added into wait list
         if (listFilter.getCoderefTargets().contains(file.filename)) {
             return;
@@ -895,7 +1191,7 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
         resourceOnlySet.addAll(listFilter.getResourceOnlySet());
 
         for (final URI file: outDitaFilesSet) {
-            getOrCreateFileInfo(fileinfos, file).isOutDita = true;
+            getOrCreateFileInfo(fileinfos, file).setOutDita(true);
         }
 //        // XXX: This loop is probably redundant
 //        for (FileInfo f: prop.getFileInfo().values()) {
@@ -916,58 +1212,92 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
             }
         }
         for (final URI file: hrefTopicSet) {
-            getOrCreateFileInfo(fileinfos, file).hasLink = true;
+            getOrCreateFileInfo(fileinfos, file).setHasLink(true);
         }
         for (final URI file: conrefSet) {
-            getOrCreateFileInfo(fileinfos, file).hasConref = true;
+            getOrCreateFileInfo(fileinfos, file).setHasConref(true);
         }
         for (final Reference file: formatSet) {
             getOrCreateFileInfo(fileinfos, file.filename).format = file.format;
         }
         for (final URI file: flagImageSet) {
             final FileInfo f = getOrCreateFileInfo(fileinfos, file);
-            f.isFlagImage = true;
+            f.setFlagImage(true);
             f.format = ATTR_FORMAT_VALUE_IMAGE;
         }
         for (final URI file: htmlSet) {
             getOrCreateFileInfo(fileinfos, file).format = ATTR_FORMAT_VALUE_HTML;
         }
         for (final URI file: hrefTargetSet) {
-            getOrCreateFileInfo(fileinfos, file).isTarget = true;
+            getOrCreateFileInfo(fileinfos, file).setTarget(true);
         }
         for (final URI file: hrefWithIDSet) {
-            getOrCreateFileInfo(fileinfos, file).isNonConrefTarget = true;
+            getOrCreateFileInfo(fileinfos, file).setNonConrefTarget(true);
         }
         for (final URI file: chunkTopicSet) {
-            getOrCreateFileInfo(fileinfos, file).isSkipChunk = true;
+            getOrCreateFileInfo(fileinfos, file).setSkipChunk(true);
         }
         for (final URI file: schemeSet) {
-            getOrCreateFileInfo(fileinfos, file).isSubjectScheme = true;
+            getOrCreateFileInfo(fileinfos, file).setSubjectScheme(true);
         }
         for (final URI file: conrefTargetSet) {
-            getOrCreateFileInfo(fileinfos, file).isConrefTarget = true;
+            getOrCreateFileInfo(fileinfos, file).setConrefTarget(true);
         }
         for (final URI file: copytoSourceSet) {
-            getOrCreateFileInfo(fileinfos, file).isCopyToSource = true;
+            getOrCreateFileInfo(fileinfos, file).setCopyToSource(true);
         }
         for (final URI file: coderefTargetSet) {
             final FileInfo f = getOrCreateFileInfo(fileinfos, file);
-            f.isSubtarget = true;
+            f.setSubtarget(true);
             if (f.format == null) {
                 f.format = PR_D_CODEREF.localName;
             }
         }
         for (final URI file: conrefpushSet) {
-            getOrCreateFileInfo(fileinfos, file).isConrefPush = true;
+            getOrCreateFileInfo(fileinfos, file).setConrefPush(true);
         }
         for (final URI file: keyrefSet) {
-            getOrCreateFileInfo(fileinfos, file).hasKeyref = true;
+            getOrCreateFileInfo(fileinfos, file).setHasKeyref(true);
         }
         for (final URI file: coderefSet) {
-            getOrCreateFileInfo(fileinfos, file).hasCoderef = true;
+            getOrCreateFileInfo(fileinfos, file).setHasCoderef(true);
         }
         for (final URI file: resourceOnlySet) {
-            getOrCreateFileInfo(fileinfos, file).isResourceOnly = true;
+            getOrCreateFileInfo(fileinfos, file).setResourceOnly(true);
+        }
+        for (final URI file: upToDateSet) {
+            final FileInfo f = getOrCreateFileInfo(fileinfos, file);
+            f.setUpToDate(new File(job.tempDir, f.file.getPath()).exists());
+        }
+        if (incremental) {
+            // job of previous build may contain files whose source is no longer part of the input,
+            // files generated from current sources, e.g. key scope copies, are kept
+            final Set<URI> current = new HashSet<>();
+            for (final FileInfo fs: fileinfos.values()) {
+                if (!failureList.contains(fs.src)) {
+                    current.add(fs.src);
+                }
+            }
+            for (final FileInfo f: job.getFileInfo()) {
+                final File tempFile = f.file != null ? new File(job.tempDir, f.file.getPath()) : null;
+                if (f.src == null || !current.contains(f.src)) {
+                    job.remove(f);
+                    if (tempFile != null) {
+                        tempFile.delete();
+                    }
+                } else {
+                    final boolean upToDate = upToDateSet.contains(f.src) && tempFile != null && tempFile.exists();
+                    if (f.isUpToDate() != upToDate) {
+                        job.add(new FileInfo.Builder(f).isUpToDate(upToDate).build());
+                    }
+                }
+            }
+            // remove copy-to targets generated by previous build so that they will be generated again
+            for (final URI target: copytoMap.keySet()) {
+                if (!upToDateSet.contains(target) && !doneList.contains(target)) {
+                    new File(job.tempDir, toFile(tempFileNameScheme.generateTempFileName(target)).getPath()).delete();
+                }
+            }
         }
         
         addFlagImagesSetToProperties(job, relFlagImagesSet);
@@ -1000,6 +1330,14 @@ public final class GenMapAndTopicListModule extends AbstractPipelineModuleImpl {
 
         writeExportAnchors();
 
+        if (manifest != null) {
+            try {
+                manifest.write(new File(job.tempDir, BuildManifest.PENDING_FILE_NAME));
+            } catch (final IOException e) {
+                throw new DITAOTException("Failed to write build manifest: " + e.getMessage(), e);
+            }
+        }
+
         KeyDef.writeKeydef(new File(job.tempDir, SUBJECT_SCHEME_KEYDEF_LIST_FILE), addFilePrefix(schemekeydefMap.values()));
     }
 
@@ -7,10 +7,18 @@ package org.dita.dost.module;
 import static org.dita.dost.util.Constants.*;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.pipeline.AbstractPipelineInput;
 import org.dita.dost.pipeline.AbstractPipelineOutput;
+import org.dita.dost.util.ImageMetadataCache;
+import org.dita.dost.util.Job;
 import org.dita.dost.util.Job.FileInfo;
+import org.dita.dost.util.ParallelUtils;
 import org.dita.dost.writer.ImageMetadataFilter;
 
 /**
@@ -38,16 +46,50 @@ final class ImageMetadataModule extends AbstractPipelineModuleImpl {
         if (logger == null) {
             throw new IllegalStateException("Logger not set");
         }
-        final ImageMetadataFilter writer = new ImageMetadataFilter(new File(input.getAttribute(ANT_INVOKER_EXT_PARAM_OUTPUTDIR)), job);
+        final File outputDir = new File(input.getAttribute(ANT_INVOKER_EXT_PARAM_OUTPUTDIR));
+        final String cacheDir = input.getAttribute(ANT_INVOKER_EXT_PARAM_IMAGE_CACHE_DIR);
+        final ImageMetadataCache cache = ImageMetadataCache.getInstance(cacheDir != null ? new File(cacheDir) : null);
+        if (Boolean.valueOf(input.getAttribute(ANT_INVOKER_EXT_PARAM_PARALLEL))) {
+            cache.prefetch(getImageFiles(outputDir), ParallelUtils.DEFAULT_THREADS);
+        }
+        final ImageMetadataFilter writer = new ImageMetadataFilter(outputDir, job);
         writer.setLogger(logger);
         writer.setJob(job);
+        writer.setImageMetadataCache(cache);
         for (final FileInfo f: job.getFileInfo()) {
-            if (!f.isResourceOnly && ATTR_FORMAT_VALUE_DITA.equals(f.format)) {
+            if (!f.isResourceOnly() && ATTR_FORMAT_VALUE_DITA.equals(f.format)) {
                 writer.write(new File(job.tempDir, f.file.getPath()).getAbsoluteFile());
             }
         }
+        try {
+            cache.flush();
+        } catch (final IOException e) {
+            logger.warn("Failed to write image metadata cache: " + e.getMessage());
+        }
 
         return null;
     }
 
+    /**
+     * Get image files in output directory, resolved like image references in {@link ImageMetadataFilter}.
+     */
+    private List<File> getImageFiles(final File outputDir) {
+        String base = "";
+        final String uplevels = job.getProperty("uplevels");
+        if (job.getGeneratecopyouter() != Job.Generate.OLDSOLUTION && uplevels != null) {
+            base = uplevels.replace(File.separator, URI_SEPARATOR);
+        }
+        final URI dir = outputDir.toURI();
+        final List<File> res = new ArrayList<>();
+        for (final FileInfo f: job.getFileInfo()) {
+            if (ATTR_FORMAT_VALUE_IMAGE.equals(f.format) && f.uri != null && !f.uri.isAbsolute()) {
+                final URI img = dir.resolve(base + f.uri.toString());
+                if ("file".equals(img.getScheme())) {
+                    res.add(new File(img));
+                }
+            }
+        }
+        return res;
+    }
+
 }
@@ -98,13 +98,13 @@ final class IndexTermExtractModule extends AbstractPipelineModuleImpl {
          */
         topicList = new ArrayList<>();
         for (final FileInfo f: job.getFileInfo()) {
-            if (ATTR_FORMAT_VALUE_DITA.equals(f.format) && !f.isResourceOnly) {
+            if (ATTR_FORMAT_VALUE_DITA.equals(f.format) && !f.isResourceOnly()) {
                 topicList.add(f.file.getPath());
             }
         }
         ditamapList = new ArrayList<>();
         for (final FileInfo f: job.getFileInfo()) {
-            if (ATTR_FORMAT_VALUE_DITAMAP.equals(f.format) && !f.isResourceOnly) {
+            if (ATTR_FORMAT_VALUE_DITAMAP.equals(f.format) && !f.isResourceOnly()) {
                 ditamapList.add(f.file.getPath());
             }
         }
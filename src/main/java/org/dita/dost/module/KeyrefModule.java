@@ -29,7 +29,7 @@ import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.pipeline.AbstractPipelineInput;
 import org.dita.dost.pipeline.AbstractPipelineOutput;
 import org.dita.dost.reader.KeyrefReader;
-import org.dita.dost.util.Job.FileInfo.Filter;
+import org.dita.dost.util.Job.FileInfo.Flag;
 import org.dita.dost.writer.ConkeyrefFilter;
 import org.dita.dost.writer.KeyrefPaser;
 
@@ -43,12 +43,11 @@ import javax.xml.transform.stream.StreamResult;
  */
 final class KeyrefModule extends AbstractPipelineModuleImpl {
 
-    /** Delayed conref utils. */
-    private DelayConrefUtils delayConrefUtils;
     private String transtype;
-    final Set<URI> normalProcessingRole = new HashSet<>();
+    /** Process topics in parallel. */
+    private boolean parallel;
+    final Set<URI> normalProcessingRole = Collections.synchronizedSet(new HashSet<URI>());
     final Map<URI, Integer> usage = new HashMap<>();
-    private TopicFragmentFilter topicFragmentFilter;
 
     /**
      * Entry point of KeyrefModule.
@@ -60,15 +59,8 @@ final class KeyrefModule extends AbstractPipelineModuleImpl {
     @Override
     public AbstractPipelineOutput execute(final AbstractPipelineInput input)
             throws DITAOTException {
-        final Collection<FileInfo> fis = new HashSet(job.getFileInfo(new Filter() {
-            @Override
-            public boolean accept(final FileInfo f) {
-                return f.hasKeyref;
-            }
-        }));
+        final Collection<FileInfo> fis = new HashSet(job.getFileInfo(Flag.HAS_KEYREF));
         if (!fis.isEmpty()) {
-            initFilters();
-
             final Document doc = readMap();
 
             final KeyrefReader reader = new KeyrefReader();
@@ -82,23 +74,28 @@ final class KeyrefModule extends AbstractPipelineModuleImpl {
             writeMap(doc);
 
             transtype = input.getAttribute(ANT_INVOKER_EXT_PARAM_TRANSTYPE);
-            delayConrefUtils = transtype.equals(INDEX_TYPE_ECLIPSEHELP) ? new DelayConrefUtils() : null;
-            for (final ResolveTask r: jobs) {
-                if (r.out != null) {
-                    processFile(r);
-                }
-            }
+            parallel = Boolean.valueOf(input.getAttribute(ANT_INVOKER_EXT_PARAM_PARALLEL));
+            // topics up to date from previous incremental build have already been resolved
+            final List<ResolveTask> copies = new ArrayList<>();
+            final List<ResolveTask> originals = new ArrayList<>();
             for (final ResolveTask r: jobs) {
-                if (r.out == null) {
-                    processFile(r);
+                if (!r.in.isUpToDate()) {
+                    if (r.out != null) {
+                        copies.add(r);
+                    } else {
+                        originals.add(r);
+                    }
                 }
             }
+            // copies are read from original topics, so originals can be rewritten only after all copies are done
+            processFiles(copies);
+            processFiles(originals);
 
             // Store job configuration updates
             for (final URI file: normalProcessingRole) {
                 final FileInfo f = job.getFileInfo(file);
                 if (f != null) {
-                    f.isResourceOnly = false;
+                    f.setResourceOnly(false);
                     job.add(f);
                 }
             }
@@ -112,8 +109,30 @@ final class KeyrefModule extends AbstractPipelineModuleImpl {
         return null;
     }
 
-    private void initFilters() {
-        topicFragmentFilter = new TopicFragmentFilter(ATTRIBUTE_NAME_CONREF, ATTRIBUTE_NAME_CONREFEND);
+    /**
+     * Process key references in topics. Tasks are processed concurrently when parallel processing is enabled,
+     * so tasks must not write the same file.
+     */
+    private void processFiles(final List<ResolveTask> tasks) throws DITAOTException {
+        if (parallel) {
+            ParallelUtils.execute(tasks, ParallelUtils.DEFAULT_THREADS, new ParallelUtils.WorkerFactory<ResolveTask>() {
+                @Override
+                public ParallelUtils.Worker<ResolveTask> newWorker() {
+                    final FileProcessor processor = new FileProcessor();
+                    return new ParallelUtils.Worker<ResolveTask>() {
+                        @Override
+                        public void process(final ResolveTask r) {
+                            processor.processFile(r);
+                        }
+                    };
+                }
+            });
+        } else {
+            final FileProcessor processor = new FileProcessor();
+            for (final ResolveTask r: tasks) {
+                processor.processFile(r);
+            }
+        }
     }
 
     /** Collect topics for key reference processing and modify map to reflect new file names. */
@@ -163,7 +182,7 @@ final class KeyrefModule extends AbstractPipelineModuleImpl {
             if (hrefNode != null) {
                 final URI href = stripFragment(job.getInputMap().resolve(hrefNode.getValue()));
                 final FileInfo fi = job.getFileInfo(href);
-                if (fi != null && fi.hasKeyref) {
+                if (fi != null && fi.hasKeyref()) {
                     res.add(processTopic(fi, s));
                     final Integer used = usage.get(fi.uri);
                     if (used > 1) {
@@ -198,46 +217,62 @@ final class KeyrefModule extends AbstractPipelineModuleImpl {
     }
 
     /**
-     * Process key references in a topic. Topic is stored with a new name if it's
-     * been processed before.
+     * Key reference processor. Processor instances hold filters and are thread confined.
      */
-    private void processFile(final ResolveTask r) {
-        final List<XMLFilter> filters = new ArrayList<>();
-
-        final ConkeyrefFilter conkeyrefFilter = new ConkeyrefFilter();
-        conkeyrefFilter.setLogger(logger);
-        conkeyrefFilter.setJob(job);
-        conkeyrefFilter.setKeyDefinitions(r.scope);
-        conkeyrefFilter.setCurrentFile(r.in.file);
-        conkeyrefFilter.setDelayConrefUtils(delayConrefUtils);
-        filters.add(conkeyrefFilter);
-
-        filters.add(topicFragmentFilter);
-
-        final KeyrefPaser parser = new KeyrefPaser();
-        parser.setLogger(logger);
-        parser.setJob(job);
-        parser.setKeyDefinition(r.scope);
-        parser.setCurrentFile(r.in.file);
-        filters.add(parser);
+    private final class FileProcessor {
 
-        try {
-            logger.debug("Using " + (r.scope.name != null ? r.scope.name + " scope" : "root scope"));
-            if (r.out != null) {
-                logger.info("Processing " + job.tempDir.toURI().resolve(r.in.uri) +
-                        " to " + job.tempDir.toURI().resolve(r.out.uri));
-                XMLUtils.transform(new File(job.tempDir, r.in.file.getPath()),
-                                   new File(job.tempDir, r.out.file.getPath()),
-                                   filters);
-            } else {
-                logger.info("Processing " + job.tempDir.toURI().resolve(r.in.uri));
-                XMLUtils.transform(new File(job.tempDir, r.in.file.getPath()), filters);
+        /** Delayed conref utils. */
+        private final DelayConrefUtils delayConrefUtils;
+        private final TopicFragmentFilter topicFragmentFilter;
+
+        FileProcessor() {
+            delayConrefUtils = transtype.equals(INDEX_TYPE_ECLIPSEHELP) ? new DelayConrefUtils() : null;
+            topicFragmentFilter = new TopicFragmentFilter(ATTRIBUTE_NAME_CONREF, ATTRIBUTE_NAME_CONREFEND);
+        }
+
+        /**
+         * Process key references in a topic. Topic is stored with a new name if it's
+         * been processed before.
+         */
+        void processFile(final ResolveTask r) {
+            final List<XMLFilter> filters = new ArrayList<>();
+
+            final ConkeyrefFilter conkeyrefFilter = new ConkeyrefFilter();
+            conkeyrefFilter.setLogger(logger);
+            conkeyrefFilter.setJob(job);
+            conkeyrefFilter.setKeyDefinitions(r.scope);
+            conkeyrefFilter.setCurrentFile(r.in.file);
+            conkeyrefFilter.setDelayConrefUtils(delayConrefUtils);
+            filters.add(conkeyrefFilter);
+
+            filters.add(topicFragmentFilter);
+
+            final KeyrefPaser parser = new KeyrefPaser();
+            parser.setLogger(logger);
+            parser.setJob(job);
+            parser.setKeyDefinition(r.scope);
+            parser.setCurrentFile(r.in.file);
+            filters.add(parser);
+
+            try {
+                logger.debug("Using " + (r.scope.name != null ? r.scope.name + " scope" : "root scope"));
+                if (r.out != null) {
+                    logger.info("Processing " + job.tempDir.toURI().resolve(r.in.uri) +
+                            " to " + job.tempDir.toURI().resolve(r.out.uri));
+                    XMLUtils.transform(new File(job.tempDir, r.in.file.getPath()),
+                                       new File(job.tempDir, r.out.file.getPath()),
+                                       filters);
+                } else {
+                    logger.info("Processing " + job.tempDir.toURI().resolve(r.in.uri));
+                    XMLUtils.transform(new File(job.tempDir, r.in.file.getPath()), filters);
+                }
+                // validate resource-only list
+                normalProcessingRole.addAll(parser.getNormalProcessingRoleTargets());
+            } catch (final DITAOTException e) {
+                logger.error("Failed to process key references: " + e.getMessage(), e);
             }
-            // validate resource-only list
-            normalProcessingRole.addAll(parser.getNormalProcessingRoleTargets());
-        } catch (final DITAOTException e) {
-            logger.error("Failed to process key references: " + e.getMessage(), e);
         }
+
     }
 
     /**
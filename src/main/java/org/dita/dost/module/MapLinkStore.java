@@ -0,0 +1,351 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.module;
+
+import static javax.xml.XMLConstants.NULL_NS_URI;
+import static javax.xml.XMLConstants.XML_NS_PREFIX;
+import static org.dita.dost.util.Constants.*;
+import static org.dita.dost.util.URLUtils.*;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+
+import org.dita.dost.util.XMLUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.NamespaceSupport;
+
+/**
+ * Disk backed store of map links, grouped by topic file and topic ID.
+ *
+ * <p>The store receives the output of the map link stylesheet as SAX events. The links of each
+ * {@code maplinks} element are serialized and appended to a spool file, and only their location in
+ * the spool file is kept in memory. Links of a single topic file are read back on demand, so memory
+ * use does not depend on the total number of links.</p>
+ *
+ * <p>Reading links is thread-safe after the stylesheet output has ended.</p>
+ *
+ * @since 2.2
+ */
+final class MapLinkStore implements Closeable {
+
+    private static final String ELEMENT_STUB = "stub";
+
+    private final File file;
+    private final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+    /** Spooled links by topic file, in document order. */
+    private final Map<File, List<Entry>> entries = new LinkedHashMap<>();
+    private OutputStream out;
+    private FileChannel in;
+    private long size;
+
+    /**
+     * Create new map link store.
+     *
+     * @param file spool file
+     */
+    MapLinkStore(final File file) {
+        this.file = file;
+        documentBuilderFactory.setNamespaceAware(true);
+    }
+
+    /**
+     * Get result for map link stylesheet output.
+     *
+     * @return SAX result
+     * @throws IOException if creating spool file failed
+     */
+    SAXResult getResult() throws IOException {
+        out = new BufferedOutputStream(new FileOutputStream(file));
+        final Spooler spooler = new Spooler();
+        final SAXResult res = new SAXResult(spooler);
+        res.setLexicalHandler(spooler);
+        return res;
+    }
+
+    /**
+     * Get topic files that have links.
+     *
+     * @return topic files relative to temporary directory
+     */
+    Set<File> getFiles() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    /**
+     * Read links for a topic file.
+     *
+     * @param path topic file relative to temporary directory
+     * @return map of links by topic ID, {@link org.dita.dost.util.Constants#SHARP #} is used to denote root element
+     * @throws IOException if reading spool file failed
+     * @throws SAXException if parsing spooled links failed
+     */
+    Map<String, Element> getLinks(final File path) throws IOException, SAXException {
+        final Map<String, Element> res = new HashMap<>();
+        final List<Entry> es = entries.get(path);
+        if (es == null) {
+            return res;
+        }
+        final DocumentBuilder builder;
+        synchronized (documentBuilderFactory) {
+            try {
+                builder = documentBuilderFactory.newDocumentBuilder();
+            } catch (final ParserConfigurationException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        final Document doc = builder.newDocument();
+        for (final Entry e: es) {
+            final ByteBuffer buf = ByteBuffer.allocate(e.length);
+            while (buf.hasRemaining()) {
+                if (in.read(buf, e.offset + buf.position()) == -1) {
+                    throw new IOException("Unexpected end of map link spool file " + file.getAbsolutePath());
+                }
+            }
+            final Document src = builder.parse(new ByteArrayInputStream(buf.array()));
+            Element stub = res.get(e.fragment);
+            if (stub == null) {
+                stub = doc.createElement(ELEMENT_STUB);
+                res.put(e.fragment, stub);
+            }
+            for (Node c = src.getDocumentElement().getFirstChild(); c != null; c = c.getNextSibling()) {
+                stub.appendChild(doc.importNode(c, true));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Close and delete spool file.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (out != null) {
+                out.close();
+            }
+            if (in != null) {
+                in.close();
+            }
+        } finally {
+            if (file.exists() && !file.delete()) {
+                throw new IOException("Failed to delete " + file.getAbsolutePath());
+            }
+        }
+    }
+
+    /** Location of the links of a single {@code maplinks} element in spool file. */
+    private static final class Entry {
+        final String fragment;
+        final long offset;
+        final int length;
+
+        Entry(final String fragment, final long offset, final int length) {
+            this.fragment = fragment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Content handler that serializes the contents of each child of the document element into
+     * a separate document wrapped in a {@code stub} element.
+     */
+    private final class Spooler extends DefaultHandler implements LexicalHandler {
+
+        private final NamespaceSupport namespaces = new NamespaceSupport();
+        private final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        private boolean contextPushed;
+        private int depth;
+        private TransformerHandler serializer;
+        private File path;
+        private String fragment;
+
+        @Override
+        public void startPrefixMapping(final String prefix, final String uri) throws SAXException {
+            if (!contextPushed) {
+                namespaces.pushContext();
+                contextPushed = true;
+            }
+            namespaces.declarePrefix(prefix, uri);
+            if (serializer != null) {
+                serializer.startPrefixMapping(prefix, uri);
+            }
+        }
+
+        @Override
+        public void endPrefixMapping(final String prefix) throws SAXException {
+            if (serializer != null) {
+                serializer.endPrefixMapping(prefix);
+            }
+        }
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+                throws SAXException {
+            if (!contextPushed) {
+                namespaces.pushContext();
+            }
+            contextPushed = false;
+            depth++;
+            if (depth == 2) {
+                final String h = atts.getValue(ATTRIBUTE_NAME_HREF);
+                final URI href = toURI(h != null ? h : "");
+                path = toFile(stripFragment(href));
+                fragment = href.getFragment() != null ? href.getFragment() : SHARP;
+                try {
+                    serializer = XMLUtils.newIdentityTransformerHandler();
+                } catch (final TransformerConfigurationException e) {
+                    throw new SAXException(e);
+                }
+                buf.reset();
+                serializer.setResult(new StreamResult(buf));
+                serializer.startDocument();
+                // links may use namespaces declared by ancestors
+                for (final Enumeration<?> ps = namespaces.getPrefixes(); ps.hasMoreElements();) {
+                    final String p = (String) ps.nextElement();
+                    if (!XML_NS_PREFIX.equals(p)) {
+                        serializer.startPrefixMapping(p, namespaces.getURI(p));
+                    }
+                }
+                final String defaultNamespace = namespaces.getURI("");
+                if (defaultNamespace != null) {
+                    serializer.startPrefixMapping("", defaultNamespace);
+                }
+                serializer.startElement(NULL_NS_URI, ELEMENT_STUB, ELEMENT_STUB, new AttributesImpl());
+            } else if (depth > 2) {
+                serializer.startElement(uri, localName, qName, atts);
+            }
+        }
+
+        @Override
+        public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+            if (depth == 2) {
+                serializer.endElement(NULL_NS_URI, ELEMENT_STUB, ELEMENT_STUB);
+                serializer.endDocument();
+                serializer = null;
+                try {
+                    buf.writeTo(out);
+                } catch (final IOException e) {
+                    throw new SAXException("Failed to write map links: " + e.getMessage(), e);
+                }
+                List<Entry> es = entries.get(path);
+                if (es == null) {
+                    es = new ArrayList<>();
+                    entries.put(path, es);
+                }
+                es.add(new Entry(fragment, size, buf.size()));
+                size += buf.size();
+            } else if (depth > 2) {
+                serializer.endElement(uri, localName, qName);
+            }
+            depth--;
+            namespaces.popContext();
+        }
+
+        @Override
+        public void characters(final char[] ch, final int start, final int length) throws SAXException {
+            if (serializer != null) {
+                serializer.characters(ch, start, length);
+            }
+        }
+
+        @Override
+        public void ignorableWhitespace(final char[] ch, final int start, final int length) throws SAXException {
+            if (serializer != null) {
+                serializer.ignorableWhitespace(ch, start, length);
+            }
+        }
+
+        @Override
+        public void processingInstruction(final String target, final String data) throws SAXException {
+            if (serializer != null) {
+                serializer.processingInstruction(target, data);
+            }
+        }
+
+        @Override
+        public void comment(final char[] ch, final int start, final int length) throws SAXException {
+            if (serializer != null) {
+                serializer.comment(ch, start, length);
+            }
+        }
+
+        @Override
+        public void startDTD(final String name, final String publicId, final String systemId) {
+            // NOOP
+        }
+
+        @Override
+        public void endDTD() {
+            // NOOP
+        }
+
+        @Override
+        public void startEntity(final String name) {
+            // NOOP
+        }
+
+        @Override
+        public void endEntity(final String name) {
+            // NOOP
+        }
+
+        @Override
+        public void startCDATA() {
+            // NOOP
+        }
+
+        @Override
+        public void endCDATA() {
+            // NOOP
+        }
+
+        @Override
+        public void endDocument() throws SAXException {
+            try {
+                out.close();
+                out = null;
+                in = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            } catch (final IOException e) {
+                throw new SAXException("Failed to write map links: " + e.getMessage(), e);
+            }
+        }
+
+    }
+
+}
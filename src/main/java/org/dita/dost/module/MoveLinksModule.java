@@ -12,22 +12,18 @@ import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.pipeline.AbstractPipelineInput;
 import org.dita.dost.pipeline.AbstractPipelineOutput;
 import org.dita.dost.util.CatalogUtils;
+import org.dita.dost.util.Job.FileInfo;
+import org.dita.dost.util.ParallelUtils;
+import org.dita.dost.util.TemplatesCache;
 import org.dita.dost.writer.DitaLinksWriter;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
 
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.stream.StreamSource;
 import java.io.*;
-import java.net.URI;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.dita.dost.util.Constants.*;
 import static org.dita.dost.util.URLUtils.*;
@@ -35,6 +31,9 @@ import static org.dita.dost.util.URLUtils.*;
 /**
  * MoveLinksModule implements move links step in preprocess. It reads the map links
  * information from the input map and inserts the links into topics.
+ *
+ * <p>Map links are spooled to disk and read back one topic at a time, so that maps that generate
+ * a large number of links do not need to hold them all in memory.</p>
  */
 final class MoveLinksModule extends AbstractPipelineModuleImpl {
 
@@ -49,12 +48,61 @@ final class MoveLinksModule extends AbstractPipelineModuleImpl {
     public AbstractPipelineOutput execute(final AbstractPipelineInput input) throws DITAOTException {
         final File inputFile = new File(job.tempDir, input.getAttribute(ANT_INVOKER_PARAM_INPUTMAP));
         final File styleFile = new File(input.getAttribute(ANT_INVOKER_EXT_PARAM_STYLE));
+        final boolean parallel = Boolean.valueOf(input.getAttribute(ANT_INVOKER_EXT_PARAM_PARALLEL));
 
-        Document doc;
+        final MapLinkStore store;
+        try {
+            store = new MapLinkStore(File.createTempFile("maplinks", FILE_EXTENSION_TEMP, job.tempDir));
+        } catch (final IOException e) {
+            throw new DITAOTException("Failed to create map link spool file: " + e.getMessage(), e);
+        }
+        try {
+            readLinks(input, inputFile, styleFile, store);
+
+            final List<File> files = new ArrayList<>();
+            for (final File path: store.getFiles()) {
+                final FileInfo fi = job.getFileInfo(toURI(path));
+                if (fi == null || !fi.isUpToDate()) {
+                    files.add(path);
+                }
+            }
+            if (parallel) {
+                ParallelUtils.execute(files, ParallelUtils.DEFAULT_THREADS, new ParallelUtils.WorkerFactory<File>() {
+                    @Override
+                    public ParallelUtils.Worker<File> newWorker() {
+                        final LinkInserter inserter = new LinkInserter(store);
+                        return new ParallelUtils.Worker<File>() {
+                            @Override
+                            public void process(final File path) {
+                                inserter.insert(path);
+                            }
+                        };
+                    }
+                });
+            } else {
+                final LinkInserter inserter = new LinkInserter(store);
+                for (final File path: files) {
+                    inserter.insert(path);
+                }
+            }
+        } finally {
+            try {
+                store.close();
+            } catch (final IOException e) {
+                logger.error("Failed to remove map link spool file: " + e.getMessage(), e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Run map link stylesheet and spool links into store.
+     */
+    private void readLinks(final AbstractPipelineInput input, final File inputFile, final File styleFile,
+                           final MapLinkStore store) throws DITAOTException {
         InputStream in = null;
         try {
-            doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
-            final Transformer transformer = TransformerFactory.newInstance().newTransformer(new StreamSource(styleFile));
+            final Transformer transformer = TemplatesCache.getInstance().getTemplates(styleFile, CatalogUtils.getCatalogResolver()).newTransformer();
             transformer.setURIResolver(CatalogUtils.getCatalogResolver());
             if (input.getAttribute("include.rellinks") != null) {
                 transformer.setParameter("include.rellinks", input.getAttribute("include.rellinks"));
@@ -62,8 +110,7 @@ final class MoveLinksModule extends AbstractPipelineModuleImpl {
             in = new BufferedInputStream(new FileInputStream(inputFile));
             final Source source = new StreamSource(in);
             source.setSystemId(inputFile.toURI().toString());
-            final DOMResult result = new DOMResult(doc);
-            transformer.transform(source, result);
+            transformer.transform(source, store.getResult());
         } catch (final RuntimeException e) {
             throw e;
         } catch (final Exception e) {
@@ -77,59 +124,35 @@ final class MoveLinksModule extends AbstractPipelineModuleImpl {
                 }
             }
         }
+    }
+
+    /**
+     * Link inserter for a single thread.
+     */
+    private final class LinkInserter {
 
-        final Map<File, Map<String, Element>> mapSet = getMapping(doc);
+        private final MapLinkStore store;
+        private final DitaLinksWriter linkInserter = new DitaLinksWriter();
 
-        if (!mapSet.isEmpty()) {
-            final DitaLinksWriter linkInserter = new DitaLinksWriter();
+        LinkInserter(final MapLinkStore store) {
+            this.store = store;
             linkInserter.setLogger(logger);
             linkInserter.setJob(job);
-            for (final Map.Entry<File, Map<String, Element>> entry: mapSet.entrySet()) {
-                final File f = new File(job.tempDir, entry.getKey().getPath());
-                logger.info("Processing " + f);
-                linkInserter.setLinks(entry.getValue());
-                try {
-                    linkInserter.write(f);
-                } catch (final DITAOTException e) {
-                    logger.error("Failed to insert links: " + e.getMessage(), e);
-                }
-            }
         }
-        return null;
-    }
 
-    private Map<File, Map<String, Element>> getMapping(Document doc) {
-        final Map<File, Map<String, Element>> map = new HashMap<>();
-        final NodeList maplinks = doc.getDocumentElement().getChildNodes();
-        for (int i = 0; i < maplinks.getLength(); i++) {
-            final Node n = maplinks.item(i);
-            if (n.getNodeType() == Node.ELEMENT_NODE) {
-                final Element maplink = (Element) n;
-                final URI href = toURI(maplink.getAttribute(ATTRIBUTE_NAME_HREF));
-                final File path = toFile(stripFragment(href));
-                String fragment = href.getFragment();
-                if (fragment == null) {
-                    fragment = SHARP;
-                }
-                Map<String, Element> m = map.get(path);
-                if (m == null) {
-                    m = new HashMap<>();
-                    map.put(path, m);
-                }
-                Element stub = m.get(fragment);
-                if (stub == null) {
-                    stub = doc.createElement("stub");
-                    m.put(fragment, stub);
-                }
-                Node c = maplink.getFirstChild();
-                while (c != null) {
-                    final Node nextSibling = c.getNextSibling();
-                    stub.appendChild(maplink.removeChild(c));
-                    c = nextSibling;
-                }
+        void insert(final File path) {
+            final File f = new File(job.tempDir, path.getPath());
+            logger.info("Processing " + f);
+            try {
+                linkInserter.setLinks(store.getLinks(path));
+                linkInserter.write(f);
+            } catch (final IOException | SAXException e) {
+                logger.error("Failed to read links for " + f + ": " + e.getMessage(), e);
+            } catch (final DITAOTException e) {
+                logger.error("Failed to insert links: " + e.getMessage(), e);
             }
         }
-        return map;
+
     }
 
 }
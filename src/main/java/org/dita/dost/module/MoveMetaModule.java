@@ -22,6 +22,7 @@ import java.util.Map.Entry;
 import org.apache.tools.ant.util.FileUtils;
 import org.dita.dost.util.CatalogUtils;
 import org.dita.dost.util.Configuration;
+import org.dita.dost.util.TemplatesCache;
 import org.dita.dost.util.XMLUtils;
 import org.w3c.dom.Element;
 import org.dita.dost.exception.DITAOTException;
@@ -93,11 +94,11 @@ final class MoveMetaModule extends AbstractPipelineModuleImpl {
             try {
 
                 logger.info("Loading stylesheet " + styleFile);
-                final TransformerFactory tf = TransformerFactory.newInstance();
-                tf.setURIResolver(CatalogUtils.getCatalogResolver());
-                final Transformer t = tf.newTransformer(new StreamSource(styleFile));
+                final Transformer t = TemplatesCache.getInstance().getTemplates(styleFile, CatalogUtils.getCatalogResolver()).newTransformer();
                 if (Configuration.DEBUG) {
-                    t.setURIResolver(new XMLUtils.DebugURIResolver(tf.getURIResolver()));
+                    t.setURIResolver(new XMLUtils.DebugURIResolver(CatalogUtils.getCatalogResolver()));
+                } else {
+                    t.setURIResolver(CatalogUtils.getCatalogResolver());
                 }
                 for (Entry<String, String> e : input.getAttributes().entrySet()) {
                     logger.debug("Set parameter " + e.getKey() + " to '" + e.getValue() + "'");
@@ -180,7 +181,7 @@ final class MoveMetaModule extends AbstractPipelineModuleImpl {
                 }
                 final URI targetFileName = job.tempDir.toURI().resolve(fi.uri);
                 assert targetFileName.isAbsolute();
-                if (fi.format.equals(ATTR_FORMAT_VALUE_DITA)) {
+                if (fi.format.equals(ATTR_FORMAT_VALUE_DITA) && !fi.isUpToDate()) {
                     topicInserter.setMetaTable(entry.getValue());
                     if (toFile(targetFileName).exists()) {
                         logger.info("Processing " + targetFileName);
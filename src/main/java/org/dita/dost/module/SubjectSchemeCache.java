@@ -0,0 +1,97 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.module;
+
+import static org.dita.dost.util.FilterUtils.SUBJECT_SCHEME_EXTENSION;
+
+import java.io.File;
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.dita.dost.log.DITAOTLogger;
+import org.dita.dost.reader.SubjectSchemeReader;
+import org.dita.dost.util.FilterUtils;
+import org.dita.dost.util.Job;
+
+/**
+ * Subject scheme information memoized by set of subject scheme files. Subject schemes
+ * are read and filters refined only once for each distinct set. Instances are thread-safe.
+ *
+ * @since 2.2
+ */
+final class SubjectSchemeCache {
+
+    private final Job job;
+    private final DITAOTLogger logger;
+    private final FilterUtils baseFilterUtils;
+    private final Map<Set<URI>, SubjectScheme> subjectSchemes = new HashMap<>();
+
+    /**
+     * @param job job configuration
+     * @param logger logger
+     * @param baseFilterUtils filter to refine with subject schemes, {@code null} if profiling is disabled
+     */
+    SubjectSchemeCache(final Job job, final DITAOTLogger logger, final FilterUtils baseFilterUtils) {
+        this.job = job;
+        this.logger = logger;
+        this.baseFilterUtils = baseFilterUtils;
+    }
+
+    /**
+     * Get subject scheme information for a set of subject scheme files.
+     *
+     * @param schemaSet subject scheme files, may be {@code null}
+     * @return subject scheme information
+     */
+    SubjectScheme get(final Set<URI> schemaSet) {
+        final Set<URI> key = schemaSet != null ? schemaSet : Collections.<URI>emptySet();
+        synchronized (subjectSchemes) {
+            SubjectScheme scheme = subjectSchemes.get(key);
+            if (scheme == null) {
+                if (!key.isEmpty()) {
+                    logger.debug("Loading subject schemes");
+                    final SubjectSchemeReader subjectSchemeReader = new SubjectSchemeReader();
+                    subjectSchemeReader.setLogger(logger);
+                    for (final URI schema : key) {
+                        subjectSchemeReader.loadSubjectScheme(new File(job.tempDir.toURI().resolve(schema.getPath() + SUBJECT_SCHEME_EXTENSION)));
+                    }
+                    scheme = new SubjectScheme(subjectSchemeReader.getValidValuesMap(),
+                            subjectSchemeReader.getDefaultValueMap(),
+                            baseFilterUtils != null ? baseFilterUtils.refine(subjectSchemeReader.getSubjectSchemeMap()) : null);
+                } else {
+                    scheme = new SubjectScheme(Collections.<String, Map<String, Set<String>>>emptyMap(),
+                            Collections.<String, Map<String, String>>emptyMap(),
+                            baseFilterUtils);
+                }
+                subjectSchemes.put(key, scheme);
+            }
+            return scheme;
+        }
+    }
+
+    /**
+     * Subject scheme information for a set of subject scheme files.
+     */
+    static final class SubjectScheme {
+
+        final Map<String, Map<String, Set<String>>> validateMap;
+        final Map<String, Map<String, String>> defaultValueMap;
+        /** Filter refined with subject scheme, {@code null} if profiling is disabled. */
+        final FilterUtils filterUtils;
+
+        SubjectScheme(final Map<String, Map<String, Set<String>>> validateMap,
+                      final Map<String, Map<String, String>> defaultValueMap,
+                      final FilterUtils filterUtils) {
+            this.validateMap = validateMap;
+            this.defaultValueMap = defaultValueMap;
+            this.filterUtils = filterUtils;
+        }
+
+    }
+
+}
@@ -43,7 +43,7 @@ final class TopicFragmentModule extends AbstractPipelineModuleImpl {
         final Collection<FileInfo> fis = job.getFileInfo(new Filter() {
             @Override
             public boolean accept(final FileInfo f) {
-                return ATTR_FORMAT_VALUE_DITA.equals(f.format);
+                return ATTR_FORMAT_VALUE_DITA.equals(f.format) && !f.isUpToDate();
             }
         });
         for (final FileInfo f: fis) {
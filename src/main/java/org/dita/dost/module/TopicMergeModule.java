@@ -13,18 +13,14 @@ import static org.dita.dost.writer.ImageMetadataFilter.*;
 import static javax.xml.XMLConstants.*;
 
 import java.io.BufferedOutputStream;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
-import java.io.IOException;
 import java.io.OutputStream;
-import java.io.UnsupportedEncodingException;
 
-import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
 
 import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.log.MessageUtils;
@@ -32,12 +28,20 @@ import org.dita.dost.pipeline.AbstractPipelineInput;
 import org.dita.dost.pipeline.AbstractPipelineOutput;
 import org.dita.dost.reader.MergeMapParser;
 import org.dita.dost.util.CatalogUtils;
+import org.dita.dost.util.TemplatesCache;
+import org.xml.sax.helpers.AttributesImpl;
 
 /**
  * The module handles topic merge in issues as PDF.
+ *
+ * <p>Merged map and topics are streamed into the output file or, if a style is set, into
+ * the stylesheet transformation without buffering the merged document in memory.</p>
  */
 final class TopicMergeModule extends AbstractPipelineModuleImpl {
 
+    private static final String ELEMENT_NAME_DITA_MERGE = "dita-merge";
+    private static final String DITA_NAMESPACE_PREFIX = "ditaarch";
+
     /**
      * Default Constructor.
      *
@@ -72,29 +76,6 @@ final class TopicMergeModule extends AbstractPipelineModuleImpl {
             return null;
         }
 
-        ByteArrayOutputStream midBuffer = null;
-        try {
-            midBuffer = new ByteArrayOutputStream();
-            midBuffer.write(XML_HEAD.getBytes(UTF8));
-            midBuffer.write(("<dita-merge " + ATTRIBUTE_NAMESPACE_PREFIX_DITAARCHVERSION + "='" + DITA_NAMESPACE + "' "
-                    + XMLNS_ATTRIBUTE + ":" + DITA_OT_PREFIX + "='" + DITA_OT_NS + "'>").getBytes(UTF8));
-            mapParser.setOutputStream(midBuffer);
-            mapParser.read(ditaInput, job.tempDir);
-            midBuffer.write("</dita-merge>".getBytes(UTF8));
-        } catch (final UnsupportedEncodingException e) {
-            throw new RuntimeException(e);
-        } catch (final IOException e) {
-            throw new DITAOTException("Failed to merge topics: " + e.getMessage(), e);
-        } finally {
-            if (midBuffer != null) {
-                try {
-                    midBuffer.close();
-                } catch (final IOException e) {
-                    logger.error("Failed to close output buffer: " + e.getMessage(), e);
-                }
-            }
-        }
-
         OutputStream output = null;
         try {
             final File outputDir = out.getParentFile();
@@ -102,16 +83,26 @@ final class TopicMergeModule extends AbstractPipelineModuleImpl {
                 logger.error("Failed to create directory " + outputDir.getAbsolutePath());
             }
             output = new BufferedOutputStream(new FileOutputStream(out));
+            final SAXTransformerFactory stf = (SAXTransformerFactory) TransformerFactory.newInstance();
+            final TransformerHandler handler;
             if (style != null) {
-                final TransformerFactory factory = TransformerFactory.newInstance();
-                factory.setURIResolver(CatalogUtils.getCatalogResolver());
-                final Transformer transformer = factory.newTransformer(new StreamSource(style.toURI().toString()));
-                transformer.transform(new StreamSource(new ByteArrayInputStream(midBuffer.toByteArray())),
-                        new StreamResult(output));
+                handler = stf.newTransformerHandler(TemplatesCache.getInstance().getTemplates(style, CatalogUtils.getCatalogResolver()));
+                handler.getTransformer().setURIResolver(CatalogUtils.getCatalogResolver());
             } else {
-                output.write(midBuffer.toByteArray());
-                output.flush();
+                handler = stf.newTransformerHandler();
             }
+            handler.setResult(new StreamResult(output));
+            handler.startDocument();
+            handler.startPrefixMapping(DITA_NAMESPACE_PREFIX, DITA_NAMESPACE);
+            handler.startPrefixMapping(DITA_OT_PREFIX, DITA_OT_NS);
+            handler.startElement(NULL_NS_URI, ELEMENT_NAME_DITA_MERGE, ELEMENT_NAME_DITA_MERGE, new AttributesImpl());
+            mapParser.read(ditaInput, job.tempDir, handler);
+            handler.endElement(NULL_NS_URI, ELEMENT_NAME_DITA_MERGE, ELEMENT_NAME_DITA_MERGE);
+            handler.endPrefixMapping(DITA_OT_PREFIX);
+            handler.endPrefixMapping(DITA_NAMESPACE_PREFIX);
+            handler.endDocument();
+        } catch (final DITAOTException e) {
+            throw e;
         } catch (final RuntimeException e) {
             throw e;
         } catch (final Exception e) {
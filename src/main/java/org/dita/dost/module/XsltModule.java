@@ -2,14 +2,19 @@ package org.dita.dost.module;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.transform.*;
 import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
 
 import org.apache.tools.ant.types.XMLCatalog;
 import org.apache.tools.ant.util.FileNameMapper;
@@ -17,7 +22,12 @@ import org.apache.tools.ant.util.FileUtils;
 import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.pipeline.AbstractPipelineInput;
 import org.dita.dost.pipeline.AbstractPipelineOutput;
+import org.dita.dost.util.BuildProfile;
 import org.dita.dost.util.Configuration;
+import org.dita.dost.util.Job.FileInfo;
+import org.dita.dost.util.ParallelUtils;
+import org.dita.dost.util.TemplatesCache;
+import org.dita.dost.util.URLUtils;
 import org.dita.dost.util.XMLUtils;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
@@ -31,6 +41,7 @@ import org.xml.sax.XMLReader;
  *   <li>If source and destination directories are same, transformation results are saved to a temporary file
  *   and the original source file is replaced after a successful transformation.</li>
  *   <li>If no {@code extension} attribute is set, the target file extension is the same as the source file extension.</li>
+ *   <li>If {@code parallel} is set, files are transformed concurrently by {@code threads} worker threads.</li>
  * </ul>
  *  
  */
@@ -49,77 +60,232 @@ public final class XsltModule extends AbstractPipelineModuleImpl {
     private boolean reloadstylesheet;
     private XMLCatalog xmlcatalog;
 	private FileNameMapper mapper;
+    private boolean parallel;
+    private int threads = ParallelUtils.DEFAULT_THREADS;
     
     public AbstractPipelineOutput execute(AbstractPipelineInput input) throws DITAOTException {
     	logger.info("Transforming into " + destDir.getAbsolutePath());
-        final TransformerFactory tf = TransformerFactory.newInstance();
-        tf.setURIResolver(xmlcatalog);
         try {
-            templates = tf.newTemplates(new StreamSource(style));
+            templates = TemplatesCache.getInstance().getTemplates(style, xmlcatalog);
         } catch (TransformerConfigurationException e) {
             throw new RuntimeException("Failed to compile stylesheet '" + style.getAbsolutePath() + "': " + e.getMessage(), e);
         }
-        XMLReader parser;
-		try {
-			parser = XMLUtils.getXMLReader();
-		} catch (final SAXException e) {
-			throw new RuntimeException("Failed to create XML reader: " + e.getMessage(), e);
-		}
-        parser.setEntityResolver(xmlcatalog);
-        
+        if (includes != null && baseDir != null && job != null
+                && baseDir.getAbsoluteFile().equals(job.tempDir.getAbsoluteFile())) {
+            includes = removeUpToDate(includes);
+        }
+        if (parallel && threads > 1 && includes.size() > 1) {
+            executeParallel(new ArrayList<>(includes));
+        } else {
+            executeSerial();
+        }
+        return null;
+    }
+
+    /**
+     * Remove files that have already been processed by a previous incremental build.
+     *
+     * @param files files relative to temporary directory
+     * @return files that need to be processed
+     */
+    private Collection<File> removeUpToDate(final Collection<File> files) {
+        final List<File> res = new ArrayList<>(files.size());
+        for (final File include: files) {
+            final FileInfo fi = job.getFileInfo(URLUtils.toURI(include));
+            if (fi == null || !fi.isUpToDate()) {
+                res.add(include);
+            }
+        }
+        if (res.size() < files.size()) {
+            logger.info("Skipping " + (files.size() - res.size()) + " up-to-date files");
+        }
+        return res;
+    }
+
+    private void executeSerial() throws DITAOTException {
+        final XMLReader parser = getXMLReader();
     	Transformer t = null;
         for (final File include: includes) {
         	if (reloadstylesheet || t == null) {
-                logger.info("Loading stylesheet " + style.getAbsolutePath());
-	            try {
-	                t = templates.newTransformer();
-                    if (Configuration.DEBUG) {
-                        t.setURIResolver(new XMLUtils.DebugURIResolver(xmlcatalog));
-                    }
-	            } catch (final TransformerConfigurationException e) {
-	                throw new DITAOTException("Failed to create Transformer: " + e.getMessage(), e);
-	            }
+                t = getTransformer();
         	}
-            final File in = new File(baseDir, include.getPath());
-            File out = new File(destDir, include.getPath());
-            if (mapper != null) {
-            	final String[] outs = mapper.mapFileName(out.getAbsolutePath());
-            	if (outs == null) {
-            		continue;
-            	}
-            	if (outs.length > 1) {
-            		throw new RuntimeException("XSLT module only support one to one output mapping");
-            	}
-            	out = new File(outs[0]);
+            final Exception e = transform(include, t, parser, null);
+            if (e != null) {
+                logger.error("Failed to transform document: " + e.getMessage(), e);
             }
-            final boolean same = in.getAbsolutePath().equals(out.getAbsolutePath());
-            final File tmp = same ? new File(out.getAbsolutePath() + ".tmp" + Long.toString(System.currentTimeMillis())) : out; 
-            for (Map.Entry<String, String> e: params.entrySet()) {
-                logger.debug("Set parameter " + e.getKey() + " to '" + e.getValue() + "'");
-                t.setParameter(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * Transform files using a pool of worker threads. Each worker owns its own {@link Transformer}
+     * and {@link XMLReader}, both created from the shared {@link Templates}. Transformation errors
+     * are reported in the order of the input files after all workers have finished.
+     *
+     * <p>When input files are transformed in place, results are written to temporary files and
+     * replace the input files only after all workers have finished, so that stylesheets reading
+     * other input files with {@code document()} always see the original files.</p>
+     *
+     * @param files files to transform
+     */
+    private void executeParallel(final List<File> files) throws DITAOTException {
+        logger.info("Transforming " + files.size() + " files using " + Math.min(threads, files.size()) + " threads");
+        final Map<File, Exception> failures = new ConcurrentHashMap<>();
+        final Map<File, File> replacements = new ConcurrentHashMap<>();
+        boolean completed = false;
+        try {
+            ParallelUtils.execute(files, threads, new ParallelUtils.WorkerFactory<File>() {
+                @Override
+                public ParallelUtils.Worker<File> newWorker() {
+                    final XMLReader parser = getXMLReader();
+                    return new ParallelUtils.Worker<File>() {
+                        private Transformer t;
+                        @Override
+                        public void process(final File include) throws DITAOTException {
+                            if (reloadstylesheet || t == null) {
+                                t = getTransformer();
+                            }
+                            final Exception e = transform(include, t, parser, replacements);
+                            if (e != null) {
+                                failures.put(include, e);
+                            }
+                        }
+                    };
+                }
+            });
+            completed = true;
+        } finally {
+            for (final File include: files) {
+                final Exception e = failures.get(include);
+                if (e != null) {
+                    logger.error("Failed to transform document: " + e.getMessage(), e);
+                }
             }
-            if (filenameparameter != null) {
-                logger.debug("Set parameter " + filenameparameter + " to '" + include.getName() + "'");
-                t.setParameter(filenameparameter, include.getName());
+            for (final Map.Entry<File, File> r: replacements.entrySet()) {
+                if (completed) {
+                    replace(r.getValue(), r.getKey());
+                } else {
+                    FileUtils.delete(r.getValue());
+                }
             }
-            if (filedirparameter != null) {
-            	final String v = include.getParent() != null ? include.getParent() : ".";
-                logger.debug("Set parameter " + filedirparameter + " to '" + v + "'");
-                t.setParameter(filedirparameter, v);
+        }
+    }
+
+    /**
+     * Replace input file with transformation result.
+     *
+     * @param tmp transformation result
+     * @param out input file to replace
+     */
+    private void replace(final File tmp, final File out) {
+        logger.debug("Moving " + tmp.getAbsolutePath() + " to " + out.getAbsolutePath());
+        try {
+            try {
+                Files.move(tmp.toPath(), out.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(tmp.toPath(), out.toPath(), StandardCopyOption.REPLACE_EXISTING);
             }
-            if (same) {
-	            logger.info("Processing " + in.getAbsolutePath());
-	            logger.debug("Processing " + in.getAbsolutePath() + " to " + tmp.getAbsolutePath());
-            } else {
-            	logger.info("Processing " + in.getAbsolutePath() + " to " + tmp.getAbsolutePath());
+        } catch (final IOException e) {
+            logger.error("Failed to replace input file " + out.getAbsolutePath() + ": " + e.getMessage(), e);
+            FileUtils.delete(tmp);
+        }
+    }
+
+    private XMLReader getXMLReader() {
+        final XMLReader parser;
+        try {
+            parser = XMLUtils.getXMLReader();
+        } catch (final SAXException e) {
+            throw new RuntimeException("Failed to create XML reader: " + e.getMessage(), e);
+        }
+        parser.setEntityResolver(xmlcatalog);
+        return parser;
+    }
+
+    private Transformer getTransformer() throws DITAOTException {
+        logger.info("Loading stylesheet " + style.getAbsolutePath());
+        try {
+            final Transformer t = templates.newTransformer();
+            if (Configuration.DEBUG) {
+                t.setURIResolver(new XMLUtils.DebugURIResolver(xmlcatalog));
+            } else if (xmlcatalog != null) {
+                t.setURIResolver(xmlcatalog);
             }
-            final Source source = new SAXSource(parser, new InputSource(in.toURI().toString()));
-            try {
-            	if (!tmp.getParentFile().exists() && !tmp.getParentFile().mkdirs()) {
-                	throw new IOException("Failed to create directory " + tmp.getParent());
-                }
-                t.transform(source, new StreamResult(tmp));
-                if (same) {
+            return t;
+        } catch (final TransformerConfigurationException e) {
+            throw new DITAOTException("Failed to create Transformer: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Get output file for a source file.
+     *
+     * @param include source file path relative to source directory
+     * @return output file, {@code null} if the mapper excludes the file
+     */
+    private File getOutputFile(final File include) {
+        final File out = new File(destDir, include.getPath());
+        if (mapper != null) {
+        	final String[] outs = mapper.mapFileName(out.getAbsolutePath());
+        	if (outs == null) {
+        		return null;
+        	}
+        	if (outs.length > 1) {
+        		throw new RuntimeException("XSLT module only support one to one output mapping");
+        	}
+        	return new File(outs[0]);
+        }
+        return out;
+    }
+
+    /**
+     * Transform a single file.
+     *
+     * @param include source file path relative to source directory
+     * @param t transformer to use
+     * @param parser XML reader to use
+     * @param replacements map of input files to in-place results, used instead of replacing input files, may be {@code null}
+     * @return {@code null} if transformation succeeded or the file was skipped, otherwise the cause of failure
+     */
+    private Exception transform(final File include, final Transformer t, final XMLReader parser,
+                                final Map<File, File> replacements) {
+        final File in = new File(baseDir, include.getPath());
+        final File out = getOutputFile(include);
+        if (out == null) {
+            return null;
+        }
+        final boolean same = in.getAbsolutePath().equals(out.getAbsolutePath());
+        final File tmp = same ? new File(out.getAbsolutePath() + ".tmp" + Long.toString(System.currentTimeMillis())) : out; 
+        for (Map.Entry<String, String> e: params.entrySet()) {
+            logger.debug("Set parameter " + e.getKey() + " to '" + e.getValue() + "'");
+            t.setParameter(e.getKey(), e.getValue());
+        }
+        if (filenameparameter != null) {
+            logger.debug("Set parameter " + filenameparameter + " to '" + include.getName() + "'");
+            t.setParameter(filenameparameter, include.getName());
+        }
+        if (filedirparameter != null) {
+        	final String v = include.getParent() != null ? include.getParent() : ".";
+            logger.debug("Set parameter " + filedirparameter + " to '" + v + "'");
+            t.setParameter(filedirparameter, v);
+        }
+        if (same) {
+            logger.info("Processing " + in.getAbsolutePath());
+            logger.debug("Processing " + in.getAbsolutePath() + " to " + tmp.getAbsolutePath());
+        } else {
+        	logger.info("Processing " + in.getAbsolutePath() + " to " + tmp.getAbsolutePath());
+        }
+        final Source source = new SAXSource(parser, new InputSource(in.toURI().toString()));
+        final long start = BuildProfile.now();
+        try {
+        	if (!tmp.getParentFile().exists() && !tmp.getParentFile().mkdirs()) {
+            	throw new IOException("Failed to create directory " + tmp.getParent());
+            }
+            t.transform(source, new StreamResult(tmp));
+            BuildProfile.fileProcessed(BuildProfile.XSLT, in, start);
+            if (same) {
+                if (replacements != null) {
+                    replacements.put(out, tmp);
+                } else {
                     logger.debug("Moving " + tmp.getAbsolutePath() + " to " + out.getAbsolutePath());
                     if (!out.delete()) {
                         throw new IOException("Failed to to delete input file " + out.getAbsolutePath());
@@ -128,11 +294,11 @@ public final class XsltModule extends AbstractPipelineModuleImpl {
                         throw new IOException("Failed to to replace input file " + out.getAbsolutePath());
                     }
                 }
-            } catch (final Exception e) {
-                logger.error("Failed to transform document: " + e.getMessage(), e);
-                logger.debug("Remove " + tmp.getAbsolutePath());
-                FileUtils.delete(tmp);
-            } 
+            }
+        } catch (final Exception e) {
+            logger.debug("Remove " + tmp.getAbsolutePath());
+            FileUtils.delete(tmp);
+            return e;
         }
         return null;
     }
@@ -184,5 +350,13 @@ public final class XsltModule extends AbstractPipelineModuleImpl {
 	public void setMapper(final FileNameMapper mapper) {
 		this.mapper = mapper;
 	}
+
+    public void setParallel(final boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public void setThreads(final int threads) {
+        this.threads = threads;
+    }
     
 }
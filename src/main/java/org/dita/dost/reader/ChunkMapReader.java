@@ -24,7 +24,6 @@ import java.util.*;
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 
@@ -255,7 +254,7 @@ public final class ChunkMapReader extends AbstractDomFilter {
         OutputStream output = null;
         try {
             output = new FileOutputStream(file);
-            final Transformer t = TransformerFactory.newInstance().newTransformer();
+            final Transformer t = XMLUtils.newIdentityTransformer();
             t.transform(new DOMSource(doc), new StreamResult(output));
         } catch (final RuntimeException e) {
             throw e;
@@ -86,6 +86,12 @@ public final class GenListModuleReader extends AbstractXMLFilter {
     private int chunkToNavLevel = 0;
     /** Topic group nesting level */
     private int topicGroupLevel = 0;
+    /** Topic title and short description nesting level */
+    private int linkTextLevel = 0;
+    /** Text of topic titles and short descriptions */
+    private final StringBuilder linkText = new StringBuilder();
+    /** Stack of flags whether element is a topic */
+    private final Stack<Boolean> topicStack = new Stack<>();
     /** Flag used to mark if current file is still valid after filtering */
     private boolean isValidInput = false;
     /** Set of outer dita files */
@@ -228,6 +234,16 @@ public final class GenListModuleReader extends AbstractXMLFilter {
         return hasKeyRef;
     }
 
+    /**
+     * Get text of topic titles and short descriptions in the parsed file. Other files may
+     * use this text as link text, e.g. in generated related links.
+     * 
+     * @return topic title and short description text
+     */
+    public String getLinkText() {
+        return linkText.toString();
+    }
+
     /**
      * To see if the parsed file has coderef inside.
      * 
@@ -391,6 +407,9 @@ public final class GenListModuleReader extends AbstractXMLFilter {
         relTableLevel = 0;
         chunkToNavLevel = 0;
         topicGroupLevel = 0;
+        linkTextLevel = 0;
+        linkText.setLength(0);
+        topicStack.clear();
         isValidInput = false;
         hasconaction = false;
         coderefTargetSet.clear();
@@ -410,6 +429,22 @@ public final class GenListModuleReader extends AbstractXMLFilter {
         // Don't clean resourceOnlySet or normalProcessingRoleSet
     }
 
+    /**
+     * Add results that are collected over multiple files, i.e. not cleared by {@link #reset()},
+     * from another reader. Used to combine results of readers that processed files in parallel.
+     *
+     * @param other reader whose cumulative results to add
+     */
+    public void addCumulativeResults(final GenListModuleReader other) {
+        resourceOnlySet.addAll(other.resourceOnlySet);
+        normalProcessingRoleSet.addAll(other.normalProcessingRoleSet);
+        for (final Map.Entry<URI, Set<URI>> e: other.schemeRelationGraph.entrySet()) {
+            final Set<URI> children = schemeRelationGraph.containsKey(e.getKey()) ? schemeRelationGraph.get(e.getKey()) : new LinkedHashSet<URI>();
+            children.addAll(e.getValue());
+            schemeRelationGraph.put(e.getKey(), children);
+        }
+    }
+
     @Override
     public void startDocument() throws SAXException {
         if (currentDir == null) {
@@ -445,6 +480,15 @@ public final class GenListModuleReader extends AbstractXMLFilter {
 
         final String classValue = atts.getValue(ATTRIBUTE_NAME_CLASS);
 
+        if (linkTextLevel > 0) {
+            linkTextLevel++;
+        } else if (!topicStack.isEmpty() && topicStack.peek()
+                && (TOPIC_TITLE.matches(classValue) || TOPIC_TITLEALTS.matches(classValue)
+                    || TOPIC_SHORTDESC.matches(classValue) || TOPIC_ABSTRACT.matches(classValue))) {
+            linkTextLevel++;
+        }
+        topicStack.push(TOPIC_TOPIC.matches(classValue));
+
         if (foreignLevel > 0) {
             foreignLevel++;
             return;
@@ -586,6 +630,10 @@ public final class GenListModuleReader extends AbstractXMLFilter {
     public void endElement(final String uri, final String localName, final String qName) throws SAXException {
         // @processing-role
         processRoleStack.pop();
+        topicStack.pop();
+        if (linkTextLevel > 0) {
+            linkTextLevel--;
+        }
 
         if (foreignLevel > 0) {
             foreignLevel--;
@@ -607,6 +655,15 @@ public final class GenListModuleReader extends AbstractXMLFilter {
         getContentHandler().endElement(uri, localName, qName);
     }
 
+    @Override
+    public void characters(final char[] ch, final int start, final int length) throws SAXException {
+        if (linkTextLevel > 0) {
+            linkText.append(ch, start, length);
+        }
+
+        getContentHandler().characters(ch, start, length);
+    }
+
     /**
      * Clean up.
      */
@@ -8,35 +8,64 @@
  */
 package org.dita.dost.reader;
 
+import java.util.Arrays;
+
 import org.apache.xerces.xni.grammars.XMLGrammarPool;
 import org.dita.dost.util.XMLGrammarPoolImplUtils;
 
 /**
  * Manages creation and access to a master Xerces grammar pool.
- * The grammar pool is managed as a ThreadLocal variable so it can
- * be used across Ant task invocations.
+ * The grammar pool is shared by all threads in the process so it can
+ * be used across Ant task invocations and by parallel worker threads.
+ * Xerces grammar pool implementation synchronizes access to cached
+ * grammars, so the pool is safe to share between parsers on different threads.
+ * Cached grammars are discarded when the grammar fingerprint passed to
+ * {@link #getGrammarPool(byte[])} changes, so a long-lived process does not keep
+ * using grammars read before catalogs or grammar files were modified.
  */
 public final class GrammarPoolManager {
 
-    private static final ThreadLocal<XMLGrammarPool> grammarPool = new ThreadLocal<>();
+    private static XMLGrammarPool grammarPool;
+    private static boolean failed;
+    /** Fingerprint of catalogs and grammar files the pooled grammars were read from. */
+    private static byte[] fingerprint;
+
+    private GrammarPoolManager() {
+        // leave blank as designed
+    }
 
     /**
      * Get grammar pool
      * 
-     * @return grammar pool instance
+     * @return grammar pool instance, {@code null} if grammar pool could not be created
      */
-    public static XMLGrammarPool getGrammarPool() {
-        XMLGrammarPool pool = grammarPool.get();
-        if (pool == null) {
+    public static synchronized XMLGrammarPool getGrammarPool() {
+        if (grammarPool == null && !failed) {
             try {
-                pool = new XMLGrammarPoolImplUtils();
-                grammarPool.set(pool);
-            } catch (final Exception e) {
+                grammarPool = new XMLGrammarPoolImplUtils();
+            } catch (final Exception | NoClassDefFoundError e) {
+                failed = true;
                 System.out.println("Failed to create Xerces grammar pool for caching DTDs and schemas");
             }
         }
+        return grammarPool;
+    }
+
+    /**
+     * Get grammar pool for a set of catalogs and grammar files. If the fingerprint differs
+     * from the one the pool was last used with, cached grammars are cleared.
+     *
+     * @param grammarFingerprint fingerprint of catalogs and grammar files, may be {@code null}
+     * @return grammar pool instance, {@code null} if grammar pool could not be created
+     * @see org.dita.dost.util.CachingXMLReader#getGrammarFingerprint(java.io.File)
+     */
+    public static synchronized XMLGrammarPool getGrammarPool(final byte[] grammarFingerprint) {
+        final XMLGrammarPool pool = getGrammarPool();
+        if (pool != null && grammarFingerprint != null && !Arrays.equals(grammarFingerprint, fingerprint)) {
+            pool.clear();
+            fingerprint = grammarFingerprint.clone();
+        }
         return pool;
     }
 
 }
-
@@ -9,6 +9,7 @@
 package org.dita.dost.reader;
 
 import static java.util.Arrays.*;
+import static java.util.Collections.*;
 import static org.dita.dost.util.Constants.*;
 import static org.dita.dost.util.URLUtils.*;
 import static org.dita.dost.util.XMLUtils.*;
@@ -91,11 +92,8 @@ public final class KeyrefReader implements AbstractReader {
     public void read(final URI filename, final Document doc) {
         rootScope = null;
         // TODO: use KeyScope implementation that retains order
-        KeyScope keyScope = readScopes(doc);
-        keyScope = cascadeChildKeys(keyScope);
-        // TODO: determine effective key definitions here
-        keyScope = inheritParentKeys(keyScope);
-        rootScope = resolveIntermediate(keyScope);
+        final KeyScope keyScope = readScopes(doc);
+        rootScope = new KeyIndex().build(keyScope);
     }
 
     /** Read keys scopes in map. */
@@ -191,10 +189,10 @@ public final class KeyrefReader implements AbstractReader {
     }
 
     /** Cascade child keys with prefixes to parent key scopes. */
-    private KeyScope cascadeChildKeys(final KeyScope rootScope) {
+    private Map<String, KeyDef> cascadeChildKeys(final KeyScope rootScope) {
         final Map<String, KeyDef> res = new HashMap<>(rootScope.keyDefinition);
         cascadeChildKeys(rootScope, res, "");
-        return new KeyScope(rootScope.name, res, new ArrayList<>(rootScope.childScopes.values()));
+        return res;
     }
     private void cascadeChildKeys(final KeyScope scope, final Map<String, KeyDef> keys, final String prefix) {
         final StringBuilder buf = new StringBuilder(prefix);
@@ -214,63 +212,217 @@ public final class KeyrefReader implements AbstractReader {
         }
     }
 
+    /**
+     * Key definitions of all key scopes in a map. Each key definition is stored once for the key scope
+     * that defines it, instead of copying inherited key definitions to every child scope. Key scopes are
+     * numbered in pre-order, so that a key scope contains the scopes numbered from its own number to the
+     * number of its last descendant. Effective key definition is the definition in the outermost key scope
+     * that contains the current scope.
+     */
+    private final class KeyIndex {
 
-    /** Inherit parent keys to child key scopes. */
-    private KeyScope inheritParentKeys(final KeyScope rootScope) {
-        return inheritParentKeys(rootScope, Collections.<String, KeyDef>emptyMap());
-    }
-    private KeyScope inheritParentKeys(final KeyScope current, final Map<String, KeyDef> parent) {
-        if (parent.keySet().isEmpty() && current.childScopes.isEmpty()) {
-            return current;
-        } else {
-            final Map<String, KeyDef> resKeys = new HashMap<>();
-            resKeys.putAll(current.keyDefinition);
-            resKeys.putAll(parent);
-            final List<KeyScope> resChildren = new ArrayList<>();
-            for (final KeyScope child: current.childScopes.values()) {
-                final KeyScope resChild = inheritParentKeys(child, resKeys);
-                resChildren.add(resChild);
+        /** Key definitions by key name, in key scope pre-order. */
+        private final Map<String, List<Definition>> definitions = new HashMap<>();
+
+        /**
+         * Build key scopes from key scopes read from map.
+         *
+         * @param root root key scope with keys defined directly in each scope
+         * @return root key scope with effective key definitions
+         */
+        IndexedKeyScope build(final KeyScope root) {
+            final List<IndexedKeyScope> scopes = new ArrayList<>();
+            final List<Map<String, KeyDef>> keys = new ArrayList<>();
+            final IndexedKeyScope res = build(root, cascadeChildKeys(root), scopes, keys);
+            for (int i = 0; i < scopes.size(); i++) {
+                for (final KeyDef keyDef: keys.get(i).values()) {
+                    List<Definition> defs = definitions.get(keyDef.keys);
+                    if (defs == null) {
+                        defs = new ArrayList<>(1);
+                        definitions.put(keyDef.keys, defs);
+                    }
+                    final Definition def = new Definition(scopes.get(i), keyDef);
+                    for (Definition outer = defs.isEmpty() ? null : defs.get(defs.size() - 1); outer != null; outer = outer.outer) {
+                        if (outer.contains(def.scope.start)) {
+                            def.outer = outer;
+                            break;
+                        }
+                    }
+                    defs.add(def);
+                }
             }
-            return new KeyScope(current.name, resKeys, resChildren);
+            return res;
         }
+
+        private IndexedKeyScope build(final KeyScope scope, final Map<String, KeyDef> keyDefs,
+                                      final List<IndexedKeyScope> scopes, final List<Map<String, KeyDef>> keys) {
+            final int start = scopes.size();
+            scopes.add(null);
+            keys.add(keyDefs);
+            final Map<String, KeyScope> children = new HashMap<>();
+            for (final KeyScope child: scope.childScopes.values()) {
+                children.put(child.name, build(child, child.keyDefinition, scopes, keys));
+            }
+            final IndexedKeyScope res = new IndexedKeyScope(scope.name, this, start, scopes.size() - 1, children);
+            scopes.set(start, res);
+            return res;
+        }
+
+        /**
+         * Get effective key definition without resolving intermediate key references.
+         *
+         * @param scope key scope
+         * @param key key name
+         * @return key definition, {@code null} if not defined
+         */
+        KeyDef get(final IndexedKeyScope scope, final String key) {
+            final List<Definition> defs = definitions.get(key);
+            if (defs == null) {
+                return null;
+            }
+            // find last definition in a scope that starts before the current scope
+            int low = 0;
+            int high = defs.size() - 1;
+            while (low < high) {
+                final int mid = (low + high + 1) >>> 1;
+                if (defs.get(mid).scope.start <= scope.start) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            Definition def = defs.get(low);
+            while (def != null && !def.contains(scope.start)) {
+                def = def.outer;
+            }
+            if (def == null) {
+                return null;
+            }
+            while (def.outer != null) {
+                def = def.outer;
+            }
+            return def.keyDef;
+        }
+
+        /** Resolve intermediate key references. */
+        synchronized KeyDef resolveIntermediate(final IndexedKeyScope scope, final KeyDef keyDef) {
+            final Element elem = keyDef.element;
+            final String keyref = elem.getAttribute(ATTRIBUTE_NAME_KEYREF);
+            KeyDef keyRefDef = keyref.isEmpty() ? null : get(scope, keyref);
+            if (keyRefDef != null) {
+                final Element defElem = keyRefDef.element;
+                final String defElemKeyref = defElem.getAttribute(ATTRIBUTE_NAME_KEYREF);
+                if (!defElemKeyref.isEmpty()) {
+                    keyRefDef = resolveIntermediate(scope, keyRefDef);
+                }
+                final Element res = mergeMetadata(keyRefDef.element, elem);
+                res.removeAttribute(ATTRIBUTE_NAME_KEYREF);
+                return new KeyDef(keyDef.keys, keyRefDef.href, keyRefDef.scope, keyRefDef.source, res);
+            } else {
+                return keyDef;
+            }
+        }
+
     }
 
-    /** Resolve intermediate key references. */
-    private KeyScope resolveIntermediate(final KeyScope scope) {
-        final Map<String, KeyDef> keys = new HashMap<>(scope.keyDefinition);
-        for (final Map.Entry<String, KeyDef> e: scope.keyDefinition.entrySet()) {
-            final KeyDef res = resolveIntermediate(scope, e.getValue());
-            keys.put(e.getKey(), res);
+    /** Key definition in a key scope. */
+    private static final class Definition {
+        final IndexedKeyScope scope;
+        final KeyDef keyDef;
+        /** Definition of the same key in the nearest key scope that contains this scope, may be {@code null}. */
+        Definition outer;
+        Definition(final IndexedKeyScope scope, final KeyDef keyDef) {
+            this.scope = scope;
+            this.keyDef = keyDef;
         }
-        final List<KeyScope> children = new ArrayList<>();
-        for (final KeyScope child: scope.childScopes.values()) {
-            final KeyScope resolvedChild = resolveIntermediate(child);
-            children.add(resolvedChild);
+        /** Test if key scope of this definition contains key scope at pre-order position. */
+        boolean contains(final int position) {
+            return scope.start <= position && position <= scope.end;
         }
-        return new KeyScope(scope.name, keys, children);
     }
 
-    private KeyDef resolveIntermediate(final KeyScope scope, final KeyDef keyDef) {
-        final Element elem = keyDef.element;
-        final String keyref = elem.getAttribute(ATTRIBUTE_NAME_KEYREF);
-        if (!keyref.isEmpty() && scope.keyDefinition.containsKey(keyref)) {
-            KeyDef keyRefDef = scope.keyDefinition.get(keyref);
-            Element defElem = keyRefDef.element;
-            final String defElemKeyref = defElem.getAttribute(ATTRIBUTE_NAME_KEYREF);
-            if (!defElemKeyref.isEmpty()) {
-                keyRefDef = resolveIntermediate(scope, keyRefDef);
+    /**
+     * Key scope backed by key index. Key definitions with intermediate key references are resolved when
+     * first accessed.
+     */
+    private static final class IndexedKeyScope extends KeyScope {
+
+        private final KeyIndex index;
+        /** Pre-order position of this key scope. */
+        final int start;
+        /** Pre-order position of the last descendant key scope. */
+        final int end;
+        /** Resolved key definitions with intermediate key references. */
+        private final Map<String, KeyDef> resolved = new HashMap<>();
+
+        IndexedKeyScope(final String name, final KeyIndex index, final int start, final int end,
+                        final Map<String, KeyScope> childScopes) {
+            this(name, index, start, end, childScopes, new KeyDefinitionMap());
+        }
+
+        private IndexedKeyScope(final String name, final KeyIndex index, final int start, final int end,
+                                final Map<String, KeyScope> childScopes, final KeyDefinitionMap keyDefinition) {
+            super(name, keyDefinition, unmodifiableMap(childScopes));
+            keyDefinition.scope = this;
+            this.index = index;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public KeyDef get(final String key) {
+            final KeyDef keyDef = index.get(this, key);
+            if (keyDef == null || keyDef.element.getAttribute(ATTRIBUTE_NAME_KEYREF).isEmpty()) {
+                return keyDef;
             }
-            final Element res = mergeMetadata(keyRefDef.element, elem);
-            res.removeAttribute(ATTRIBUTE_NAME_KEYREF);
-            return new KeyDef(keyDef.keys, keyRefDef.href, keyRefDef.scope, keyRefDef.source, res);
-        } else {
-            return keyDef;
+            synchronized (resolved) {
+                KeyDef res = resolved.get(key);
+                if (res == null) {
+                    res = index.resolveIntermediate(this, keyDef);
+                    resolved.put(key, res);
+                }
+                return res;
+            }
+        }
+
+    }
+
+    /** Read-only view of effective key definitions in a key scope. */
+    private static final class KeyDefinitionMap extends AbstractMap<String, KeyDef> {
+
+        private IndexedKeyScope scope;
+
+        @Override
+        public KeyDef get(final Object key) {
+            return key instanceof String ? scope.get((String) key) : null;
         }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return key instanceof String && scope.index.get(scope, (String) key) != null;
+        }
+
+        @Override
+        public Set<Map.Entry<String, KeyDef>> entrySet() {
+            final Set<Map.Entry<String, KeyDef>> res = new HashSet<>();
+            for (final String key: scope.index.definitions.keySet()) {
+                if (scope.index.get(scope, key) != null) {
+                    res.add(new AbstractMap.SimpleImmutableEntry<>(key, scope.get(key)));
+                }
+            }
+            return unmodifiableSet(res);
+        }
+
     }
 
+    /**
+     * Merge key definition metadata into a copy of the referencing element. Source elements may be read
+     * concurrently, so they are traversed without node lists and the result is created in a new document.
+     */
     private Element mergeMetadata(final Element defElem, final Element elem) {
-        final Element res = (Element) elem.cloneNode(true);
-        final Document d = res.getOwnerDocument();
+        final Document d = builder.newDocument();
+        final Element res = (Element) d.importNode(elem, true);
+        d.appendChild(res);
         final Element defMeta = getTopicmeta(defElem);
         if (defMeta != null) {
             Element resMeta = getTopicmeta(res);
@@ -279,9 +431,7 @@ public final class KeyrefReader implements AbstractReader {
                 resMeta.setAttribute(ATTRIBUTE_NAME_CLASS, MAP_TOPICMETA.toString());
                 res.appendChild(resMeta);
             }
-            final NodeList cs = defMeta.getChildNodes();
-            for (int i = 0; i < cs.getLength(); i++) {
-                final Node c = cs.item(i);
+            for (Node c = defMeta.getFirstChild(); c != null; c = c.getNextSibling()) {
                 final Node copy = d.importNode(c, true);
                 resMeta.appendChild(copy);
             }
@@ -300,9 +450,7 @@ public final class KeyrefReader implements AbstractReader {
     }
 
     private Element getTopicmeta(final Element topicref) {
-        final NodeList ns = topicref.getChildNodes();
-        for (int i = 0; i < ns.getLength(); i++) {
-            final Node n = ns.item(i);
+        for (Node n = topicref.getFirstChild(); n != null; n = n.getNextSibling()) {
             if (MAP_TOPICMETA.matches(n)) {
                 return (Element) n;
             }
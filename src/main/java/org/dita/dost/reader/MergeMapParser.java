@@ -8,16 +8,21 @@
  */
 package org.dita.dost.reader;
 
+import static javax.xml.XMLConstants.*;
 import static javax.xml.transform.OutputKeys.*;
 import static org.dita.dost.util.Constants.*;
 import static org.dita.dost.util.URLUtils.*;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.file.Files;
 import java.util.Stack;
 
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.sax.SAXTransformerFactory;
 import javax.xml.transform.sax.TransformerHandler;
@@ -26,6 +31,7 @@ import javax.xml.transform.stream.StreamResult;
 import org.xml.sax.helpers.XMLFilterImpl;
 import org.xml.sax.helpers.AttributesImpl;
 
+import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.exception.DITAOTXMLErrorHandler;
 import org.dita.dost.log.DITAOTLogger;
 import org.dita.dost.log.MessageUtils;
@@ -36,6 +42,7 @@ import org.dita.dost.util.MergeUtils;
 import org.dita.dost.util.XMLUtils;
 
 import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
 
@@ -43,10 +50,15 @@ import org.xml.sax.XMLReader;
  * MergeMapParser reads the ditamap file after preprocessing and merges
  * different files into one intermediate result. It calls MergeTopicParser
  * to process the topic file. Instances are reusable but not thread-safe.
+ *
+ * <p>Merged topics are spooled into a temporary file while the map is read and
+ * appended after the map, so the merged result is never held in memory.</p>
  */
 public final class MergeMapParser extends XMLFilterImpl {
     
     private static final String ATTRIBUTE_NAME_FIRST_TOPIC_ID = "first_topic_id";
+    /** Root element of merged topic spool file. */
+    private static final String ELEMENT_NAME_SPOOL = "merge-spool";
     public static final String ATTRIBUTE_NAME_OHREF = "ohref";
     public static final String ATTRIBUTE_NAME_OID = "oid";
     
@@ -58,7 +70,6 @@ public final class MergeMapParser extends XMLFilterImpl {
 
     private final Stack<String> processStack;
     private int processLevel;
-    private final ByteArrayOutputStream topicBuffer;
     private final SAXTransformerFactory stf;
     private OutputStream output;
     private DITAOTLogger logger;
@@ -72,7 +83,6 @@ public final class MergeMapParser extends XMLFilterImpl {
         processLevel = 0;
         util = new MergeUtils();
         topicParser = new MergeTopicParser(util);
-        topicBuffer = new ByteArrayOutputStream();
         try{
             reader = XMLUtils.getXMLReader();
             reader.setContentHandler(this);
@@ -83,10 +93,6 @@ public final class MergeMapParser extends XMLFilterImpl {
                 throw new RuntimeException("SAX transformation factory not supported");
             }
             stf = (SAXTransformerFactory) tf;
-            final TransformerHandler s = stf.newTransformerHandler();
-            s.getTransformer().setOutputProperty(OMIT_XML_DECLARATION , "yes");
-            s.setResult(new StreamResult(topicBuffer));
-            topicParser.setContentHandler(s);
         }catch (final Exception e){
             throw new RuntimeException("Failed to initialize XML parser: " + e.getMessage(), e);
         }
@@ -126,24 +132,96 @@ public final class MergeMapParser extends XMLFilterImpl {
      * @param tmpDir temporary directory path, may be {@code null}
      */
     public void read(final File filename, final File tmpDir) {
-        tempdir = tmpDir != null ? tmpDir : filename.getParentFile();
-        try{
-            final TransformerHandler s = stf.newTransformerHandler();
-            s.getTransformer().setOutputProperty(OMIT_XML_DECLARATION, "yes");
-            s.setResult(new StreamResult(output));
-            setContentHandler(s);
-            dirPath = filename.getParentFile();
-            reader.setErrorHandler(new DITAOTXMLErrorHandler(filename.getAbsolutePath(), logger));
-            topicParser.getContentHandler().startDocument();
-            logger.info("Processing " + filename.getAbsolutePath());
-            reader.parse(filename.toURI().toString());
-            topicParser.getContentHandler().endDocument();
-            output.write(topicBuffer.toByteArray());
+        File spool = null;
+        try {
+            spool = createSpoolFile(tmpDir != null ? tmpDir : filename.getParentFile());
+            try (OutputStream topicOutput = new BufferedOutputStream(new FileOutputStream(spool))) {
+                final TransformerHandler topicHandler = getSerializer(topicOutput);
+                topicHandler.startDocument();
+                merge(filename, tmpDir, getSerializer(output), topicHandler);
+                topicHandler.endDocument();
+            }
+            Files.copy(spool.toPath(), output);
         }catch(final Exception e){
             logger.error(e.getMessage(), e) ;
+        } finally {
+            if (spool != null && !spool.delete()) {
+                logger.warn("Failed to delete " + spool.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * Read map and pass merged map and topics to a content handler. Merged map is passed first,
+     * followed by merged topics. Document start and end events are not passed to the content handler.
+     * 
+     * @param filename map file path
+     * @param tmpDir temporary directory path, may be {@code null}
+     * @param handler content handler to receive merged map and topics
+     * @throws DITAOTException if writing merged result failed
+     */
+    public void read(final File filename, final File tmpDir, final ContentHandler handler) throws DITAOTException {
+        File spool = null;
+        try {
+            spool = createSpoolFile(tmpDir != null ? tmpDir : filename.getParentFile());
+            try (OutputStream topicOutput = new BufferedOutputStream(new FileOutputStream(spool))) {
+                final TransformerHandler topicHandler = getSerializer(topicOutput);
+                topicHandler.startDocument();
+                topicHandler.startElement(NULL_NS_URI, ELEMENT_NAME_SPOOL, ELEMENT_NAME_SPOOL, new AttributesImpl());
+                try {
+                    merge(filename, tmpDir, new FragmentFilter(handler, false), topicHandler);
+                } catch (final Exception e) {
+                    logger.error(e.getMessage(), e) ;
+                }
+                topicHandler.endElement(NULL_NS_URI, ELEMENT_NAME_SPOOL, ELEMENT_NAME_SPOOL);
+                topicHandler.endDocument();
+            }
+            final XMLReader spoolReader = XMLUtils.getXMLReader();
+            spoolReader.setFeature(FEATURE_NAMESPACE_PREFIX, true);
+            spoolReader.setContentHandler(new FragmentFilter(handler, true));
+            spoolReader.parse(spool.toURI().toString());
+        } catch (final RuntimeException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new DITAOTException("Failed to merge topics: " + e.getMessage(), e);
+        } finally {
+            if (spool != null && !spool.delete()) {
+                logger.warn("Failed to delete " + spool.getAbsolutePath());
+            }
         }
     }
 
+    /**
+     * Parse map and merge topics.
+     * 
+     * @param filename map file path
+     * @param tmpDir temporary directory path, may be {@code null}
+     * @param mapHandler content handler for merged map
+     * @param topicHandler content handler for merged topics
+     */
+    private void merge(final File filename, final File tmpDir, final ContentHandler mapHandler,
+                       final ContentHandler topicHandler) throws IOException, SAXException {
+        tempdir = tmpDir != null ? tmpDir : filename.getParentFile();
+        setContentHandler(mapHandler);
+        topicParser.setContentHandler(topicHandler);
+        dirPath = filename.getParentFile();
+        reader.setErrorHandler(new DITAOTXMLErrorHandler(filename.getAbsolutePath(), logger));
+        logger.info("Processing " + filename.getAbsolutePath());
+        reader.parse(filename.toURI().toString());
+    }
+
+    private TransformerHandler getSerializer(final OutputStream out) throws TransformerConfigurationException {
+        final TransformerHandler s = stf.newTransformerHandler();
+        s.getTransformer().setOutputProperty(OMIT_XML_DECLARATION, "yes");
+        s.setResult(new StreamResult(out));
+        return s;
+    }
+
+    private File createSpoolFile(final File dir) throws IOException {
+        final File spoolDir = job != null ? job.tempDir : dir;
+        return File.createTempFile("merge", ".xml", spoolDir.getAbsoluteFile());
+    }
+
     @Override
     public void endElement(final String uri, final String localName, final String qName) throws SAXException {
         if (processLevel > 0) {
@@ -238,7 +316,7 @@ public final class MergeMapParser extends XMLFilterImpl {
         // if list item not in visitedSet then call MergeTopicParser to parse it
         try{
             for (final FileInfo f: job.getFileInfo()) {
-                if (f.isTarget) {
+                if (f.isTarget()) {
                     String element = f.file.getPath();
                     if (!dirPath.equals(tempdir)) {
                         element = FileUtils.getRelativeUnixPath(new File(dirPath,"a.ditamap").getAbsolutePath(),
@@ -246,7 +324,7 @@ public final class MergeMapParser extends XMLFilterImpl {
                     }
                     if (!util.isVisited(toURI(element))) {
                         util.visit(toURI(element));
-                        if (!f.isResourceOnly && (f.isChunked || !f.isSkipChunk)){
+                        if (!f.isResourceOnly() && (f.isChunked() || !f.isSkipChunk())){
                             //ensure the file exists
                             final File file = new File(dirPath, element);
                             if (file.exists()) {
@@ -266,4 +344,75 @@ public final class MergeMapParser extends XMLFilterImpl {
         getContentHandler().endDocument();
     }
     
+    /**
+     * Content handler that passes document content to another content handler without document
+     * start and end events, and optionally without the root element.
+     */
+    private static final class FragmentFilter extends XMLFilterImpl {
+
+        private final boolean skipRoot;
+        private int depth;
+
+        FragmentFilter(final ContentHandler handler, final boolean skipRoot) {
+            this.skipRoot = skipRoot;
+            setContentHandler(handler);
+        }
+
+        @Override
+        public void startDocument() throws SAXException {
+            depth = 0;
+        }
+
+        @Override
+        public void endDocument() throws SAXException {
+            // NOOP
+        }
+
+        @Override
+        public void startPrefixMapping(final String prefix, final String uri) throws SAXException {
+            if (!skipRoot || depth > 0) {
+                getContentHandler().startPrefixMapping(prefix, uri);
+            }
+        }
+
+        @Override
+        public void endPrefixMapping(final String prefix) throws SAXException {
+            if (!skipRoot || depth > 0) {
+                getContentHandler().endPrefixMapping(prefix);
+            }
+        }
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+                throws SAXException {
+            if (!skipRoot || depth > 0) {
+                getContentHandler().startElement(uri, localName, qName, atts);
+            }
+            depth++;
+        }
+
+        @Override
+        public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+            depth--;
+            if (!skipRoot || depth > 0) {
+                getContentHandler().endElement(uri, localName, qName);
+            }
+        }
+
+        @Override
+        public void characters(final char[] ch, final int start, final int length) throws SAXException {
+            if (!skipRoot || depth > 0) {
+                getContentHandler().characters(ch, start, length);
+            }
+        }
+
+        @Override
+        public void ignorableWhitespace(final char[] ch, final int start, final int length) throws SAXException {
+            if (!skipRoot || depth > 0) {
+                getContentHandler().ignorableWhitespace(ch, start, length);
+            }
+        }
+
+    }
+
 }
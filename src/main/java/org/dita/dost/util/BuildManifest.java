@@ -0,0 +1,281 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import static org.dita.dost.util.URLUtils.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Build manifest for incremental processing.
+ *
+ * <p>The manifest records a content hash and dependencies for each source file of a build, and a
+ * fingerprint of build parameters. Comparing the manifest of the previous build to the current
+ * sources gives the set of files that have to be processed again.</p>
+ *
+ * @since 2.2
+ */
+public final class BuildManifest {
+
+    /** Manifest file name in temporary directory. */
+    public static final String FILE_NAME = ".build.manifest";
+    /** Manifest file name in temporary directory for a build that has not finished preprocessing. */
+    public static final String PENDING_FILE_NAME = ".build.manifest.pending";
+
+    private static final int MAGIC = 0x4D414E49;
+    private static final int VERSION = 1;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** Manifest entry for a single source file. */
+    public static final class Entry {
+        /** Content hash. */
+        public final String hash;
+        /** Hash of text other files may use as link text. */
+        public final String linkTextHash;
+        /** Absolute URIs of files this file depends on. */
+        public final Set<URI> dependencies;
+
+        Entry(final String hash, final String linkTextHash, final Set<URI> dependencies) {
+            this.hash = hash;
+            this.linkTextHash = linkTextHash;
+            this.dependencies = dependencies;
+        }
+    }
+
+    private String fingerprint;
+    private final Map<URI, Entry> entries = new HashMap<>();
+
+    /**
+     * Get build parameter fingerprint.
+     *
+     * @return fingerprint, may be {@code null}
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Set build parameter fingerprint.
+     *
+     * @param fingerprint fingerprint
+     */
+    public void setFingerprint(final String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Add source file to manifest.
+     *
+     * @param file absolute source file URI
+     * @param hash content hash
+     * @param linkTextHash link text hash
+     * @param dependencies absolute URIs of files the source file depends on
+     */
+    public void put(final URI file, final String hash, final String linkTextHash, final Collection<URI> dependencies) {
+        final Set<URI> deps = new HashSet<>(dependencies);
+        deps.remove(file);
+        entries.put(file, new Entry(hash, linkTextHash, deps));
+    }
+
+    /**
+     * Get source file entry.
+     *
+     * @param file absolute source file URI
+     * @return entry, {@code null} if file is not in manifest
+     */
+    public Entry get(final URI file) {
+        return entries.get(file);
+    }
+
+    /**
+     * Get source files in manifest.
+     *
+     * @return absolute source file URIs
+     */
+    public Set<URI> getFiles() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    /**
+     * Get source files that are new, removed or whose content differs from previous manifest.
+     *
+     * @param previous manifest of previous build
+     * @return absolute source file URIs
+     */
+    public Set<URI> getChanged(final BuildManifest previous) {
+        final Set<URI> res = new HashSet<>();
+        for (final Map.Entry<URI, Entry> e: entries.entrySet()) {
+            final Entry prev = previous.entries.get(e.getKey());
+            if (prev == null || !prev.hash.equals(e.getValue().hash)) {
+                res.add(e.getKey());
+            }
+        }
+        for (final URI file: previous.entries.keySet()) {
+            if (!entries.containsKey(file)) {
+                res.add(file);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Get source files affected by changes, i.e. changed files and files that directly or
+     * transitively depend on them.
+     *
+     * @param changed absolute URIs of changed files
+     * @return absolute source file URIs
+     */
+    public Set<URI> getAffected(final Set<URI> changed) {
+        final Map<URI, List<URI>> dependants = new HashMap<>();
+        for (final Map.Entry<URI, Entry> e: entries.entrySet()) {
+            for (final URI dep: e.getValue().dependencies) {
+                List<URI> ds = dependants.get(dep);
+                if (ds == null) {
+                    ds = new ArrayList<>();
+                    dependants.put(dep, ds);
+                }
+                ds.add(e.getKey());
+            }
+        }
+        final Set<URI> res = new HashSet<>(changed);
+        final Queue<URI> queue = new LinkedList<>(changed);
+        while (!queue.isEmpty()) {
+            final List<URI> ds = dependants.get(queue.remove());
+            if (ds != null) {
+                for (final URI d: ds) {
+                    if (res.add(d)) {
+                        queue.add(d);
+                    }
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Read manifest.
+     *
+     * @param file manifest file
+     * @return manifest, {@code null} if manifest file does not exist or is not a supported manifest
+     * @throws IOException if reading manifest failed
+     */
+    public static BuildManifest read(final File file) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            final BuildManifest manifest = new BuildManifest();
+            manifest.fingerprint = in.readUTF();
+            final int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                final URI src = toURI(in.readUTF());
+                final String hash = in.readUTF();
+                final String linkTextHash = in.readUTF();
+                final int depSize = in.readInt();
+                final Set<URI> deps = new HashSet<>(depSize);
+                for (int j = 0; j < depSize; j++) {
+                    deps.add(toURI(in.readUTF()));
+                }
+                manifest.entries.put(src, new Entry(hash, linkTextHash, deps));
+            }
+            return manifest;
+        }
+    }
+
+    /**
+     * Write manifest.
+     *
+     * @param file manifest file
+     * @throws IOException if writing manifest failed
+     */
+    public void write(final File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(fingerprint != null ? fingerprint : "");
+            out.writeInt(entries.size());
+            for (final Map.Entry<URI, Entry> e: entries.entrySet()) {
+                out.writeUTF(e.getKey().toString());
+                out.writeUTF(e.getValue().hash);
+                out.writeUTF(e.getValue().linkTextHash);
+                out.writeInt(e.getValue().dependencies.size());
+                for (final URI dep: e.getValue().dependencies) {
+                    out.writeUTF(dep.toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * Calculate hash of file contents.
+     *
+     * @param file file to hash
+     * @return hex encoded hash
+     * @throws IOException if reading file failed
+     */
+    public static String digest(final File file) throws IOException {
+        final MessageDigest md = getMessageDigest();
+        final byte[] buf = new byte[8192];
+        try (InputStream in = new FileInputStream(file)) {
+            int len;
+            while ((len = in.read(buf)) != -1) {
+                md.update(buf, 0, len);
+            }
+        }
+        return toHex(md.digest());
+    }
+
+    /**
+     * Calculate hash of a string.
+     *
+     * @param value string to hash
+     * @return hex encoded hash
+     */
+    public static String digest(final String value) {
+        return toHex(getMessageDigest().digest(value.getBytes(UTF_8)));
+    }
+
+    private static MessageDigest getMessageDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        final StringBuilder buf = new StringBuilder(bytes.length * 2);
+        for (final byte b: bytes) {
+            buf.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return buf.toString();
+    }
+
+}
@@ -0,0 +1,524 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Build profile with timings, throughput and memory use of pipeline modules and processed files.
+ *
+ * <p>Profiling is disabled unless a profile has been started with {@link #start()}. Reporting methods
+ * are static and return immediately when profiling is disabled, so instrumentation can remain in
+ * production code. Measurements are attributed to the module that is currently running. Modules run
+ * one at a time, but a module may process files in parallel threads.</p>
+ *
+ * @since 2.2
+ */
+public final class BuildProfile {
+
+    /** Timing category for XML parsing and filtering. */
+    public static final String PARSE = "parse";
+    /** Timing category for XSLT transformation. */
+    public static final String XSLT = "xslt";
+    /** Number of slowest files to report. */
+    private static final int SLOWEST = 20;
+    /** Module name for measurements made outside pipeline modules. */
+    private static final String OTHER = "other";
+
+    private static volatile BuildProfile current;
+
+    private final long startTime = System.nanoTime();
+    private final long startGcTime = getGcTime();
+    private final long startTemplatesHits = TemplatesCache.getInstance().getHits();
+    private final long startTemplatesMisses = TemplatesCache.getInstance().getMisses();
+    private final Map<String, ModuleStats> modules = new LinkedHashMap<>();
+    private final Map<String, Long> targets = new LinkedHashMap<>();
+    private final ConcurrentMap<String, FileStats> files = new ConcurrentHashMap<>();
+    private volatile ModuleStats module;
+    private long moduleStart;
+    private long moduleGcTime;
+    private long heapPeak;
+
+    private BuildProfile() {
+        resetHeapPeak();
+    }
+
+    /**
+     * Start profiling. Any previous profile is discarded.
+     *
+     * @return started profile
+     */
+    public static BuildProfile start() {
+        current = new BuildProfile();
+        return current;
+    }
+
+    /**
+     * Stop profiling.
+     *
+     * @return stopped profile, {@code null} if profiling was not enabled
+     */
+    public static BuildProfile stop() {
+        final BuildProfile profile = current;
+        current = null;
+        return profile;
+    }
+
+    /**
+     * Test if profiling is enabled.
+     *
+     * @return {@code true} if profiling is enabled, otherwise {@code false}
+     */
+    public static boolean isEnabled() {
+        return current != null;
+    }
+
+    /**
+     * Get start time for a measurement.
+     *
+     * @return current time in nanoseconds, {@code 0} if profiling is disabled
+     */
+    public static long now() {
+        return current != null ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Record start of pipeline module execution.
+     *
+     * @param name module name
+     */
+    public static void moduleStarted(final String name) {
+        final BuildProfile profile = current;
+        if (profile != null) {
+            profile.startModule(name);
+        }
+    }
+
+    /**
+     * Record end of pipeline module execution.
+     */
+    public static void moduleFinished() {
+        final BuildProfile profile = current;
+        if (profile != null) {
+            profile.finishModule();
+        }
+    }
+
+    /**
+     * Record processing of a single file by current module.
+     *
+     * @param category timing category, e.g. {@link #PARSE} or {@link #XSLT}
+     * @param file processed file
+     * @param start start time from {@link #now()}
+     */
+    public static void fileProcessed(final String category, final File file, final long start) {
+        final BuildProfile profile = current;
+        if (profile != null) {
+            profile.addFile(category, file.getAbsolutePath(), file.length(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Record processing of a single file by current module.
+     *
+     * @param category timing category, e.g. {@link #PARSE} or {@link #XSLT}
+     * @param file processed file URI
+     * @param start start time from {@link #now()}
+     */
+    public static void fileProcessed(final String category, final URI file, final long start) {
+        final BuildProfile profile = current;
+        if (profile != null) {
+            if ("file".equals(file.getScheme())) {
+                final File f = new File(file);
+                profile.addFile(category, f.getAbsolutePath(), f.length(), System.nanoTime() - start);
+            } else {
+                profile.addFile(category, file.toString(), 0L, System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Add to a counter of current module.
+     *
+     * @param counter counter name
+     * @param delta value to add
+     */
+    public static void count(final String counter, final long delta) {
+        final BuildProfile profile = current;
+        if (profile != null) {
+            profile.getModule().getCounter(counter).addAndGet(delta);
+        }
+    }
+
+    /**
+     * Record execution time of a build target.
+     *
+     * @param name target name
+     * @param nanos execution time in nanoseconds
+     */
+    public synchronized void addTarget(final String name, final long nanos) {
+        final Long prev = targets.get(name);
+        targets.put(name, prev != null ? prev + nanos : nanos);
+    }
+
+    private synchronized void startModule(final String name) {
+        ModuleStats stats = modules.get(name);
+        if (stats == null) {
+            stats = new ModuleStats(name);
+            modules.put(name, stats);
+        }
+        stats.invocations++;
+        resetHeapPeak();
+        moduleGcTime = getGcTime();
+        moduleStart = System.nanoTime();
+        module = stats;
+    }
+
+    private synchronized void finishModule() {
+        final ModuleStats stats = module;
+        if (stats == null) {
+            return;
+        }
+        stats.nanos += System.nanoTime() - moduleStart;
+        stats.gcNanos += getGcTime() - moduleGcTime;
+        final long peak = getHeapPeak();
+        stats.heapPeak = Math.max(stats.heapPeak, peak);
+        heapPeak = Math.max(heapPeak, peak);
+        module = null;
+    }
+
+    private ModuleStats getModule() {
+        final ModuleStats stats = module;
+        if (stats != null) {
+            return stats;
+        }
+        synchronized (this) {
+            ModuleStats other = modules.get(OTHER);
+            if (other == null) {
+                other = new ModuleStats(OTHER);
+                modules.put(OTHER, other);
+            }
+            return other;
+        }
+    }
+
+    private void addFile(final String category, final String file, final long bytes, final long nanos) {
+        final ModuleStats stats = getModule();
+        stats.files.incrementAndGet();
+        stats.bytes.addAndGet(bytes);
+        stats.getCounter(category + "Nanos").addAndGet(nanos);
+        FileStats fs = files.get(file);
+        if (fs == null) {
+            final FileStats n = new FileStats();
+            fs = files.putIfAbsent(file, n);
+            if (fs == null) {
+                fs = n;
+            }
+        }
+        fs.bytes = bytes;
+        fs.nanos.addAndGet(nanos);
+        AtomicLong mn = fs.modules.get(stats.name);
+        if (mn == null) {
+            final AtomicLong n = new AtomicLong();
+            mn = fs.modules.putIfAbsent(stats.name, n);
+            if (mn == null) {
+                mn = n;
+            }
+        }
+        mn.addAndGet(nanos);
+    }
+
+    // Memory and GC
+
+    private static void resetHeapPeak() {
+        for (final MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Get heap high-water mark since last reset. Sum of peak usage of heap memory pools.
+     */
+    private static long getHeapPeak() {
+        long res = 0L;
+        for (final MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                final MemoryUsage usage = pool.getPeakUsage();
+                if (usage != null) {
+                    res += usage.getUsed();
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Get accumulated garbage collection time in nanoseconds.
+     */
+    private static long getGcTime() {
+        long res = 0L;
+        for (final GarbageCollectorMXBean gc: ManagementFactory.getGarbageCollectorMXBeans()) {
+            final long t = gc.getCollectionTime();
+            if (t > 0) {
+                res += t;
+            }
+        }
+        return res * 1000000L;
+    }
+
+    // Output
+
+    /**
+     * Write profile to file. If file name has a {@code .csv} extension, profile is written as CSV,
+     * otherwise as JSON.
+     *
+     * @param file output file
+     * @throws IOException if writing profile failed
+     */
+    public synchronized void write(final File file) throws IOException {
+        final long time = System.nanoTime() - startTime;
+        final long gcTime = getGcTime() - startGcTime;
+        heapPeak = Math.max(heapPeak, getHeapPeak());
+        final List<Map.Entry<String, FileStats>> fileList = new ArrayList<>(files.entrySet());
+        Collections.sort(fileList, new Comparator<Map.Entry<String, FileStats>>() {
+            @Override
+            public int compare(final Map.Entry<String, FileStats> o1, final Map.Entry<String, FileStats> o2) {
+                return Long.compare(o2.getValue().nanos.get(), o1.getValue().nanos.get());
+            }
+        });
+        final List<Slow> slowest = getSlowest();
+        if (file.getParentFile() != null && !file.getParentFile().exists() && !file.getParentFile().mkdirs()) {
+            throw new IOException("Failed to create directory " + file.getParent());
+        }
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"))) {
+            if (file.getName().toLowerCase(Locale.ENGLISH).endsWith(".csv")) {
+                writeCsv(out, time, gcTime, fileList, slowest);
+            } else {
+                writeJson(out, time, gcTime, fileList, slowest);
+            }
+        }
+    }
+
+    private List<Slow> getSlowest() {
+        final PriorityQueue<Slow> queue = new PriorityQueue<>(SLOWEST + 1);
+        for (final Map.Entry<String, FileStats> f: files.entrySet()) {
+            for (final Map.Entry<String, AtomicLong> m: f.getValue().modules.entrySet()) {
+                queue.add(new Slow(m.getKey(), f.getKey(), m.getValue().get()));
+                if (queue.size() > SLOWEST) {
+                    queue.remove();
+                }
+            }
+        }
+        final List<Slow> res = new ArrayList<>(queue);
+        Collections.sort(res, Collections.reverseOrder());
+        return res;
+    }
+
+    private void writeJson(final Writer out, final long time, final long gcTime,
+                           final List<Map.Entry<String, FileStats>> fileList, final List<Slow> slowest) throws IOException {
+        out.write("{\n  \"build\": {\"time_ms\": " + ms(time) + ", \"gc_ms\": " + ms(gcTime)
+                + ", \"heap_peak_bytes\": " + heapPeak + "},\n");
+        out.write("  \"caches\": [\n    {\"name\": \"templates\", \"hits\": " + getTemplatesHits()
+                + ", \"misses\": " + getTemplatesMisses() + "}\n  ],\n");
+        out.write("  \"targets\": [");
+        String sep = "\n";
+        for (final Map.Entry<String, Long> t: targets.entrySet()) {
+            out.write(sep + "    {\"name\": " + json(t.getKey()) + ", \"time_ms\": " + ms(t.getValue()) + "}");
+            sep = ",\n";
+        }
+        out.write("\n  ],\n  \"modules\": [");
+        sep = "\n";
+        for (final ModuleStats m: modules.values()) {
+            out.write(sep + "    {\"name\": " + json(m.name) + ", \"invocations\": " + m.invocations
+                    + ", \"time_ms\": " + ms(m.nanos) + ", \"gc_ms\": " + ms(m.gcNanos)
+                    + ", \"heap_peak_bytes\": " + m.heapPeak + ", \"files\": " + m.files.get()
+                    + ", \"bytes\": " + m.bytes.get() + ", \"counters\": {");
+            String csep = "";
+            for (final Map.Entry<String, AtomicLong> c: m.getCounters().entrySet()) {
+                final boolean timer = c.getKey().endsWith("Nanos");
+                final String name = timer ? c.getKey().substring(0, c.getKey().length() - 5) + "_ms" : c.getKey();
+                out.write(csep + json(name) + ": " + (timer ? ms(c.getValue().get()) : Long.toString(c.getValue().get())));
+                csep = ", ";
+            }
+            out.write("}}");
+            sep = ",\n";
+        }
+        out.write("\n  ],\n  \"files\": [");
+        sep = "\n";
+        for (final Map.Entry<String, FileStats> f: fileList) {
+            out.write(sep + "    {\"file\": " + json(f.getKey()) + ", \"time_ms\": " + ms(f.getValue().nanos.get())
+                    + ", \"bytes\": " + f.getValue().bytes + ", \"modules\": {");
+            String msep = "";
+            for (final Map.Entry<String, AtomicLong> m: f.getValue().modules.entrySet()) {
+                out.write(msep + json(m.getKey()) + ": " + ms(m.getValue().get()));
+                msep = ", ";
+            }
+            out.write("}}");
+            sep = ",\n";
+        }
+        out.write("\n  ],\n  \"slowest\": [");
+        sep = "\n";
+        for (final Slow s: slowest) {
+            out.write(sep + "    {\"module\": " + json(s.module) + ", \"file\": " + json(s.file)
+                    + ", \"time_ms\": " + ms(s.nanos) + "}");
+            sep = ",\n";
+        }
+        out.write("\n  ]\n}\n");
+    }
+
+    private void writeCsv(final Writer out, final long time, final long gcTime,
+                          final List<Map.Entry<String, FileStats>> fileList, final List<Slow> slowest) throws IOException {
+        out.write("record,name,file,invocations,time_ms,gc_ms,heap_peak_bytes,files,bytes,parse_ms,xslt_ms\n");
+        out.write("build,,,," + ms(time) + "," + ms(gcTime) + "," + heapPeak + ",,,,\n");
+        for (final Map.Entry<String, Long> t: targets.entrySet()) {
+            out.write("target," + csv(t.getKey()) + ",,," + ms(t.getValue()) + ",,,,,,\n");
+        }
+        for (final ModuleStats m: modules.values()) {
+            out.write("module," + csv(m.name) + ",," + m.invocations + "," + ms(m.nanos) + "," + ms(m.gcNanos) + ","
+                    + m.heapPeak + "," + m.files.get() + "," + m.bytes.get() + ","
+                    + ms(m.getCounter(PARSE + "Nanos").get()) + "," + ms(m.getCounter(XSLT + "Nanos").get()) + "\n");
+        }
+        for (final Map.Entry<String, FileStats> f: fileList) {
+            for (final Map.Entry<String, AtomicLong> m: f.getValue().modules.entrySet()) {
+                out.write("file," + csv(m.getKey()) + "," + csv(f.getKey()) + ",," + ms(m.getValue().get()) + ",,,,"
+                        + f.getValue().bytes + ",,\n");
+            }
+        }
+        for (final Slow s: slowest) {
+            out.write("slowest," + csv(s.module) + "," + csv(s.file) + ",," + ms(s.nanos) + ",,,,,,\n");
+        }
+        out.write("cache,templates.hits,," + getTemplatesHits() + ",,,,,,,\n");
+        out.write("cache,templates.misses,," + getTemplatesMisses() + ",,,,,,,\n");
+    }
+
+    /** Get number of compiled stylesheet cache hits during profile. */
+    private long getTemplatesHits() {
+        return TemplatesCache.getInstance().getHits() - startTemplatesHits;
+    }
+
+    /** Get number of compiled stylesheet cache misses during profile. */
+    private long getTemplatesMisses() {
+        return TemplatesCache.getInstance().getMisses() - startTemplatesMisses;
+    }
+
+    private static String ms(final long nanos) {
+        return String.format(Locale.ENGLISH, "%.3f", nanos / 1000000.0);
+    }
+
+    private static String json(final String value) {
+        final StringBuilder buf = new StringBuilder(value.length() + 2).append('"');
+        for (final char c: value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    buf.append("\\\"");
+                    break;
+                case '\\':
+                    buf.append("\\\\");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        buf.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        buf.append(c);
+                    }
+            }
+        }
+        return buf.append('"').toString();
+    }
+
+    private static String csv(final String value) {
+        if (value.indexOf(',') != -1 || value.indexOf('"') != -1 || value.indexOf('\n') != -1) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+
+    // Statistics
+
+    private static final class ModuleStats {
+        final String name;
+        final AtomicLong files = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+        int invocations;
+        long nanos;
+        long gcNanos;
+        long heapPeak;
+
+        ModuleStats(final String name) {
+            this.name = name;
+        }
+
+        AtomicLong getCounter(final String counter) {
+            AtomicLong c = counters.get(counter);
+            if (c == null) {
+                final AtomicLong n = new AtomicLong();
+                c = counters.putIfAbsent(counter, n);
+                if (c == null) {
+                    c = n;
+                }
+            }
+            return c;
+        }
+
+        Map<String, AtomicLong> getCounters() {
+            final Map<String, AtomicLong> res = new LinkedHashMap<>();
+            final List<String> names = new ArrayList<>(counters.keySet());
+            Collections.sort(names);
+            for (final String n: names) {
+                res.put(n, counters.get(n));
+            }
+            return res;
+        }
+    }
+
+    private static final class FileStats {
+        final AtomicLong nanos = new AtomicLong();
+        final ConcurrentMap<String, AtomicLong> modules = new ConcurrentHashMap<>();
+        volatile long bytes;
+    }
+
+    private static final class Slow implements Comparable<Slow> {
+        final String module;
+        final String file;
+        final long nanos;
+
+        Slow(final String module, final String file, final long nanos) {
+            this.module = module;
+            this.file = file;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public int compareTo(final Slow o) {
+            return Long.compare(nanos, o.nanos);
+        }
+    }
+
+}
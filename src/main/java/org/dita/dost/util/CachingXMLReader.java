@@ -0,0 +1,1173 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+
+import org.xml.sax.*;
+import org.xml.sax.ext.EntityResolver2;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.LocatorImpl;
+
+/**
+ * XML reader wrapper that caches parse results in a {@link ParseCache}.
+ *
+ * <p>The SAX events of a parse, after DTD processing and attribute defaulting, are stored in a
+ * compact binary form keyed by the grammar fingerprint, reader features, system ID and document
+ * content. When the same document is parsed again, the stored events are replayed to the content
+ * and lexical handlers without invoking the wrapped parser. Only documents read from files are
+ * cached, and parses that report errors or warnings, DTD handler events or general entity
+ * references are never cached, so that replay is indistinguishable from parsing.</p>
+ *
+ * <p>Grammar files in the DITA-OT installation are covered by the grammar fingerprint. Other local
+ * files resolved as external entities, e.g. a specialization DTD next to the document, are stored
+ * with the cache entry together with their sizes and modification times, and the entry is only
+ * replayed if they are unchanged. DTDs read from a grammar pool are not resolved again, so the
+ * files of each external DTD subset are remembered for the lifetime of the process. Parses with
+ * external entities that are not local files, or with a pooled grammar whose files are not known,
+ * are not cached.</p>
+ *
+ * <p>Namespace aware parses are always recorded with namespace declaration attributes, and the
+ * attributes are removed for readers that do not report them. Readers that only differ in the
+ * namespace prefixes feature share cache entries.</p>
+ *
+ * <p>Instances are not thread-safe.</p>
+ *
+ * @since 2.2
+ */
+public final class CachingXMLReader implements XMLReader {
+
+    private static final String LEXICAL_HANDLER = "http://xml.org/sax/properties/lexical-handler";
+    private static final String DECLARATION_HANDLER = "http://xml.org/sax/properties/declaration-handler";
+    private static final String NAMESPACES = "http://xml.org/sax/features/namespaces";
+    private static final String NAMESPACE_PREFIXES = "http://xml.org/sax/features/namespace-prefixes";
+    private static final String SCHEMA_VALIDATION = "http://apache.org/xml/features/validation/schema";
+    private static final String LOAD_EXTERNAL_DTD = "http://apache.org/xml/features/nonvalidating/load-external-dtd";
+    private static final String XSI_NS = "http://www.w3.org/2001/XMLSchema-instance";
+    private static final byte[] MAGIC = { 'D', 'S', 'A', 'X', 0, 2 };
+    /** Installation directories that contain grammar files, relative to DITA-OT installation directory. */
+    private static final List<String> GRAMMAR_DIRS = Arrays.asList("dtd", "schema", "plugins");
+    /** Files of external DTD subsets outside the grammar directories, by public and system ID. */
+    private static final ConcurrentMap<String, Set<File>> dtdDependencies = new ConcurrentHashMap<>();
+    private static final Set<String> PREDEFINED_ENTITIES = new HashSet<>(Arrays.asList("amp", "lt", "gt", "apos", "quot"));
+    /** Features that affect the event stream, read from the wrapped reader in case they were set before wrapping. */
+    private static final List<String> KEY_FEATURES = Arrays.asList(
+            NAMESPACES,
+            "http://xml.org/sax/features/validation",
+            "http://xml.org/sax/features/xmlns-uris",
+            SCHEMA_VALIDATION,
+            "http://apache.org/xml/features/validation/dynamic",
+            LOAD_EXTERNAL_DTD);
+
+    private static final int START_DOCUMENT = 1;
+    private static final int END_DOCUMENT = 2;
+    private static final int START_PREFIX_MAPPING = 3;
+    private static final int END_PREFIX_MAPPING = 4;
+    private static final int START_ELEMENT = 5;
+    private static final int END_ELEMENT = 6;
+    private static final int CHARACTERS = 7;
+    private static final int IGNORABLE_WHITESPACE = 8;
+    private static final int PROCESSING_INSTRUCTION = 9;
+    private static final int SKIPPED_ENTITY = 10;
+    private static final int START_DTD = 11;
+    private static final int END_DTD = 12;
+    private static final int START_ENTITY = 13;
+    private static final int END_ENTITY = 14;
+    private static final int START_CDATA = 15;
+    private static final int END_CDATA = 16;
+    private static final int COMMENT = 17;
+    /** Locator system ID changes, e.g. for events from an external DTD subset. */
+    private static final int SYSTEM_ID = 18;
+
+    private final XMLReader reader;
+    private final ParseCache cache;
+    private final byte[] fingerprint;
+    private final File ditaDir;
+    private final Map<String, Boolean> features = new TreeMap<>();
+    private ContentHandler contentHandler;
+    private LexicalHandler lexicalHandler;
+    private ErrorHandler errorHandler;
+    private DTDHandler dtdHandler;
+    private boolean declarationHandler;
+
+    /**
+     * Create new caching reader. All local files resolved as external entities are stored as
+     * dependencies of cache entries.
+     *
+     * @param reader wrapped XML reader
+     * @param cache parse cache
+     * @param fingerprint fingerprint of grammar files and catalogs
+     */
+    public CachingXMLReader(final XMLReader reader, final ParseCache cache, final byte[] fingerprint) {
+        this(reader, cache, fingerprint, null);
+    }
+
+    /**
+     * Create new caching reader.
+     *
+     * @param reader wrapped XML reader
+     * @param cache parse cache
+     * @param fingerprint fingerprint of grammar files and catalogs from {@link #getGrammarFingerprint(File)}
+     * @param ditaDir DITA-OT installation directory the fingerprint was calculated for, may be {@code null}
+     */
+    public CachingXMLReader(final XMLReader reader, final ParseCache cache, final byte[] fingerprint, final File ditaDir) {
+        this.reader = reader;
+        this.cache = cache;
+        this.fingerprint = fingerprint;
+        this.ditaDir = ditaDir != null ? ditaDir.getAbsoluteFile() : null;
+    }
+
+    /**
+     * Calculate fingerprint of grammar files and catalogs in DITA-OT installation. The fingerprint is
+     * calculated from the paths, sizes and modification times of DTD, schema and catalog files in the
+     * installation directory and its DTD, schema and plug-in directories. Callers should calculate the
+     * fingerprint once per module execution, so that changes to installed grammars are noticed by
+     * long-running processes.
+     *
+     * @param ditaDir DITA-OT installation directory
+     * @return grammar fingerprint
+     */
+    public static byte[] getGrammarFingerprint(final File ditaDir) {
+        final File dir = ditaDir.getAbsoluteFile();
+        final List<String> files = new ArrayList<>();
+        final String[] names = dir.list();
+        if (names != null) {
+            Arrays.sort(names);
+            for (final String name: names) {
+                final File f = new File(dir, name);
+                if (f.isDirectory()) {
+                    if (GRAMMAR_DIRS.contains(name)) {
+                        listGrammarFiles(f, name + "/", files);
+                    }
+                } else if (isGrammarFileName(name)) {
+                    files.add(name);
+                }
+            }
+        }
+        final StringBuilder buf = new StringBuilder();
+        for (final String f: files) {
+            final File file = new File(dir, f);
+            buf.append(f).append(' ').append(file.length()).append(' ').append(file.lastModified()).append('\n');
+        }
+        return ParseCache.getKey(buf.toString().getBytes(UTF_8)).getBytes(UTF_8);
+    }
+
+    private static void listGrammarFiles(final File dir, final String path, final List<String> files) {
+        final String[] names = dir.list();
+        if (names == null) {
+            return;
+        }
+        Arrays.sort(names);
+        for (final String name: names) {
+            final File f = new File(dir, name);
+            if (f.isDirectory()) {
+                listGrammarFiles(f, path + name + "/", files);
+            } else if (isGrammarFileName(name)) {
+                files.add(path + name);
+            }
+        }
+    }
+
+    private static boolean isGrammarFileName(final String name) {
+        final String n = name.toLowerCase();
+        return n.endsWith(".dtd") || n.endsWith(".mod") || n.endsWith(".ent") || n.endsWith(".xsd")
+                || (n.startsWith("catalog") && n.endsWith(".xml"));
+    }
+
+    /**
+     * Test if file is covered by the grammar fingerprint.
+     *
+     * @param file absolute file
+     * @return {@code true} if file is a grammar file in DITA-OT installation, otherwise {@code false}
+     */
+    private boolean isFingerprinted(final File file) {
+        if (ditaDir == null || !isGrammarFileName(file.getName())) {
+            return false;
+        }
+        final File parent = file.getParentFile();
+        if (ditaDir.equals(parent)) {
+            return true;
+        }
+        for (final String dir: GRAMMAR_DIRS) {
+            if (file.getPath().startsWith(new File(ditaDir, dir).getPath() + File.separator)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // XMLReader
+
+    @Override
+    public boolean getFeature(final String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+        return reader.getFeature(name);
+    }
+
+    @Override
+    public void setFeature(final String name, final boolean value) throws SAXNotRecognizedException, SAXNotSupportedException {
+        reader.setFeature(name, value);
+        features.put(name, value);
+    }
+
+    @Override
+    public Object getProperty(final String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+        if (LEXICAL_HANDLER.equals(name)) {
+            return lexicalHandler;
+        }
+        return reader.getProperty(name);
+    }
+
+    @Override
+    public void setProperty(final String name, final Object value) throws SAXNotRecognizedException, SAXNotSupportedException {
+        if (LEXICAL_HANDLER.equals(name)) {
+            lexicalHandler = (LexicalHandler) value;
+            return;
+        }
+        reader.setProperty(name, value);
+        if (DECLARATION_HANDLER.equals(name)) {
+            declarationHandler = value != null;
+        }
+    }
+
+    @Override
+    public void setEntityResolver(final EntityResolver resolver) {
+        reader.setEntityResolver(resolver);
+    }
+
+    @Override
+    public EntityResolver getEntityResolver() {
+        return reader.getEntityResolver();
+    }
+
+    @Override
+    public void setDTDHandler(final DTDHandler handler) {
+        dtdHandler = handler;
+    }
+
+    @Override
+    public DTDHandler getDTDHandler() {
+        return dtdHandler;
+    }
+
+    @Override
+    public void setContentHandler(final ContentHandler handler) {
+        contentHandler = handler;
+    }
+
+    @Override
+    public ContentHandler getContentHandler() {
+        return contentHandler;
+    }
+
+    @Override
+    public void setErrorHandler(final ErrorHandler handler) {
+        errorHandler = handler;
+    }
+
+    @Override
+    public ErrorHandler getErrorHandler() {
+        return errorHandler;
+    }
+
+    @Override
+    public void parse(final String systemId) throws IOException, SAXException {
+        parse(new InputSource(systemId));
+    }
+
+    @Override
+    public void parse(final InputSource input) throws IOException, SAXException {
+        final File file = getFile(input);
+        if (file == null || declarationHandler) {
+            parseUncached(input);
+            return;
+        }
+        final byte[] content = Files.readAllBytes(file.toPath());
+        final boolean stripPrefixes = getFeature(NAMESPACES, true) && !getFeature(NAMESPACE_PREFIXES, false);
+        final Map<String, Boolean> keyFeatures = new TreeMap<>(features);
+        keyFeatures.remove(NAMESPACE_PREFIXES);
+        for (final String feature: KEY_FEATURES) {
+            try {
+                keyFeatures.put(feature, reader.getFeature(feature));
+            } catch (final SAXNotRecognizedException | SAXNotSupportedException e) {
+                // not supported by wrapped reader
+            }
+        }
+        final String key = ParseCache.getKey(fingerprint, keyFeatures.toString().getBytes(UTF_8),
+                                             input.getSystemId().getBytes(UTF_8), content);
+        final byte[] events = cache.get(key);
+        if (events != null && isValid(events)) {
+            final Replayer replayer = new Replayer(events, input, stripPrefixes);
+            if (replayer.isUpToDate()) {
+                replayer.replay();
+                cache.hit();
+                return;
+            }
+        }
+
+        cache.miss();
+        final InputSource in = new InputSource(new ByteArrayInputStream(content));
+        in.setSystemId(input.getSystemId());
+        in.setPublicId(input.getPublicId());
+        in.setEncoding(input.getEncoding());
+        final Recorder recorder = new Recorder(input.getSystemId(), stripPrefixes);
+        reader.setContentHandler(recorder);
+        reader.setErrorHandler(recorder);
+        reader.setDTDHandler(recorder);
+        try {
+            reader.setProperty(LEXICAL_HANDLER, recorder);
+        } catch (final SAXNotRecognizedException | SAXNotSupportedException e) {
+            recorder.cacheable = false;
+        }
+        final EntityResolver resolver = reader.getEntityResolver();
+        reader.setEntityResolver(resolver instanceof EntityResolver2
+                                 ? new RecordingEntityResolver2((EntityResolver2) resolver, recorder)
+                                 : new RecordingEntityResolver(resolver, recorder));
+        if (stripPrefixes) {
+            reader.setFeature(NAMESPACE_PREFIXES, true);
+        }
+        try {
+            reader.parse(in);
+        } finally {
+            if (stripPrefixes) {
+                reader.setFeature(NAMESPACE_PREFIXES, false);
+            }
+            reader.setEntityResolver(resolver);
+        }
+        if (recorder.cacheable) {
+            cache.put(key, recorder.toByteArray());
+        }
+    }
+
+    private void parseUncached(final InputSource input) throws IOException, SAXException {
+        reader.setContentHandler(contentHandler);
+        reader.setErrorHandler(errorHandler);
+        reader.setDTDHandler(dtdHandler);
+        try {
+            reader.setProperty(LEXICAL_HANDLER, lexicalHandler);
+        } catch (final SAXNotRecognizedException | SAXNotSupportedException e) {
+            // lexical events not supported by wrapped reader
+        }
+        reader.parse(input);
+    }
+
+    private boolean getFeature(final String name, final boolean defaultValue) {
+        try {
+            return reader.getFeature(name);
+        } catch (final SAXNotRecognizedException | SAXNotSupportedException e) {
+            return defaultValue;
+        }
+    }
+
+    private static boolean isNamespaceDeclaration(final String qName) {
+        return qName.startsWith("xmlns") && (qName.length() == 5 || qName.charAt(5) == ':');
+    }
+
+    /**
+     * Remove namespace declaration attributes.
+     *
+     * @return attributes without namespace declarations, argument attributes if there were no declarations
+     */
+    private static Attributes removeNamespaceDeclarations(final Attributes atts) {
+        AttributesImpl res = null;
+        for (int i = atts.getLength() - 1; i >= 0; i--) {
+            if (isNamespaceDeclaration(atts.getQName(i))) {
+                if (res == null) {
+                    res = new AttributesImpl(atts);
+                }
+                res.removeAttribute(i);
+            }
+        }
+        return res != null ? res : atts;
+    }
+
+    /**
+     * Get local file of a URI.
+     *
+     * @return absolute file, {@code null} if URI is not a file URI
+     */
+    private static File toFile(final String uri) {
+        if (uri == null) {
+            return null;
+        }
+        try {
+            final URI u = new URI(uri);
+            if (!"file".equals(u.getScheme()) || u.getQuery() != null) {
+                return null;
+            }
+            return new File(u.getPath()).getAbsoluteFile();
+        } catch (final URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Resolve system ID against base URI.
+     *
+     * @return absolute system ID, {@code null} if system ID cannot be resolved
+     */
+    private static String resolve(final String base, final String systemId) {
+        if (systemId == null) {
+            return null;
+        }
+        try {
+            return base != null ? new URI(base).resolve(new URI(systemId)).toString() : new URI(systemId).toString();
+        } catch (final URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Get file of an input source that can be cached.
+     *
+     * @return file, {@code null} if input source is not a plain file reference
+     */
+    private static File getFile(final InputSource input) {
+        if (input.getByteStream() != null || input.getCharacterStream() != null || input.getSystemId() == null) {
+            return null;
+        }
+        try {
+            final URI uri = new URI(input.getSystemId());
+            if (!"file".equals(uri.getScheme()) || uri.getFragment() != null || uri.getQuery() != null) {
+                return null;
+            }
+            final File file = new File(uri);
+            return file.isFile() ? file : null;
+        } catch (final URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean isValid(final byte[] events) {
+        if (events.length < MAGIC.length + 4) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (events[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(events, 0, events.length - 4);
+        final int end = events.length - 4;
+        final int stored = (events[end] & 0xFF) << 24 | (events[end + 1] & 0xFF) << 16
+                | (events[end + 2] & 0xFF) << 8 | (events[end + 3] & 0xFF);
+        return stored == (int) crc.getValue();
+    }
+
+    /**
+     * Event recorder that forwards events to the handlers of the caching reader.
+     */
+    private final class Recorder implements ContentHandler, LexicalHandler, ErrorHandler, DTDHandler {
+
+        private ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        private final Map<String, Integer> names = new HashMap<>();
+        private final boolean stripPrefixes;
+        private final String documentSystemId;
+        private String systemId;
+        private Locator locator;
+        boolean cacheable = true;
+        /** Local files resolved as external entities that are not covered by the grammar fingerprint. */
+        private final Set<File> dependencies = new LinkedHashSet<>();
+        private int resolvedCount;
+        private String dtdKey;
+        private Set<File> dtdFiles;
+        private int dtdStartResolvedCount;
+        private int dtdEndResolvedCount;
+        private boolean dtdCacheable;
+        private boolean rootElement = true;
+
+        Recorder(final String systemId, final boolean stripPrefixes) {
+            this.documentSystemId = systemId;
+            this.systemId = systemId;
+            this.stripPrefixes = stripPrefixes;
+        }
+
+        /**
+         * Record external entity resolution.
+         *
+         * @param location absolute system ID of the entity content, {@code null} if not known
+         */
+        void resolved(final String location) {
+            resolvedCount++;
+            final File file = toFile(location);
+            if (file == null) {
+                cacheable = false;
+                dtdCacheable = false;
+            } else if (!isFingerprinted(file)) {
+                dependencies.add(file);
+                if (dtdFiles != null) {
+                    dtdFiles.add(file);
+                }
+            }
+        }
+
+        byte[] toByteArray() {
+            final ByteArrayOutputStream body = out;
+            out = new ByteArrayOutputStream(body.size() + 256);
+            out.write(MAGIC, 0, MAGIC.length);
+            writeInt(dependencies.size());
+            for (final File f: dependencies) {
+                writeText(f.getPath());
+                writeLong(f.length());
+                writeLong(f.lastModified());
+            }
+            final byte[] events = body.toByteArray();
+            out.write(events, 0, events.length);
+            final CRC32 crc = new CRC32();
+            final byte[] buf = out.toByteArray();
+            crc.update(buf);
+            final int value = (int) crc.getValue();
+            out.write(value >>> 24);
+            out.write(value >>> 16);
+            out.write(value >>> 8);
+            out.write(value);
+            return out.toByteArray();
+        }
+
+        private void event(final int op) {
+            if (locator != null) {
+                final String s = locator.getSystemId();
+                if (s != null && !s.equals(systemId)) {
+                    systemId = s;
+                    out.write(SYSTEM_ID);
+                    writeText(s);
+                }
+                out.write(op);
+                writeInt(locator.getLineNumber() + 1);
+                writeInt(locator.getColumnNumber() + 1);
+            } else {
+                out.write(op);
+                writeInt(0);
+                writeInt(0);
+            }
+        }
+
+        private void writeInt(final int value) {
+            int v = value;
+            while ((v & ~0x7F) != 0) {
+                out.write((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            out.write(v);
+        }
+
+        private void writeLong(final long value) {
+            long v = value;
+            while ((v & ~0x7FL) != 0) {
+                out.write((int) (v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            out.write((int) v);
+        }
+
+        private void writeText(final String s) {
+            final byte[] buf = s.getBytes(UTF_8);
+            writeInt(buf.length);
+            out.write(buf, 0, buf.length);
+        }
+
+        private void writeText(final char[] ch, final int start, final int length) {
+            writeText(new String(ch, start, length));
+        }
+
+        /** Write string using string table, {@code null} is written as 0. */
+        private void writeName(final String s) {
+            if (s == null) {
+                writeInt(0);
+                return;
+            }
+            final Integer i = names.get(s);
+            if (i != null) {
+                writeInt(i);
+            } else {
+                names.put(s, names.size() + 2);
+                writeInt(1);
+                writeText(s);
+            }
+        }
+
+        // ContentHandler
+
+        @Override
+        public void setDocumentLocator(final Locator locator) {
+            this.locator = locator;
+            if (contentHandler != null) {
+                contentHandler.setDocumentLocator(locator);
+            }
+        }
+
+        @Override
+        public void startDocument() throws SAXException {
+            event(START_DOCUMENT);
+            if (contentHandler != null) {
+                contentHandler.startDocument();
+            }
+        }
+
+        @Override
+        public void endDocument() throws SAXException {
+            event(END_DOCUMENT);
+            if (contentHandler != null) {
+                contentHandler.endDocument();
+            }
+        }
+
+        @Override
+        public void startPrefixMapping(final String prefix, final String uri) throws SAXException {
+            event(START_PREFIX_MAPPING);
+            writeName(prefix);
+            writeName(uri);
+            if (contentHandler != null) {
+                contentHandler.startPrefixMapping(prefix, uri);
+            }
+        }
+
+        @Override
+        public void endPrefixMapping(final String prefix) throws SAXException {
+            event(END_PREFIX_MAPPING);
+            writeName(prefix);
+            if (contentHandler != null) {
+                contentHandler.endPrefixMapping(prefix);
+            }
+        }
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+                throws SAXException {
+            if (rootElement) {
+                rootElement = false;
+                // schemas read from a grammar pool are not resolved, so their files are not known
+                if (resolvedCount == dtdEndResolvedCount && getFeature(SCHEMA_VALIDATION, false)
+                        && (atts.getIndex(XSI_NS, "schemaLocation") != -1
+                            || atts.getIndex(XSI_NS, "noNamespaceSchemaLocation") != -1)) {
+                    cacheable = false;
+                }
+            }
+            event(START_ELEMENT);
+            writeName(uri);
+            writeName(localName);
+            writeName(qName);
+            writeInt(atts.getLength());
+            for (int i = 0; i < atts.getLength(); i++) {
+                writeName(atts.getURI(i));
+                writeName(atts.getLocalName(i));
+                writeName(atts.getQName(i));
+                writeName(atts.getType(i));
+                writeName(atts.getValue(i));
+            }
+            if (contentHandler != null) {
+                contentHandler.startElement(uri, localName, qName, stripPrefixes ? removeNamespaceDeclarations(atts) : atts);
+            }
+        }
+
+        @Override
+        public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+            event(END_ELEMENT);
+            writeName(uri);
+            writeName(localName);
+            writeName(qName);
+            if (contentHandler != null) {
+                contentHandler.endElement(uri, localName, qName);
+            }
+        }
+
+        @Override
+        public void characters(final char[] ch, final int start, final int length) throws SAXException {
+            event(CHARACTERS);
+            writeText(ch, start, length);
+            if (contentHandler != null) {
+                contentHandler.characters(ch, start, length);
+            }
+        }
+
+        @Override
+        public void ignorableWhitespace(final char[] ch, final int start, final int length) throws SAXException {
+            event(IGNORABLE_WHITESPACE);
+            writeText(ch, start, length);
+            if (contentHandler != null) {
+                contentHandler.ignorableWhitespace(ch, start, length);
+            }
+        }
+
+        @Override
+        public void processingInstruction(final String target, final String data) throws SAXException {
+            event(PROCESSING_INSTRUCTION);
+            writeName(target);
+            writeText(data != null ? data : "");
+            if (contentHandler != null) {
+                contentHandler.processingInstruction(target, data);
+            }
+        }
+
+        @Override
+        public void skippedEntity(final String name) throws SAXException {
+            event(SKIPPED_ENTITY);
+            writeName(name);
+            if (contentHandler != null) {
+                contentHandler.skippedEntity(name);
+            }
+        }
+
+        // LexicalHandler
+
+        @Override
+        public void startDTD(final String name, final String publicId, final String systemId) throws SAXException {
+            if (systemId != null) {
+                final String location = resolve(documentSystemId, systemId);
+                dtdKey = location != null ? publicId + " " + location : null;
+                dtdFiles = new LinkedHashSet<>();
+                dtdStartResolvedCount = resolvedCount;
+                dtdCacheable = location != null;
+            }
+            event(START_DTD);
+            writeName(name);
+            writeName(publicId);
+            writeName(systemId);
+            if (lexicalHandler != null) {
+                lexicalHandler.startDTD(name, publicId, systemId);
+            }
+        }
+
+        @Override
+        public void endDTD() throws SAXException {
+            if (dtdFiles != null) {
+                if (resolvedCount > dtdStartResolvedCount) {
+                    if (dtdCacheable) {
+                        dtdDependencies.put(dtdKey, new HashSet<>(dtdFiles));
+                    } else if (dtdKey != null) {
+                        dtdDependencies.remove(dtdKey);
+                    }
+                } else if (getFeature(LOAD_EXTERNAL_DTD, true)) {
+                    // external subset was read from a grammar pool
+                    final Set<File> files = dtdKey != null ? dtdDependencies.get(dtdKey) : null;
+                    if (files != null) {
+                        dependencies.addAll(files);
+                    } else {
+                        cacheable = false;
+                    }
+                }
+                dtdFiles = null;
+            }
+            dtdEndResolvedCount = resolvedCount;
+            event(END_DTD);
+            if (lexicalHandler != null) {
+                lexicalHandler.endDTD();
+            }
+        }
+
+        @Override
+        public void startEntity(final String name) throws SAXException {
+            if (!name.startsWith("%") && !name.equals("[dtd]") && !PREDEFINED_ENTITIES.contains(name)) {
+                // general entity content may change without changes to the document entity
+                cacheable = false;
+            }
+            event(START_ENTITY);
+            writeName(name);
+            if (lexicalHandler != null) {
+                lexicalHandler.startEntity(name);
+            }
+        }
+
+        @Override
+        public void endEntity(final String name) throws SAXException {
+            event(END_ENTITY);
+            writeName(name);
+            if (lexicalHandler != null) {
+                lexicalHandler.endEntity(name);
+            }
+        }
+
+        @Override
+        public void startCDATA() throws SAXException {
+            event(START_CDATA);
+            if (lexicalHandler != null) {
+                lexicalHandler.startCDATA();
+            }
+        }
+
+        @Override
+        public void endCDATA() throws SAXException {
+            event(END_CDATA);
+            if (lexicalHandler != null) {
+                lexicalHandler.endCDATA();
+            }
+        }
+
+        @Override
+        public void comment(final char[] ch, final int start, final int length) throws SAXException {
+            event(COMMENT);
+            writeText(ch, start, length);
+            if (lexicalHandler != null) {
+                lexicalHandler.comment(ch, start, length);
+            }
+        }
+
+        // ErrorHandler
+
+        @Override
+        public void warning(final SAXParseException exception) throws SAXException {
+            cacheable = false;
+            if (errorHandler != null) {
+                errorHandler.warning(exception);
+            }
+        }
+
+        @Override
+        public void error(final SAXParseException exception) throws SAXException {
+            cacheable = false;
+            if (errorHandler != null) {
+                errorHandler.error(exception);
+            }
+        }
+
+        @Override
+        public void fatalError(final SAXParseException exception) throws SAXException {
+            cacheable = false;
+            if (errorHandler != null) {
+                errorHandler.fatalError(exception);
+            } else {
+                throw exception;
+            }
+        }
+
+        // DTDHandler
+
+        @Override
+        public void notationDecl(final String name, final String publicId, final String systemId) throws SAXException {
+            cacheable = false;
+            if (dtdHandler != null) {
+                dtdHandler.notationDecl(name, publicId, systemId);
+            }
+        }
+
+        @Override
+        public void unparsedEntityDecl(final String name, final String publicId, final String systemId,
+                                       final String notationName) throws SAXException {
+            cacheable = false;
+            if (dtdHandler != null) {
+                dtdHandler.unparsedEntityDecl(name, publicId, systemId, notationName);
+            }
+        }
+
+    }
+
+    /**
+     * Entity resolver that reports the locations of resolved external entities to a recorder.
+     */
+    private static class RecordingEntityResolver implements EntityResolver {
+
+        final EntityResolver resolver;
+        final Recorder recorder;
+
+        RecordingEntityResolver(final EntityResolver resolver, final Recorder recorder) {
+            this.resolver = resolver;
+            this.recorder = recorder;
+        }
+
+        @Override
+        public InputSource resolveEntity(final String publicId, final String systemId) throws SAXException, IOException {
+            final InputSource res = resolver != null ? resolver.resolveEntity(publicId, systemId) : null;
+            recorder.resolved(getLocation(res, systemId));
+            return res;
+        }
+
+        /**
+         * Get location of entity content.
+         *
+         * @param res resolved input source, {@code null} if entity was not resolved
+         * @param systemId absolute system ID of the entity
+         * @return absolute system ID of entity content, {@code null} if not known
+         */
+        static String getLocation(final InputSource res, final String systemId) {
+            if (res == null) {
+                return systemId;
+            }
+            if (res.getByteStream() != null || res.getCharacterStream() != null) {
+                return null;
+            }
+            return res.getSystemId();
+        }
+
+    }
+
+    private static final class RecordingEntityResolver2 extends RecordingEntityResolver implements EntityResolver2 {
+
+        RecordingEntityResolver2(final EntityResolver2 resolver, final Recorder recorder) {
+            super(resolver, recorder);
+        }
+
+        @Override
+        public InputSource getExternalSubset(final String name, final String baseURI) throws SAXException, IOException {
+            final InputSource res = ((EntityResolver2) resolver).getExternalSubset(name, baseURI);
+            if (res != null) {
+                recorder.resolved(getLocation(res, null));
+            }
+            return res;
+        }
+
+        @Override
+        public InputSource resolveEntity(final String name, final String publicId, final String baseURI,
+                                         final String systemId) throws SAXException, IOException {
+            final InputSource res = ((EntityResolver2) resolver).resolveEntity(name, publicId, baseURI, systemId);
+            recorder.resolved(getLocation(res, resolve(baseURI, systemId)));
+            return res;
+        }
+
+    }
+
+    /**
+     * Event replayer that sends recorded events to the handlers of the caching reader.
+     */
+    private final class Replayer {
+
+        private final byte[] in;
+        private final int end;
+        private final List<String> names = new ArrayList<>();
+        private final LocatorImpl locator = new LocatorImpl();
+        private final AttributesImpl atts = new AttributesImpl();
+        private final boolean stripPrefixes;
+        private int pos = MAGIC.length;
+
+        Replayer(final byte[] events, final InputSource input, final boolean stripPrefixes) {
+            this.stripPrefixes = stripPrefixes;
+            in = events;
+            end = events.length - 4;
+            locator.setSystemId(input.getSystemId());
+            locator.setPublicId(input.getPublicId());
+        }
+
+        /**
+         * Test if dependencies of the cache entry are unchanged. Must be called before {@link #replay()}.
+         *
+         * @return {@code true} if all dependencies have the recorded sizes and modification times
+         */
+        boolean isUpToDate() {
+            boolean res = true;
+            for (int i = readInt(); i > 0; i--) {
+                final File file = new File(readText());
+                final long length = readLong();
+                final long lastModified = readLong();
+                if (file.length() != length || file.lastModified() != lastModified) {
+                    res = false;
+                }
+            }
+            return res;
+        }
+
+        void replay() throws SAXException {
+            if (contentHandler != null) {
+                contentHandler.setDocumentLocator(locator);
+            }
+            while (pos < end) {
+                final int op = in[pos++];
+                if (op == SYSTEM_ID) {
+                    locator.setSystemId(readText());
+                    continue;
+                }
+                locator.setLineNumber(readInt() - 1);
+                locator.setColumnNumber(readInt() - 1);
+                switch (op) {
+                case START_DOCUMENT:
+                    if (contentHandler != null) {
+                        contentHandler.startDocument();
+                    }
+                    break;
+                case END_DOCUMENT:
+                    if (contentHandler != null) {
+                        contentHandler.endDocument();
+                    }
+                    break;
+                case START_PREFIX_MAPPING: {
+                    final String prefix = readName();
+                    final String uri = readName();
+                    if (contentHandler != null) {
+                        contentHandler.startPrefixMapping(prefix, uri);
+                    }
+                    break;
+                }
+                case END_PREFIX_MAPPING: {
+                    final String prefix = readName();
+                    if (contentHandler != null) {
+                        contentHandler.endPrefixMapping(prefix);
+                    }
+                    break;
+                }
+                case START_ELEMENT: {
+                    final String uri = readName();
+                    final String localName = readName();
+                    final String qName = readName();
+                    atts.clear();
+                    for (int i = readInt(); i > 0; i--) {
+                        final String attUri = readName();
+                        final String attLocalName = readName();
+                        final String attQName = readName();
+                        final String type = readName();
+                        final String value = readName();
+                        if (!stripPrefixes || !isNamespaceDeclaration(attQName)) {
+                            atts.addAttribute(attUri, attLocalName, attQName, type, value);
+                        }
+                    }
+                    if (contentHandler != null) {
+                        contentHandler.startElement(uri, localName, qName, atts);
+                    }
+                    break;
+                }
+                case END_ELEMENT: {
+                    final String uri = readName();
+                    final String localName = readName();
+                    final String qName = readName();
+                    if (contentHandler != null) {
+                        contentHandler.endElement(uri, localName, qName);
+                    }
+                    break;
+                }
+                case CHARACTERS: {
+                    final char[] ch = readText().toCharArray();
+                    if (contentHandler != null) {
+                        contentHandler.characters(ch, 0, ch.length);
+                    }
+                    break;
+                }
+                case IGNORABLE_WHITESPACE: {
+                    final char[] ch = readText().toCharArray();
+                    if (contentHandler != null) {
+                        contentHandler.ignorableWhitespace(ch, 0, ch.length);
+                    }
+                    break;
+                }
+                case PROCESSING_INSTRUCTION: {
+                    final String target = readName();
+                    final String data = readText();
+                    if (contentHandler != null) {
+                        contentHandler.processingInstruction(target, data);
+                    }
+                    break;
+                }
+                case SKIPPED_ENTITY: {
+                    final String name = readName();
+                    if (contentHandler != null) {
+                        contentHandler.skippedEntity(name);
+                    }
+                    break;
+                }
+                case START_DTD: {
+                    final String name = readName();
+                    final String publicId = readName();
+                    final String systemId = readName();
+                    if (lexicalHandler != null) {
+                        lexicalHandler.startDTD(name, publicId, systemId);
+                    }
+                    break;
+                }
+                case END_DTD:
+                    if (lexicalHandler != null) {
+                        lexicalHandler.endDTD();
+                    }
+                    break;
+                case START_ENTITY: {
+                    final String name = readName();
+                    if (lexicalHandler != null) {
+                        lexicalHandler.startEntity(name);
+                    }
+                    break;
+                }
+                case END_ENTITY: {
+                    final String name = readName();
+                    if (lexicalHandler != null) {
+                        lexicalHandler.endEntity(name);
+                    }
+                    break;
+                }
+                case START_CDATA:
+                    if (lexicalHandler != null) {
+                        lexicalHandler.startCDATA();
+                    }
+                    break;
+                case END_CDATA:
+                    if (lexicalHandler != null) {
+                        lexicalHandler.endCDATA();
+                    }
+                    break;
+                case COMMENT: {
+                    final char[] ch = readText().toCharArray();
+                    if (lexicalHandler != null) {
+                        lexicalHandler.comment(ch, 0, ch.length);
+                    }
+                    break;
+                }
+                default:
+                    throw new SAXException("Invalid parse cache event " + op);
+                }
+            }
+        }
+
+        private int readInt() {
+            int value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = in[pos++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        private long readLong() {
+            long value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = in[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        private String readText() {
+            final int length = readInt();
+            final String s = new String(in, pos, length, UTF_8);
+            pos += length;
+            return s;
+        }
+
+        private String readName() {
+            final int i = readInt();
+            if (i == 0) {
+                return null;
+            } else if (i == 1) {
+                final String s = readText();
+                names.add(s);
+                return s;
+            } else {
+                return names.get(i - 2);
+            }
+        }
+
+    }
+
+}
@@ -35,11 +35,13 @@ public final class CatalogUtils {
     }
 
     /**
-     * Set directory to find catalog-dita.xml.
+     * Set directory to find catalog-dita.xml. The cached resolver is kept if the directory doesn't change.
      * @param ditaDir ditaDir
      */
     public static synchronized void setDitaDir(final File ditaDir){
-        catalogResolver=null;
+        if (ditaDir == null ? CatalogUtils.ditaDir != null : !ditaDir.equals(CatalogUtils.ditaDir)) {
+            catalogResolver=null;
+        }
         CatalogUtils.ditaDir=ditaDir;
     }
 
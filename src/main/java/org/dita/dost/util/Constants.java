@@ -807,6 +807,18 @@ public final class Constants {
     public static final String ANT_INVOKER_EXT_PARAN_FORCE_UNIQUE = "force-unique";
     public static final String ANT_INVOKER_EXT_PARAM_GENERATE_DEBUG_ATTR = "generate-debug-attributes";
     public static final String ANT_INVOKER_EXT_PARAM_PROCESSING_MODE = "processing-mode";
+    /**Constants for extensive params used in ant invoker(parallel).*/
+    public static final String ANT_INVOKER_EXT_PARAM_PARALLEL = "parallel";
+    /**Constants for extensive params used in ant invoker(incremental).*/
+    public static final String ANT_INVOKER_EXT_PARAM_INCREMENTAL = "incremental";
+    /**Constants for extensive params used in ant invoker(parse-cache-dir).*/
+    public static final String ANT_INVOKER_EXT_PARAM_PARSE_CACHE_DIR = "parse-cache-dir";
+    /**Constants for extensive params used in ant invoker(parse-cache-size).*/
+    public static final String ANT_INVOKER_EXT_PARAM_PARSE_CACHE_SIZE = "parse-cache-size";
+    /**Constants for extensive params used in ant invoker(image-cache-dir).*/
+    public static final String ANT_INVOKER_EXT_PARAM_IMAGE_CACHE_DIR = "image-cache-dir";
+    /**Constants for extensive params used in ant invoker(fused).*/
+    public static final String ANT_INVOKER_EXT_PARAM_FUSED = "fused";
     /**Constants for line separator.*/
     public static final String LINE_SEPARATOR = System.getProperty("line.separator");
 
@@ -12,26 +12,37 @@ import static org.dita.dost.util.Constants.*;
 import static org.apache.commons.io.FileUtils.*;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.UnsupportedEncodingException;
-import java.io.Writer;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Map.Entry;
 
 import javax.xml.parsers.DocumentBuilder;
 
+import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.Task;
+import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.log.DITAOTLogger;
 import org.dita.dost.log.DITAOTAntLogger;
 import org.w3c.dom.Document;
@@ -52,6 +63,8 @@ public final class ConvertLang extends Task {
     private static final String ATTRIBUTE_FORMAT_VALUE_WINDOWS = "windows";
     private static final String ATTRIBUTE_FORMAT_VALUE_HTML = "html";
 
+    private static final int BUFFER_SIZE = 8 * 1024;
+
     private static final String tag1 = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
     private static final String tag2 = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>[OPTIONS]";
     private static final String tag3 = "&lt;?xml version=\"1.0\" encoding=\"utf-8\"?&gt;";
@@ -63,6 +76,9 @@ public final class ConvertLang extends Task {
     private String message;
 
     private String langcode;
+
+    private boolean parallel;
+
     //charset map(e.g html = iso-8859-1)
     private final Map<String, String>charsetMap = new HashMap<>();
     //lang map(e.g ar- = 0x0c01 Arabic (EGYPT))
@@ -92,10 +108,8 @@ public final class ConvertLang extends Task {
         createEntityMap();
         //initialize charset map
         createCharsetMap();
-        //change charset of html files
-        convertHtmlCharset();
-        //update entity and lang code
-        updateAllEntitiesAndLangs();
+        //change charset, escape entities and update lang code
+        convertAll();
     }
 
     private void createLangMap() {
@@ -201,44 +215,141 @@ public final class ConvertLang extends Task {
         return source.substring(0, startPos) + source.substring(endPos);
     }
 
-    private void convertHtmlCharset() {
-        final File outputDir = new File(outputdir);
-        final File[] files = outputDir.listFiles();
-        if (files != null) {
-            for (final File file : files) {
-                //Recursive method
-                convertCharset(file);
+    private String removeXmlTag(final String value) {
+        if(value.contains(tag1)){
+            return replaceXmlTag(value,tag1);
+        }else if(value.contains(tag2)){
+            return replaceXmlTag(value,tag2);
+        }else if(value.contains(tag3)){
+            return replaceXmlTag(value,tag3);
+        }
+        return value;
+    }
+
+    /** Create lookup table of entities by character. */
+    private String[] createEntityTable() {
+        int max = -1;
+        for (final String key: entityMap.keySet()) {
+            max = Math.max(max, Integer.parseInt(key));
+        }
+        final String[] table = new String[Math.min(max + 1, Character.MAX_VALUE + 1)];
+        for (final Entry<String, String> e: entityMap.entrySet()) {
+            final int c = Integer.parseInt(e.getKey());
+            if (c < table.length) {
+                table[c] = e.getValue();
             }
         }
+        return table;
+    }
+
+    private Charset getCharset(final String format) {
+        final String charset = charsetMap.get(format);
+        try {
+            return Charset.forName(charset);
+        } catch (final IllegalArgumentException e) {
+            throw new RuntimeException("Unsupported charset " + charset + ": " + e.getMessage(), e);
+        }
     }
+
     //Recursive method
-    private void convertCharset(final File inputFile){
-        if(inputFile.isDirectory()){
-            final File[] files = inputFile.listFiles();
-            if (files != null) {
-                for (final File file : files) {
-                    convertCharset(file);
+    private void listFiles(final File dir, final List<File> files) {
+        final File[] fs = dir.listFiles();
+        if (fs != null) {
+            for (final File file : fs) {
+                if (file.isDirectory()) {
+                    listFiles(file, files);
+                } else if (FileUtils.isHTMLFile(file.getName())||
+                        FileUtils.isHHCFile(file.getName())||
+                        FileUtils.isHHKFile(file.getName())||
+                        FileUtils.isHHPFile(file.getName())) {
+                    files.add(file);
                 }
             }
-        }else if(FileUtils.isHTMLFile(inputFile.getName())||
-                FileUtils.isHHCFile(inputFile.getName())||
-                FileUtils.isHHKFile(inputFile.getName())){
-
-            final String fileName = inputFile.getAbsolutePath();
-            final File outputFile = new File(fileName + FILE_EXTENSION_TEMP);
-            log("Processing " + fileName, Project.MSG_INFO);
-            BufferedReader reader = null;
-            Writer writer = null;
+        }
+    }
+
+    private void convertAll() {
+        final List<File> files = new ArrayList<>();
+        listFiles(new File(outputdir), files);
+        final String[] entities = createEntityTable();
+        final Charset htmlCharset = getCharset(ATTRIBUTE_FORMAT_VALUE_HTML);
+        final Charset windowsCharset = getCharset(ATTRIBUTE_FORMAT_VALUE_WINDOWS);
+        if (parallel) {
             try {
-                //prepare for the input and output
-                final FileInputStream inputStream = new FileInputStream(inputFile);
-                final InputStreamReader streamReader = new InputStreamReader(inputStream, UTF8);
-                reader = new BufferedReader(streamReader);
+                ParallelUtils.execute(files, ParallelUtils.DEFAULT_THREADS, new ParallelUtils.WorkerFactory<File>() {
+                    @Override
+                    public ParallelUtils.Worker<File> newWorker() {
+                        return new Converter(entities, htmlCharset, windowsCharset);
+                    }
+                });
+            } catch (final DITAOTException e) {
+                throw new BuildException(e.getMessage(), e);
+            }
+        } else {
+            final Converter converter = new Converter(entities, htmlCharset, windowsCharset);
+            for (final File file: files) {
+                converter.process(file);
+            }
+        }
+    }
+
+    /**
+     * Converter that removes XML declarations, updates the charset declaration, escapes
+     * entities and writes the result in the target charset in a single pass. Converter
+     * instances are thread confined.
+     */
+    private final class Converter implements ParallelUtils.Worker<File> {
+
+        private final String[] entities;
+        private final CharsetEncoder htmlEncoder;
+        private final CharsetEncoder windowsEncoder;
+        private final Charset windowsCharset;
+        private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE * 4);
+        private CharsetEncoder encoder;
+        private OutputStream out;
+
+        Converter(final String[] entities, final Charset htmlCharset, final Charset windowsCharset) {
+            this.entities = entities;
+            this.windowsCharset = windowsCharset;
+            htmlEncoder = newEncoder(htmlCharset);
+            windowsEncoder = newEncoder(windowsCharset);
+        }
 
-                final FileOutputStream outputStream = new FileOutputStream(outputFile);
-                final OutputStreamWriter streamWriter = new OutputStreamWriter(outputStream, UTF8);
-                writer = new BufferedWriter(streamWriter);
+        // Same error handling as OutputStreamWriter
+        private CharsetEncoder newEncoder(final Charset charset) {
+            return charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+
+        @Override
+        public void process(final File inputFile) {
+            final File outputFile = new File(inputFile.getAbsolutePath() + FILE_EXTENSION_TEMP);
+            try {
+                try {
+                    if (FileUtils.isHHPFile(inputFile.getName())) {
+                        convertProject(inputFile, outputFile);
+                    } else {
+                        log("Processing " + inputFile.getAbsolutePath(), Project.MSG_INFO);
+                        convertHtml(inputFile, outputFile);
+                    }
+                } catch (final IOException e) {
+                    logger.error(e.getMessage(), e) ;
+                    deleteQuietly(outputFile);
+                    return;
+                }
+                replace(outputFile, inputFile);
+            } catch (final IOException e) {
+                logger.error("Failed to replace " + inputFile + ": " + e.getMessage());
+            }
+        }
 
+        /** Convert HTML, HHC or HHK file. */
+        private void convertHtml(final File inputFile, final File outputFile) throws IOException {
+            try (final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(inputFile), UTF8));
+                 final OutputStream output = new FileOutputStream(outputFile)) {
+                begin(htmlEncoder, output);
                 String value = reader.readLine();
                 while(value != null){
                     //meta tag contains charset found
@@ -248,121 +359,40 @@ public final class ConvertLang extends Task {
                         final int remainIndex = value.indexOf(UTF8) + UTF8.length();
                         final String remainString = value.substring(remainIndex);
                         //change the charset
-                        final String newValue = subString + charsetMap.get(ATTRIBUTE_FORMAT_VALUE_HTML) + remainString;
-                        //write into the output file
-                        writer.write(newValue);
-                        //add line break
-                        writer.write(LINE_SEPARATOR);
+                        write(subString);
+                        write(charsetMap.get(ATTRIBUTE_FORMAT_VALUE_HTML));
+                        write(remainString);
                     }else{
-                        if(value.contains(tag1)){
-                            value = replaceXmlTag(value,tag1);
-                        }else if(value.contains(tag2)){
-                            value = replaceXmlTag(value,tag2);
-                        }else if(value.contains(tag3)){
-                            value = replaceXmlTag(value,tag3);
-                        }
-
-                        //other values
-                        writer.write(value);
-                        writer.write(LINE_SEPARATOR);
+                        write(removeXmlTag(value));
                     }
+                    write(LINE_SEPARATOR);
                     value = reader.readLine();
                 }
-            } catch (final FileNotFoundException e) {
-                logger.error(e.getMessage(), e) ;
-            } catch (final UnsupportedEncodingException e) {
-            	throw new RuntimeException(e);
-            } catch (final IOException e) {
-                logger.error(e.getMessage(), e) ;
-            } finally {
-                if (reader != null) {
-                    try {
-                        reader.close();
-                    } catch (final IOException e) {
-                        logger.error("Failed to close input stream: " + e.getMessage());
-                    }
-                }
-                if (writer != null) {
-                    try {
-                        writer.close();
-                    } catch (final IOException e) {
-                        logger.error("Failed to close output stream: " + e.getMessage());
-                    }
-                }
-            }
-            try {
-                deleteQuietly(inputFile);
-                moveFile(outputFile, inputFile);
-            } catch (final Exception e) {
-                logger.error("Failed to replace " + inputFile + ": " + e.getMessage());
+                end();
             }
         }
-    }
 
-    private void updateAllEntitiesAndLangs() {
-        final File outputDir = new File(outputdir);
-        final File[] files = outputDir.listFiles();
-        if (files != null) {
-            for (final File file : files) {
-                //Recursive method
-                updateEntityAndLang(file);
-            }
-        }
-    }
-    //Recursive method
-    private void updateEntityAndLang(final File inputFile) {
-        //directory case
-        if(inputFile.isDirectory()){
-            final File[] files = inputFile.listFiles();
-            if (files != null) {
-                for (final File file : files) {
-                    updateEntityAndLang(file);
+        /**
+         * Convert HHP file. Language setting is updated after the entities have been escaped and
+         * the contents have been converted to the target charset.
+         */
+        private void convertProject(final File inputFile, final File outputFile) throws IOException {
+            final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            try (final Reader reader = new InputStreamReader(new FileInputStream(inputFile), UTF8)) {
+                begin(windowsEncoder, buf);
+                final char[] cbuf = new char[BUFFER_SIZE];
+                int len;
+                while ((len = reader.read(cbuf)) != -1) {
+                    write(CharBuffer.wrap(cbuf, 0, len));
                 }
+                end();
             }
-        }
-        //html/hhc/hhk file case
-        else if(FileUtils.isHTMLFile(inputFile.getName())||
-                FileUtils.isHHCFile(inputFile.getName())||
-                FileUtils.isHHKFile(inputFile.getName())){
-            //do converting work
-            convertEntityAndCharset(inputFile, ATTRIBUTE_FORMAT_VALUE_HTML);
-
-        }
-        //hhp file case
-        else if(FileUtils.isHHPFile(inputFile.getName())){
-            //do converting work
-            convertEntityAndCharset(inputFile, ATTRIBUTE_FORMAT_VALUE_WINDOWS);
-            //update language setting of hhp file
-            final String fileName = inputFile.getAbsolutePath();
-            final File outputFile = new File(fileName + FILE_EXTENSION_TEMP);
-            //get new charset
-            final String charset = charsetMap.get(ATTRIBUTE_FORMAT_VALUE_WINDOWS);
-            BufferedReader reader = null;
-            BufferedWriter writer = null;
-            try {
-                //prepare for the input and output
-                final FileInputStream inputStream = new FileInputStream(inputFile);
-                final InputStreamReader streamReader = new InputStreamReader(inputStream, charset);
-                //wrapped into reader
-                reader = new BufferedReader(streamReader);
-
-                final FileOutputStream outputStream = new FileOutputStream(outputFile);
-
-                //convert charset
-                final OutputStreamWriter streamWriter = new OutputStreamWriter(outputStream, charset);
-                //wrapped into writer
-                writer = new BufferedWriter(streamWriter);
-
+            try (final BufferedReader reader = new BufferedReader(new StringReader(new String(buf.toByteArray(), windowsCharset)));
+                 final OutputStream output = new FileOutputStream(outputFile)) {
+                begin(windowsEncoder, output);
                 String value = reader.readLine();
                 while(value != null){
-                    if(value.contains(tag1)){
-                        value = replaceXmlTag(value,tag1);
-                    }else if(value.contains(tag2)){
-                        value = replaceXmlTag(value,tag2);
-                    }else if(value.contains(tag3)){
-                        value = replaceXmlTag(value,tag3);
-                    }
-
+                    value = removeXmlTag(value);
                     //meta tag contains charset found
                     if(value.contains("Language=")){
                         String newValue = langMap.get(langcode);
@@ -370,112 +400,80 @@ public final class ConvertLang extends Task {
                             newValue = langMap.get(langcode.split("-")[0]);
                         }
                         if (newValue != null) {
-                            writer.write("Language=" + newValue);
-                            writer.write(LINE_SEPARATOR);
+                            write("Language=" + newValue);
                         } else {
                             throw new IllegalArgumentException("Unsupported language code '" + langcode + "', unable to map to a Locale ID.");
                         }
-
                     }else{
                         //other values
-                        writer.write(value);
-                        writer.write(LINE_SEPARATOR);
+                        write(value);
                     }
+                    write(LINE_SEPARATOR);
                     value = reader.readLine();
                 }
-            } catch (final FileNotFoundException e) {
-                logger.error(e.getMessage(), e) ;
-            } catch (final UnsupportedEncodingException e) {
-                throw new RuntimeException(e);
-            } catch (final IOException e) {
-                logger.error(e.getMessage(), e) ;
-            } finally {
-                if (reader != null) {
-                    try {
-                        reader.close();
-                    } catch (final IOException e) {
-                        logger.error("Failed to close input stream: " + e.getMessage());
-                    }
-                }
-                if (writer != null) {
-                    try {
-                        writer.close();
-                    } catch (final IOException e) {
-                        logger.error("Failed to close output stream: " + e.getMessage());
-                    }
-                }
-            }
-            try {
-                deleteQuietly(inputFile);
-                moveFile(outputFile, inputFile);
-            } catch (final Exception e) {
-                logger.error("Failed to replace " + inputFile + ": " + e.getMessage());
+                end();
             }
         }
 
-    }
+        private void begin(final CharsetEncoder encoder, final OutputStream out) {
+            this.encoder = encoder;
+            this.out = out;
+            encoder.reset();
+            chars.clear();
+            bytes.clear();
+        }
 
-    private void convertEntityAndCharset(final File inputFile, final String format) {
-        final String fileName = inputFile.getAbsolutePath();
-        final File outputFile = new File(fileName + FILE_EXTENSION_TEMP);
-        BufferedReader reader = null;
-        BufferedWriter writer = null;
-        try {
-            //prepare for the input and output
-            final FileInputStream inputStream = new FileInputStream(inputFile);
-            final InputStreamReader streamReader = new InputStreamReader(inputStream, UTF8);
-            //wrapped into reader
-            reader = new BufferedReader(streamReader);
-
-            final FileOutputStream outputStream = new FileOutputStream(outputFile);
-            //get new charset
-            final String charset = charsetMap.get(format);
-            //convert charset
-            final OutputStreamWriter streamWriter = new OutputStreamWriter(outputStream, charset);
-            //wrapped into writer
-            writer = new BufferedWriter(streamWriter);
-
-            //read a character
-            int charCode = reader.read();
-            while(charCode != -1){
-                final String key = String.valueOf(charCode);
-                //Is an entity char
-                if(entityMap.containsKey(key)){
-                    //get related entity
-                    final String value = entityMap.get(key);
-                    //write entity into output file
-                    writer.write(value);
-                }else{
-                    //normal process
-                    writer.write(charCode);
+        /** Escape entities and encode characters. */
+        private void write(final CharSequence value) throws IOException {
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                final String entity = c < entities.length ? entities[c] : null;
+                if (entity != null) {
+                    if (chars.remaining() < entity.length()) {
+                        encode(false);
+                    }
+                    chars.put(entity);
+                } else {
+                    if (!chars.hasRemaining()) {
+                        encode(false);
+                    }
+                    chars.put(c);
                 }
-                charCode = reader.read();
             }
-        } catch (final FileNotFoundException e) {
-            logger.error(e.getMessage(), e) ;
-        } catch (final IOException e) {
-            logger.error(e.getMessage(), e) ;
-        } finally {
-            if (reader != null) {
-                try {
-                    reader.close();
-                } catch (final IOException e) {
-                    logger.error("Failed to close input stream: " + e.getMessage());
-                }
+        }
+
+        private void end() throws IOException {
+            encode(true);
+            while (encoder.flush(bytes).isOverflow()) {
+                drain();
             }
-            if (writer != null) {
-                try {
-                    writer.close();
-                } catch (final IOException e) {
-                    logger.error("Failed to close output stream: " + e.getMessage());
-                }
+            drain();
+            out = null;
+            encoder = null;
+        }
+
+        private void encode(final boolean endOfInput) throws IOException {
+            chars.flip();
+            while (encoder.encode(chars, bytes, endOfInput).isOverflow()) {
+                drain();
             }
+            // unpaired high surrogate is kept until the next call
+            chars.compact();
+        }
+
+        private void drain() throws IOException {
+            out.write(bytes.array(), 0, bytes.position());
+            bytes.clear();
         }
+
+    }
+
+    /** Replace file, atomically if supported by the file system. */
+    private static void replace(final File src, final File dst) throws IOException {
         try {
-            deleteQuietly(inputFile);
-            moveFile(outputFile, inputFile);
-        } catch (final Exception e) {
-            logger.error("Failed to replace " + inputFile + ": " + e.getMessage());
+            Files.move(src.toPath(), dst.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final AtomicMoveNotSupportedException e) {
+            Files.move(src.toPath(), dst.toPath(), StandardCopyOption.REPLACE_EXISTING);
         }
     }
 
@@ -495,4 +493,14 @@ public final class ConvertLang extends Task {
         this.outputdir = outputdir;
     }
 
+    /**
+     * Set whether files are converted in parallel.
+     *
+     * @param parallel {@code true} to convert files in parallel
+     * @since 2.2
+     */
+    public void setParallel(final boolean parallel) {
+        this.parallel = parallel;
+    }
+
 }
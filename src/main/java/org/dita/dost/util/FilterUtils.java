@@ -11,6 +11,7 @@ package org.dita.dost.util;
 import static org.dita.dost.util.Constants.*;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -24,6 +25,9 @@ import org.xml.sax.Attributes;
 
 /**
  * Utility class used for flagging and filtering.
+ *
+ * <p>Filter rules cannot be changed after construction, so instances can be shared between
+ * threads once the logger has been set.</p>
  * 
  * @author Wu, Zhi Qiang
  */
@@ -50,12 +54,16 @@ public final class FilterUtils {
 
     private DITAOTLogger logger;
     private final Map<FilterKey, Action> filterMap;
-    private final Set<FilterKey> notMappingRules = new HashSet<>();
-    private boolean logMissingAction;
+    private final Set<FilterKey> notMappingRules = Collections.newSetFromMap(new ConcurrentHashMap<FilterKey, Boolean>());
+    private final boolean logMissingAction;
 
     public FilterUtils(final Map<FilterKey, Action> filterMap) {
-        this.logMissingAction = !filterMap.isEmpty();
-        this.filterMap = new HashMap<>(filterMap);
+        this(filterMap, !filterMap.isEmpty());
+    }
+
+    private FilterUtils(final Map<FilterKey, Action> filterMap, final boolean logMissingAction) {
+        this.logMissingAction = logMissingAction;
+        this.filterMap = Collections.unmodifiableMap(new HashMap<>(filterMap));
     }
 
     /**
@@ -76,7 +84,7 @@ public final class FilterUtils {
         dfm.put(new FilterKey(ATTRIBUTE_NAME_PRINT, null), Action.INCLUDE);
         dfm.putAll(filterMap);
         this.logMissingAction = !filterMap.isEmpty();
-        this.filterMap = dfm;
+        this.filterMap = Collections.unmodifiableMap(dfm);
     }
 
     public void setLogger(final DITAOTLogger logger) {
@@ -297,11 +305,7 @@ public final class FilterUtils {
     }
 
     private boolean alreadyShowed(final FilterKey notMappingKey) {
-        if (!notMappingRules.contains(notMappingKey)) {
-            notMappingRules.add(notMappingKey);
-            return false;
-        }
-        return true;
+        return !notMappingRules.add(notMappingKey);
     }
 
     /**
@@ -379,9 +383,8 @@ public final class FilterUtils {
             for (final Map.Entry<FilterKey, Action> e: filterMap.entrySet()) {
                 refineAction(e.getValue(), e.getKey(), bindingMap, buf);
             }
-            final FilterUtils filterUtils = new FilterUtils(buf);
+            final FilterUtils filterUtils = new FilterUtils(buf, logMissingAction);
             filterUtils.setLogger(logger);
-            filterUtils.logMissingAction = logMissingAction;
             return filterUtils;
         } else {
             return this;
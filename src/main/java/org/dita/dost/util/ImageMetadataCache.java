@@ -0,0 +1,322 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+
+import org.dita.dost.exception.DITAOTException;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Cache of image metadata read from image headers, shared by all modules and builds in the process.
+ *
+ * <p>Entries are keyed by absolute file path and are valid while file size and modification time
+ * are unchanged, so unchanged images are not opened again. The number of entries is limited and the
+ * least recently used entries are discarded first. A cache with a directory also stores
+ * entries in an index file in that directory, which is read when the cache is first used in a
+ * process and written by {@link #flush()}.</p>
+ *
+ * @since 2.2
+ */
+public final class ImageMetadataCache {
+
+    /** Index file name in cache directory. */
+    public static final String INDEX_FILE_NAME = "images.index";
+
+    private static final int MAGIC = 0x494D4749;
+    private static final int VERSION = 1;
+    /** Default maximum number of cached images. */
+    static final int DEFAULT_SIZE = 10000;
+    private static final float MM_TO_INCH = 25.4f;
+    private static final ImageMetadataCache memoryCache = new ImageMetadataCache(null);
+    private static final Map<File, ImageMetadataCache> instances = new HashMap<>();
+
+    /** Image metadata. */
+    public static final class Metadata {
+        /** Width in pixels, {@code -1} if image format is not supported. */
+        public final int width;
+        /** Height in pixels, {@code -1} if image format is not supported. */
+        public final int height;
+        /** Horizontal resolution in DPI, {@code -1} if not available. */
+        public final int horizontalDpi;
+        /** Vertical resolution in DPI, {@code -1} if not available. */
+        public final int verticalDpi;
+
+        Metadata(final int width, final int height, final int horizontalDpi, final int verticalDpi) {
+            this.width = width;
+            this.height = height;
+            this.horizontalDpi = horizontalDpi;
+            this.verticalDpi = verticalDpi;
+        }
+
+        /**
+         * Test if image format is supported.
+         *
+         * @return {@code true} if image dimensions are available, otherwise {@code false}
+         */
+        public boolean isSupported() {
+            return width != -1;
+        }
+    }
+
+    private static final class Entry {
+        final long length;
+        final long lastModified;
+        final Metadata metadata;
+
+        Entry(final long length, final long lastModified, final Metadata metadata) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.metadata = metadata;
+        }
+    }
+
+    private final File dir;
+    private final Map<File, Entry> entries;
+    private boolean loaded;
+    private volatile boolean dirty;
+
+    /**
+     * Create new cache. Use {@link #getInstance(File)} to get a shared cache.
+     *
+     * @param dir cache directory, {@code null} for a cache that is only kept in memory
+     */
+    ImageMetadataCache(final File dir) {
+        this(dir, DEFAULT_SIZE);
+    }
+
+    /**
+     * Create new cache.
+     *
+     * @param dir cache directory, {@code null} for a cache that is only kept in memory
+     * @param size maximum number of cached images
+     */
+    ImageMetadataCache(final File dir, final int size) {
+        this.dir = dir;
+        entries = Collections.synchronizedMap(new LinkedHashMap<File, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<File, ImageMetadataCache.Entry> eldest) {
+                return size() > size;
+            }
+        });
+    }
+
+    /**
+     * Get cache for a cache directory. Each directory has a single cache instance in the process.
+     *
+     * @param dir cache directory, {@code null} for a cache that is only kept in memory
+     * @return image metadata cache
+     */
+    public static synchronized ImageMetadataCache getInstance(final File dir) {
+        if (dir == null) {
+            return memoryCache;
+        }
+        final File key = dir.getAbsoluteFile();
+        ImageMetadataCache cache = instances.get(key);
+        if (cache == null) {
+            cache = new ImageMetadataCache(key);
+            instances.put(key, cache);
+        }
+        return cache;
+    }
+
+    /**
+     * Get image metadata. Image header is read if the image is not cached or has changed.
+     *
+     * @param file image file
+     * @return image metadata
+     * @throws IOException if reading image failed
+     */
+    public Metadata get(final File file) throws IOException {
+        load();
+        final File key = file.getAbsoluteFile();
+        final long length = key.length();
+        final long lastModified = key.lastModified();
+        final Entry cached = entries.get(key);
+        if (cached != null && cached.length == length && cached.lastModified == lastModified) {
+            return cached.metadata;
+        }
+        final Metadata metadata;
+        try (final InputStream in = new BufferedInputStream(new FileInputStream(key))) {
+            metadata = read(in);
+        }
+        entries.put(key, new Entry(length, lastModified, metadata));
+        dirty = true;
+        return metadata;
+    }
+
+    /**
+     * Read metadata for images concurrently, so that later calls to {@link #get(File)} do not
+     * have to wait for I/O. Images that do not exist or cannot be read are ignored.
+     *
+     * @param files image files
+     * @param threads maximum number of reader threads
+     * @throws DITAOTException if reading was interrupted
+     */
+    public void prefetch(final Collection<File> files, final int threads) throws DITAOTException {
+        load();
+        final List<File> fs = new ArrayList<>(files);
+        ParallelUtils.execute(fs, threads, new ParallelUtils.WorkerFactory<File>() {
+            @Override
+            public ParallelUtils.Worker<File> newWorker() {
+                return new ParallelUtils.Worker<File>() {
+                    @Override
+                    public void process(final File file) {
+                        if (file.exists()) {
+                            try {
+                                get(file);
+                            } catch (final Exception e) {
+                                // reported when image is used
+                            }
+                        }
+                    }
+                };
+            }
+        });
+    }
+
+    /**
+     * Write index file if entries have changed since it was read or written. Cache without
+     * a directory is not written.
+     *
+     * @throws IOException if writing index file failed
+     */
+    public synchronized void flush() throws IOException {
+        if (dir == null || !dirty) {
+            return;
+        }
+        dirty = false;
+        if (!dir.exists() && !dir.mkdirs() && !dir.exists()) {
+            throw new IOException("Failed to create directory " + dir.getAbsolutePath());
+        }
+        final File file = new File(dir, INDEX_FILE_NAME);
+        final File tmp = File.createTempFile(INDEX_FILE_NAME, ".tmp", dir);
+        final Map<File, Entry> snapshot;
+        synchronized (entries) {
+            snapshot = new HashMap<>(entries);
+        }
+        try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(snapshot.size());
+            for (final Map.Entry<File, Entry> e: snapshot.entrySet()) {
+                final Entry entry = e.getValue();
+                out.writeUTF(e.getKey().getPath());
+                out.writeLong(entry.length);
+                out.writeLong(entry.lastModified);
+                out.writeInt(entry.metadata.width);
+                out.writeInt(entry.metadata.height);
+                out.writeInt(entry.metadata.horizontalDpi);
+                out.writeInt(entry.metadata.verticalDpi);
+            }
+        }
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final AtomicMoveNotSupportedException e) {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** Read index file on first use. A missing or invalid index file is ignored. */
+    private synchronized void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (dir == null) {
+            return;
+        }
+        final File file = new File(dir, INDEX_FILE_NAME);
+        if (!file.exists()) {
+            return;
+        }
+        final Map<File, Entry> index = new HashMap<>();
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return;
+            }
+            final int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                final File key = new File(in.readUTF());
+                final long length = in.readLong();
+                final long lastModified = in.readLong();
+                final Metadata metadata = new Metadata(in.readInt(), in.readInt(), in.readInt(), in.readInt());
+                index.put(key, new Entry(length, lastModified, metadata));
+            }
+        } catch (final IOException e) {
+            return;
+        }
+        entries.putAll(index);
+    }
+
+    /**
+     * Read image metadata from image header.
+     *
+     * @param input image data
+     * @return image metadata
+     * @throws IOException if reading image failed
+     */
+    public static Metadata read(final InputStream input) throws IOException {
+        ImageReader r = null;
+        ImageInputStream iis = ImageIO.createImageInputStream(input);
+        if (iis == null) {
+            // no registered stream provider accepts the input
+            iis = new MemoryCacheImageInputStream(input);
+        }
+        try {
+            final Iterator<ImageReader> i = ImageIO.getImageReaders(iis);
+            if (!i.hasNext()) {
+                return new Metadata(-1, -1, -1, -1);
+            }
+            r = i.next();
+            r.setInput(iis);
+            final int imageIndex = r.getMinIndex();
+            final int width = r.getWidth(imageIndex);
+            final int height = r.getHeight(imageIndex);
+            final Element node = (Element) r.getImageMetadata(0).getAsTree("javax_imageio_1.0");
+            return new Metadata(width, height, getDpi(node, "HorizontalPixelSize"), getDpi(node, "VerticalPixelSize"));
+        } finally {
+            if (r != null) {
+                r.dispose();
+            }
+            iis.close();
+        }
+    }
+
+    private static int getDpi(final Element node, final String name) {
+        final NodeList ns = node.getElementsByTagName(name);
+        if (ns != null && ns.getLength() == 1) {
+            final float v = Float.parseFloat(((Element) ns.item(0)).getAttribute("value"));
+            return Math.round(MM_TO_INCH / v);
+        }
+        return -1;
+    }
+
+}
@@ -10,12 +10,13 @@ package org.dita.dost.util;
 
 import static org.dita.dost.util.URLUtils.*;
 
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.CharBuffer;
+import java.nio.file.Files;
 
 import javax.imageio.ImageIO;
 
@@ -31,6 +32,9 @@ import org.dita.dost.log.MessageUtils;
  *
  */
 public final class ImgUtils {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
 	
     /**
      * Private default constructor to make class uninstantiable.
@@ -53,8 +57,12 @@ public final class ImgUtils {
         final DITAOTJavaLogger logger = new DITAOTJavaLogger();
 		final File imgInput = new File(dirName, toFile(fileName).getPath());		
         try {
-            final BufferedImage img = ImageIO.read(imgInput);
-            return img.getWidth();
+            final ImageMetadataCache.Metadata img = ImageMetadataCache.getInstance(null).get(imgInput);
+            if (img.isSupported()) {
+                return img.width;
+            }
+            // image header could not be read, decode the whole image
+            return ImageIO.read(imgInput).getWidth();
         }catch (final Exception e){
             logger.error(MessageUtils.getInstance().getMessage("DOTJ023E", dirName+File.separatorChar+fileName).toString(), e);
             return -1;
@@ -76,8 +84,12 @@ public final class ImgUtils {
         final DITAOTJavaLogger logger = new DITAOTJavaLogger();
         final File imgInput = new File(dirName, toFile(fileName).getPath());
         try {
-            final BufferedImage img = ImageIO.read(imgInput);
-            return img.getHeight();
+            final ImageMetadataCache.Metadata img = ImageMetadataCache.getInstance(null).get(imgInput);
+            if (img.isSupported()) {
+                return img.height;
+            }
+            // image header could not be read, decode the whole image
+            return ImageIO.read(imgInput).getHeight();
         }catch (final Exception e){
             logger.error(MessageUtils.getInstance().getMessage("DOTJ023E", dirName+File.separatorChar+fileName).toString(), e);
             return -1;
@@ -97,35 +109,38 @@ public final class ImgUtils {
     public static String getBinData (final String dirName, final String fileName){
         final DITAOTJavaLogger logger = new DITAOTJavaLogger();
         final File imgInput = new File(dirName, toFile(fileName).getPath());
-        FileInputStream binInput = null;
-        try{
-            String binStr = null;
-            final StringBuilder ret = new StringBuilder(16*1024);
-            binInput = new FileInputStream(imgInput);
-            int bin = binInput.read();
-            while (bin != -1){
-                binStr = Integer.toHexString(bin);
-                if(binStr.length() < 2){
-                    ret.append("0");
-                }
-                ret.append(binStr);
-                bin = binInput.read();
-            }
+        try (final InputStream binInput = new FileInputStream(imgInput)) {
+            final StringBuilder ret = new StringBuilder((int) Math.min(imgInput.length() * 2, Integer.MAX_VALUE - 8));
+            encodeHex(binInput, ret);
             return ret.toString();
         }catch (final Exception e){
             logger.error(MessageUtils.getInstance().getMessage("DOTJ023E").toString());
             logger.error(e.getMessage(), e) ;
             return null;
-        }finally{
-            if (binInput != null) {
-                try{
-                    binInput.close();
-                }catch(final IOException ioe){
-                    logger.error(ioe.getMessage(), ioe) ;
-                }
+        }
+    }
+
+    /**
+     * Write stream contents as lower case hexadecimal digits.
+     *
+     * @param in input stream
+     * @param out output
+     * @throws IOException if reading or writing failed
+     */
+    static void encodeHex(final InputStream in, final Appendable out) throws IOException {
+        final byte[] buf = new byte[BUFFER_SIZE];
+        final char[] hex = new char[BUFFER_SIZE * 2];
+        int len;
+        while ((len = in.read(buf)) != -1) {
+            for (int i = 0; i < len; i++) {
+                final int b = buf[i] & 0xFF;
+                hex[i * 2] = HEX_DIGITS[b >>> 4];
+                hex[i * 2 + 1] = HEX_DIGITS[b & 0x0F];
             }
+            out.append(CharBuffer.wrap(hex, 0, len * 2));
         }
     }
+
     /**
      * Get Base64 encoding content. For ODT transformation
      * @param dirName -
@@ -139,33 +154,13 @@ public final class ImgUtils {
         final DITAOTJavaLogger logger = new DITAOTJavaLogger();
         final URI imgInputURI = toURI(fileName);
         final File imgInput = imgInputURI.isAbsolute() ? new File(imgInputURI) : new File(dirName, toFile(imgInputURI).getPath());
-        //BASE64Encoder encoder = new BASE64Encoder();
-        final Base64 encoder = new Base64();
-        final byte   buff[]=new   byte[(int)imgInput.length()];
-        FileInputStream file = null;
         try {
-            file = new FileInputStream(imgInput);
-            file.read(buff);
-            //String ret = encoder.encode(buff);
-            return encoder.encodeToString(buff);
-        } catch (final FileNotFoundException e) {
-            logger.error(MessageUtils.getInstance().getMessage("DOTJ023E").toString());
-            logger.error(e.getMessage(), e) ;
-            return null;
+            return new Base64().encodeToString(Files.readAllBytes(imgInput.toPath()));
         } catch (final IOException e) {
             logger.error(MessageUtils.getInstance().getMessage("DOTJ023E").toString());
             logger.error(e.getMessage(), e) ;
             return null;
-        }finally{
-            if (file != null) {
-                try{
-                    file.close();
-                }catch(final IOException ioe){
-                    logger.error(ioe.getMessage(), ioe) ;
-                }
-            }
         }
-
     }
 
 }
@@ -13,9 +13,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.lang.reflect.Field;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -30,6 +30,7 @@ import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 
 import org.dita.dost.util.Job.FileInfo.Filter;
+import org.dita.dost.util.Job.FileInfo.Flag;
 import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
@@ -39,6 +40,11 @@ import org.xml.sax.helpers.DefaultHandler;
 /**
  * Definition of current job.
  * 
+ * <p>Job state is stored in a binary journal that is updated incrementally by {@link #write()}.
+ * The XML job file is an export of the journal for Ant and XSLT based processing and is written
+ * by {@link #exportXml()} after each pipeline module. If no journal exists, job state is read from
+ * the XML job file.</p>
+ * 
  * <p>Instances are thread-safe.</p>
  * 
  * @since 1.5.4
@@ -46,6 +52,7 @@ import org.xml.sax.helpers.DefaultHandler;
 public final class Job {
 
     private static final String JOB_FILE = ".job.xml";
+    private static final String JOURNAL_FILE = ".job.journal";
     
     private static final String ELEMENT_JOB = "job";
     private static final String ATTRIBUTE_KEY = "key";
@@ -79,6 +86,7 @@ public final class Job {
     private static final String ATTRIBUTE_FLAG_IMAGE_LIST = "flag-image";
     private static final String ATTRIBUTE_SUBSIDIARY_TARGET_LIST = "subtarget";
     private static final String ATTRIBUTE_CHUNK_TOPIC_LIST = "skip-chunk";
+    private static final String ATTRIBUTE_UP_TO_DATE = "up-to-date";
     
     private static final String PROPERTY_OUTER_CONTROL = ANT_INVOKER_EXT_PARAM_OUTTERCONTROL;
     private static final String PROPERTY_ONLY_TOPIC_IN_MAP = ANT_INVOKER_EXT_PARAM_ONLYTOPICINMAP;
@@ -96,36 +104,38 @@ public final class Job {
     /** File name for temporary input file list file */
     public static final String USER_INPUT_FILE_LIST_FILE = "usr.input.file.list";
 
-    /** Map of serialization attributes to file info boolean fields. */
-    private static final Map<String, Field> attrToFieldMap= new HashMap<>();
+    /** Map of serialization attributes to file info flags. */
+    private static final Map<String, Flag> attrToFlagMap = new HashMap<>();
     static {
-        try {
-            attrToFieldMap.put(ATTRIBUTE_CHUNKED, FileInfo.class.getField("isChunked"));
-            attrToFieldMap.put(ATTRIBUTE_HAS_LINK, FileInfo.class.getField("hasLink"));    
-            attrToFieldMap.put(ATTRIBUTE_HAS_CONREF, FileInfo.class.getField("hasConref"));    
-            attrToFieldMap.put(ATTRIBUTE_HAS_KEYREF, FileInfo.class.getField("hasKeyref"));    
-            attrToFieldMap.put(ATTRIBUTE_HAS_CODEREF, FileInfo.class.getField("hasCoderef"));    
-            attrToFieldMap.put(ATTRIBUTE_RESOURCE_ONLY, FileInfo.class.getField("isResourceOnly"));    
-            attrToFieldMap.put(ATTRIBUTE_TARGET, FileInfo.class.getField("isTarget"));    
-            attrToFieldMap.put(ATTRIBUTE_CONREF_TARGET, FileInfo.class.getField("isConrefTarget"));    
-            attrToFieldMap.put(ATTRIBUTE_NON_CONREF_TARGET, FileInfo.class.getField("isNonConrefTarget"));    
-            attrToFieldMap.put(ATTRIBUTE_CONREF_PUSH, FileInfo.class.getField("isConrefPush"));    
-            attrToFieldMap.put(ATTRIBUTE_SUBJECT_SCHEME, FileInfo.class.getField("isSubjectScheme"));
-            attrToFieldMap.put(ATTRIBUTE_COPYTO_SOURCE_LIST, FileInfo.class.getField("isCopyToSource"));
-            attrToFieldMap.put(ATTRIBUTE_OUT_DITA_FILES_LIST, FileInfo.class.getField("isOutDita"));
-            attrToFieldMap.put(ATTRIBUTE_FLAG_IMAGE_LIST, FileInfo.class.getField("isFlagImage"));
-            attrToFieldMap.put(ATTRIBUTE_SUBSIDIARY_TARGET_LIST, FileInfo.class.getField("isSubtarget"));
-            attrToFieldMap.put(ATTRIBUTE_CHUNK_TOPIC_LIST, FileInfo.class.getField("isSkipChunk"));
-        } catch (final NoSuchFieldException e) {
-            throw new RuntimeException(e);
-        }
+        attrToFlagMap.put(ATTRIBUTE_CHUNKED, Flag.IS_CHUNKED);
+        attrToFlagMap.put(ATTRIBUTE_HAS_LINK, Flag.HAS_LINK);
+        attrToFlagMap.put(ATTRIBUTE_HAS_CONREF, Flag.HAS_CONREF);
+        attrToFlagMap.put(ATTRIBUTE_HAS_KEYREF, Flag.HAS_KEYREF);
+        attrToFlagMap.put(ATTRIBUTE_HAS_CODEREF, Flag.HAS_CODEREF);
+        attrToFlagMap.put(ATTRIBUTE_RESOURCE_ONLY, Flag.IS_RESOURCE_ONLY);
+        attrToFlagMap.put(ATTRIBUTE_TARGET, Flag.IS_TARGET);
+        attrToFlagMap.put(ATTRIBUTE_CONREF_TARGET, Flag.IS_CONREF_TARGET);
+        attrToFlagMap.put(ATTRIBUTE_NON_CONREF_TARGET, Flag.IS_NON_CONREF_TARGET);
+        attrToFlagMap.put(ATTRIBUTE_CONREF_PUSH, Flag.IS_CONREF_PUSH);
+        attrToFlagMap.put(ATTRIBUTE_SUBJECT_SCHEME, Flag.IS_SUBJECT_SCHEME);
+        attrToFlagMap.put(ATTRIBUTE_COPYTO_SOURCE_LIST, Flag.IS_COPY_TO_SOURCE);
+        attrToFlagMap.put(ATTRIBUTE_OUT_DITA_FILES_LIST, Flag.IS_OUT_DITA);
+        attrToFlagMap.put(ATTRIBUTE_FLAG_IMAGE_LIST, Flag.IS_FLAG_IMAGE);
+        attrToFlagMap.put(ATTRIBUTE_SUBSIDIARY_TARGET_LIST, Flag.IS_SUBTARGET);
+        attrToFlagMap.put(ATTRIBUTE_CHUNK_TOPIC_LIST, Flag.IS_SKIP_CHUNK);
+        attrToFlagMap.put(ATTRIBUTE_UP_TO_DATE, Flag.IS_UP_TO_DATE);
     }
     
     private final Map<String, Object> prop;
     public final File tempDir;
     private final File jobFile;
+    private final JobJournal journal;
     private final ConcurrentMap<URI, FileInfo> files = new ConcurrentHashMap<>();
+    /** Per-flag indexes of {@link #files}, updated when file infos are added, removed, or their flags set. */
+    private final FlagIndex index = new FlagIndex();
     private long lastModified;
+    /** Job has been changed after XML job file was last exported. */
+    private boolean xmlStale;
     
     /**
      * Create new job configuration instance. Initialise by reading temporary configuration files.
@@ -140,6 +150,7 @@ public final class Job {
         }
         this.tempDir = tempDir;
         jobFile = new File(tempDir, JOB_FILE);
+        journal = new JobJournal(new File(tempDir, JOURNAL_FILE));
         prop = new HashMap<>();
         read();
     }
@@ -150,7 +161,12 @@ public final class Job {
      * @return {@code true} if configuration file has been update after this object has been created or serialized
      */
     public boolean isStale(final File tempDir) {
-        return jobFile.lastModified() > lastModified;
+        return getLastModified() > lastModified;
+    }
+
+    private long getLastModified() {
+        final long journalModified = new File(tempDir, JOURNAL_FILE).lastModified();
+        return journalModified != 0L ? journalModified : jobFile.lastModified();
     }
     
     /**
@@ -160,9 +176,11 @@ public final class Job {
      * @throws IOException if reading configuration files failed
      * @throws IllegalStateException if configuration files are missing
      */
-    private void read() throws IOException {
-        lastModified = jobFile.lastModified();
-        if (jobFile.exists()) {
+    private synchronized void read() throws IOException {
+        lastModified = getLastModified();
+        if (journal.exists()) {
+            journal.read(prop, files);
+        } else if (jobFile.exists()) {
         	InputStream in = null;
             try {
                 final XMLReader parser = XMLUtils.getXMLReader();
@@ -182,6 +200,7 @@ public final class Job {
             prop.put(PROPERTY_ONLY_TOPIC_IN_MAP, Boolean.toString(false));
             prop.put(PROPERTY_OUTER_CONTROL, OutterControl.WARN.toString());
         }
+        index.rebuild(files.values());
     }
     
     private final static class JobHandler extends DefaultHandler {
@@ -242,13 +261,11 @@ public final class Job {
                     } else {
                         i = new FileInfo(src, toURI(path), path);
                     }
-                    i.format = atts.getValue(ATTRIBUTE_FORMAT);
-                    try {
-                        for (Map.Entry<String, Field> e : attrToFieldMap.entrySet()) {
-                            e.getValue().setBoolean(i, Boolean.parseBoolean(atts.getValue(e.getKey())));
-                        }
-                    } catch (final IllegalAccessException ex) {
-                        throw new RuntimeException(ex);
+                    final String format = atts.getValue(ATTRIBUTE_FORMAT);
+                    // few distinct formats are shared by all files
+                    i.format = format != null ? format.intern() : null;
+                    for (final Map.Entry<String, Flag> e : attrToFlagMap.entrySet()) {
+                        i.set(e.getValue(), Boolean.parseBoolean(atts.getValue(e.getKey())));
                     }
                     files.put(i.uri, i);
                     break;
@@ -289,11 +306,27 @@ public final class Job {
     }
     
     /**
-     * Store job into temporary configuration files.
+     * Store job into temporary configuration files. Only changes since the job was last read or
+     * written are appended to the journal.
      * 
      * @throws IOException if writing configuration files failed
      */
-    public void write() throws IOException {
+    public synchronized void write() throws IOException {
+        if (journal.write(prop, files)) {
+            xmlStale = true;
+        }
+        lastModified = getLastModified();
+    }
+
+    /**
+     * Export job into XML job file if it has been changed after the last export or the XML job file doesn't exist.
+     * 
+     * @throws IOException if writing XML job file failed
+     */
+    public synchronized void exportXml() throws IOException {
+        if (!xmlStale && jobFile.exists()) {
+            return;
+        }
     	OutputStream outStream = null;
         XMLStreamWriter out = null;
         try {
@@ -347,15 +380,10 @@ public final class Job {
                 if (i.format != null) {
                 	out.writeAttribute(ATTRIBUTE_FORMAT, i.format);
                 }
-                try {
-                    for (Map.Entry<String, Field> e: attrToFieldMap.entrySet()) {
-                        final boolean v = e.getValue().getBoolean(i);
-                        if (v) {
-                            out.writeAttribute(e.getKey(), Boolean.TRUE.toString());
-                        }
+                for (final Map.Entry<String, Flag> e: attrToFlagMap.entrySet()) {
+                    if (i.is(e.getValue())) {
+                        out.writeAttribute(e.getKey(), Boolean.TRUE.toString());
                     }
-                } catch (final IllegalAccessException ex) {
-                    throw new RuntimeException(ex);
                 }
                 out.writeEndElement(); //file
             }
@@ -382,14 +410,18 @@ public final class Job {
                 }
             }
         }
-        lastModified = jobFile.lastModified();
+        xmlStale = false;
     }
     
     /**
      * Add file info. If file info with the same file already exists, it will be replaced.
      */
     public void add(final FileInfo fileInfo) {
-        files.put(fileInfo.uri, fileInfo);
+        final FileInfo old = files.put(fileInfo.uri, fileInfo);
+        if (old != null && old != fileInfo) {
+            index.remove(old);
+        }
+        index.add(fileInfo);
     }
     
     /**
@@ -398,7 +430,11 @@ public final class Job {
      * @return removed file info, {@code null} if not found
      */
     public FileInfo remove(final FileInfo fileInfo) {
-        return files.remove(fileInfo.uri);
+        final FileInfo old = files.remove(fileInfo.uri);
+        if (old != null) {
+            index.remove(old);
+        }
+        return old;
     }
     
     /**
@@ -522,6 +558,28 @@ public final class Job {
         return ret;
     }
 
+    /**
+     * Get file info objects that have a flag set. Only files that have the flag set are visited.
+     *
+     * @param flag flag file info object must have set
+     * @return collection of file info objects that have the flag set, may be empty
+     */
+    public Collection<FileInfo> getFileInfo(final Flag flag) {
+        return index.get(flag, null);
+    }
+
+    /**
+     * Get file info objects that have a flag set and pass the filter.
+     *
+     * @param flag flag file info object must have set
+     * @param filter filter file info object must pass
+     * @return collection of file info objects that have the flag set and pass the filter, may be empty
+     * @see #getFileInfo(Flag)
+     */
+    public Collection<FileInfo> getFileInfo(final Flag flag, final Filter filter) {
+        return index.get(flag, filter);
+    }
+
     /**
      * Get file info object
      *
@@ -553,6 +611,7 @@ public final class Job {
         if (i == null) {
             i = new FileInfo(f);
             files.put(i.uri, i);
+            index.add(i);
         }
         return i;
     }
@@ -564,12 +623,87 @@ public final class Job {
      */
     public void addAll(final Collection<FileInfo> fs) {
     	for (final FileInfo f: fs) {
-    		files.put(f.uri, f);
+    		add(f);
     	}
     }
         
     /**
-     * File info object.
+     * Per-flag bitset indexes of file info objects. Every file info is assigned a slot and
+     * every flag has a bitset of the slots that have the flag set. File info objects keep
+     * their slot and update the index when a flag is set.
+     */
+    private static final class FlagIndex {
+
+        private final ArrayList<FileInfo> infos = new ArrayList<>();
+        private final BitSet[] flags = new BitSet[Flag.values().length];
+
+        FlagIndex() {
+            for (int i = 0; i < flags.length; i++) {
+                flags[i] = new BitSet();
+            }
+        }
+
+        synchronized void rebuild(final Collection<FileInfo> fs) {
+            for (final FileInfo f: infos) {
+                if (f != null && f.index == this) {
+                    f.index = null;
+                }
+            }
+            infos.clear();
+            for (final BitSet b: flags) {
+                b.clear();
+            }
+            for (final FileInfo f: fs) {
+                add(f);
+            }
+        }
+
+        synchronized void add(final FileInfo f) {
+            if (f.index != this) {
+                f.index = this;
+                f.slot = infos.size();
+                infos.add(f);
+            }
+            setFlags(f, f.flags);
+        }
+
+        synchronized void remove(final FileInfo f) {
+            if (f.index == this) {
+                f.index = null;
+                infos.set(f.slot, null);
+                for (final BitSet b: flags) {
+                    b.clear(f.slot);
+                }
+            }
+        }
+
+        synchronized void setFlags(final FileInfo f, final int value) {
+            f.flags = value;
+            if (f.index == this) {
+                for (final Flag flag: Flag.values()) {
+                    flags[flag.ordinal()].set(f.slot, flag.get(f));
+                }
+            }
+        }
+
+        synchronized Collection<FileInfo> get(final Flag flag, final Filter filter) {
+            final BitSet b = flags[flag.ordinal()];
+            final Collection<FileInfo> ret = new ArrayList<>(b.cardinality());
+            for (int slot = b.nextSetBit(0); slot >= 0; slot = b.nextSetBit(slot + 1)) {
+                final FileInfo f = infos.get(slot);
+                // file info may have been added to another job after this
+                if (flag.get(f) && (filter == null || filter.accept(f))) {
+                    ret.add(f);
+                }
+            }
+            return ret;
+        }
+
+    }
+
+    /**
+     * File info object. Flags are stored in a single bitmap. Setting a flag updates the
+     * flag indexes of the job the file info was last added to.
      */
     public static final class FileInfo {
         
@@ -581,38 +715,12 @@ public final class Job {
         public final File file;
         /** File format. */
     	public String format;
-    	/** File has a conref. */
-        public boolean hasConref;
-        /** File is part of chunk. */
-        public boolean isChunked;
-        /** File has links. Only applies to topics. */
-        public boolean hasLink;
-        /** File is resource only. */
-        public boolean isResourceOnly;
-        /** File is a link target. */
-        public boolean isTarget;
-        /** File is a push conref target. */
-        public boolean isConrefTarget;
-        /** File is a target in non-conref link. */
-        public boolean isNonConrefTarget;
-        /** File is a push conref source. */
-        public boolean isConrefPush;
-        /** File has a keyref. */
-        public boolean hasKeyref;
-        /** File has coderef. */
-        public boolean hasCoderef;
-        /** File is a subject scheme. */
-        public boolean isSubjectScheme;
-        /** File is a target in conref link. Opposite of {@link #isNonConrefTarget}. */
-        public boolean isSkipChunk;
-        /** File is a coderef target. */
-        public boolean isSubtarget;
-        /** File is a flagging image. */
-        public boolean isFlagImage;
-        /** Source file is outside base directory. */
-        public boolean isOutDita;
-        /** File is used only as a source of a copy-to. */
-        public boolean isCopyToSource;
+        /** Flag bitmap, bit for each {@link Flag} ordinal. */
+        private int flags;
+        /** Flag indexes this file info is in, {@code null} if not in a job. */
+        private FlagIndex index;
+        /** Slot in {@link #index}. */
+        private int slot;
         
         FileInfo(final URI src, final URI uri, final File file) {
             if (src == null && uri == null && file == null) throw new IllegalArgumentException(new NullPointerException());
@@ -632,6 +740,95 @@ public final class Job {
             this.uri =  toURI(file);
             this.file = file;
         }
+
+        /**
+         * Get flag value.
+         *
+         * @param flag flag to get
+         * @return {@code true} if flag is set
+         * @since 2.2
+         */
+        public boolean is(final Flag flag) {
+            return (flags & flag.mask) != 0;
+        }
+
+        /**
+         * Set flag value.
+         *
+         * @param flag flag to set
+         * @param value flag value
+         * @since 2.2
+         */
+        public void set(final Flag flag, final boolean value) {
+            setFlags(value ? flags | flag.mask : flags & ~flag.mask);
+        }
+
+        /** Get flag bitmap. */
+        int getFlags() {
+            return flags;
+        }
+
+        /** Set flag bitmap. */
+        void setFlags(final int value) {
+            final FlagIndex i = index;
+            if (i != null) {
+                i.setFlags(this, value);
+            } else {
+                flags = value;
+            }
+        }
+
+        /** File has a conref. */
+        public boolean hasConref() { return is(Flag.HAS_CONREF); }
+        public void setHasConref(final boolean value) { set(Flag.HAS_CONREF, value); }
+        /** File is part of chunk. */
+        public boolean isChunked() { return is(Flag.IS_CHUNKED); }
+        public void setChunked(final boolean value) { set(Flag.IS_CHUNKED, value); }
+        /** File has links. Only applies to topics. */
+        public boolean hasLink() { return is(Flag.HAS_LINK); }
+        public void setHasLink(final boolean value) { set(Flag.HAS_LINK, value); }
+        /** File is resource only. */
+        public boolean isResourceOnly() { return is(Flag.IS_RESOURCE_ONLY); }
+        public void setResourceOnly(final boolean value) { set(Flag.IS_RESOURCE_ONLY, value); }
+        /** File is a link target. */
+        public boolean isTarget() { return is(Flag.IS_TARGET); }
+        public void setTarget(final boolean value) { set(Flag.IS_TARGET, value); }
+        /** File is a push conref target. */
+        public boolean isConrefTarget() { return is(Flag.IS_CONREF_TARGET); }
+        public void setConrefTarget(final boolean value) { set(Flag.IS_CONREF_TARGET, value); }
+        /** File is a target in non-conref link. */
+        public boolean isNonConrefTarget() { return is(Flag.IS_NON_CONREF_TARGET); }
+        public void setNonConrefTarget(final boolean value) { set(Flag.IS_NON_CONREF_TARGET, value); }
+        /** File is a push conref source. */
+        public boolean isConrefPush() { return is(Flag.IS_CONREF_PUSH); }
+        public void setConrefPush(final boolean value) { set(Flag.IS_CONREF_PUSH, value); }
+        /** File has a keyref. */
+        public boolean hasKeyref() { return is(Flag.HAS_KEYREF); }
+        public void setHasKeyref(final boolean value) { set(Flag.HAS_KEYREF, value); }
+        /** File has coderef. */
+        public boolean hasCoderef() { return is(Flag.HAS_CODEREF); }
+        public void setHasCoderef(final boolean value) { set(Flag.HAS_CODEREF, value); }
+        /** File is a subject scheme. */
+        public boolean isSubjectScheme() { return is(Flag.IS_SUBJECT_SCHEME); }
+        public void setSubjectScheme(final boolean value) { set(Flag.IS_SUBJECT_SCHEME, value); }
+        /** File is a target in conref link. Opposite of {@link #isNonConrefTarget()}. */
+        public boolean isSkipChunk() { return is(Flag.IS_SKIP_CHUNK); }
+        public void setSkipChunk(final boolean value) { set(Flag.IS_SKIP_CHUNK, value); }
+        /** File is a coderef target. */
+        public boolean isSubtarget() { return is(Flag.IS_SUBTARGET); }
+        public void setSubtarget(final boolean value) { set(Flag.IS_SUBTARGET, value); }
+        /** File is a flagging image. */
+        public boolean isFlagImage() { return is(Flag.IS_FLAG_IMAGE); }
+        public void setFlagImage(final boolean value) { set(Flag.IS_FLAG_IMAGE, value); }
+        /** Source file is outside base directory. */
+        public boolean isOutDita() { return is(Flag.IS_OUT_DITA); }
+        public void setOutDita(final boolean value) { set(Flag.IS_OUT_DITA, value); }
+        /** File is used only as a source of a copy-to. */
+        public boolean isCopyToSource() { return is(Flag.IS_COPY_TO_SOURCE); }
+        public void setCopyToSource(final boolean value) { set(Flag.IS_COPY_TO_SOURCE, value); }
+        /** File is unchanged since previous incremental build and already fully processed in temporary directory. */
+        public boolean isUpToDate() { return is(Flag.IS_UP_TO_DATE); }
+        public void setUpToDate(final boolean value) { set(Flag.IS_UP_TO_DATE, value); }
         
         @Override
         public String toString() {
@@ -639,22 +836,23 @@ public final class Job {
                     "uri=" + uri +
                     ", file=" + file +
                     ", format='" + format + '\'' +
-                    ", hasConref=" + hasConref +
-                    ", isChunked=" + isChunked +
-                    ", hasLink=" + hasLink +
-                    ", isResourceOnly=" + isResourceOnly +
-                    ", isTarget=" + isTarget +
-                    ", isConrefTarget=" + isConrefTarget +
-                    ", isNonConrefTarget=" + isNonConrefTarget +
-                    ", isConrefPush=" + isConrefPush +
-                    ", hasKeyref=" + hasKeyref +
-                    ", hasCoderef=" + hasCoderef +
-                    ", isSubjectScheme=" + isSubjectScheme +
-                    ", isSkipChunk=" + isSkipChunk +
-                    ", isSubtarget=" + isSubtarget +
-                    ", isFlagImage=" + isFlagImage +
-                    ", isOutDita=" + isOutDita +
-                    ", isCopyToSource=" + isCopyToSource +
+                    ", hasConref=" + hasConref() +
+                    ", isChunked=" + isChunked() +
+                    ", hasLink=" + hasLink() +
+                    ", isResourceOnly=" + isResourceOnly() +
+                    ", isTarget=" + isTarget() +
+                    ", isConrefTarget=" + isConrefTarget() +
+                    ", isNonConrefTarget=" + isNonConrefTarget() +
+                    ", isConrefPush=" + isConrefPush() +
+                    ", hasKeyref=" + hasKeyref() +
+                    ", hasCoderef=" + hasCoderef() +
+                    ", isSubjectScheme=" + isSubjectScheme() +
+                    ", isSkipChunk=" + isSkipChunk() +
+                    ", isSubtarget=" + isSubtarget() +
+                    ", isFlagImage=" + isFlagImage() +
+                    ", isOutDita=" + isOutDita() +
+                    ", isCopyToSource=" + isCopyToSource() +
+                    ", isUpToDate=" + isUpToDate() +
                     '}';
         }
 
@@ -663,6 +861,44 @@ public final class Job {
             boolean accept(FileInfo f);
             
         }
+
+        /**
+         * File info flag. The bit of a flag in the flag bitmap is its ordinal, bitmaps are
+         * stored in the job journal and flags must not be reordered.
+         *
+         * @since 2.2
+         */
+        public enum Flag {
+            HAS_CONREF,
+            IS_CHUNKED,
+            HAS_LINK,
+            IS_RESOURCE_ONLY,
+            IS_TARGET,
+            IS_CONREF_TARGET,
+            IS_NON_CONREF_TARGET,
+            IS_CONREF_PUSH,
+            HAS_KEYREF,
+            HAS_CODEREF,
+            IS_SUBJECT_SCHEME,
+            IS_SKIP_CHUNK,
+            IS_SUBTARGET,
+            IS_FLAG_IMAGE,
+            IS_OUT_DITA,
+            IS_COPY_TO_SOURCE,
+            IS_UP_TO_DATE;
+
+            final int mask = 1 << ordinal();
+
+            /**
+             * Get flag value.
+             *
+             * @param f file info object
+             * @return {@code true} if flag is set
+             */
+            public boolean get(final FileInfo f) {
+                return f.is(this);
+            }
+        }
         
         public static class Builder {
             
@@ -670,22 +906,7 @@ public final class Job {
             private URI uri;
             private File file;
             private String format;
-            private boolean hasConref;
-            private boolean isChunked;
-            private boolean hasLink;
-            private boolean isResourceOnly;
-            private boolean isTarget;
-            private boolean isConrefTarget;
-            private boolean isNonConrefTarget;
-            private boolean isConrefPush;
-            private boolean hasKeyref;
-            private boolean hasCoderef;
-            private boolean isSubjectScheme;
-            private boolean isSkipChunk;
-            private boolean isSubtarget;
-            private boolean isFlagImage;
-            private boolean isOutDita;
-            private boolean isCopyToSource;
+            private int flags;
         
             public Builder() {}
             public Builder(final FileInfo orig) {
@@ -693,22 +914,7 @@ public final class Job {
                 uri = orig.uri;
                 file = orig.file;
                 format = orig.format;
-                hasConref = orig.hasConref;
-                isChunked = orig.isChunked;
-                hasLink = orig.hasLink;
-                isResourceOnly = orig.isResourceOnly;
-                isTarget = orig.isTarget;
-                isConrefTarget = orig.isConrefTarget;
-                isNonConrefTarget = orig.isNonConrefTarget;
-                isConrefPush = orig.isConrefPush;
-                hasKeyref = orig.hasKeyref;
-                hasCoderef = orig.hasCoderef;
-                isSubjectScheme = orig.isSubjectScheme;
-                isSkipChunk = orig.isSkipChunk;
-                isSubtarget = orig.isSubtarget;
-                isFlagImage = orig.isFlagImage;
-                isOutDita = orig.isOutDita;
-                isCopyToSource = orig.isCopyToSource;
+                flags = orig.flags;
             }
             
             /**
@@ -719,22 +925,12 @@ public final class Job {
                 if (orig.uri != null) uri = orig.uri;
                 if (orig.file != null) file = orig.file;
                 if (orig.format != null) format = orig.format;
-                if (orig.hasConref) hasConref = orig.hasConref;
-                if (orig.isChunked) isChunked = orig.isChunked;
-                if (orig.hasLink) hasLink = orig.hasLink;
-                if (orig.isResourceOnly) isResourceOnly = orig.isResourceOnly;
-                if (orig.isTarget) isTarget = orig.isTarget;
-                if (orig.isConrefTarget) isConrefTarget = orig.isConrefTarget;
-                if (orig.isNonConrefTarget) isNonConrefTarget = orig.isNonConrefTarget;
-                if (orig.isConrefPush) isConrefPush = orig.isConrefPush;
-                if (orig.hasKeyref) hasKeyref = orig.hasKeyref;
-                if (orig.hasCoderef) hasCoderef = orig.hasCoderef;
-                if (orig.isSubjectScheme) isSubjectScheme = orig.isSubjectScheme;
-                if (orig.isSkipChunk) isSkipChunk = orig.isSkipChunk;
-                if (orig.isSubtarget) isSubtarget = orig.isSubtarget;
-                if (orig.isFlagImage) isFlagImage = orig.isFlagImage;
-                if (orig.isOutDita) isOutDita = orig.isOutDita;
-                if (orig.isCopyToSource) isCopyToSource = orig.isCopyToSource;
+                flags |= orig.flags;
+                return this;
+            }
+            
+            private Builder set(final Flag flag, final boolean value) {
+                flags = value ? flags | flag.mask : flags & ~flag.mask;
                 return this;
             }
             
@@ -742,45 +938,32 @@ public final class Job {
             public Builder uri(final URI uri) { this.uri = uri; this.file = null; return this; }
             public Builder file(final File file) { this.file = file; this.uri = null; return this; }
             public Builder format(final String format) { this.format = format; return this; }
-            public Builder hasConref(final boolean hasConref) { this.hasConref = hasConref; return this; }
-            public Builder isChunked(final boolean isChunked) { this.isChunked = isChunked; return this; }
-            public Builder hasLink(final boolean hasLink) { this.hasLink = hasLink; return this; }
-            public Builder isResourceOnly(final boolean isResourceOnly) { this.isResourceOnly = isResourceOnly; return this; }
-            public Builder isTarget(final boolean isTarget) { this.isTarget = isTarget; return this; }
-            public Builder isConrefTarget(final boolean isConrefTarget) { this.isConrefTarget = isConrefTarget; return this; }
-            public Builder isNonConrefTarget(final boolean isNonConrefTarget) { this.isNonConrefTarget = isNonConrefTarget; return this; }
-            public Builder isConrefPush(final boolean isConrefPush) { this.isConrefPush = isConrefPush; return this; }
-            public Builder hasKeyref(final boolean hasKeyref) { this.hasKeyref = hasKeyref; return this; }
-            public Builder hasCoderef(final boolean hasCoderef) { this.hasCoderef = hasCoderef; return this; }
-            public Builder isSubjectScheme(final boolean isSubjectScheme) { this.isSubjectScheme = isSubjectScheme; return this; }
-            public Builder isSkipChunk(final boolean isSkipChunk) { this.isSkipChunk = isSkipChunk; return this; }
-            public Builder isSubtarget(final boolean isSubtarget) { this.isSubtarget = isSubtarget; return this; }
-            public Builder isFlagImage(final boolean isFlagImage) { this.isFlagImage = isFlagImage; return this; }
-            public Builder isOutDita(final boolean isOutDita) { this.isOutDita = isOutDita; return this; }
-            public Builder isCopyToSource(final boolean isCopyToSource) { this.isCopyToSource = isCopyToSource; return this; }
+            public Builder hasConref(final boolean hasConref) { return set(Flag.HAS_CONREF, hasConref); }
+            public Builder isChunked(final boolean isChunked) { return set(Flag.IS_CHUNKED, isChunked); }
+            public Builder hasLink(final boolean hasLink) { return set(Flag.HAS_LINK, hasLink); }
+            public Builder isResourceOnly(final boolean isResourceOnly) { return set(Flag.IS_RESOURCE_ONLY, isResourceOnly); }
+            public Builder isTarget(final boolean isTarget) { return set(Flag.IS_TARGET, isTarget); }
+            public Builder isConrefTarget(final boolean isConrefTarget) { return set(Flag.IS_CONREF_TARGET, isConrefTarget); }
+            public Builder isNonConrefTarget(final boolean isNonConrefTarget) { return set(Flag.IS_NON_CONREF_TARGET, isNonConrefTarget); }
+            public Builder isConrefPush(final boolean isConrefPush) { return set(Flag.IS_CONREF_PUSH, isConrefPush); }
+            public Builder hasKeyref(final boolean hasKeyref) { return set(Flag.HAS_KEYREF, hasKeyref); }
+            public Builder hasCoderef(final boolean hasCoderef) { return set(Flag.HAS_CODEREF, hasCoderef); }
+            public Builder isSubjectScheme(final boolean isSubjectScheme) { return set(Flag.IS_SUBJECT_SCHEME, isSubjectScheme); }
+            public Builder isSkipChunk(final boolean isSkipChunk) { return set(Flag.IS_SKIP_CHUNK, isSkipChunk); }
+            public Builder isSubtarget(final boolean isSubtarget) { return set(Flag.IS_SUBTARGET, isSubtarget); }
+            public Builder isFlagImage(final boolean isFlagImage) { return set(Flag.IS_FLAG_IMAGE, isFlagImage); }
+            public Builder isOutDita(final boolean isOutDita) { return set(Flag.IS_OUT_DITA, isOutDita); }
+            public Builder isCopyToSource(final boolean isCopyToSource) { return set(Flag.IS_COPY_TO_SOURCE, isCopyToSource); }
+            public Builder isUpToDate(final boolean isUpToDate) { return set(Flag.IS_UP_TO_DATE, isUpToDate); }
             
             public FileInfo build() {
                 if (src == null && uri == null && file == null) {
                     throw new IllegalStateException("src, uri, and file may not be null");
                 }
                 final FileInfo fi = new FileInfo(src, uri, file);
-                fi.format = format;
-                fi.hasConref = hasConref;
-                fi.isChunked = isChunked;
-                fi.hasLink = hasLink;
-                fi.isResourceOnly = isResourceOnly;
-                fi.isTarget = isTarget;
-                fi.isConrefTarget = isConrefTarget;
-                fi.isNonConrefTarget = isNonConrefTarget;
-                fi.isConrefPush = isConrefPush;
-                fi.hasKeyref = hasKeyref;
-                fi.hasCoderef = hasCoderef;
-                fi.isSubjectScheme = isSubjectScheme;
-                fi.isSkipChunk = isSkipChunk;
-                fi.isSubtarget = isSubtarget;
-                fi.isFlagImage = isFlagImage;
-                fi.isOutDita = isOutDita;
-                fi.isCopyToSource = isCopyToSource;
+                // few distinct formats are shared by all files
+                fi.format = format != null ? format.intern() : null;
+                fi.flags = flags;
                 return fi;
             }
             
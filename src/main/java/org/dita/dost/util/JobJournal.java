@@ -0,0 +1,390 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import static org.dita.dost.util.URLUtils.*;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.dita.dost.util.Job.FileInfo;
+
+/**
+ * Append-only binary journal of job state.
+ *
+ * <p>The journal starts with a header followed by length prefixed records. Each record either sets
+ * or removes a single property or file info. When the journal is read, later records override
+ * earlier ones. Writing only appends records for properties and file infos that have changed since
+ * the journal was last read or written. When the journal contains mostly overridden records, it is
+ * compacted by rewriting it with only the current state.</p>
+ *
+ * <p>Change detection keeps only a 64-bit hash of each record as last read or written instead of
+ * the encoded record, because for large jobs the records would duplicate most of the memory used
+ * by the file infos themselves.</p>
+ *
+ * <p>Instances are not thread-safe, {@link Job} synchronizes access.</p>
+ *
+ * @since 2.2
+ */
+final class JobJournal {
+
+    private static final int MAGIC = 0x4A4F424A;
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 8;
+
+    private static final byte RECORD_PROPERTY = 1;
+    private static final byte RECORD_PROPERTY_REMOVE = 2;
+    private static final byte RECORD_FILE = 3;
+    private static final byte RECORD_FILE_REMOVE = 4;
+
+    private static final byte VALUE_STRING = 1;
+    private static final byte VALUE_SET = 2;
+    private static final byte VALUE_MAP = 3;
+
+    /** Minimum number of records before journal is compacted. */
+    private static final int COMPACT_MIN_RECORDS = 1024;
+    /** Compact when journal has this many times more records than live entries. */
+    private static final int COMPACT_RATIO = 2;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final File file;
+    /** Hashes of property records as last read or written, keyed by property name. */
+    private final Map<String, Long> properties = new HashMap<>();
+    /** Hashes of file info records as last read or written, keyed by file info URI. */
+    private final Map<URI, Long> files = new HashMap<>();
+    /** Number of records in journal file. */
+    private int records;
+    /** Journal file is complete and records can be appended to it. */
+    private boolean appendable;
+
+    /**
+     * Create new journal.
+     *
+     * @param file journal file
+     */
+    JobJournal(final File file) {
+        this.file = file;
+    }
+
+    /**
+     * Test if journal file exists.
+     *
+     * @return {@code true} if journal file exists, otherwise {@code false}
+     */
+    boolean exists() {
+        return file.exists();
+    }
+
+    /**
+     * Read journal file.
+     *
+     * @param prop properties to read into
+     * @param fileInfos file infos to read into
+     * @throws IOException if reading journal failed
+     */
+    void read(final Map<String, Object> prop, final Map<URI, FileInfo> fileInfos) throws IOException {
+        properties.clear();
+        files.clear();
+        records = 0;
+        appendable = false;
+
+        // Read with a single bulk read instead of FileChannel.map: on Windows a mapped file cannot be
+        // replaced or truncated until the mapping is garbage collected, which would break compaction
+        final ByteBuffer buf;
+        try (final FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buf = ByteBuffer.allocate((int) in.size());
+            while (buf.hasRemaining() && in.read(buf) != -1) {
+                // read until full
+            }
+        }
+        buf.flip();
+        if (buf.remaining() < HEADER_LENGTH || buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+            throw new IOException("Invalid job journal " + file.getAbsolutePath());
+        }
+        while (buf.remaining() >= 4) {
+            final int length = buf.getInt();
+            if (length <= 0 || length > buf.remaining()) {
+                // incomplete record from an interrupted write, rewrite journal on next write
+                return;
+            }
+            final byte[] record = new byte[length];
+            buf.get(record);
+            readRecord(record, prop, fileInfos);
+            records++;
+        }
+        appendable = !buf.hasRemaining();
+    }
+
+    private void readRecord(final byte[] record, final Map<String, Object> prop,
+                            final Map<URI, FileInfo> fileInfos) throws IOException {
+        final ByteBuffer in = ByteBuffer.wrap(record);
+        final byte type = in.get();
+        switch (type) {
+            case RECORD_PROPERTY: {
+                final String name = readString(in);
+                final byte valueType = in.get();
+                final Object value;
+                switch (valueType) {
+                    case VALUE_STRING:
+                        value = readString(in);
+                        break;
+                    case VALUE_SET: {
+                        final int size = in.getInt();
+                        final Set<String> set = new HashSet<>(size);
+                        for (int i = 0; i < size; i++) {
+                            set.add(readString(in));
+                        }
+                        value = set;
+                        break;
+                    }
+                    case VALUE_MAP: {
+                        final int size = in.getInt();
+                        final Map<String, String> map = new HashMap<>(size);
+                        for (int i = 0; i < size; i++) {
+                            map.put(readString(in), readString(in));
+                        }
+                        value = map;
+                        break;
+                    }
+                    default:
+                        throw new IOException("Invalid job journal property type " + valueType);
+                }
+                prop.put(name, value);
+                properties.put(name, hash(record));
+                break;
+            }
+            case RECORD_PROPERTY_REMOVE: {
+                final String name = readString(in);
+                prop.remove(name);
+                properties.remove(name);
+                break;
+            }
+            case RECORD_FILE: {
+                final int flags = in.getInt();
+                final String src = readString(in);
+                final URI uri = toURI(readString(in));
+                final FileInfo i = new FileInfo(src != null ? toURI(src) : null, uri, null);
+                final String format = readString(in);
+                i.format = format != null ? format.intern() : null;
+                i.setFlags(flags);
+                fileInfos.put(i.uri, i);
+                files.put(i.uri, hash(record));
+                break;
+            }
+            case RECORD_FILE_REMOVE: {
+                final URI uri = toURI(readString(in));
+                fileInfos.remove(uri);
+                files.remove(uri);
+                break;
+            }
+            default:
+                throw new IOException("Invalid job journal record type " + type);
+        }
+    }
+
+    /**
+     * Write changes since last read or write to journal file.
+     *
+     * @param prop current properties
+     * @param fileInfos current file infos
+     * @return {@code true} if job state had changed, otherwise {@code false}
+     * @throws IOException if writing journal failed
+     */
+    boolean write(final Map<String, Object> prop, final Map<URI, FileInfo> fileInfos) throws IOException {
+        final List<byte[]> delta = new ArrayList<>();
+        for (final Map.Entry<String, Object> e: prop.entrySet()) {
+            final byte[] record = encodeProperty(e.getKey(), e.getValue());
+            final Long hash = hash(record);
+            if (!hash.equals(properties.get(e.getKey()))) {
+                properties.put(e.getKey(), hash);
+                delta.add(record);
+            }
+        }
+        for (final Iterator<String> it = properties.keySet().iterator(); it.hasNext();) {
+            final String name = it.next();
+            if (!prop.containsKey(name)) {
+                it.remove();
+                delta.add(encodeRemove(RECORD_PROPERTY_REMOVE, name));
+            }
+        }
+        for (final FileInfo i: fileInfos.values()) {
+            final byte[] record = encodeFileInfo(i);
+            final Long hash = hash(record);
+            if (!hash.equals(files.get(i.uri))) {
+                files.put(i.uri, hash);
+                delta.add(record);
+            }
+        }
+        for (final Iterator<URI> it = files.keySet().iterator(); it.hasNext();) {
+            final URI uri = it.next();
+            if (!fileInfos.containsKey(uri)) {
+                it.remove();
+                delta.add(encodeRemove(RECORD_FILE_REMOVE, uri.toString()));
+            }
+        }
+
+        final int live = properties.size() + files.size();
+        final int total = records + delta.size();
+        if (!appendable || !file.exists() || (total > COMPACT_MIN_RECORDS && total > live * COMPACT_RATIO)) {
+            writeSnapshot(prop, fileInfos);
+        } else if (!delta.isEmpty()) {
+            try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)))) {
+                for (final byte[] record: delta) {
+                    writeRecord(out, record);
+                }
+            }
+            records = total;
+        }
+        return !delta.isEmpty();
+    }
+
+    /**
+     * Rewrite journal file with only current records.
+     *
+     * @param prop current properties
+     * @param fileInfos current file infos
+     */
+    private void writeSnapshot(final Map<String, Object> prop, final Map<URI, FileInfo> fileInfos) throws IOException {
+        final File tmp = new File(file.getAbsolutePath() + ".tmp");
+        try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (final Map.Entry<String, Object> e: prop.entrySet()) {
+                writeRecord(out, encodeProperty(e.getKey(), e.getValue()));
+            }
+            for (final FileInfo i: fileInfos.values()) {
+                writeRecord(out, encodeFileInfo(i));
+            }
+        }
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final AtomicMoveNotSupportedException e) {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        records = properties.size() + files.size();
+        appendable = true;
+    }
+
+    private static void writeRecord(final DataOutputStream out, final byte[] record) throws IOException {
+        out.writeInt(record.length);
+        out.write(record);
+    }
+
+    /**
+     * Calculate 64-bit FNV-1a hash of a record.
+     *
+     * @param record encoded record
+     * @return record hash
+     */
+    private static long hash(final byte[] record) {
+        long hash = FNV_OFFSET_BASIS;
+        for (final byte b: record) {
+            hash ^= b & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static byte[] encodeProperty(final String name, final Object value) throws IOException {
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(buf);
+        out.writeByte(RECORD_PROPERTY);
+        writeString(out, name);
+        if (value instanceof Set) {
+            // sort to get identical encoding for equal values
+            final Set<String> set = new TreeSet<>();
+            for (final Object o: (Set<?>) value) {
+                set.add(o.toString());
+            }
+            out.writeByte(VALUE_SET);
+            out.writeInt(set.size());
+            for (final String o: set) {
+                writeString(out, o);
+            }
+        } else if (value instanceof Map) {
+            final Map<String, String> map = new TreeMap<>();
+            for (final Map.Entry<?, ?> o: ((Map<?, ?>) value).entrySet()) {
+                map.put(o.getKey().toString(), o.getValue().toString());
+            }
+            out.writeByte(VALUE_MAP);
+            out.writeInt(map.size());
+            for (final Map.Entry<String, String> o: map.entrySet()) {
+                writeString(out, o.getKey());
+                writeString(out, o.getValue());
+            }
+        } else {
+            out.writeByte(VALUE_STRING);
+            writeString(out, value.toString());
+        }
+        out.flush();
+        return buf.toByteArray();
+    }
+
+    private static byte[] encodeFileInfo(final FileInfo i) throws IOException {
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream(128);
+        final DataOutputStream out = new DataOutputStream(buf);
+        out.writeByte(RECORD_FILE);
+        out.writeInt(i.getFlags());
+        writeString(out, i.src != null ? i.src.toString() : null);
+        writeString(out, i.uri.toString());
+        writeString(out, i.format);
+        out.flush();
+        return buf.toByteArray();
+    }
+
+    private static byte[] encodeRemove(final byte type, final String key) throws IOException {
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(buf);
+        out.writeByte(type);
+        writeString(out, key);
+        out.flush();
+        return buf.toByteArray();
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            final byte[] bytes = value.getBytes(UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(final ByteBuffer in) {
+        final int length = in.getInt();
+        if (length == -1) {
+            return null;
+        }
+        final String value = new String(in.array(), in.arrayOffset() + in.position(), length, UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+}
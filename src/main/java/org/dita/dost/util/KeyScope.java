@@ -33,6 +33,19 @@ public class KeyScope {
         this(null, keyDefinition, Collections.<KeyScope>emptyList());
     }
 
+    /**
+     * Constructor for key scopes that provide key definitions and child scopes as read-only views.
+     *
+     * @param name key scope name, {@code null} for root scope
+     * @param keyDefinition effective key definitions by key name
+     * @param childScopes child key scopes by scope name
+     */
+    protected KeyScope(final String name, final Map<String, KeyDef> keyDefinition, final Map<String, KeyScope> childScopes) {
+        this.name = name;
+        this.keyDefinition = keyDefinition;
+        this.childScopes = childScopes;
+    }
+
     public KeyDef get(final String key) {
         return keyDefinition.get(key);
     }
@@ -0,0 +1,128 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dita.dost.exception.DITAOTException;
+
+/**
+ * Utilities for processing independent items in parallel.
+ *
+ * @since 2.2
+ */
+public final class ParallelUtils {
+
+    /** Default number of worker threads. */
+    public static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+
+    private ParallelUtils() {
+        // leave blank as designed
+    }
+
+    /**
+     * Worker that processes items on a single thread. Worker instances are thread confined
+     * and may hold non-thread-safe state, e.g. parsers and filters.
+     *
+     * @param <T> item type
+     */
+    public interface Worker<T> {
+
+        /**
+         * Process single item.
+         *
+         * @param item item to process
+         * @throws Exception if processing failed and all processing should be stopped
+         */
+        void process(T item) throws Exception;
+
+    }
+
+    /**
+     * Factory for thread confined workers.
+     *
+     * @param <T> item type
+     */
+    public interface WorkerFactory<T> {
+
+        /**
+         * Create new worker. Called once by each worker thread.
+         *
+         * @return new worker
+         * @throws Exception if creating worker failed
+         */
+        Worker<T> newWorker() throws Exception;
+
+    }
+
+    /**
+     * Process items using a pool of worker threads. Each thread creates its own worker and takes
+     * the next unprocessed item until all items have been processed. If a worker throws an exception,
+     * remaining items are not processed and the exception is rethrown after all threads have stopped.
+     *
+     * @param items items to process
+     * @param threads maximum number of worker threads
+     * @param factory worker factory
+     * @throws DITAOTException if processing failed
+     */
+    public static <T> void execute(final List<T> items, final int threads, final WorkerFactory<T> factory) throws DITAOTException {
+        final int count = Math.max(1, Math.min(threads, items.size()));
+        final AtomicInteger next = new AtomicInteger();
+        final List<Future<Void>> workers = new ArrayList<>(count);
+        final ExecutorService executor = Executors.newFixedThreadPool(count);
+        try {
+            for (int w = 0; w < count; w++) {
+                workers.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        try {
+                            final Worker<T> worker = factory.newWorker();
+                            for (int i = next.getAndIncrement(); i < items.size(); i = next.getAndIncrement()) {
+                                worker.process(items.get(i));
+                            }
+                            return null;
+                        } catch (final Exception e) {
+                            next.set(items.size());
+                            throw e;
+                        }
+                    }
+                }));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Throwable fatal = null;
+        for (final Future<Void> worker: workers) {
+            try {
+                worker.get();
+            } catch (final InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new DITAOTException("Interrupted while waiting for workers to finish", e);
+            } catch (final ExecutionException e) {
+                if (fatal == null) {
+                    fatal = e.getCause();
+                }
+            }
+        }
+        if (fatal instanceof DITAOTException) {
+            throw (DITAOTException) fatal;
+        } else if (fatal instanceof RuntimeException) {
+            throw (RuntimeException) fatal;
+        } else if (fatal instanceof Error) {
+            throw (Error) fatal;
+        } else if (fatal != null) {
+            throw new DITAOTException(fatal.getMessage(), fatal);
+        }
+    }
+
+}
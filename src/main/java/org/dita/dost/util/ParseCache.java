@@ -0,0 +1,259 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import static org.apache.commons.io.FileUtils.deleteQuietly;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persistent cache of parsed documents, shared by all builds that use the same cache directory.
+ *
+ * <p>Entries are stored as files named by their key. Entry access time is stored as the file
+ * modification time, and least recently used entries are removed when the total size of entries
+ * exceeds the size limit. Entries are written to a temporary file and renamed, so concurrent builds
+ * may share the cache directory; the size limit is only enforced for entries known to this process.</p>
+ *
+ * @since 2.2
+ */
+public final class ParseCache {
+
+    /** Default maximum cache size in bytes. */
+    public static final long DEFAULT_MAX_SIZE = 512L * 1024 * 1024;
+    /** Name of the directory in temporary directory used to pass parse results between preprocessing stages. */
+    public static final String SPOOL_DIR_NAME = ".parse";
+    private static final String ENTRY_EXTENSION = ".sax";
+    private static final Map<File, ParseCache> instances = new HashMap<>();
+
+    private final File dir;
+    private final long maxSize;
+    /** Entry sizes by key, in access order. */
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+    private boolean initialized;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private ParseCache(final File dir, final long maxSize) {
+        this.dir = dir;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Get cache for a cache directory. Each directory has a single cache instance in the process.
+     *
+     * @param dir cache directory
+     * @param maxSize maximum total size of cache entries in bytes
+     * @return parse cache
+     */
+    public static synchronized ParseCache getInstance(final File dir, final long maxSize) {
+        final File key = dir.getAbsoluteFile();
+        ParseCache cache = instances.get(key);
+        if (cache == null || cache.maxSize != maxSize) {
+            cache = new ParseCache(key, maxSize);
+            instances.put(key, cache);
+        }
+        return cache;
+    }
+
+    /**
+     * Get cache entry.
+     *
+     * @param key entry key
+     * @return entry data, {@code null} if not cached
+     */
+    public byte[] get(final String key) {
+        synchronized (this) {
+            init();
+            if (!entries.containsKey(key)) {
+                return null;
+            }
+            entries.get(key);
+        }
+        final File file = getFile(key);
+        try {
+            final byte[] data = Files.readAllBytes(file.toPath());
+            file.setLastModified(System.currentTimeMillis());
+            return data;
+        } catch (final IOException e) {
+            // removed by another process
+            synchronized (this) {
+                remove(key);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Add cache entry and remove least recently used entries if cache size exceeds the limit.
+     *
+     * @param key entry key
+     * @param data entry data
+     */
+    public void put(final String key, final byte[] data) {
+        if (data.length > maxSize) {
+            return;
+        }
+        final File file = getFile(key);
+        try {
+            final File parent = file.getParentFile();
+            if (!parent.exists() && !parent.mkdirs() && !parent.exists()) {
+                return;
+            }
+            final File tmp = File.createTempFile("entry", ".tmp", parent);
+            try (OutputStream out = new FileOutputStream(tmp)) {
+                out.write(data);
+            }
+            if (!tmp.renameTo(file)) {
+                // replaced by another process
+                tmp.delete();
+                if (!file.exists()) {
+                    return;
+                }
+            }
+        } catch (final IOException e) {
+            return;
+        }
+        synchronized (this) {
+            init();
+            final Long old = entries.put(key, (long) data.length);
+            size += data.length - (old != null ? old : 0L);
+            final Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+            while (size > maxSize && it.hasNext()) {
+                final Map.Entry<String, Long> e = it.next();
+                getFile(e.getKey()).delete();
+                size -= e.getValue();
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Remove all cache entries and the cache directory.
+     */
+    public synchronized void clear() {
+        deleteQuietly(dir);
+        entries.clear();
+        size = 0;
+        initialized = true;
+    }
+
+    /**
+     * Get number of parses replayed from cache.
+     *
+     * @return number of cache hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Get number of parses that could not be replayed from cache.
+     *
+     * @return number of cache misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /** Record a parse replayed from cache. */
+    void hit() {
+        hits.incrementAndGet();
+    }
+
+    /** Record a parse that was not replayed from cache. */
+    void miss() {
+        misses.incrementAndGet();
+    }
+
+    /**
+     * Calculate cache key.
+     *
+     * @param parts key parts
+     * @return hex encoded key
+     */
+    public static String getKey(final byte[]... parts) {
+        final MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-1");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+        for (final byte[] part: parts) {
+            md.update(part);
+            md.update((byte) 0);
+        }
+        final StringBuilder buf = new StringBuilder();
+        for (final byte b: md.digest()) {
+            buf.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return buf.toString();
+    }
+
+    private void remove(final String key) {
+        final Long old = entries.remove(key);
+        if (old != null) {
+            size -= old;
+        }
+    }
+
+    /** Read existing entries from cache directory in least recently used order. */
+    private void init() {
+        if (initialized) {
+            return;
+        }
+        initialized = true;
+        final List<File> files = new ArrayList<>();
+        final File[] subdirs = dir.listFiles();
+        if (subdirs != null) {
+            for (final File subdir: subdirs) {
+                final File[] fs = subdir.listFiles();
+                if (fs != null) {
+                    for (final File f: fs) {
+                        if (f.getName().endsWith(ENTRY_EXTENSION)) {
+                            files.add(f);
+                        }
+                    }
+                }
+            }
+        }
+        final Map<File, Long> modified = new HashMap<>();
+        for (final File f: files) {
+            modified.put(f, f.lastModified());
+        }
+        Collections.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(final File f1, final File f2) {
+                return modified.get(f1).compareTo(modified.get(f2));
+            }
+        });
+        for (final File f: files) {
+            final String name = f.getName();
+            final long length = f.length();
+            entries.put(name.substring(0, name.length() - ENTRY_EXTENSION.length()), length);
+            size += length;
+        }
+    }
+
+    private File getFile(final String key) {
+        return new File(new File(dir, key.substring(0, 2)), key + ENTRY_EXTENSION);
+    }
+
+}
@@ -0,0 +1,311 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.URIResolver;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.tools.ant.types.Path;
+import org.apache.tools.ant.types.XMLCatalog;
+import org.apache.xml.resolver.tools.CatalogResolver;
+
+/**
+ * Process-wide cache of compiled stylesheets.
+ *
+ * <p>Compiled stylesheets are keyed by the absolute stylesheet URI and the URI resolver used
+ * to compile them, because the resolver determines which modules are imported or included.
+ * Catalog resolvers are compared by their catalog configuration, the catalog files and their
+ * last modified times, so that resolvers created for each task invocation from the same
+ * catalogs share entries. Other resolvers are compared by identity and held only weakly.
+ * A cached entry is only reused
+ * if the last modified times of the stylesheet and all the modules it imports or includes
+ * are unchanged. Least recently used entries are evicted when the cache is full.</p>
+ *
+ * <p>Cached templates do not retain the resolver they were compiled with. Transformers
+ * created from cached templates should have their URI resolver set explicitly.</p>
+ *
+ * @since 2.2
+ */
+public final class TemplatesCache {
+
+    /** Default maximum number of cached stylesheets. */
+    public static final int DEFAULT_SIZE = 32;
+
+    private static TemplatesCache instance;
+
+    private final Map<CacheKey, CacheEntry> cache;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Create new cache.
+     *
+     * @param size maximum number of cached stylesheets
+     */
+    TemplatesCache(final int size) {
+        cache = new LinkedHashMap<CacheKey, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<CacheKey, CacheEntry> eldest) {
+                return size() > size;
+            }
+        };
+    }
+
+    /**
+     * Get shared cache instance.
+     *
+     * @return shared cache
+     */
+    public static synchronized TemplatesCache getInstance() {
+        if (instance == null) {
+            instance = new TemplatesCache(DEFAULT_SIZE);
+        }
+        return instance;
+    }
+
+    /**
+     * Get compiled stylesheet, compiling it if it's not cached or cached version is stale.
+     *
+     * @param style stylesheet file
+     * @param resolver URI resolver used to resolve imports and includes, may be {@code null}
+     * @return compiled stylesheet
+     * @throws TransformerConfigurationException if compiling the stylesheet failed
+     */
+    public Templates getTemplates(final File style, final URIResolver resolver) throws TransformerConfigurationException {
+        final String uri = style.getAbsoluteFile().toURI().toString();
+        final CacheKey key = new CacheKey(uri, resolver);
+        CacheEntry entry;
+        synchronized (cache) {
+            entry = cache.get(key);
+        }
+        if (entry != null && entry.isValid()) {
+            hits.incrementAndGet();
+            return entry.templates;
+        }
+        misses.incrementAndGet();
+
+        final RecordingURIResolver recorder = new RecordingURIResolver(resolver);
+        recorder.record(uri);
+        final TransformerFactory tf = TransformerFactory.newInstance();
+        tf.setURIResolver(recorder);
+        final Templates templates = tf.newTemplates(new StreamSource(uri));
+        entry = new CacheEntry(templates, recorder.stop());
+        synchronized (cache) {
+            cache.put(key, entry);
+        }
+        return templates;
+    }
+
+    /**
+     * Remove all cached stylesheets.
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Get number of cache hits.
+     *
+     * @return cache hit count
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Get number of cache misses.
+     *
+     * @return cache miss count
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Get fingerprint of catalog resolver configuration.
+     *
+     * @param resolver URI resolver, may be {@code null}
+     * @return catalog files and their last modified times, {@code null} if resolver is not a catalog resolver
+     */
+    static String getCatalogFingerprint(final URIResolver resolver) {
+        final StringBuilder buf = new StringBuilder();
+        if (resolver instanceof XMLCatalog) {
+            // nested dtd and entity elements are not exposed, only catalog path is compared
+            final Path catalogPath = ((XMLCatalog) resolver).getCatalogPath();
+            if (catalogPath == null) {
+                return null;
+            }
+            buf.append("xmlcatalog");
+            for (final String catalog: catalogPath.list()) {
+                appendCatalog(buf, new File(catalog));
+            }
+        } else if (resolver instanceof CatalogResolver) {
+            buf.append("catalogresolver");
+            for (final Object catalog: ((CatalogResolver) resolver).getCatalog().getCatalogManager().getCatalogFiles()) {
+                try {
+                    final URI uri = new URI(catalog.toString());
+                    appendCatalog(buf, "file".equals(uri.getScheme()) ? new File(uri) : new File(catalog.toString()));
+                } catch (final URISyntaxException | IllegalArgumentException e) {
+                    appendCatalog(buf, new File(catalog.toString()));
+                }
+            }
+        } else {
+            return null;
+        }
+        return buf.toString();
+    }
+
+    private static void appendCatalog(final StringBuilder buf, final File catalog) {
+        buf.append('\n').append(catalog.getAbsolutePath()).append('\t').append(catalog.lastModified());
+    }
+
+    /**
+     * Cache key of stylesheet URI and URI resolver. Catalog resolvers are compared by catalog
+     * fingerprint and other resolvers by identity. Key with a cleared resolver reference
+     * matches no lookup and is eventually evicted.
+     */
+    private static final class CacheKey {
+
+        final String uri;
+        /** Catalog fingerprint, {@code null} if resolver is not a catalog resolver. */
+        final String catalogs;
+        /** Resolver compared by identity, {@code null} if resolver is a catalog resolver or {@code null}. */
+        final WeakReference<URIResolver> resolver;
+        final int hash;
+
+        CacheKey(final String uri, final URIResolver resolver) {
+            this.uri = uri;
+            this.catalogs = getCatalogFingerprint(resolver);
+            this.resolver = resolver != null && catalogs == null ? new WeakReference<>(resolver) : null;
+            this.hash = 31 * uri.hashCode() + (catalogs != null ? catalogs.hashCode() : System.identityHashCode(resolver));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+            final CacheKey other = (CacheKey) obj;
+            if (hash != other.hash || !uri.equals(other.uri)) {
+                return false;
+            }
+            if (catalogs != null || other.catalogs != null) {
+                return catalogs != null && catalogs.equals(other.catalogs);
+            }
+            if (resolver == null || other.resolver == null) {
+                return resolver == other.resolver;
+            }
+            final URIResolver r = resolver.get();
+            return r != null && r == other.resolver.get();
+        }
+
+    }
+
+    private static final class CacheEntry {
+
+        final Templates templates;
+        /** Stylesheet module files and their last modified times at compile time. */
+        final Map<File, Long> dependencies;
+
+        CacheEntry(final Templates templates, final Map<File, Long> dependencies) {
+            this.templates = templates;
+            this.dependencies = dependencies;
+        }
+
+        boolean isValid() {
+            for (final Map.Entry<File, Long> e: dependencies.entrySet()) {
+                if (e.getKey().lastModified() != e.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+    /**
+     * URI resolver that records the local files of all resolved stylesheet modules.
+     */
+    private static final class RecordingURIResolver implements URIResolver {
+
+        private volatile URIResolver resolver;
+        private final Map<File, Long> dependencies = new HashMap<>();
+        private volatile boolean recording = true;
+
+        RecordingURIResolver(final URIResolver resolver) {
+            this.resolver = resolver;
+        }
+
+        @Override
+        public Source resolve(final String href, final String base) throws TransformerException {
+            final URIResolver resolver = this.resolver;
+            final Source source = resolver != null ? resolver.resolve(href, base) : null;
+            if (!recording) {
+                return source;
+            }
+            if (source != null && source.getSystemId() != null) {
+                record(source.getSystemId());
+            } else {
+                try {
+                    record(base != null ? new URI(base).resolve(href).toString() : href);
+                } catch (final URISyntaxException | IllegalArgumentException e) {
+                    // not a local file
+                }
+            }
+            return source;
+        }
+
+        void record(final String systemId) {
+            try {
+                final URI uri = new URI(systemId);
+                if ("file".equals(uri.getScheme())) {
+                    final File f = new File(uri);
+                    dependencies.put(f, f.lastModified());
+                }
+            } catch (final URISyntaxException | IllegalArgumentException e) {
+                // not a local file
+            }
+        }
+
+        /**
+         * Stop recording and release the wrapped resolver, so that compiled templates
+         * do not retain it.
+         *
+         * @return recorded stylesheet module files and their last modified times
+         */
+        Map<File, Long> stop() {
+            recording = false;
+            resolver = null;
+            return Collections.unmodifiableMap(new HashMap<>(dependencies));
+        }
+
+    }
+
+}
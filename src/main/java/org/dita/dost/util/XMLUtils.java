@@ -18,6 +18,8 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.*;
 import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
@@ -36,6 +38,14 @@ import org.xml.sax.helpers.XMLReaderFactory;
  */
 public final class XMLUtils {
 
+    /** Transformer factories for identity transformers, cached because looking up the implementation is slow. */
+    private static final ThreadLocal<TransformerFactory> transformerFactory = new ThreadLocal<TransformerFactory>() {
+        @Override
+        protected TransformerFactory initialValue() {
+            return TransformerFactory.newInstance();
+        }
+    };
+
     /** Private constructor to make class uninstantiable. */
     private XMLUtils() {}
 
@@ -193,6 +203,26 @@ public final class XMLUtils {
         return buf.toString();
     }
     
+    /**
+     * Create new identity transformer. The transformer factory is shared by all calls in the same thread.
+     *
+     * @return new identity transformer
+     * @throws TransformerConfigurationException if creating transformer failed
+     */
+    public static Transformer newIdentityTransformer() throws TransformerConfigurationException {
+        return transformerFactory.get().newTransformer();
+    }
+
+    /**
+     * Create new identity transformer handler. The transformer factory is shared by all calls in the same thread.
+     *
+     * @return new identity transformer handler
+     * @throws TransformerConfigurationException if creating transformer handler failed
+     */
+    public static TransformerHandler newIdentityTransformerHandler() throws TransformerConfigurationException {
+        return ((SAXTransformerFactory) transformerFactory.get()).newTransformerHandler();
+    }
+
     /**
      * Transform file with XML filters. Only file URIs are supported.
      *
@@ -239,10 +269,11 @@ public final class XMLUtils {
             throw new DITAOTException("Failed to create output directory " + outputFile.getParentFile().getAbsolutePath());
         }
         
+        final long start = BuildProfile.now();
         InputStream in = null;
         OutputStream out = null;
         try {
-            final Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            final Transformer transformer = newIdentityTransformer();
             XMLReader reader = getXMLReader();
             for (final XMLFilter filter : filters) {
                 // ContentHandler must be reset so e.g. Saxon 9.1 will reassign ContentHandler
@@ -257,6 +288,7 @@ public final class XMLUtils {
             source.setSystemId(inputFile.toURI().toString());
             final Result result = new StreamResult(out);
             transformer.transform(source, result);
+            BuildProfile.fileProcessed(BuildProfile.PARSE, inputFile, start);
         } catch (final RuntimeException e) {
             throw e;
         } catch (final Exception e) {
@@ -287,10 +319,11 @@ public final class XMLUtils {
      * @param filters XML filters to transform file with, may be an empty list
      */
     public static void transform(final URI input, final URI output, final List<XMLFilter> filters) throws DITAOTException {
+        final long start = BuildProfile.now();
         InputSource src = null;
         StreamResult result = null;
         try {
-            final Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            final Transformer transformer = newIdentityTransformer();
             XMLReader reader = getXMLReader();
             for (final XMLFilter filter : filters) {
                 // ContentHandler must be reset so e.g. Saxon 9.1 will reassign ContentHandler
@@ -303,6 +336,7 @@ public final class XMLUtils {
             final Source source = new SAXSource(reader, src);
             result = new StreamResult(output.toString());
             transformer.transform(source, result);
+            BuildProfile.fileProcessed(BuildProfile.PARSE, input, start);
         } catch (final RuntimeException e) {
             throw e;
         } catch (final Exception e) {
@@ -415,7 +415,7 @@ public abstract class AbstractChunkTopicParser extends AbstractXMLWriter {
             final Map<URI, URI> copytotarget2sourcemaplist = job.getCopytoMap();
             copytotarget2source.putAll(copytotarget2sourcemaplist);
             for (final String file : copytoSource) {
-                job.getOrCreateFileInfo(toURI(file)).isCopyToSource = true;
+                job.getOrCreateFileInfo(toURI(file)).setCopyToSource(true);
             }
             job.setCopytoMap(copytotarget2source);
             job.write();
@@ -6,7 +6,6 @@ import java.io.IOException;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 
@@ -50,7 +49,7 @@ public abstract class AbstractDomFilter implements AbstractReader {
                 file = new FileOutputStream(filename);
                 final StreamResult res = new StreamResult(file);
                 final DOMSource ds = new DOMSource(resDoc);
-                final Transformer tf = TransformerFactory.newInstance().newTransformer();
+                final Transformer tf = XMLUtils.newIdentityTransformer();
                 logger.debug("Writing " + filename.toURI());
                 tf.transform(ds, res);
             } catch (final RuntimeException e) {
@@ -7,18 +7,25 @@ package org.dita.dost.writer;
 import static java.util.Arrays.asList;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Collections;
 
 import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.log.DITAOTLogger;
+import org.dita.dost.util.BuildProfile;
 import org.dita.dost.util.Job;
 import org.dita.dost.util.XMLUtils;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
 import org.xml.sax.XMLFilter;
 import org.xml.sax.helpers.XMLFilterImpl;
 
 /**
  * Base for XML filters.
  *
+ * <p>Every parse through a filter is counted in the build profile as {@code <filter class>.files}.
+ * Subclasses can report their own counters with {@link #count(String, long)}.</p>
+ *
  * @since 1.5.4
  * @author Jarno Elovirta
  */
@@ -32,6 +39,24 @@ public abstract class AbstractXMLFilter extends XMLFilterImpl implements Abstrac
         XMLUtils.transform(filename, Collections.singletonList((XMLFilter) this));
     }
 
+    @Override
+    public void parse(final InputSource input) throws SAXException, IOException {
+        count("files", 1);
+        super.parse(input);
+    }
+
+    /**
+     * Add to a build profile counter of this filter. Counter name is prefixed with the filter class name.
+     *
+     * @param counter counter name
+     * @param delta value to add
+     */
+    protected void count(final String counter, final long delta) {
+        if (BuildProfile.isEnabled()) {
+            BuildProfile.count(getClass().getSimpleName() + "." + counter, delta);
+        }
+    }
+
     @Override
     public final void setLogger(final DITAOTLogger logger) {
         this.logger = logger;
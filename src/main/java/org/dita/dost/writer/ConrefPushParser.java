@@ -173,10 +173,10 @@ public final class ConrefPushParser extends AbstractXMLFilter {
             final URI reletivePath = toURI(filename.getAbsolutePath().substring(new File(normalize(tempDir.toString())).getPath().length() + 1));
             final FileInfo f = job.getOrCreateFileInfo(reletivePath);
             if (hasConref) {
-                f.hasConref = true;
+                f.setHasConref(true);
             }
             if (hasKeyref) {
-                f.hasKeyref = true;
+                f.setHasKeyref(true);
             }
             job.write();
         } catch (final Exception e) {
@@ -10,6 +10,7 @@ package org.dita.dost.writer;
 
 import org.dita.dost.exception.DITAOTException;
 import org.dita.dost.util.StringUtils;
+import org.dita.dost.util.XMLUtils;
 import org.w3c.dom.*;
 import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
@@ -50,7 +51,7 @@ public final class DitaLinksWriter extends AbstractXMLFilter {
         super();
         topicSpecList = new ArrayList<>();
         try {
-            saxToDomTransformer = TransformerFactory.newInstance().newTransformer();
+            saxToDomTransformer = XMLUtils.newIdentityTransformer();
         } catch (final TransformerConfigurationException e) {
             throw new RuntimeException("Failed to configure DOM to SAX transformer: " + e.getMessage(), e);
         }
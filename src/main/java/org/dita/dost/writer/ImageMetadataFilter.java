@@ -13,19 +13,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 
-import javax.imageio.ImageIO;
-import javax.imageio.ImageReader;
-import javax.imageio.stream.ImageInputStream;
-
 import org.apache.commons.codec.binary.Base64;
 import org.dita.dost.exception.DITAOTException;
+import org.dita.dost.util.ImageMetadataCache;
 import org.dita.dost.util.Job;
 import org.dita.dost.util.XMLUtils;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 
@@ -38,7 +32,6 @@ public final class ImageMetadataFilter extends AbstractXMLFilter {
     private static final String ATTR_HORIZONTAL_DPI = "horizontal-dpi";
     private static final String ATTR_IMAGE_HEIGHT = "image-height";
     private static final String ATTR_IMAGE_WIDTH = "image-width";
-    private static final float MM_TO_INCH = 25.4f;
     public static final String DITA_OT_PREFIX = "dita-ot";
     public static final String DITA_OT_NS = "http://dita-ot.sourceforge.net/ns/201007/dita-ot";
     
@@ -51,6 +44,7 @@ public final class ImageMetadataFilter extends AbstractXMLFilter {
     private int depth = 0;
     private final Map<URI, Attributes> cache = new HashMap<>();
     private final Job job;
+    private ImageMetadataCache imageCache = ImageMetadataCache.getInstance(null);
 
     // Constructors ------------------------------------------------------------
 
@@ -64,6 +58,15 @@ public final class ImageMetadataFilter extends AbstractXMLFilter {
         this.uplevels = job.getProperty("uplevels");
     }
 
+    /**
+     * Set image metadata cache.
+     *
+     * @param imageCache image metadata cache, shared in-memory cache is used by default
+     */
+    public void setImageMetadataCache(final ImageMetadataCache imageCache) {
+        this.imageCache = imageCache;
+    }
+
     // AbstractWriter methods --------------------------------------------------
 
     @Override
@@ -125,44 +128,24 @@ public final class ImageMetadataFilter extends AbstractXMLFilter {
         logger.info("Reading " + imgInput);
         final XMLUtils.AttributesBuilder a = new XMLUtils.AttributesBuilder();
         try {
-            InputStream in = null;
-            ImageReader r = null;
-            ImageInputStream iis = null;
-            try {
-                in = getInputStream(imgInput);
-                iis = ImageIO.createImageInputStream(in);
-                final Iterator<ImageReader> i = ImageIO.getImageReaders(iis);
-                if (!i.hasNext()) {
-                    logger.info("Image " + imgInput + " format not supported");
-                } else {
-                    r = i.next();
-                    r.setInput(iis);
-                    final int imageIndex = r.getMinIndex();
-                    a.add(DITA_OT_NS, ATTR_IMAGE_WIDTH, DITA_OT_PREFIX + ":" + ATTR_IMAGE_WIDTH, "CDATA", Integer.toString(r.getWidth(imageIndex)));
-                    a.add(DITA_OT_NS, ATTR_IMAGE_HEIGHT, DITA_OT_PREFIX + ":" + ATTR_IMAGE_HEIGHT, "CDATA", Integer.toString(r.getHeight(imageIndex)));
-                    final Element node = (Element) r.getImageMetadata(0).getAsTree("javax_imageio_1.0");
-                    final NodeList hs = node.getElementsByTagName("HorizontalPixelSize");
-                    if (hs != null && hs.getLength() == 1) {
-                        final float v = Float.parseFloat(((Element) hs.item(0)).getAttribute("value"));
-                        final int dpi = Math.round(MM_TO_INCH / v);
-                        a.add(DITA_OT_NS, ATTR_HORIZONTAL_DPI, DITA_OT_PREFIX + ":" + ATTR_HORIZONTAL_DPI, "CDATA", Integer.toString(dpi));
-                    }
-                    final NodeList vs = node.getElementsByTagName("VerticalPixelSize");
-                    if (vs != null && vs.getLength() == 1) {
-                        final float v = Float.parseFloat(((Element) vs.item(0)).getAttribute("value"));
-                        final int dpi = Math.round(MM_TO_INCH / v);
-                        a.add(DITA_OT_NS, ATTR_VERTICAL_DPI, DITA_OT_PREFIX + ":" + ATTR_VERTICAL_DPI, "CDATA", Integer.toString(dpi));
-                    }
-                }
-            } finally {
-                if (r != null) {
-                    r.dispose();
+            final ImageMetadataCache.Metadata m;
+            if ("file".equals(imgInput.getScheme())) {
+                m = imageCache.get(new File(imgInput));
+            } else {
+                try (final InputStream in = getInputStream(imgInput)) {
+                    m = ImageMetadataCache.read(in);
                 }
-                if (iis != null) {
-                    iis.close();
+            }
+            if (!m.isSupported()) {
+                logger.info("Image " + imgInput + " format not supported");
+            } else {
+                a.add(DITA_OT_NS, ATTR_IMAGE_WIDTH, DITA_OT_PREFIX + ":" + ATTR_IMAGE_WIDTH, "CDATA", Integer.toString(m.width));
+                a.add(DITA_OT_NS, ATTR_IMAGE_HEIGHT, DITA_OT_PREFIX + ":" + ATTR_IMAGE_HEIGHT, "CDATA", Integer.toString(m.height));
+                if (m.horizontalDpi != -1) {
+                    a.add(DITA_OT_NS, ATTR_HORIZONTAL_DPI, DITA_OT_PREFIX + ":" + ATTR_HORIZONTAL_DPI, "CDATA", Integer.toString(m.horizontalDpi));
                 }
-                if (in != null) {
-                    in.close();
+                if (m.verticalDpi != -1) {
+                    a.add(DITA_OT_NS, ATTR_VERTICAL_DPI, DITA_OT_PREFIX + ":" + ATTR_VERTICAL_DPI, "CDATA", Integer.toString(m.verticalDpi));
                 }
             }
         } catch (final Exception e) {
@@ -233,81 +233,85 @@ public final class KeyrefPaser extends AbstractXMLFilter {
             // and the element is empty
             if (!validKeyref.isEmpty() && validKeyref.peek()) {
                 final Element elem = keyDef.element;
-                // Key reference is valid,
-                // need to pull matching content from the key definition
-                // If current element name doesn't equal the key reference element
-                // just grab the content from the matching element of key definition
-                if (!name.equals(elemName.peek())) {
-                    final NodeList nodeList = elem.getElementsByTagName(name);
-                    if (nodeList.getLength() > 0) {
-                        final Element node = (Element) nodeList.item(0);
-                        final NodeList nList = node.getChildNodes();
-                        for (int index = 0; index < nList.getLength(); index++) {
-                            final Node n = nList.item(index);
-                            if (n.getNodeType() == Node.TEXT_NODE) {
-                                final char[] ch = n.getNodeValue().toCharArray();
-                                getContentHandler().characters(ch, 0, ch.length);
-                                break;
-                            }
-                        }
-                    }
-                } else {
-                    // Current element name equals the key reference element
-                    // grab keyword or term from key definition
-                    if (!hasSubElem.peek() && currentElement != null) {
-                        NodeList nodeList = elem.getElementsByTagName(TOPIC_KEYWORD.localName);
-                        // XXX: No need to look for term as content model for keywords doesn't allow it
-//                        if (nodeList.getLength() == 0 ) {
-//                            nodeList = elem.getElementsByTagName(TOPIC_TERM.localName);
-//                        }
+                // DOM node lists cache state in the owner document, so key definitions shared between
+                // parallel parsers must not be read concurrently
+                synchronized (elem.getOwnerDocument()) {
+                    // Key reference is valid,
+                    // need to pull matching content from the key definition
+                    // If current element name doesn't equal the key reference element
+                    // just grab the content from the matching element of key definition
+                    if (!name.equals(elemName.peek())) {
+                        final NodeList nodeList = elem.getElementsByTagName(name);
                         if (nodeList.getLength() > 0) {
-                            if (!currentElement.hasNestedElements) {
-                                // only one keyword or term is used.
-                                if (!currentElement.isEmpty) {
-                                    domToSax((Element) nodeList.item(0), false);
-                                }
-                            } else {
-                                // If the key reference element carries href attribute
-                                // all keyword or term are used.
-                                if (TOPIC_LINK.matches(currentElement.type)) {
-                                    final AttributesImpl atts = new AttributesImpl();
-                                    XMLUtils.addOrSetAttribute(atts, ATTRIBUTE_NAME_CLASS, TOPIC_LINKTEXT.toString());
-                                    getContentHandler().startElement(NULL_NS_URI, TOPIC_LINKTEXT.localName, TOPIC_LINKTEXT.localName, atts);
-                                }
-                                if (!currentElement.isEmpty) {
-                                    domToSax((Element) nodeList.item(0), true);
-                                }
-                                if (TOPIC_LINK.matches(currentElement.type)) {
-                                    getContentHandler().endElement(NULL_NS_URI, TOPIC_LINKTEXT.localName, TOPIC_LINKTEXT.localName);
+                            final Element node = (Element) nodeList.item(0);
+                            final NodeList nList = node.getChildNodes();
+                            for (int index = 0; index < nList.getLength(); index++) {
+                                final Node n = nList.item(index);
+                                if (n.getNodeType() == Node.TEXT_NODE) {
+                                    final char[] ch = n.getNodeValue().toCharArray();
+                                    getContentHandler().characters(ch, 0, ch.length);
+                                    break;
                                 }
                             }
-                        } else {
-                            if (TOPIC_LINK.matches(currentElement.type)) {
-                                // If the key reference element is link or its specification,
-                                // should pull in the linktext
-                                final NodeList linktext = elem.getElementsByTagName(TOPIC_LINKTEXT.localName);
-                                if (linktext.getLength() > 0) {
-                                    domToSax((Element) linktext.item(0), true);
+                        }
+                    } else {
+                        // Current element name equals the key reference element
+                        // grab keyword or term from key definition
+                        if (!hasSubElem.peek() && currentElement != null) {
+                            NodeList nodeList = elem.getElementsByTagName(TOPIC_KEYWORD.localName);
+                            // XXX: No need to look for term as content model for keywords doesn't allow it
+    //                        if (nodeList.getLength() == 0 ) {
+    //                            nodeList = elem.getElementsByTagName(TOPIC_TERM.localName);
+    //                        }
+                            if (nodeList.getLength() > 0) {
+                                if (!currentElement.hasNestedElements) {
+                                    // only one keyword or term is used.
+                                    if (!currentElement.isEmpty) {
+                                        domToSax((Element) nodeList.item(0), false);
+                                    }
                                 } else {
-                                    final String navtitle = elem.getAttribute(ATTRIBUTE_NAME_NAVTITLE);
-                                    if (!navtitle.trim().isEmpty()) {
+                                    // If the key reference element carries href attribute
+                                    // all keyword or term are used.
+                                    if (TOPIC_LINK.matches(currentElement.type)) {
                                         final AttributesImpl atts = new AttributesImpl();
                                         XMLUtils.addOrSetAttribute(atts, ATTRIBUTE_NAME_CLASS, TOPIC_LINKTEXT.toString());
                                         getContentHandler().startElement(NULL_NS_URI, TOPIC_LINKTEXT.localName, TOPIC_LINKTEXT.localName, atts);
-                                        final char[] ch = navtitle.toCharArray();
-                                        getContentHandler().characters(ch, 0, ch.length);
+                                    }
+                                    if (!currentElement.isEmpty) {
+                                        domToSax((Element) nodeList.item(0), true);
+                                    }
+                                    if (TOPIC_LINK.matches(currentElement.type)) {
                                         getContentHandler().endElement(NULL_NS_URI, TOPIC_LINKTEXT.localName, TOPIC_LINKTEXT.localName);
                                     }
                                 }
-                            } else if (currentElement.hasNestedElements) {
-                                final NodeList linktext = elem.getElementsByTagName(TOPIC_LINKTEXT.localName);
-                                if (linktext.getLength() > 0) {
-                                    domToSax((Element) linktext.item(0), false);
-                                } else {
-                                    final String navtitle = elem.getAttribute(ATTRIBUTE_NAME_NAVTITLE);
-                                    if (!navtitle.trim().isEmpty()) {
-                                        final char[] ch = navtitle.toCharArray();
-                                        getContentHandler().characters(ch, 0, ch.length);
+                            } else {
+                                if (TOPIC_LINK.matches(currentElement.type)) {
+                                    // If the key reference element is link or its specification,
+                                    // should pull in the linktext
+                                    final NodeList linktext = elem.getElementsByTagName(TOPIC_LINKTEXT.localName);
+                                    if (linktext.getLength() > 0) {
+                                        domToSax((Element) linktext.item(0), true);
+                                    } else {
+                                        final String navtitle = elem.getAttribute(ATTRIBUTE_NAME_NAVTITLE);
+                                        if (!navtitle.trim().isEmpty()) {
+                                            final AttributesImpl atts = new AttributesImpl();
+                                            XMLUtils.addOrSetAttribute(atts, ATTRIBUTE_NAME_CLASS, TOPIC_LINKTEXT.toString());
+                                            getContentHandler().startElement(NULL_NS_URI, TOPIC_LINKTEXT.localName, TOPIC_LINKTEXT.localName, atts);
+                                            final char[] ch = navtitle.toCharArray();
+                                            getContentHandler().characters(ch, 0, ch.length);
+                                            getContentHandler().endElement(NULL_NS_URI, TOPIC_LINKTEXT.localName, TOPIC_LINKTEXT.localName);
+                                        }
+                                    }
+                                } else if (currentElement.hasNestedElements) {
+                                    final NodeList linktext = elem.getElementsByTagName(TOPIC_LINKTEXT.localName);
+                                    if (linktext.getLength() > 0) {
+                                        domToSax((Element) linktext.item(0), false);
+                                    } else {
+                                        final String navtitle = elem.getAttribute(ATTRIBUTE_NAME_NAVTITLE);
+                                        if (!navtitle.trim().isEmpty()) {
+                                            final char[] ch = navtitle.toCharArray();
+                                            getContentHandler().characters(ch, 0, ch.length);
+                                        }
                                     }
                                 }
                             }
@@ -391,14 +395,24 @@ public final class KeyrefPaser extends AbstractXMLFilter {
                 // If definition is not null
                 if (keyDef != null) {
                     if (currentElement != null) {
-                        final NamedNodeMap attrs = elem.getAttributes();
+                        // DOM attribute maps cache state in the owner document, so copy key definition
+                        // attributes while holding the same lock as other key definition reads
+                        final AttributesImpl attrs = new AttributesImpl();
+                        final boolean localDita;
+                        synchronized (elem.getOwnerDocument()) {
+                            final NamedNodeMap elemAttrs = elem.getAttributes();
+                            for (int index = 0; index < elemAttrs.getLength(); index++) {
+                                XMLUtils.addOrSetAttribute(attrs, elemAttrs.item(index));
+                            }
+                            localDita = isLocalDita(elem);
+                        }
                         final URI target = keyDef != null ? keyDef.href : null;
                         if (target != null && !target.toString().isEmpty()) {
                             if (TOPIC_IMAGE.matches(currentElement.type)) {
                                 valid = true;
                                 final URI targetOutput = normalizeHrefValue(URLUtils.getRelativePath(job.tempDir.toURI().resolve(toURI(inputFile)), job.tempDir.toURI().resolve(target)), elementId);
                                 XMLUtils.addOrSetAttribute(resAtts, refAttr, targetOutput.toString());
-                            } else if (isLocalDita(elem)) {
+                            } else if (localDita) {
                                 final File topicFile = toFile(job.tempDir.toURI().resolve(stripFragment(target)));
                                 valid = true;
                                 final String topicId = getFirstTopicId(topicFile);
@@ -432,19 +446,21 @@ public final class KeyrefPaser extends AbstractXMLFilter {
                         if (valid) {
                             if (MAP_TOPICREF.matches(currentElement.type)) {
                                 for (int index = 0; index < attrs.getLength(); index++) {
-                                    final Attr attr = (Attr) attrs.item(index);
-                                    if (!no_copy.contains(attr.getNodeName())) {
-                                        XMLUtils.removeAttribute(resAtts, attr.getNodeName());
-                                        XMLUtils.addOrSetAttribute(resAtts, attr);
+                                    final String attrName = attrs.getQName(index);
+                                    if (!no_copy.contains(attrName)) {
+                                        XMLUtils.removeAttribute(resAtts, attrName);
+                                        resAtts.addAttribute(attrs.getURI(index), attrs.getLocalName(index), attrName,
+                                                attrs.getType(index), attrs.getValue(index));
                                     }
                                 }
                             } else {
                                 for (int index = 0; index < attrs.getLength(); index++) {
-                                    final Attr attr = (Attr) attrs.item(index);
-                                    if (!no_copy_topic.contains(attr.getNodeName())
-                                            && (attr.getNodeName().equals(refAttr) || resAtts.getIndex(attr.getNodeName()) == -1)) {
-                                        XMLUtils.removeAttribute(resAtts, attr.getNodeName());
-                                        XMLUtils.addOrSetAttribute(resAtts, attr);
+                                    final String attrName = attrs.getQName(index);
+                                    if (!no_copy_topic.contains(attrName)
+                                            && (attrName.equals(refAttr) || resAtts.getIndex(attrName) == -1)) {
+                                        XMLUtils.removeAttribute(resAtts, attrName);
+                                        resAtts.addAttribute(attrs.getURI(index), attrs.getLocalName(index), attrName,
+                                                attrs.getType(index), attrs.getValue(index));
                                     }
                                 }
                             }
@@ -481,6 +497,9 @@ public final class KeyrefPaser extends AbstractXMLFilter {
 
     // Private methods ---------------------------------------------------------
 
+    /**
+     * Test if key definition refers to a local DITA file. Caller must hold the owner document lock.
+     */
     private boolean isLocalDita(final Element elem ) {
         final String scopeValue = elem.getAttribute(ATTRIBUTE_NAME_SCOPE);
         final String formatValue = elem.getAttribute(ATTRIBUTE_NAME_FORMAT);
@@ -92,6 +92,7 @@ public final class ProfilingFilter extends AbstractXMLFilter {
 			if (foreignLevel <= 1 && filterUtils.needExclude(atts, props)) {
 				exclude = true;
 				level = 0;
+				count("excludedElements", 1);
 			} else {
 			    elementOutput = true;
                 for (final Map.Entry<String, String> prefix: prefixes.entrySet()) {
@@ -175,6 +176,9 @@ public final class ProfilingFilter extends AbstractXMLFilter {
 		foreignLevel = 0;
 		level = 0;
 		props = null;
+		elementOutput = false;
+		lastElementExcluded = false;
+		prefixes.clear();
         getContentHandler().startDocument();
     }
 
@@ -13,9 +13,17 @@ import static org.dita.dost.util.FileUtils.*;
 import static org.dita.dost.util.XMLUtils.*;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.dita.dost.exception.DITAOTException;
+import org.dita.dost.util.URLUtils;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
@@ -26,12 +34,16 @@ import org.xml.sax.helpers.AttributesImpl;
  */
 public final class TopicRefWriter extends AbstractXMLFilter {
 
+    private static final Pattern HREF_ATTRIBUTE = Pattern.compile("\\s" + ATTRIBUTE_NAME_HREF + "\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)')");
+
     private Map<String, String> changeTable = null;
     private Map<String, String> conflictTable = null;
     private File currentFileDir = null;
     private File currentFilePath = null;
     /** Using for rectify relative path of xml */
     private String fixpath = null;
+    /** File names of link targets that are moved or renamed. */
+    private Set<String> changedNames = null;
 
     @Override
     public void write(final File outputFilename) throws DITAOTException {
@@ -51,6 +63,54 @@ public final class TopicRefWriter extends AbstractXMLFilter {
             assert new File(e.getValue()).isAbsolute();
         }
         this.conflictTable = conflictTable;
+        changedNames = new HashSet<>();
+        for (final Map.Entry<String, String> e: changeTable.entrySet()) {
+            final String conTarget = conflictTable.get(stripFragment(e.getValue()));
+            if (!e.getKey().equals(e.getValue()) || (conTarget != null && !conTarget.isEmpty())) {
+                changedNames.add(new File(stripFragment(e.getKey())).getName());
+            }
+        }
+    }
+
+    /**
+     * Test whether writing a file may update its references. The file is scanned for link
+     * targets with a moved or renamed file name without parsing it, so the test may give
+     * false positives but no false negatives.
+     *
+     * @param file file to test
+     * @return {@code true} if file may contain references to update, otherwise {@code false}
+     * @throws IOException if reading file failed
+     */
+    public boolean isAffected(final File file) throws IOException {
+        if (fixpath != null) {
+            return true;
+        }
+        final String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        final Matcher m = HREF_ATTRIBUTE.matcher(content);
+        while (m.find()) {
+            final String href = m.group(1) != null ? m.group(1) : m.group(2);
+            if (href.indexOf('&') != -1) {
+                // escaped characters, test would require parsing
+                return true;
+            }
+            final String path = stripFragment(href);
+            final String name = path.isEmpty()
+                    ? file.getName()
+                    : path.substring(Math.max(path.lastIndexOf(UNIX_SEPARATOR), path.lastIndexOf(WINDOWS_SEPARATOR)) + 1);
+            if (changedNames.contains(name)) {
+                return true;
+            }
+            if (name.indexOf('%') != -1) {
+                try {
+                    if (changedNames.contains(URLUtils.decode(name))) {
+                        return true;
+                    }
+                } catch (final IllegalArgumentException e) {
+                    return true;
+                }
+            }
+        }
+        return false;
     }
 
     public void setChangeTable(final Map<String, String> changeTable) {
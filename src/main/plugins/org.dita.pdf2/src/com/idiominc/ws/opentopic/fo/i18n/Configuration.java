@@ -4,6 +4,7 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.ArrayList;
 
@@ -43,11 +44,18 @@ public class Configuration {
     private static final String BAD_CONF_MESSAGE = "Bad configuration file format!";
 
     private final Alphabet[] alphabets;
+    /** Sorted start characters of character ranges. */
+    private char[] rangeStarts;
+    /** End characters of character ranges, inclusive. */
+    private char[] rangeEnds;
+    /** Alphabets of character ranges. */
+    private Alphabet[] rangeAlphabets;
 
 
     public Configuration(final Document theConfigurationFile)
             throws ConfigurationException {
         this.alphabets = initAlphabets(theConfigurationFile);
+        initRanges();
     }
 
 
@@ -62,14 +70,55 @@ public class Configuration {
      *      or <code>null</code> if no alphabets contains given char.
      */
     public Alphabet getAlphabetForChar(final char theChar) {
-        Alphabet result = null;
-        for (final Alphabet alphabet : this.alphabets) {
-            if (alphabet.isContain(theChar)) {
-                result = alphabet;
-                break;
+        int low = 0;
+        int high = rangeStarts.length - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (rangeEnds[mid] < theChar) {
+                low = mid + 1;
+            } else if (rangeStarts[mid] > theChar) {
+                high = mid - 1;
+            } else {
+                return rangeAlphabets[mid];
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Build a sorted table of character ranges where all characters belong to the same first alphabet,
+     * so that alphabet lookup doesn't need to test every alphabet for every character.
+     */
+    private void initRanges() {
+        final int[] owners = new int[Character.MAX_VALUE + 1];
+        Arrays.fill(owners, -1);
+        for (int i = alphabets.length - 1; i >= 0; i--) {
+            for (final Character c : alphabets[i].getAllChars()) {
+                owners[c] = i;
+            }
+        }
+        final List<Character> starts = new ArrayList<Character>();
+        final List<Character> ends = new ArrayList<Character>();
+        final List<Alphabet> owner = new ArrayList<Alphabet>();
+        for (int c = 0; c < owners.length; c++) {
+            if (owners[c] != -1) {
+                final int start = c;
+                while (c + 1 < owners.length && owners[c + 1] == owners[start]) {
+                    c++;
+                }
+                starts.add((char) start);
+                ends.add((char) c);
+                owner.add(alphabets[owners[start]]);
             }
         }
-        return result;
+        rangeStarts = new char[starts.size()];
+        rangeEnds = new char[ends.size()];
+        for (int i = 0; i < rangeStarts.length; i++) {
+            rangeStarts[i] = starts.get(i);
+            rangeEnds[i] = ends.get(i);
+        }
+        rangeAlphabets = owner.toArray(new Alphabet[owner.size()]);
     }
 
 
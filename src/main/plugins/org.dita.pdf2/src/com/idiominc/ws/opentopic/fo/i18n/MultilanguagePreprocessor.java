@@ -3,10 +3,20 @@ package com.idiominc.ws.opentopic.fo.i18n;
 import static javax.xml.XMLConstants.*;
 
 import org.w3c.dom.*;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLFilter;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.XMLFilterImpl;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.ArrayList;
 
@@ -82,6 +92,17 @@ public class MultilanguagePreprocessor {
      }
 
 
+     /**
+      * Create a SAX filter that wraps text of a streamed document into text fragments by alphabet. The filter
+      * produces the same result as {@link #process(Document)} without building the document in memory.
+      *
+      * @return multilanguage processing filter
+      */
+     public XMLFilter createFilter() {
+         return new MultilanguageFilter();
+     }
+
+
      private Node[] processCurrNode(final Node theNode, final Document theTargetDocument) {
          if (theNode.getNodeType() == Node.TEXT_NODE) {
              return processTextNode(theNode, theTargetDocument);
@@ -153,4 +174,187 @@ public class MultilanguagePreprocessor {
          }
          return child;
      }
+
+
+     private final class MultilanguageFilter extends XMLFilterImpl implements LexicalHandler {
+
+         private static final String LEXICAL_HANDLER_PROPERTY = "http://xml.org/sax/properties/lexical-handler";
+
+         /** Text content read since the last element boundary. */
+         private final StringBuilder text = new StringBuilder();
+         private int depth;
+         private boolean inCDATA;
+
+         @Override
+         public void parse(final InputSource input) throws SAXException, IOException {
+             if (getParent() != null) {
+                 getParent().setProperty(LEXICAL_HANDLER_PROPERTY, this);
+             }
+             super.parse(input);
+         }
+
+         @Override
+         public void startDocument() throws SAXException {
+             text.setLength(0);
+             depth = 0;
+             inCDATA = false;
+             getContentHandler().startDocument();
+         }
+
+         @Override
+         public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+                 throws SAXException {
+             flushText();
+             if (depth == 0) {
+                 getContentHandler().startPrefixMapping(PREFIX, NAMESPACE_URL);
+             }
+             depth++;
+             getContentHandler().startElement(uri, localName, qName, sortAttributes(atts));
+         }
+
+         @Override
+         public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+             flushText();
+             depth--;
+             getContentHandler().endElement(uri, localName, qName);
+             if (depth == 0) {
+                 getContentHandler().endPrefixMapping(PREFIX);
+             }
+         }
+
+         @Override
+         public void characters(final char[] ch, final int start, final int length) throws SAXException {
+             if (inCDATA) {
+                 getContentHandler().characters(ch, start, length);
+             } else {
+                 text.append(ch, start, length);
+             }
+         }
+
+         @Override
+         public void ignorableWhitespace(final char[] ch, final int start, final int length) throws SAXException {
+             characters(ch, start, length);
+         }
+
+         @Override
+         public void processingInstruction(final String target, final String data) throws SAXException {
+             flushText();
+             if (depth > 0) {
+                 getContentHandler().processingInstruction(target, data);
+             }
+         }
+
+         @Override
+         public void startCDATA() throws SAXException {
+             flushText();
+             inCDATA = true;
+             if (getContentHandler() instanceof LexicalHandler) {
+                 ((LexicalHandler) getContentHandler()).startCDATA();
+             }
+         }
+
+         @Override
+         public void endCDATA() throws SAXException {
+             inCDATA = false;
+             if (getContentHandler() instanceof LexicalHandler) {
+                 ((LexicalHandler) getContentHandler()).endCDATA();
+             }
+         }
+
+         @Override
+         public void comment(final char[] ch, final int start, final int length) throws SAXException {
+             flushText();
+             if (depth > 0 && getContentHandler() instanceof LexicalHandler) {
+                 ((LexicalHandler) getContentHandler()).comment(ch, start, length);
+             }
+         }
+
+         @Override
+         public void startDTD(final String name, final String publicId, final String systemId) {
+             // NOOP
+         }
+
+         @Override
+         public void endDTD() {
+             // NOOP
+         }
+
+         @Override
+         public void startEntity(final String name) {
+             // NOOP
+         }
+
+         @Override
+         public void endEntity(final String name) {
+             // NOOP
+         }
+
+         /**
+          * Sort attributes by name. The result is then serialized the same way as with
+          * {@link MultilanguagePreprocessor#process(Document)}, where DOM orders attributes by name.
+          */
+         private Attributes sortAttributes(final Attributes atts) {
+             boolean sorted = true;
+             for (int i = 1; i < atts.getLength() && sorted; i++) {
+                 sorted = atts.getQName(i - 1).compareTo(atts.getQName(i)) <= 0;
+             }
+             if (sorted) {
+                 return atts;
+             }
+             final Integer[] order = new Integer[atts.getLength()];
+             for (int i = 0; i < order.length; i++) {
+                 order[i] = i;
+             }
+             Arrays.sort(order, new Comparator<Integer>() {
+                 public int compare(final Integer o1, final Integer o2) {
+                     return atts.getQName(o1).compareTo(atts.getQName(o2));
+                 }
+             });
+             final AttributesImpl res = new AttributesImpl();
+             for (final int i : order) {
+                 res.addAttribute(atts.getURI(i), atts.getLocalName(i), atts.getQName(i), atts.getType(i), atts.getValue(i));
+             }
+             return res;
+         }
+
+         /**
+          * Write buffered text, splitting it into text fragments the same way as {@link #processTextNode(Node, Document)}.
+          */
+         private void flushText() throws SAXException {
+             if (text.length() == 0) {
+                 return;
+             }
+             final String value = text.toString();
+             text.setLength(0);
+             int processedPosition = 0;
+             Alphabet currentAlphabet = null;
+             for (int i = 0; i < value.length(); i++) {
+                 final Alphabet alphabetForChar = configuration.getAlphabetForChar(value.charAt(i));
+                 if (alphabetForChar != currentAlphabet) {
+                     writeText(currentAlphabet, value, processedPosition, i);
+                     currentAlphabet = alphabetForChar;
+                     processedPosition = i;
+                 }
+             }
+             writeText(currentAlphabet, value, processedPosition, value.length());
+         }
+
+         private void writeText(final Alphabet theCurrentAlphabet, final String theValue, final int theStart, final int theEnd)
+                 throws SAXException {
+             if (theStart == theEnd) {
+                 return;
+             }
+             final char[] ch = theValue.substring(theStart, theEnd).toCharArray();
+             if (null != theCurrentAlphabet) {
+                 final AttributesImpl atts = new AttributesImpl();
+                 atts.addAttribute("", "char-set", "char-set", "CDATA", theCurrentAlphabet.getName());
+                 getContentHandler().startElement(NAMESPACE_URL, "text-fragment", PREFIX + ":text-fragment", atts);
+                 getContentHandler().characters(ch, 0, ch.length);
+                 getContentHandler().endElement(NAMESPACE_URL, "text-fragment", PREFIX + ":text-fragment");
+             } else {
+                 getContentHandler().characters(ch, 0, ch.length);
+             }
+         }
+
+     }
  }
@@ -3,17 +3,30 @@ package com.idiominc.ws.opentopic.fo.i18n;
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.Task;
 import org.apache.xml.resolver.tools.CatalogResolver;
+import org.dita.dost.util.XMLUtils;
 import org.w3c.dom.Document;
+import org.xml.sax.Attributes;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLFilter;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.DefaultHandler2;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.dita.dost.util.Constants.FEATURE_NAMESPACE_PREFIX;
 
 import com.idiominc.ws.opentopic.fo.i18n.Configuration;
 import com.idiominc.ws.opentopic.fo.i18n.MultilanguagePreprocessor;
@@ -49,6 +62,7 @@ This file is part of the DITA Open Toolkit project.
 See the accompanying license.txt file for applicable licenses.
  */
 public class PreprocessorTask extends Task {
+     private static final String STOP = "stop";
      private String config = null;
      private String input = null;
      private String output = null;
@@ -65,35 +79,87 @@ public class PreprocessorTask extends Task {
                  System.setProperty("xml.catalog.files", catalogs);
              }
 
+             final CatalogResolver resolver = new CatalogResolver();
              final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
              final DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-             documentBuilder.setEntityResolver(new CatalogResolver());
+             documentBuilder.setEntityResolver(resolver);
 
-             final Document doc = documentBuilder.parse(new File(this.input));
              final Document conf = documentBuilder.parse(new File(this.config));
              final MultilanguagePreprocessor preprocessor = new MultilanguagePreprocessor(new Configuration(conf));
-             final Document document = preprocessor.process(doc);
 
-             final TransformerFactory transformerFactory = TransformerFactory.newInstance();
-             final Transformer transformer = transformerFactory.newTransformer();
+             final SAXTransformerFactory transformerFactory = (SAXTransformerFactory) TransformerFactory.newInstance();
+             final TransformerHandler serializer = transformerFactory.newTransformerHandler();
+             final Transformer transformer = serializer.getTransformer();
              transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
              transformer.setOutputProperty(OutputKeys.INDENT, "no");
              transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-             if (doc.getDoctype() != null) {
-                 transformer.setOutputProperty(OutputKeys.DOCTYPE_PUBLIC, doc.getDoctype().getPublicId());
-                 transformer.setOutputProperty(OutputKeys.DOCTYPE_SYSTEM, doc.getDoctype().getSystemId());
+             final String[] doctype = readDoctype(resolver);
+             if (doctype != null) {
+                 if (null != doctype[0]) {
+                     transformer.setOutputProperty(OutputKeys.DOCTYPE_PUBLIC, doctype[0]);
+                 }
+                 if (null != doctype[1]) {
+                     transformer.setOutputProperty(OutputKeys.DOCTYPE_SYSTEM, doctype[1]);
+                 }
              }
 
-             final FileOutputStream out = new FileOutputStream(this.output);
-             final StreamResult streamResult = new StreamResult(out);
-             transformer.transform(new DOMSource(document), streamResult);
-             out.close();
+             final XMLReader reader = XMLUtils.getXMLReader();
+             reader.setFeature(FEATURE_NAMESPACE_PREFIX, true);
+             reader.setEntityResolver(resolver);
+             final XMLFilter filter = preprocessor.createFilter();
+             filter.setParent(reader);
+             filter.setContentHandler(serializer);
+             final OutputStream out = new BufferedOutputStream(new FileOutputStream(this.output));
+             try {
+                 serializer.setResult(new StreamResult(out));
+                 filter.parse(new File(this.input).toURI().toString());
+             } finally {
+                 out.close();
+             }
          } catch (final Exception e) {
              throw new BuildException(e);
          }
      }
 
 
+     /**
+      * Read document type declaration of input document.
+      *
+      * @param resolver entity resolver
+      * @return public and system ID of the document type declaration, {@code null} if input has none
+      */
+     private String[] readDoctype(final EntityResolver resolver) throws SAXException, IOException {
+         final String[] doctype = new String[2];
+         final boolean[] found = new boolean[1];
+         final DefaultHandler2 handler = new DefaultHandler2() {
+             @Override
+             public void startDTD(final String name, final String publicId, final String systemId) {
+                 doctype[0] = publicId;
+                 doctype[1] = systemId;
+                 found[0] = true;
+             }
+             @Override
+             public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+                     throws SAXException {
+                 // prolog has been read, stop parsing
+                 throw new SAXException(STOP);
+             }
+         };
+         final XMLReader reader = XMLUtils.getXMLReader();
+         reader.setEntityResolver(resolver);
+         reader.setContentHandler(handler);
+         reader.setProperty("http://xml.org/sax/properties/lexical-handler", handler);
+         try {
+             reader.parse(new File(this.input).toURI().toString());
+         } catch (final SAXException e) {
+             if (!STOP.equals(e.getMessage())) {
+                 throw e;
+             }
+         }
+         return found[0] ? doctype : null;
+     }
+
+
      private void checkParameters()
              throws BuildException {
          if (null == config || null == input || null == output) {
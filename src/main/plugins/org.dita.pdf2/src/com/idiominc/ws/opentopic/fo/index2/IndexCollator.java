@@ -1,6 +1,8 @@
 package com.idiominc.ws.opentopic.fo.index2;
 
 import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /*
 Copyright (c) 2004-2006 by Idiom Technologies, Inc. All rights reserved.
@@ -34,6 +36,8 @@ See the accompanying license.txt file for applicable licenses.
  */
 public class IndexCollator {
 
+    private static final ConcurrentMap<Locale, IndexCollator> cache = new ConcurrentHashMap<Locale, IndexCollator>();
+
     private com.ibm.icu.text.Collator icu4jCollator = null;
     private java.text.Collator defaultCollator = null;
     private boolean icuCollator = true;
@@ -48,11 +52,77 @@ public class IndexCollator {
         }
     }
 
+    /**
+     * Get shared collator for locale. Shared collators are thread-safe.
+     *
+     * @param theLocale collation locale
+     * @return collator for locale
+     */
+    public static IndexCollator getInstance(final Locale theLocale) {
+        IndexCollator collator = cache.get(theLocale);
+        if (collator == null) {
+            collator = new IndexCollator(theLocale);
+            if (collator.icuCollator) {
+                collator.icu4jCollator.freeze();
+            }
+            final IndexCollator prev = cache.putIfAbsent(theLocale, collator);
+            if (prev != null) {
+                collator = prev;
+            }
+        }
+        return collator;
+    }
+
     public int compare(final Object o1, final Object o2) {
         if (icuCollator) {
             return this.icu4jCollator.compare(o1, o2);
         } else {
-            return this.defaultCollator.compare(o1, o2);
+            synchronized (defaultCollator) {
+                return this.defaultCollator.compare(o1, o2);
+            }
+        }
+
+    }
+
+    /**
+     * Get collation key for a string. Comparing collation keys gives the same result as comparing
+     * the strings with {@link #compare(Object, Object)}, but is considerably cheaper when the same
+     * string is compared many times.
+     *
+     * @param theString string to get collation key for
+     * @return collation key
+     */
+    public CollationKey getCollationKey(final String theString) {
+        if (icuCollator) {
+            return new CollationKey(this.icu4jCollator.getCollationKey(theString).toByteArray());
+        } else {
+            synchronized (defaultCollator) {
+                return new CollationKey(this.defaultCollator.getCollationKey(theString).toByteArray());
+            }
+        }
+    }
+
+    /**
+     * Collation key that orders strings as {@link IndexCollator#compare(Object, Object)} does.
+     */
+    public static final class CollationKey implements Comparable<CollationKey> {
+
+        private final byte[] key;
+
+        private CollationKey(final byte[] key) {
+            this.key = key;
+        }
+
+        @Override
+        public int compareTo(final CollationKey other) {
+            final int len = Math.min(key.length, other.key.length);
+            for (int i = 0; i < len; i++) {
+                final int diff = (key[i] & 0xFF) - (other.key[i] & 0xFF);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return key.length - other.key.length;
         }
 
     }
@@ -1,11 +1,16 @@
 package com.idiominc.ws.opentopic.fo.index2;
 
 import com.ibm.icu.text.Collator;
+import com.idiominc.ws.opentopic.fo.index2.IndexCollator.CollationKey;
+import com.idiominc.ws.opentopic.fo.index2.configuration.CharRange;
 import com.idiominc.ws.opentopic.fo.index2.configuration.ConfigEntry;
 import com.idiominc.ws.opentopic.fo.index2.configuration.IndexConfiguration;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
@@ -64,7 +69,7 @@ public final class IndexGroupProcessor {
      */
     public IndexGroup[] process(final IndexEntry[] theIndexEntries, final IndexConfiguration theIndexConfiguration,
             final Locale theLocale) {
-        final IndexCollator collator = new IndexCollator(theLocale);
+        final IndexCollator collator = IndexCollator.getInstance(theLocale);
 
         final ArrayList<MyIndexGroup> result = new ArrayList<MyIndexGroup>();
 
@@ -101,44 +106,33 @@ public final class IndexGroupProcessor {
         }
          */
 
-        for (int i = 0; i < IndexGroups.length; i++) {
-            final MyIndexGroup group = IndexGroups[i];
-            final ConfigEntry configEntry = group.getConfigEntry();
-
-            final String[] groupMembers = configEntry.getGroupMembers();
-
-            if (groupMembers.length > 0) {
-                //Find entries by comaping first letter with a chars in current config entry
-                for (final String key : new ArrayList<String>(indexMap.keySet())) {
-                    if (key.length() > 0) {
-                        final String value = getValue((IndexEntry) indexMap.get(key));
-                        //						final char c = value.charAt(0);
-                        if (configEntry.isInRange(value,collator)) {
-                            final IndexEntry entry = (IndexEntry) indexMap.remove(key);
-                            group.addEntry(entry);
-                        }
-                    }
-                }
-            } else {
-                //Get index entries by range specified by two keys
-                final String key1 = configEntry.getKey();
-                String key2 = null;
-                if ((i + 1) < entries.length) {
-                    final ConfigEntry nextEntry = entries[i + 1];
-                    key2 = nextEntry.getKey();
-                }
-                final String[] indexMapKeys = getIndexKeysOfIndexesInRange(key1, key2, collator, indexMap);
-
-                for (final String mapKey : indexMapKeys) {
-                    final IndexEntry entry = (IndexEntry) indexMap.remove(mapKey);
-                    group.addEntry(entry);
-                }
+        final List<Map.Entry<String, IndexEntry>> indexList = new ArrayList<Map.Entry<String, IndexEntry>>(indexMap.entrySet());
+        final int[] groupIndexes = findGroups(indexList, entries, collator);
+        // Bucket entries by group in a single pass, keeping entry order within each group
+        final int[] groupStart = new int[IndexGroups.length + 1];
+        for (final int g : groupIndexes) {
+            if (g >= 0 && g < IndexGroups.length) {
+                groupStart[g + 1]++;
+            }
+        }
+        for (int g = 0; g < IndexGroups.length; g++) {
+            groupStart[g + 1] += groupStart[g];
+        }
+        final int[] groupOrder = new int[groupStart[IndexGroups.length]];
+        final int[] groupNext = Arrays.copyOf(groupStart, IndexGroups.length);
+        for (int i = 0; i < groupIndexes.length; i++) {
+            final int g = groupIndexes[i];
+            if (g >= 0 && g < IndexGroups.length) {
+                groupOrder[groupNext[g]++] = i;
+            }
+        }
+        // Groups may pass entries to their child groups, so add entries one group at a time
+        for (int g = 0; g < IndexGroups.length; g++) {
+            for (int p = groupStart[g]; p < groupStart[g + 1]; p++) {
+                final String key = indexList.get(groupOrder[p]).getKey();
+                final IndexEntry entry = (IndexEntry) indexMap.remove(key);
+                IndexGroups[g].addEntry(entry);
             }
-            /*
-			if (group.getEntries().length > 0) {
-				result.add(group);
-			}
-             */
         }
 
         //If some terms remain uncategorized, and a recognized special character
@@ -195,23 +189,232 @@ public final class IndexGroupProcessor {
     }
 
 
-    private static String[] getIndexKeysOfIndexesInRange(final String theKey1, final String theKey2, final IndexCollator theCollator, final HashMap<String, IndexEntry> theIndexEntryMap) {
-        final ArrayList<String> res = new ArrayList<String>();
-        for (final Map.Entry<String, IndexEntry> e : theIndexEntryMap.entrySet()) {
-            final int res1 = theCollator.compare(theKey1, getValue(e.getValue()));
-            if (res1 <= 0) {
-                if (theKey2 == null) {
-                    //the right range is not specified
-                    res.add(e.getKey());
-                    continue;
+    /**
+     * Find the first index group each index entry belongs to. An entry belongs to a group with members if its
+     * value and a member are prefixes of one another, or if its value sorts inside one of the group's character
+     * ranges. An entry belongs to a group without members if its value sorts at or after the group key and before
+     * the key of the next group.
+     * 
+     * <p>Collation keys are computed once for every entry and group key and the entries are sorted once. Member
+     * prefixes are then looked up from hash maps and ranges are resolved with binary searches over the sorted
+     * entries, instead of comparing every entry with every group.</p>
+     *
+     * @param theIndexEntries index entries by entry value
+     * @param theConfigEntries index group configuration
+     * @param theCollator collator used to compare index entries
+     * @return index of the group for each entry, {@code -1} if entry does not belong to any group
+     */
+    private static int[] findGroups(final List<Map.Entry<String, IndexEntry>> theIndexEntries,
+                                    final ConfigEntry[] theConfigEntries, final IndexCollator theCollator) {
+        final int size = theIndexEntries.size();
+        final int[] res = new int[size];
+        Arrays.fill(res, Integer.MAX_VALUE);
+        final String[] keys = new String[size];
+        final String[] values = new String[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = theIndexEntries.get(i).getKey();
+            values[i] = getValue(theIndexEntries.get(i).getValue());
+        }
+
+        // Groups by member and by member prefix
+        final Map<String, Integer> memberGroups = new HashMap<String, Integer>();
+        final Map<String, Integer> memberPrefixGroups = new HashMap<String, Integer>();
+        int maxMemberLength = 0;
+        for (int g = theConfigEntries.length - 1; g >= 0; g--) {
+            for (final String member : theConfigEntries[g].getGroupMembers()) {
+                memberGroups.put(member, g);
+                for (int j = 1; j <= member.length(); j++) {
+                    memberPrefixGroups.put(member.substring(0, j), g);
                 }
-                final int res2 = theCollator.compare(theKey2, e.getKey());
-                if (res2 > 0) {
-                    res.add(e.getKey());
+                maxMemberLength = Math.max(maxMemberLength, member.length());
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (keys[i].length() > 0 && values[i].length() > 0) {
+                final String value = values[i];
+                for (int j = 0; j <= Math.min(value.length(), maxMemberLength); j++) {
+                    final Integer g = memberGroups.get(value.substring(0, j));
+                    if (g != null && g < res[i]) {
+                        res[i] = g;
+                    }
+                }
+                final Integer g = memberPrefixGroups.get(value);
+                if (g != null && g < res[i]) {
+                    res[i] = g;
                 }
             }
         }
-        return (String[]) res.toArray(new String[res.size()]);
+
+        // Entries sorted by value and by key
+        final CollationKey[] valueKeys = new CollationKey[size];
+        final CollationKey[] keyKeys = new CollationKey[size];
+        final Map<String, CollationKey> collationKeys = new HashMap<String, CollationKey>();
+        for (int i = 0; i < size; i++) {
+            valueKeys[i] = getCollationKey(values[i], theCollator, collationKeys);
+            keyKeys[i] = getCollationKey(keys[i], theCollator, collationKeys);
+        }
+        final int[] valueOrder = sort(valueKeys);
+        final int[] keyOrder = sort(keyKeys);
+        final CollationKey[] sortedValueKeys = new CollationKey[size];
+        final CollationKey[] sortedKeyKeys = new CollationKey[size];
+        final int[] keyPositions = new int[size];
+        final int[] valuePositions = new int[size];
+        for (int p = 0; p < size; p++) {
+            sortedValueKeys[p] = valueKeys[valueOrder[p]];
+            sortedKeyKeys[p] = keyKeys[keyOrder[p]];
+            valuePositions[valueOrder[p]] = p;
+            keyPositions[keyOrder[p]] = p;
+        }
+        // Entries whose group has not been decided, in value and key order
+        final Remaining byValue = new Remaining(size);
+        final Remaining byKey = new Remaining(size);
+
+        // Groups are processed in configuration order, so an entry is decided by the first matching group
+        for (int g = 0; g < theConfigEntries.length; g++) {
+            final ConfigEntry configEntry = theConfigEntries[g];
+            if (configEntry.getGroupMembers().length > 0) {
+                for (final CharRange range : configEntry.getRanges()) {
+                    final int start = upperBound(sortedValueKeys, getCollationKey(range.getStart(), theCollator, collationKeys));
+                    final int end = lowerBound(sortedValueKeys, getCollationKey(range.getEnd(), theCollator, collationKeys));
+                    for (int p = byValue.next(start); p < end; p = byValue.next(p + 1)) {
+                        final int i = valueOrder[p];
+                        if (keys[i].length() > 0 && values[i].length() > 0 && g < res[i]) {
+                            res[i] = g;
+                        }
+                        byValue.remove(p);
+                        if (res[i] <= g) {
+                            byKey.remove(keyPositions[i]);
+                        }
+                    }
+                }
+            } else {
+                final int start = lowerBound(sortedValueKeys, getCollationKey(configEntry.getKey(), theCollator, collationKeys));
+                final int end = g + 1 < theConfigEntries.length
+                                ? lowerBound(sortedKeyKeys, getCollationKey(theConfigEntries[g + 1].getKey(), theCollator, collationKeys))
+                                : size;
+                for (int p = byKey.next(0); p < end; p = byKey.next(p + 1)) {
+                    final int i = keyOrder[p];
+                    if (res[i] > g && valuePositions[i] >= start) {
+                        res[i] = g;
+                    }
+                    if (res[i] <= g) {
+                        byKey.remove(p);
+                        byValue.remove(valuePositions[i]);
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (res[i] == Integer.MAX_VALUE) {
+                res[i] = -1;
+            }
+        }
+        return res;
+    }
+
+    private static CollationKey getCollationKey(final String theString, final IndexCollator theCollator,
+                                                final Map<String, CollationKey> theCache) {
+        CollationKey key = theCache.get(theString);
+        if (key == null) {
+            key = theCollator.getCollationKey(theString);
+            theCache.put(theString, key);
+        }
+        return key;
+    }
+
+    /**
+     * Sort collation keys.
+     * 
+     * @return indexes of collation keys in ascending order
+     */
+    private static int[] sort(final CollationKey[] theKeys) {
+        final Integer[] order = new Integer[theKeys.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer o1, final Integer o2) {
+                return theKeys[o1].compareTo(theKeys[o2]);
+            }
+        });
+        final int[] res = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            res[i] = order[i];
+        }
+        return res;
+    }
+
+    /**
+     * @return position of the first sorted key that is equal to or greater than given key
+     */
+    private static int lowerBound(final CollationKey[] theSortedKeys, final CollationKey theKey) {
+        int low = 0;
+        int high = theSortedKeys.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (theSortedKeys[mid].compareTo(theKey) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return position of the first sorted key that is greater than given key
+     */
+    private static int upperBound(final CollationKey[] theSortedKeys, final CollationKey theKey) {
+        int low = 0;
+        int high = theSortedKeys.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (theSortedKeys[mid].compareTo(theKey) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Set of remaining positions that supports finding the next remaining position in near constant time.
+     */
+    private static final class Remaining {
+
+        private final int[] next;
+
+        Remaining(final int size) {
+            next = new int[size + 1];
+            for (int i = 0; i < next.length; i++) {
+                next[i] = i;
+            }
+        }
+
+        /**
+         * @return first remaining position equal to or greater than given position, or size if none remain
+         */
+        int next(final int position) {
+            int root = position;
+            while (next[root] != root) {
+                root = next[root];
+            }
+            int p = position;
+            while (next[p] != root) {
+                final int n = next[p];
+                next[p] = root;
+                p = n;
+            }
+            return root;
+        }
+
+        void remove(final int position) {
+            next[position] = position + 1;
+        }
+
     }
 
 
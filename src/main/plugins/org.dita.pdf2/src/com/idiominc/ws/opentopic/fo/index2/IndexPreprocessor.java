@@ -16,6 +16,11 @@ import java.util.*;
 import org.dita.dost.log.DITAOTLogger;
 import org.dita.dost.util.Configuration;
 import org.dita.dost.util.XMLUtils;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLFilter;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.XMLFilterImpl;
 
 /*
 Copyright (c) 2004-2006 by Idiom Technologies, Inc. All rights reserved.
@@ -117,13 +122,38 @@ public final class IndexPreprocessor {
         return new IndexPreprocessResult(doc, (IndexEntry[]) indexes.toArray(new IndexEntry[0]));
     }
 
+    /**
+     * Create a SAX filter that processes index terms of a streamed document. Index terms are rewritten
+     * as they are read and index groups are appended to the end of the root element, so only index
+     * entries are held in memory.
+     * 
+     * @param theConfiguration index configuration
+     * @param theLocale index locale
+     * @return index processing filter
+     */
+    public XMLFilter createFilter(final IndexConfiguration theConfiguration, final Locale theLocale) {
+        return new IndexFilter(theConfiguration, theLocale);
+    }
+
     public void createAndAddIndexGroups(final IndexEntry[] theIndexEntries, final IndexConfiguration theConfiguration, final Document theDocument, final Locale theLocale) {
+        final Element rootElement = theDocument.getDocumentElement();
+        rootElement.appendChild(createIndexGroups(theIndexEntries, theConfiguration, theDocument, theLocale));
+    }
+
+    /**
+     * Create index groups element.
+     * 
+     * @param theIndexEntries index entries
+     * @param theConfiguration index configuration
+     * @param theDocument document used to create nodes
+     * @param theLocale index locale
+     * @return index groups element
+     */
+    private Element createIndexGroups(final IndexEntry[] theIndexEntries, final IndexConfiguration theConfiguration, final Document theDocument, final Locale theLocale) {
         final IndexComparator indexEntryComparator = new IndexComparator(theLocale);
 
         final IndexGroup[] indexGroups = indexGroupProcessor.process(theIndexEntries, theConfiguration, theLocale);
 
-        final Element rootElement = theDocument.getDocumentElement();
-
         final Element indexGroupsElement = theDocument.createElementNS(namespace_url, "index.groups");
         indexGroupsElement.setPrefix(prefix);
 
@@ -145,7 +175,7 @@ public final class IndexPreprocessor {
             indexGroupsElement.appendChild(groupElement);
         }
 
-        rootElement.appendChild(indexGroupsElement);
+        return indexGroupsElement;
     }
 
 
@@ -246,6 +276,19 @@ public final class IndexPreprocessor {
                 || INDEXING_D_INDEX_SEE_ALSO.matches(node);
     }
 
+    /**
+     * Check if element is an index term element or specialization of one.
+     * 
+     * @param atts element attributes
+     * @return {@code true} if element is an index term element, otherwise {@code false}
+     */
+    private boolean checkElementName(final Attributes atts) {
+        return TOPIC_INDEXTERM.matches(atts)
+                || INDEXING_D_INDEX_SORT_AS.matches(atts)
+                || INDEXING_D_INDEX_SEE.matches(atts)
+                || INDEXING_D_INDEX_SEE_ALSO.matches(atts);
+    }
+
     /**
      * Processes index string and creates nodes with "prefix" in given "namespace_url" from the parsed index entry text.
      *
@@ -378,4 +421,218 @@ public final class IndexPreprocessor {
         indexEntryNode.setPrefix(this.prefix);
         return indexEntryNode;
     }
+
+    /**
+     * SAX filter that processes index terms. Index term elements are read into a DOM fragment
+     * and processed as in {@link IndexPreprocessor#process(Document)}; all other content is passed
+     * through as is.
+     */
+    private final class IndexFilter extends XMLFilterImpl {
+
+        private final IndexConfiguration configuration;
+        private final Locale locale;
+        private final Document document;
+        private final List<IndexEntry> indexEntries = new ArrayList<IndexEntry>();
+        private final IndexEntryFoundListener listener = new IndexEntryFoundListener() {
+            public void foundEntry(final IndexEntry theEntry) {
+                indexEntries.add(theEntry);
+            }
+        };
+        private int depth;
+        /** Index term element being read, {@code null} if outside index terms. */
+        private Element indexTerm;
+        /** Current node of index term element being read. */
+        private Node current;
+
+        IndexFilter(final IndexConfiguration configuration, final Locale locale) {
+            this.configuration = configuration;
+            this.locale = locale;
+            try {
+                document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+            } catch (final ParserConfigurationException e) {
+                throw new RuntimeException("Unable to create a document builder: " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void startDocument() throws SAXException {
+            depth = 0;
+            indexTerm = null;
+            current = null;
+            indexEntries.clear();
+            getContentHandler().startDocument();
+        }
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+                throws SAXException {
+            if (indexTerm != null) {
+                final Element element = createSourceElement(uri, qName, atts);
+                current.appendChild(element);
+                current = element;
+            } else if (checkElementName(atts)) {
+                indexTerm = createSourceElement(uri, qName, atts);
+                current = indexTerm;
+            } else {
+                if (depth == 0) {
+                    getContentHandler().startPrefixMapping(prefix, namespace_url);
+                }
+                getContentHandler().startElement(uri, localName, qName, sortAttributes(atts));
+            }
+            depth++;
+        }
+
+        @Override
+        public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+            depth--;
+            if (indexTerm != null) {
+                if (current == indexTerm) {
+                    final Node[] nodes = processIndexNode(indexTerm, document, listener);
+                    indexTerm = null;
+                    current = null;
+                    for (final Node node : nodes) {
+                        toSax(node);
+                    }
+                } else {
+                    current = current.getParentNode();
+                }
+            } else if (depth == 0) {
+                final IndexEntry[] entries = indexEntries.toArray(new IndexEntry[indexEntries.size()]);
+                toSax(createIndexGroups(entries, configuration, document, locale));
+                getContentHandler().endElement(uri, localName, qName);
+                getContentHandler().endPrefixMapping(prefix);
+            } else {
+                getContentHandler().endElement(uri, localName, qName);
+            }
+        }
+
+        @Override
+        public void characters(final char[] ch, final int start, final int length) throws SAXException {
+            if (indexTerm != null) {
+                final Node last = current.getLastChild();
+                if (last != null && last.getNodeType() == Node.TEXT_NODE) {
+                    ((Text) last).appendData(new String(ch, start, length));
+                } else {
+                    current.appendChild(document.createTextNode(new String(ch, start, length)));
+                }
+            } else {
+                getContentHandler().characters(ch, start, length);
+            }
+        }
+
+        @Override
+        public void ignorableWhitespace(final char[] ch, final int start, final int length) throws SAXException {
+            characters(ch, start, length);
+        }
+
+        @Override
+        public void processingInstruction(final String target, final String data) throws SAXException {
+            if (indexTerm == null) {
+                getContentHandler().processingInstruction(target, data);
+            }
+        }
+
+        @Override
+        public void startPrefixMapping(final String prefix, final String uri) throws SAXException {
+            if (indexTerm == null) {
+                getContentHandler().startPrefixMapping(prefix, uri);
+            }
+        }
+
+        @Override
+        public void endPrefixMapping(final String prefix) throws SAXException {
+            if (indexTerm == null) {
+                getContentHandler().endPrefixMapping(prefix);
+            }
+        }
+
+        /**
+         * Sort attributes by name. The result is then serialized the same way as with
+         * {@link IndexPreprocessor#process(Document)}, where DOM orders attributes by name.
+         */
+        private Attributes sortAttributes(final Attributes atts) {
+            boolean sorted = true;
+            for (int i = 1; i < atts.getLength() && sorted; i++) {
+                sorted = atts.getQName(i - 1).compareTo(atts.getQName(i)) <= 0;
+            }
+            if (sorted) {
+                return atts;
+            }
+            final Integer[] order = new Integer[atts.getLength()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                public int compare(final Integer o1, final Integer o2) {
+                    return atts.getQName(o1).compareTo(atts.getQName(o2));
+                }
+            });
+            final AttributesImpl res = new AttributesImpl();
+            for (final int i : order) {
+                res.addAttribute(atts.getURI(i), atts.getLocalName(i), atts.getQName(i), atts.getType(i), atts.getValue(i));
+            }
+            return res;
+        }
+
+        private Element createSourceElement(final String uri, final String qName, final Attributes atts) {
+            final Element element = uri.isEmpty() ? document.createElement(qName) : document.createElementNS(uri, qName);
+            for (int i = 0; i < atts.getLength(); i++) {
+                if (atts.getURI(i).isEmpty()) {
+                    element.setAttribute(atts.getQName(i), atts.getValue(i));
+                } else {
+                    element.setAttributeNS(atts.getURI(i), atts.getQName(i), atts.getValue(i));
+                }
+            }
+            return element;
+        }
+
+        /**
+         * Write DOM node as SAX events.
+         */
+        private void toSax(final Node node) throws SAXException {
+            switch (node.getNodeType()) {
+            case Node.ELEMENT_NODE:
+                final AttributesImpl atts = new AttributesImpl();
+                final List<String> prefixes = new ArrayList<String>();
+                final NamedNodeMap attrs = node.getAttributes();
+                for (int i = 0; i < attrs.getLength(); i++) {
+                    final Node attr = attrs.item(i);
+                    final String name = attr.getNodeName();
+                    if (name.equals(XMLNS_ATTRIBUTE) || name.startsWith(XMLNS_ATTRIBUTE + ":")) {
+                        final String p = name.equals(XMLNS_ATTRIBUTE) ? DEFAULT_NS_PREFIX : name.substring(XMLNS_ATTRIBUTE.length() + 1);
+                        getContentHandler().startPrefixMapping(p, attr.getNodeValue());
+                        prefixes.add(p);
+                    } else {
+                        atts.addAttribute(getNamespace(attr), getLocalName(attr), name, "CDATA", attr.getNodeValue());
+                    }
+                }
+                getContentHandler().startElement(getNamespace(node), getLocalName(node), node.getNodeName(), atts);
+                for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                    toSax(child);
+                }
+                getContentHandler().endElement(getNamespace(node), getLocalName(node), node.getNodeName());
+                for (final String p : prefixes) {
+                    getContentHandler().endPrefixMapping(p);
+                }
+                break;
+            case Node.TEXT_NODE:
+            case Node.CDATA_SECTION_NODE:
+                final char[] ch = node.getNodeValue().toCharArray();
+                getContentHandler().characters(ch, 0, ch.length);
+                break;
+            default:
+                break;
+            }
+        }
+
+        private String getNamespace(final Node node) {
+            return node.getNamespaceURI() != null ? node.getNamespaceURI() : NULL_NS_URI;
+        }
+
+        private String getLocalName(final Node node) {
+            return node.getLocalName() != null ? node.getLocalName() : node.getNodeName();
+        }
+
+    }
+
 }
@@ -8,17 +8,27 @@ import org.apache.tools.ant.Task;
 import org.apache.tools.ant.Project;
 import org.apache.xml.resolver.tools.CatalogResolver;
 import org.dita.dost.log.DITAOTAntLogger;
-import org.w3c.dom.Document;
+import org.dita.dost.util.XMLUtils;
+import org.xml.sax.Attributes;
+import org.xml.sax.EntityResolver;
 import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLFilter;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.DefaultHandler2;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
+import java.io.BufferedOutputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Locale;
 
 /*
@@ -63,6 +73,7 @@ extends Task {
     public static boolean processingFaild = false;
     private static final String prefix = "opentopic-index";
     private static final String namespace_url = "http://www.idiominc.com/opentopic/index";
+    private static final String STOP = "stop";
 
     public static void main(final String[] args) {
         new IndexPreprocessorTask().execute();
@@ -76,9 +87,7 @@ extends Task {
         }
 
         try {
-            final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-            final DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-            documentBuilder.setEntityResolver(new CatalogResolver() {
+            final CatalogResolver resolver = new CatalogResolver() {
                 @Override
                 public InputSource resolveEntity(final String publicId, String systemId) {
                     // strip path from DTD location
@@ -90,21 +99,16 @@ extends Task {
                     // resolve real location with XMLCatalogResolver
                     return super.resolveEntity(publicId, systemId);
                 }
-            });
+            };
+            final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+            final DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
+            documentBuilder.setEntityResolver(resolver);
 
-            final Document doc = documentBuilder.parse(input);
             final IndexPreprocessor preprocessor = new IndexPreprocessor(this.prefix, this.namespace_url);
             preprocessor.setLogger(new DITAOTAntLogger(getProject()));
 
-            // Walks through source document and builds an array of IndexEntry and builds
-            // new Document with pre-processed index entries included.
-            final IndexPreprocessResult result = preprocessor.process(doc);
-
-            final Document resultDoc = result.getDocument();
-
             // Parse index configuration from file specified from ANT script
             final IndexConfiguration configuration = IndexConfiguration.parse(documentBuilder.parse(this.indexConfig));
-            final IndexEntry[] indexEntries = result.getIndexEntries();
 
             Locale loc;
             // Split passed locale string to lang and country codes
@@ -113,31 +117,44 @@ extends Task {
             } else {
                 loc = new Locale(this.locale);
             }
-            // Append index groups to the end of document
-            preprocessor.createAndAddIndexGroups(indexEntries, configuration, resultDoc, loc);
 
-            if (processingFaild) {
-                setActiveProjectProperty("ws.runtime.index.preprocess.fail","true");
-            }
             // Serialize processed document
-            final TransformerFactory transformerFactory = TransformerFactory.newInstance();
-            final Transformer transformer = transformerFactory.newTransformer();
+            final SAXTransformerFactory transformerFactory = (SAXTransformerFactory) TransformerFactory.newInstance();
+            final TransformerHandler serializer = transformerFactory.newTransformerHandler();
+            final Transformer transformer = serializer.getTransformer();
             transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
             transformer.setOutputProperty(OutputKeys.INDENT, "no");
             transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
             transformer.setOutputProperty(OutputKeys.STANDALONE, "yes");
-            if (doc.getDoctype() != null) {
-                if (null != doc.getDoctype().getPublicId()) {
-                    transformer.setOutputProperty(OutputKeys.DOCTYPE_PUBLIC, doc.getDoctype().getPublicId());
+            final String[] doctype = readDoctype(resolver);
+            if (doctype != null) {
+                if (null != doctype[0]) {
+                    transformer.setOutputProperty(OutputKeys.DOCTYPE_PUBLIC, doctype[0]);
                 }
-                if (null != doc.getDoctype().getSystemId()) {
-                    transformer.setOutputProperty(OutputKeys.DOCTYPE_SYSTEM, doc.getDoctype().getSystemId());
+                if (null != doctype[1]) {
+                    transformer.setOutputProperty(OutputKeys.DOCTYPE_SYSTEM, doctype[1]);
                 }
             }
-            final FileOutputStream out = new FileOutputStream(this.output);
-            final StreamResult streamResult = new StreamResult(out);
-            transformer.transform(new DOMSource(resultDoc), streamResult);
-            out.close();
+
+            // Walks through source document, rewrites index entries and appends index groups
+            // to the end of document
+            final XMLReader reader = XMLUtils.getXMLReader();
+            reader.setFeature(FEATURE_NAMESPACE_PREFIX, true);
+            reader.setEntityResolver(resolver);
+            final XMLFilter filter = preprocessor.createFilter(configuration, loc);
+            filter.setParent(reader);
+            filter.setContentHandler(serializer);
+            final OutputStream out = new BufferedOutputStream(new FileOutputStream(this.output));
+            try {
+                serializer.setResult(new StreamResult(out));
+                filter.parse(input);
+            } finally {
+                out.close();
+            }
+
+            if (processingFaild) {
+                setActiveProjectProperty("ws.runtime.index.preprocess.fail","true");
+            }
         } catch (final Exception e) {
             e.printStackTrace();
             throw new BuildException(e);
@@ -145,6 +162,43 @@ extends Task {
     }
 
 
+    /**
+     * Read document type declaration of input document.
+     * 
+     * @param resolver entity resolver
+     * @return public and system ID of the document type declaration, {@code null} if input has none
+     */
+    private String[] readDoctype(final EntityResolver resolver) throws SAXException, IOException {
+        final String[] doctype = new String[2];
+        final boolean[] found = new boolean[1];
+        final DefaultHandler2 handler = new DefaultHandler2() {
+            @Override
+            public void startDTD(final String name, final String publicId, final String systemId) {
+                doctype[0] = publicId;
+                doctype[1] = systemId;
+                found[0] = true;
+            }
+            @Override
+            public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+                    throws SAXException {
+                // prolog has been read, stop parsing
+                throw new SAXException(STOP);
+            }
+        };
+        final XMLReader reader = XMLUtils.getXMLReader();
+        reader.setEntityResolver(resolver);
+        reader.setContentHandler(handler);
+        reader.setProperty("http://xml.org/sax/properties/lexical-handler", handler);
+        try {
+            reader.parse(input);
+        } catch (final SAXException e) {
+            if (!STOP.equals(e.getMessage())) {
+                throw e;
+            }
+        }
+        return found[0] ? doctype : null;
+    }
+
     private void checkParameters()
             throws BuildException {
         if (null == locale || null == input || null == output || null == indexConfig) {
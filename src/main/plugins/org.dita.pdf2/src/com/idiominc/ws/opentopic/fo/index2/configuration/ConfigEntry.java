@@ -52,6 +52,12 @@ public interface ConfigEntry {
       */
      String[] getGroupMembers();
 
+     /**
+      * @return character ranges of group members. A string belongs to this group if it sorts between the start
+      *         and end of a range
+      */
+     CharRange[] getRanges();
+
      boolean isInRange(String value, IndexCollator collator);
 
  }
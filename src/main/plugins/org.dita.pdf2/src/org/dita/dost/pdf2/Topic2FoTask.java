@@ -0,0 +1,536 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.pdf2;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import javax.xml.xpath.XPathVariableResolver;
+
+import net.sf.saxon.Controller;
+import net.sf.saxon.PreparedStylesheet;
+import net.sf.saxon.expr.XPathContext;
+import net.sf.saxon.om.DocumentInfo;
+import net.sf.saxon.om.NamespaceConstant;
+import net.sf.saxon.trans.KeyDefinitionSet;
+import net.sf.saxon.trans.KeyManager;
+import net.sf.saxon.trans.XPathException;
+import net.sf.saxon.value.StringValue;
+import net.sf.saxon.value.UntypedAtomicValue;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.Task;
+import org.apache.tools.ant.taskdefs.XSLTProcess;
+import org.apache.tools.ant.types.XMLCatalog;
+import org.dita.dost.util.ParallelUtils;
+import org.dita.dost.util.TemplatesCache;
+import org.dita.dost.util.XMLUtils;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.NamespaceSupport;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * Transform merged topics into XSL-FO.
+ *
+ * <p>In parallel mode the stylesheet is first run with the {@code partition} parameter set to
+ * {@code #skeleton}. This generates bookmarks, table of contents and index for the whole document, but
+ * replaces the content of each top-level topic reference with a {@code dita-ot:partition} placeholder.
+ * The content of top-level topic references is then generated concurrently by worker threads in
+ * {@code dita-ot:partition} initial mode, with {@code partition} set to the ID of the topic reference, and
+ * the results are merged into the skeleton.
+ * All transformations share the compiled stylesheet and a single source document tree, so that generated
+ * IDs are the same in every part. Indexes of all stylesheet keys are built for the source document before
+ * the workers are started.</p>
+ *
+ * @since 2.2
+ */
+public final class Topic2FoTask extends Task {
+
+    private static final String DITA_OT_NS = "http://dita-ot.sourceforge.net/ns/201007/dita-ot";
+    private static final String ELEMENT_PARTITION = "partition";
+    private static final String PARAM_PARTITION = "partition";
+    private static final String PARTITION_SKELETON = "#skeleton";
+    private static final String PARTITION_MODE = "{" + DITA_OT_NS + "}partition";
+
+    private File style;
+    private File in;
+    private File out;
+    private boolean parallel;
+    private int threads = ParallelUtils.DEFAULT_THREADS;
+    private final List<XSLTProcess.Param> params = new ArrayList<XSLTProcess.Param>();
+    private XMLCatalog xmlcatalog;
+    /** Evaluated stylesheet parameters, shared read-only by all transformations. */
+    private Map<String, Object> parameters;
+
+    @Override
+    public void execute() throws BuildException {
+        if (style == null || in == null || out == null) {
+            throw new BuildException("style, in and out attributes are required");
+        }
+        log("Transforming " + in.getAbsolutePath() + " to " + out.getAbsolutePath(), Project.MSG_INFO);
+        parameters = evaluateParams();
+        final Templates templates;
+        try {
+            templates = TemplatesCache.getInstance().getTemplates(style, xmlcatalog);
+        } catch (final TransformerConfigurationException e) {
+            throw new BuildException("Failed to compile stylesheet '" + style.getAbsolutePath() + "': " + e.getMessage(), e);
+        }
+        try {
+            final Map<?, ?> keys = parallel && threads > 1 && templates instanceof PreparedStylesheet
+                    ? getKeys((PreparedStylesheet) templates)
+                    : null;
+            if (keys != null) {
+                executeParallel((PreparedStylesheet) templates, keys.values());
+            } else {
+                final Transformer t = getTransformer(templates);
+                t.transform(getSource(), new StreamResult(out));
+            }
+        } catch (final BuildException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new BuildException("Failed to transform document: " + e.getMessage(), e);
+        }
+    }
+
+    private void executeParallel(final PreparedStylesheet templates, final Collection<?> keys) throws Exception {
+        final DocumentInfo doc = templates.getConfiguration().buildDocument(getSource());
+        buildKeyIndexes(templates, keys, doc);
+        final File tempDir = new File(out.getAbsoluteFile().getParentFile(), out.getName() + ".partitions");
+        if (!tempDir.exists() && !tempDir.mkdirs()) {
+            throw new IOException("Failed to create directory " + tempDir.getAbsolutePath());
+        }
+        try {
+            final File skeleton = new File(tempDir, "skeleton.fo");
+            final Transformer t = getTransformer(templates);
+            t.setParameter(PARAM_PARTITION, PARTITION_SKELETON);
+            t.transform(doc, new StreamResult(skeleton));
+
+            final Map<String, File> partitions = new LinkedHashMap<String, File>();
+            for (final String partition: getPartitions(skeleton)) {
+                partitions.put(partition, new File(tempDir, "partition" + partitions.size() + ".fo"));
+            }
+            if (partitions.isEmpty()) {
+                FileUtils.copyFile(skeleton, out);
+                return;
+            }
+            log("Transforming " + partitions.size() + " partitions using "
+                    + Math.min(threads, partitions.size()) + " threads", Project.MSG_INFO);
+            ParallelUtils.execute(new ArrayList<String>(partitions.keySet()), threads, new ParallelUtils.WorkerFactory<String>() {
+                @Override
+                public ParallelUtils.Worker<String> newWorker() throws Exception {
+                    return new ParallelUtils.Worker<String>() {
+                        @Override
+                        public void process(final String partition) throws Exception {
+                            final Transformer t = getTransformer(templates);
+                            ((Controller) t).setInitialMode(PARTITION_MODE);
+                            t.setParameter(PARAM_PARTITION, partition);
+                            t.transform(doc, new StreamResult(partitions.get(partition)));
+                        }
+                    };
+                }
+            });
+
+            merge(skeleton, partitions, templates);
+        } finally {
+            FileUtils.deleteQuietly(tempDir);
+        }
+    }
+
+    /**
+     * Get key definitions of a compiled stylesheet.
+     *
+     * @return key definition sets by key name, {@code null} if key definitions are not available
+     */
+    private Map<?, ?> getKeys(final PreparedStylesheet templates) {
+        try {
+            final Field keyMap = KeyManager.class.getDeclaredField("keyMap");
+            keyMap.setAccessible(true);
+            return (Map<?, ?>) keyMap.get(templates.getExecutable().getKeyManager());
+        } catch (final NoSuchFieldException | IllegalAccessException | RuntimeException e) {
+            log("Failed to read key definitions, transforming sequentially: " + e.getMessage(), Project.MSG_VERBOSE);
+            return null;
+        }
+    }
+
+    /**
+     * Build indexes of all stylesheet keys for the shared source document before workers are started.
+     * Saxon builds key indexes lazily and marks an index as under construction while it is being built.
+     * The index of a key is only shared safely between concurrent transformations if it is complete,
+     * so indexes are built here in a single thread. Indexes are built for string and untyped lookup
+     * values, which cover keys looked up with strings, attribute values and element content.
+     *
+     * @param templates compiled stylesheet
+     * @param keys key definition sets of the stylesheet
+     * @param doc source document
+     */
+    private void buildKeyIndexes(final PreparedStylesheet templates, final Collection<?> keys, final DocumentInfo doc)
+            throws TransformerConfigurationException, XPathException {
+        final KeyManager keyManager = templates.getExecutable().getKeyManager();
+        final XPathContext context = ((Controller) getTransformer(templates)).newXPathContext();
+        for (final Object k: keys) {
+            final KeyDefinitionSet key = (KeyDefinitionSet) k;
+            if (NamespaceConstant.SAXON.equals(key.getKeyName().getNamespaceURI())) {
+                continue;
+            }
+            keyManager.selectByKey(key, doc, new StringValue(""), context);
+            keyManager.selectByKey(key, doc, new UntypedAtomicValue(""), context);
+        }
+    }
+
+    /**
+     * Read partition IDs from skeleton document.
+     *
+     * @param skeleton skeleton document
+     * @return partition IDs in document order
+     */
+    private List<String> getPartitions(final File skeleton) throws SAXException, IOException {
+        final List<String> partitions = new ArrayList<String>();
+        final XMLReader reader = XMLUtils.getXMLReader();
+        reader.setContentHandler(new DefaultHandler() {
+            @Override
+            public void startElement(final String uri, final String localName, final String qName, final Attributes atts) {
+                if (isPartition(uri, localName)) {
+                    partitions.add(atts.getValue("id"));
+                }
+            }
+        });
+        reader.parse(skeleton.toURI().toString());
+        return partitions;
+    }
+
+    /**
+     * Write skeleton document to output with placeholders replaced by partition contents.
+     *
+     * @param skeleton skeleton document
+     * @param partitions partition documents by partition ID
+     * @param templates stylesheet that defines output properties
+     */
+    private void merge(final File skeleton, final Map<String, File> partitions, final Templates templates)
+            throws Exception {
+        final SAXTransformerFactory tf = (SAXTransformerFactory) TransformerFactory.newInstance();
+        final TransformerHandler serializer = tf.newTransformerHandler();
+        serializer.getTransformer().setOutputProperties(templates.getOutputProperties());
+        final NamespaceSupport namespaces = new NamespaceSupport();
+        final PartitionFilter partitionFilter = new PartitionFilter(false, namespaces);
+        partitionFilter.setParent(XMLUtils.getXMLReader());
+        partitionFilter.setContentHandler(serializer);
+        final PartitionFilter skeletonFilter = new PartitionFilter(true, namespaces) {
+            @Override
+            void partition(final Attributes atts) throws SAXException {
+                final File partition = partitions.get(atts.getValue("id"));
+                try {
+                    partitionFilter.parse(partition.toURI().toString());
+                } catch (final IOException e) {
+                    throw new SAXException("Failed to read " + partition.getAbsolutePath() + ": " + e.getMessage(), e);
+                }
+            }
+        };
+        skeletonFilter.setParent(XMLUtils.getXMLReader());
+        skeletonFilter.setContentHandler(serializer);
+        final OutputStream outStream = new BufferedOutputStream(new FileOutputStream(out));
+        try {
+            serializer.setResult(new StreamResult(outStream));
+            skeletonFilter.parse(skeleton.toURI().toString());
+        } finally {
+            outStream.close();
+        }
+    }
+
+    private static boolean isPartition(final String uri, final String localName) {
+        return DITA_OT_NS.equals(uri) && ELEMENT_PARTITION.equals(localName);
+    }
+
+    private Source getSource() throws SAXException {
+        final XMLReader reader = XMLUtils.getXMLReader();
+        if (xmlcatalog != null) {
+            reader.setEntityResolver(xmlcatalog);
+        }
+        return new SAXSource(reader, new InputSource(in.toURI().toString()));
+    }
+
+    private Transformer getTransformer(final Templates templates) throws TransformerConfigurationException {
+        final Transformer t = templates.newTransformer();
+        if (xmlcatalog != null) {
+            t.setURIResolver(xmlcatalog);
+        }
+        for (final Map.Entry<String, Object> p: parameters.entrySet()) {
+            t.setParameter(p.getKey(), p.getValue());
+        }
+        return t;
+    }
+
+    /**
+     * Evaluate parameters once before transformation. Parameter types are handled as in
+     * the {@code xslt} task: literal types are converted from the expression and XPath
+     * types are evaluated with project properties as variables.
+     */
+    private Map<String, Object> evaluateParams() throws BuildException {
+        final Map<String, Object> res = new LinkedHashMap<String, Object>();
+        XPath xpath = null;
+        for (final XSLTProcess.Param p: params) {
+            if (!p.shouldUse()) {
+                continue;
+            }
+            final String expression = p.getExpression();
+            final XSLTProcess.ParamType type;
+            try {
+                type = p.getType() != null ? XSLTProcess.ParamType.valueOf(p.getType()) : XSLTProcess.ParamType.STRING;
+            } catch (final IllegalArgumentException e) {
+                throw new BuildException("Invalid type '" + p.getType() + "' for parameter " + p.getName(), e);
+            }
+            final Object value;
+            try {
+                switch (type) {
+                case STRING:
+                    value = expression;
+                    break;
+                case BOOLEAN:
+                    value = Boolean.parseBoolean(expression);
+                    break;
+                case INT:
+                    value = Integer.parseInt(expression);
+                    break;
+                case LONG:
+                    value = Long.parseLong(expression);
+                    break;
+                case DOUBLE:
+                    value = Double.parseDouble(expression);
+                    break;
+                default:
+                    if (xpath == null) {
+                        xpath = XPathFactory.newInstance().newXPath();
+                        xpath.setXPathVariableResolver(new XPathVariableResolver() {
+                            @Override
+                            public Object resolveVariable(final QName name) {
+                                return getProject().getProperty(name.toString());
+                            }
+                        });
+                    }
+                    value = xpath.evaluate(expression, (Object) null, XSLTProcess.ParamType.XPATH_TYPES.get(type));
+                }
+            } catch (final NumberFormatException | XPathExpressionException e) {
+                throw new BuildException("Failed to evaluate parameter " + p.getName() + ": " + e.getMessage(), e);
+            }
+            log("Set parameter " + p.getName() + " to '" + value + "'", Project.MSG_DEBUG);
+            res.put(p.getName(), value);
+        }
+        return res;
+    }
+
+    /**
+     * Filter that passes through document content, dropping partition elements and namespace declarations
+     * already in scope in the merged document. Namespace declarations of a dropped partition element, other
+     * than the DITA-OT namespace, are moved to its child elements.
+     */
+    private static class PartitionFilter extends XMLFilterImpl implements LexicalHandler {
+
+        private static final String LEXICAL_HANDLER_PROPERTY = "http://xml.org/sax/properties/lexical-handler";
+
+        /** Pass through document start and end events. */
+        private final boolean document;
+        /** Namespace declarations written to the merged document. */
+        private final NamespaceSupport namespaces;
+        /** Namespace declarations for the next element, prefix and URI pairs. */
+        private final List<String[]> declarations = new ArrayList<String[]>();
+        /** Namespace declarations of the current partition element. */
+        private final List<String[]> partitionDeclarations = new ArrayList<String[]>();
+        /** Prefixes of written namespace declarations for each open element. */
+        private final Deque<List<String>> written = new ArrayDeque<List<String>>();
+        private int depth;
+        private int partitionDepth = -1;
+
+        PartitionFilter(final boolean document, final NamespaceSupport namespaces) {
+            this.document = document;
+            this.namespaces = namespaces;
+        }
+
+        /**
+         * Process partition element.
+         *
+         * @param atts partition element attributes
+         */
+        void partition(final Attributes atts) throws SAXException {
+            // NOOP
+        }
+
+        @Override
+        public void parse(final InputSource input) throws SAXException, IOException {
+            getParent().setProperty(LEXICAL_HANDLER_PROPERTY, this);
+            super.parse(input);
+        }
+
+        @Override
+        public void startDocument() throws SAXException {
+            if (document) {
+                super.startDocument();
+            }
+        }
+
+        @Override
+        public void endDocument() throws SAXException {
+            if (document) {
+                super.endDocument();
+            }
+        }
+
+        @Override
+        public void startPrefixMapping(final String prefix, final String uri) {
+            declarations.add(new String[] {prefix, uri});
+        }
+
+        @Override
+        public void endPrefixMapping(final String prefix) {
+            // NOOP
+        }
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+                throws SAXException {
+            depth++;
+            if (isPartition(uri, localName)) {
+                for (final String[] declaration: declarations) {
+                    if (!DITA_OT_NS.equals(declaration[1])) {
+                        partitionDeclarations.add(declaration);
+                    }
+                }
+                declarations.clear();
+                partitionDepth = depth;
+                partition(atts);
+                return;
+            }
+            if (depth == partitionDepth + 1) {
+                declarations.addAll(0, partitionDeclarations);
+            }
+            namespaces.pushContext();
+            final List<String> prefixes = new ArrayList<String>();
+            for (final String[] declaration: declarations) {
+                if (!declaration[1].equals(namespaces.getURI(declaration[0]))) {
+                    namespaces.declarePrefix(declaration[0], declaration[1]);
+                    super.startPrefixMapping(declaration[0], declaration[1]);
+                    prefixes.add(declaration[0]);
+                }
+            }
+            declarations.clear();
+            written.push(prefixes);
+            super.startElement(uri, localName, qName, atts);
+        }
+
+        @Override
+        public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+            depth--;
+            if (isPartition(uri, localName)) {
+                partitionDeclarations.clear();
+                partitionDepth = -1;
+                return;
+            }
+            super.endElement(uri, localName, qName);
+            namespaces.popContext();
+            for (final String prefix: written.pop()) {
+                super.endPrefixMapping(prefix);
+            }
+        }
+
+        @Override
+        public void comment(final char[] ch, final int start, final int length) throws SAXException {
+            if (getContentHandler() instanceof LexicalHandler) {
+                ((LexicalHandler) getContentHandler()).comment(ch, start, length);
+            }
+        }
+
+        @Override
+        public void startDTD(final String name, final String publicId, final String systemId) {
+            // NOOP
+        }
+
+        @Override
+        public void endDTD() {
+            // NOOP
+        }
+
+        @Override
+        public void startEntity(final String name) {
+            // NOOP
+        }
+
+        @Override
+        public void endEntity(final String name) {
+            // NOOP
+        }
+
+        @Override
+        public void startCDATA() {
+            // NOOP
+        }
+
+        @Override
+        public void endCDATA() {
+            // NOOP
+        }
+
+    }
+
+    public void setStyle(final File style) {
+        this.style = style;
+    }
+
+    public void setIn(final File in) {
+        this.in = in;
+    }
+
+    public void setOut(final File out) {
+        this.out = out;
+    }
+
+    public void setParallel(final boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public void setThreads(final int threads) {
+        this.threads = threads;
+    }
+
+    public XSLTProcess.Param createParam() {
+        final XSLTProcess.Param p = new XSLTProcess.Param();
+        p.setProject(getProject());
+        params.add(p);
+        return p;
+    }
+
+    public void addConfiguredXMLCatalog(final XMLCatalog xmlcatalog) {
+        this.xmlcatalog = xmlcatalog;
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package com.idiominc.ws.opentopic.fo.i18n;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.net.URISyntaxException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+
+import org.dita.dost.util.XMLUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.Attributes;
+import org.xml.sax.XMLFilter;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.DefaultHandler2;
+
+public class MultilanguagePreprocessorTest {
+
+    private File resourceDir;
+    private MultilanguagePreprocessor preprocessor;
+
+    @Before
+    public void setUp() throws Exception {
+        resourceDir = getResourceDir();
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        final Document conf = factory.newDocumentBuilder().parse(new File(resourceDir, "config.xml"));
+        preprocessor = new MultilanguagePreprocessor(new Configuration(conf));
+    }
+
+    @Test
+    public void testCreateFilter() throws Exception {
+        final StringBuilder buf = new StringBuilder();
+        final DefaultHandler2 handler = new DefaultHandler2() {
+            @Override
+            public void startElement(final String uri, final String localName, final String qName, final Attributes atts) {
+                buf.append('<').append(qName).append('>');
+            }
+            @Override
+            public void endElement(final String uri, final String localName, final String qName) {
+                buf.append("</").append(qName).append('>');
+            }
+            @Override
+            public void characters(final char[] ch, final int start, final int length) {
+                buf.append(ch, start, length);
+            }
+            @Override
+            public void startCDATA() {
+                buf.append("<![CDATA[");
+            }
+            @Override
+            public void endCDATA() {
+                buf.append("]]>");
+            }
+        };
+        final XMLFilter filter = preprocessor.createFilter();
+        filter.setParent(XMLUtils.getXMLReader());
+        filter.setContentHandler(handler);
+        filter.parse(new File(resourceDir, "topic.fo").toURI().toString());
+
+        final String act = buf.toString();
+        assertTrue(act, act.contains("<fo:block>English and <opentopic-i18n:text-fragment>Русский</opentopic-i18n:text-fragment> text</fo:block>"));
+        assertTrue(act, act.contains("<fo:block><![CDATA[<code> & Русский]]> after</fo:block>"));
+    }
+
+    @Test
+    public void testCreateFilterMatchesProcess() throws Exception {
+        final File src = new File(resourceDir, "topic.fo");
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        final Document doc = preprocessor.process(factory.newDocumentBuilder().parse(src));
+        final StringWriter exp = new StringWriter();
+        final Transformer serializer = TransformerFactory.newInstance().newTransformer();
+        serializer.transform(new DOMSource(doc), new StreamResult(exp));
+
+        assertEquals(exp.toString(), filter(src));
+    }
+
+    private String filter(final File src) throws Exception {
+        final TransformerHandler serializer = ((SAXTransformerFactory) TransformerFactory.newInstance()).newTransformerHandler();
+        final StringWriter buf = new StringWriter();
+        serializer.setResult(new StreamResult(buf));
+        final XMLReader reader = XMLUtils.getXMLReader();
+        reader.setFeature("http://xml.org/sax/features/namespace-prefixes", true);
+        final XMLFilter filter = preprocessor.createFilter();
+        filter.setParent(reader);
+        filter.setContentHandler(serializer);
+        filter.parse(src.toURI().toString());
+        return buf.toString();
+    }
+
+    private File getResourceDir() throws URISyntaxException {
+        return new File(ClassLoader.getSystemResource(getClass().getSimpleName()).toURI());
+    }
+
+}
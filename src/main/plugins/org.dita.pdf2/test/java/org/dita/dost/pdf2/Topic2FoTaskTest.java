@@ -0,0 +1,144 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.pdf2;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.tools.ant.DefaultLogger;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.taskdefs.XSLTProcess;
+import org.apache.tools.ant.types.XMLCatalog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Parallel transformation with the PDF2 stylesheet produces the same XSL-FO as the sequential one.
+ */
+public class Topic2FoTaskTest {
+
+    private static final File ditaDir = new File("src" + File.separator + "main").getAbsoluteFile();
+    private static final File pluginDir = new File(ditaDir, "plugins" + File.separator + "org.dita.pdf2");
+    private static final Pattern GENERATED_ID = Pattern.compile("(?<![A-Za-z0-9])d(\\d+)e(?=\\d)");
+
+    private File resourceDir;
+    private File tempDir;
+    private File catalog;
+    private File strings;
+
+    @Before
+    public void setUp() throws Exception {
+        resourceDir = new File(ClassLoader.getSystemResource(getClass().getSimpleName()).toURI());
+        tempDir = Files.createTempDirectory(getClass().getSimpleName()).toFile();
+        catalog = new File(tempDir, "catalog.xml");
+        FileUtils.writeStringToFile(catalog,
+                "<catalog xmlns='urn:oasis:names:tc:entity:xmlns:xml:catalog'>" +
+                "<rewriteURI uriStartString='plugin:org.dita.base:' rewritePrefix='" + ditaDir.toURI() + "'/>" +
+                "<rewriteURI uriStartString='plugin:org.dita.pdf2:' rewritePrefix='" + pluginDir.toURI() + "'/>" +
+                "<nextCatalog catalog='" + new File(pluginDir, "cfg" + File.separator + "catalog_template.xml").toURI() + "'/>" +
+                "</catalog>", "UTF-8");
+        strings = new File(tempDir, "strings.xml");
+        FileUtils.writeStringToFile(strings,
+                "<langlist>" +
+                "<lang xml:lang='en' filename='" + new File(pluginDir, "cfg" + File.separator + "common" + File.separator + "vars" + File.separator + "en.xml").toURI() + "'/>" +
+                "</langlist>", "UTF-8");
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(tempDir);
+    }
+
+    @Test
+    public void testParallel() throws Exception {
+        final File sequential = new File(tempDir, "sequential.fo");
+        assertFalse(transform(false, sequential).contains("partitions"));
+        final File parallel = new File(tempDir, "parallel.fo");
+        assertTrue(transform(true, parallel).contains("Transforming 3 partitions using 3 threads"));
+
+        final String exp = read(sequential);
+        assertTrue(exp, exp.contains("Oil keeps the engine running."));
+        assertTrue(exp, exp.contains("Keep tools on the"));
+        assertEquals(exp, read(parallel));
+        assertFalse(new File(tempDir, parallel.getName() + ".partitions").exists());
+    }
+
+    /**
+     * Read XSL-FO file from the root element, with document numbers in generated IDs replaced by their order
+     * of appearance. Source documents are numbered by the Saxon configuration and differ between transformations.
+     */
+    private static String read(final File file) throws IOException {
+        final String content = FileUtils.readFileToString(file, "UTF-8");
+        final String fo = content.substring(content.indexOf("<fo:root"));
+        final Map<String, String> numbers = new HashMap<String, String>();
+        final Matcher m = GENERATED_ID.matcher(fo);
+        final StringBuffer buf = new StringBuffer();
+        while (m.find()) {
+            String number = numbers.get(m.group(1));
+            if (number == null) {
+                number = Integer.toString(numbers.size());
+                numbers.put(m.group(1), number);
+            }
+            m.appendReplacement(buf, "d" + number + "e");
+        }
+        m.appendTail(buf);
+        return buf.toString();
+    }
+
+    /**
+     * Run transformation.
+     *
+     * @return build log
+     */
+    private String transform(final boolean parallel, final File out) throws URISyntaxException {
+        final Project project = new Project();
+        project.setBaseDir(tempDir);
+        final ByteArrayOutputStream log = new ByteArrayOutputStream();
+        final DefaultLogger logger = new DefaultLogger();
+        logger.setMessageOutputLevel(Project.MSG_INFO);
+        logger.setOutputPrintStream(new PrintStream(log));
+        logger.setErrorPrintStream(new PrintStream(log));
+        project.addBuildListener(logger);
+        final Topic2FoTask task = new Topic2FoTask();
+        task.setProject(project);
+        task.setStyle(new File(resourceDir, "topic2fo_shell.xsl"));
+        task.setIn(new File(resourceDir, "stage1a.xml"));
+        task.setOut(out);
+        task.setParallel(parallel);
+        task.setThreads(3);
+        addParam(task, "locale", "en-US");
+        addParam(task, "customizationDir.url", new File(pluginDir, "cfg").toURI().toString());
+        addParam(task, "input.dir.url", resourceDir.toURI().toString());
+        addParam(task, "output.dir.url", tempDir.toURI().toString());
+        addParam(task, "work.dir.url", resourceDir.toURI().toString());
+        addParam(task, "pdfFormatter", "fop");
+        addParam(task, "variableFiles.url", strings.toURI().toString());
+        final XMLCatalog xmlCatalog = new XMLCatalog();
+        xmlCatalog.setProject(project);
+        xmlCatalog.createCatalogPath().setLocation(catalog);
+        task.addConfiguredXMLCatalog(xmlCatalog);
+        task.execute();
+        return log.toString();
+    }
+
+    private static void addParam(final Topic2FoTask task, final String name, final String expression) {
+        final XSLTProcess.Param p = task.createParam();
+        p.setName(name);
+        p.setExpression(expression);
+    }
+
+}
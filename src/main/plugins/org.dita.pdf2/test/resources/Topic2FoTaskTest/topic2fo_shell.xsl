@@ -0,0 +1,9 @@
+<?xml version="1.0" encoding="UTF-8"?>
+<xsl:stylesheet xmlns:xsl="http://www.w3.org/1999/XSL/Transform"
+                version="2.0">
+
+  <xsl:import href="plugin:org.dita.pdf2:xsl/fo/topic2fo.xsl"/>
+  <xsl:import href="cfg:fo/attrs/custom.xsl"/>
+  <xsl:import href="cfg:fo/xsl/custom.xsl"/>
+
+</xsl:stylesheet>
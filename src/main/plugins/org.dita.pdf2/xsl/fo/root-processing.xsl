@@ -44,6 +44,9 @@ See the accompanying license.txt file for applicable licenses.
     version="2.0">
     
     <xsl:param name="bookmap-order" select="'discard'" as="xs:string"/>
+    <!-- '#skeleton' to generate dita-ot:partition placeholders in place of top-level topic references,
+         or ID of the top-level topic reference to generate in dita-ot:partition initial mode -->
+    <xsl:param name="partition" select="''" as="xs:string"/>
   
     <xsl:variable name="retain-bookmap-order" select="*[contains(@class,' bookmap/bookmap ')] and $bookmap-order eq 'retain'" as="xs:boolean"/>
     <xsl:variable name="writing-mode" as="xs:string">
@@ -203,6 +206,36 @@ See the accompanying license.txt file for applicable licenses.
         </fo:root>
     </xsl:template>
   
+  <!-- Initial mode to generate only the content of the top-level topic reference with ID $partition -->
+  <xsl:template match="/" mode="dita-ot:partition">
+    <dita-ot:partition id="{$partition}">
+      <xsl:apply-templates select="*/opentopic:map/*[@id = $partition]" mode="dita-ot:partition-content"/>
+    </dita-ot:partition>
+  </xsl:template>
+  
+  <!-- Top-level topic reference, replaced with a placeholder when generating the skeleton document -->
+  <xsl:template match="*" mode="dita-ot:top-level-topicref">
+    <xsl:choose>
+      <xsl:when test="$partition = '#skeleton' and exists(@id) and count(../*[@id = current()/@id]) = 1">
+        <dita-ot:partition id="{@id}"/>
+      </xsl:when>
+      <xsl:otherwise>
+        <xsl:apply-templates select="." mode="dita-ot:partition-content"/>
+      </xsl:otherwise>
+    </xsl:choose>
+  </xsl:template>
+  
+  <xsl:template match="*" mode="dita-ot:partition-content">
+    <xsl:apply-templates select="." mode="generatePageSequences"/>
+  </xsl:template>
+  
+  <xsl:template match="*[contains(@class, ' map/map ') and not(contains(@class, ' bookmap/bookmap '))]/opentopic:map/*"
+                mode="dita-ot:partition-content" priority="10">
+    <xsl:for-each select="key('topic-id', @id)">
+      <xsl:apply-templates select="." mode="processTopic"/>
+    </xsl:for-each>
+  </xsl:template>
+  
   <xsl:variable name="map-based-page-sequence-generation" select="true()" as="xs:boolean"/>
   
   <xsl:template match="*[contains(@class, ' topic/topic ')]" mode="generatePageSequences">
@@ -224,11 +257,7 @@ See the accompanying license.txt file for applicable licenses.
           <xsl:call-template name="startPageNumbering"/>
           <xsl:call-template name="insertBodyStaticContents"/>
           <fo:flow flow-name="xsl-region-body">
-            <xsl:for-each select="opentopic:map/*[contains(@class, ' map/topicref ')]">
-              <xsl:for-each select="key('topic-id', @id)">
-                <xsl:apply-templates select="." mode="processTopic"/>
-              </xsl:for-each>
-            </xsl:for-each>
+            <xsl:apply-templates select="opentopic:map/*[contains(@class, ' map/topicref ')]" mode="dita-ot:top-level-topicref"/>
           </fo:flow>
         </fo:page-sequence>
         <xsl:call-template name="createIndex"/>
@@ -246,7 +275,7 @@ See the accompanying license.txt file for applicable licenses.
     <xsl:call-template name="createFrontMatter"/>
     <xsl:choose>
       <xsl:when test="$map-based-page-sequence-generation">
-        <xsl:apply-templates select="opentopic:map/*[contains(@class, ' map/topicref ')]" mode="generatePageSequences"/>
+        <xsl:apply-templates select="opentopic:map/*[contains(@class, ' map/topicref ')]" mode="dita-ot:top-level-topicref"/>
       </xsl:when>
       <!-- legacy topic based page-sequence generation -->
       <xsl:otherwise>
@@ -338,7 +338,7 @@ public class TestUtils {
      */
     public static final class CachingLogger implements DITAOTLogger {
 
-        private List<Message> buf = new ArrayList<Message>();
+        private final List<Message> buf = Collections.synchronizedList(new ArrayList<Message>());
         
         public void info(final String msg) {
             buf.add(new Message(Message.Level.INFO, msg, null));
@@ -0,0 +1,119 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.invoker;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+
+import org.apache.commons.io.FileUtils;
+import org.dita.dost.TestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public final class DaemonTest {
+
+    private File tempDir;
+    private Daemon daemon;
+    private Thread thread;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = TestUtils.createTempDir(DaemonTest.class);
+        daemon = new Daemon(tempDir, 0, 1000);
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                daemon.run();
+            }
+        });
+        thread.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        daemon.close();
+        thread.join(10000);
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Test
+    public void testStateFile() throws IOException {
+        assertTrue(new File(tempDir, Daemon.STATE_FILE).exists());
+        assertEquals(Integer.toString(daemon.getPort()), Daemon.readState(tempDir).getProperty(Daemon.PROPERTY_PORT));
+    }
+
+    @Test
+    public void testUsage() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+        final Integer exitCode = new DaemonClient().run(new String[] { "-h" }, tempDir, tempDir,
+                new PrintStream(out, true), new PrintStream(err, true));
+        assertEquals(Integer.valueOf(0), exitCode);
+        assertTrue(out.toString().contains("Usage"));
+    }
+
+    @Test
+    public void testBuildError() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+        final Integer exitCode = new DaemonClient().run(new String[] { "-i", "test.ditamap" }, tempDir, tempDir,
+                new PrintStream(out, true), new PrintStream(err, true));
+        assertEquals(Integer.valueOf(1), exitCode);
+        assertTrue(err.toString().contains("Transformation type not defined"));
+    }
+
+    @Test
+    public void testRelativeArguments() throws IOException {
+        final File clientDir = new File(tempDir, "client");
+        assertTrue(clientDir.mkdirs());
+        FileUtils.writeStringToFile(new File(clientDir, "map.ditamap"), "<map/>", "UTF-8");
+        FileUtils.writeStringToFile(new File(clientDir, "filter.ditaval"), "<val/>", "UTF-8");
+        FileUtils.writeStringToFile(new File(clientDir, "build.xml"),
+                "<project default='echo'><target name='echo'>" +
+                "<echo>input=${args.input}</echo><echo>output=${output.dir}</echo>" +
+                "<echo>filter=${args.filter.file}</echo><echo>missing=${args.missing}</echo>" +
+                "</target></project>", "UTF-8");
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final Integer exitCode = new DaemonClient().run(new String[] { "-f", "xhtml", "-i", "map.ditamap", "-o", "out",
+                        "-Dargs.filter.file=filter.ditaval", "-Dargs.missing=missing.txt", "-buildfile", "build.xml" },
+                tempDir, clientDir, new PrintStream(out, true), new PrintStream(new ByteArrayOutputStream(), true));
+        assertEquals(Integer.valueOf(0), exitCode);
+        final String act = out.toString();
+        assertTrue(act, act.contains("input=" + new File(clientDir, "map.ditamap").getAbsolutePath()));
+        assertTrue(act, act.contains("output=" + new File(clientDir, "out").getAbsolutePath()));
+        assertTrue(act, act.contains("filter=" + new File(clientDir, "filter.ditaval").getAbsolutePath()));
+        assertTrue(act, act.contains("missing=missing.txt"));
+    }
+
+    @Test
+    public void testIdleClient() throws Exception {
+        try (Socket idle = new Socket(InetAddress.getByName(null), daemon.getPort())) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final Integer exitCode = new DaemonClient().run(new String[] { "-h" }, tempDir, tempDir,
+                    new PrintStream(out, true), new PrintStream(new ByteArrayOutputStream(), true));
+            assertEquals(Integer.valueOf(0), exitCode);
+            // daemon closes connection after request timeout
+            idle.setSoTimeout(10000);
+            assertEquals(-1, idle.getInputStream().read());
+        }
+    }
+
+    @Test
+    public void testStop() throws Exception {
+        assertTrue(Daemon.stop(tempDir));
+        thread.join(10000);
+        assertFalse(thread.isAlive());
+        assertFalse(new File(tempDir, Daemon.STATE_FILE).exists());
+        assertNull(new DaemonClient().run(new String[] { "-h" }, tempDir, tempDir, System.out, System.err));
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.invoker;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.tools.ant.Project;
+import org.dita.dost.TestUtils;
+import org.dita.dost.exception.DITAOTException;
+import org.dita.dost.log.DITAOTLogger;
+import org.dita.dost.module.AbstractPipelineModule;
+import org.dita.dost.pipeline.AbstractPipelineInput;
+import org.dita.dost.pipeline.AbstractPipelineOutput;
+import org.dita.dost.util.Job;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public final class ExtensibleAntInvokerTest {
+
+    private static String jobFileContent;
+
+    private File tempDir;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = TestUtils.createTempDir(ExtensibleAntInvokerTest.class);
+        jobFileContent = null;
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Test
+    public void testExportJobBetweenModules() {
+        final ExtensibleAntInvoker invoker = new ExtensibleAntInvoker();
+        invoker.setProject(new Project());
+        invoker.setTempdir(tempDir);
+        final ExtensibleAntInvoker.Module write = new ExtensibleAntInvoker.Module();
+        write.setClass(WriteJobModule.class);
+        invoker.addConfiguredModule(write);
+        final ExtensibleAntInvoker.Module read = new ExtensibleAntInvoker.Module();
+        read.setClass(ReadJobFileModule.class);
+        invoker.addConfiguredModule(read);
+        invoker.execute();
+
+        assertNotNull(jobFileContent);
+        assertTrue(jobFileContent, jobFileContent.contains("written-by-module"));
+    }
+
+    /** Module that changes job and writes it. */
+    public static final class WriteJobModule extends AbstractModule {
+        @Override
+        public AbstractPipelineOutput execute(final AbstractPipelineInput input) throws DITAOTException {
+            job.setProperty("test", "written-by-module");
+            try {
+                job.write();
+            } catch (final IOException e) {
+                throw new DITAOTException(e);
+            }
+            return null;
+        }
+    }
+
+    /** Module that reads the XML job file, like Ant and XSLT based processing does. */
+    public static final class ReadJobFileModule extends AbstractModule {
+        @Override
+        public AbstractPipelineOutput execute(final AbstractPipelineInput input) throws DITAOTException {
+            try {
+                jobFileContent = FileUtils.readFileToString(new File(job.tempDir, ".job.xml"), "UTF-8");
+            } catch (final IOException e) {
+                throw new DITAOTException(e);
+            }
+            return null;
+        }
+    }
+
+    private static abstract class AbstractModule implements AbstractPipelineModule {
+        Job job;
+
+        @Override
+        public void setLogger(final DITAOTLogger logger) {
+            // NOOP
+        }
+
+        @Override
+        public void setJob(final Job job) {
+            this.job = job;
+        }
+    }
+
+}
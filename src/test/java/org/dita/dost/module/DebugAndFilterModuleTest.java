@@ -46,6 +46,8 @@ public class DebugAndFilterModuleTest {
     private final File ditaDir = new File("src" + File.separator + "main");
     private File tmpDir;
     private File inputDir;
+    private Job job;
+    private PipelineHashIO pipelineInput;
 
     @BeforeClass
     public static void setUpClass() {
@@ -92,6 +94,12 @@ public class DebugAndFilterModuleTest {
         pipelineInput.setAttribute(ANT_INVOKER_EXT_PARAM_TRANSTYPE, "xhtml");
         pipelineInput.setAttribute(ANT_INVOKER_EXT_PARAM_GENERATE_DEBUG_ATTR, Boolean.TRUE.toString());
 
+        this.job = job;
+        this.pipelineInput = pipelineInput;
+    }
+
+    private void execute(final boolean parallel) throws DITAOTException {
+        pipelineInput.setAttribute(ANT_INVOKER_EXT_PARAM_PARALLEL, Boolean.toString(parallel));
         final AbstractFacade facade = new PipelineFacade();
         facade.setLogger(new TestUtils.TestLogger());
         facade.setJob(job);
@@ -99,7 +107,18 @@ public class DebugAndFilterModuleTest {
     }
 
     @Test
-    public void testGeneratedFiles() throws SAXException, IOException {
+    public void testGeneratedFiles() throws SAXException, IOException, DITAOTException {
+        execute(false);
+        assertGeneratedFiles();
+    }
+
+    @Test
+    public void testGeneratedFilesParallel() throws SAXException, IOException, DITAOTException {
+        execute(true);
+        assertGeneratedFiles();
+    }
+
+    private void assertGeneratedFiles() throws SAXException, IOException {
         final File[] files = {
                 new File("maps", "root-map-01.ditamap"),
                 new File("topics", "target-topic-a.xml"),
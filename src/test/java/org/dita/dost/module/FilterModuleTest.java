@@ -0,0 +1,90 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.module;
+
+import static org.custommonkey.xmlunit.XMLAssert.assertXMLEqual;
+import static org.dita.dost.util.Constants.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.net.URI;
+import java.util.Arrays;
+
+import org.custommonkey.xmlunit.XMLUnit;
+import org.dita.dost.TestUtils;
+import org.dita.dost.log.DITAOTJavaLogger;
+import org.dita.dost.pipeline.PipelineHashIO;
+import org.dita.dost.util.Job;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+
+public class FilterModuleTest {
+
+    private final File resourceDir = TestUtils.getResourceDir(FilterModuleTest.class);
+    private final File expDir = new File(resourceDir, "exp");
+    private File tempDir;
+    private Job job;
+
+    @Before
+    public void setUp() throws Exception {
+        tempDir = TestUtils.createTempDir(getClass());
+        TestUtils.copy(new File(resourceDir, "src"), tempDir);
+
+        TestUtils.resetXMLUnit();
+        XMLUnit.setIgnoreWhitespace(true);
+        XMLUnit.setIgnoreComments(true);
+
+        job = new Job(tempDir);
+        job.add(new Job.FileInfo.Builder()
+                .src(new File(tempDir, "input.ditamap").toURI())
+                .uri(new URI("input.ditamap"))
+                .format(ATTR_FORMAT_VALUE_DITAMAP)
+                .build());
+        for (final String uri: Arrays.asList("a.dita", "b.dita", "c.dita")) {
+            job.add(new Job.FileInfo.Builder()
+                    .src(new File(tempDir, uri).toURI())
+                    .uri(new URI(uri))
+                    .format(ATTR_FORMAT_VALUE_DITA)
+                    .build());
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Test
+    public void testExecute() throws Exception {
+        execute(false);
+    }
+
+    @Test
+    public void testExecuteParallel() throws Exception {
+        execute(true);
+    }
+
+    private void execute(final boolean parallel) throws Exception {
+        final FilterModule m = new FilterModule();
+        m.setJob(job);
+        m.setLogger(new DITAOTJavaLogger());
+        final PipelineHashIO input = new PipelineHashIO();
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_TRANSTYPE, "xhtml");
+        input.setAttribute(ANT_INVOKER_PARAM_DITAVAL, new File(tempDir, "filter.ditaval").getAbsolutePath());
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_PARALLEL, Boolean.toString(parallel));
+        m.execute(input);
+
+        for (final String file: Arrays.asList("input.ditamap", "a.dita", "c.dita")) {
+            assertXMLEqual(new InputSource(new File(expDir, file).toURI().toString()),
+                    new InputSource(new File(tempDir, file).toURI().toString()));
+        }
+        assertNull(job.getFileInfo(new URI("b.dita")));
+        assertFalse(new File(tempDir, "b.dita").exists());
+        assertEquals(3, job.getFileInfo().size());
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.module;
+
+import static org.dita.dost.util.Constants.*;
+import static org.dita.dost.util.Job.Generate.NOT_GENERATEOUTTER;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.dita.dost.TestUtils;
+import org.dita.dost.pipeline.AbstractFacade;
+import org.dita.dost.pipeline.PipelineFacade;
+import org.dita.dost.pipeline.PipelineHashIO;
+import org.dita.dost.util.CatalogUtils;
+import org.dita.dost.util.Job;
+import org.dita.dost.util.ParseCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Preprocessing with gen-list and debug-filter fused and not fused produces the same result.
+ */
+public class FusedPreprocessTest {
+
+    private static final String[] FILES = {"map.ditamap", "a.dita", "b.dita"};
+
+    private final File resourceDir = TestUtils.getResourceDir(FusedPreprocessTest.class);
+    private final File ditaDir = new File("src" + File.separator + "main").getAbsoluteFile();
+    private File tempDir;
+    private File srcDir;
+
+    @BeforeClass
+    public static void setUpClass() {
+        CatalogUtils.setDitaDir(new File("src" + File.separator + "main").getAbsoluteFile());
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = TestUtils.createTempDir(getClass());
+        srcDir = new File(tempDir, "src");
+        TestUtils.copy(new File(resourceDir, "src"), srcDir);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Test
+    public void testFused() throws Exception {
+        final File unfusedDir = new File(tempDir, "unfused");
+        preprocess(unfusedDir, false);
+        assertFalse(new File(unfusedDir, ParseCache.SPOOL_DIR_NAME).exists());
+
+        final File fusedDir = new File(tempDir, "fused");
+        fusedDir.mkdirs();
+        final ParseCache spool = ParseCache.getInstance(new File(fusedDir, ParseCache.SPOOL_DIR_NAME), Long.MAX_VALUE);
+        final Job job = new Job(fusedDir);
+        genList(job, true);
+        assertEquals(0, spool.getHits());
+        assertEquals(FILES.length, spool.getMisses());
+
+        debugAndFilter(job, true);
+        assertEquals(FILES.length, spool.getHits());
+        assertEquals(FILES.length, spool.getMisses());
+        assertFalse(new File(fusedDir, ParseCache.SPOOL_DIR_NAME).exists());
+
+        for (final String file: FILES) {
+            final File exp = new File(unfusedDir, file);
+            assertTrue(file, exp.exists());
+            assertEquals(file, read(unfusedDir, file), read(fusedDir, file));
+        }
+        assertTrue(read(fusedDir, "a.dita").contains(">&lt;a&gt; &amp; &lt;b&gt;</codeblock>"));
+    }
+
+    /** Read temporary file with temporary directory paths in work directory instructions removed. */
+    private String read(final File tmpDir, final String file) throws IOException {
+        final File dir = tmpDir.getAbsoluteFile();
+        return FileUtils.readFileToString(new File(dir, file), "UTF-8")
+                .replace(dir.toURI().toString(), "")
+                .replace(dir.getPath(), "");
+    }
+
+    private void preprocess(final File tmpDir, final boolean fused) throws Exception {
+        tmpDir.mkdirs();
+        final Job job = new Job(tmpDir);
+        genList(job, fused);
+        debugAndFilter(job, fused);
+    }
+
+    private void genList(final Job job, final boolean fused) throws Exception {
+        final PipelineHashIO input = getInput(job);
+        input.setAttribute(ANT_INVOKER_PARAM_INPUTMAP, "map.ditamap");
+        input.setAttribute(ANT_INVOKER_PARAM_BASEDIR, srcDir.getAbsolutePath());
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_FUSED, Boolean.toString(fused));
+        final GenMapAndTopicListModule m = new GenMapAndTopicListModule();
+        m.setLogger(new TestUtils.TestLogger());
+        m.setJob(job);
+        m.execute(input);
+    }
+
+    private void debugAndFilter(final Job job, final boolean fused) throws Exception {
+        final PipelineHashIO input = getInput(job);
+        input.setAttribute(ANT_INVOKER_PARAM_INPUTMAP, new File(srcDir, "map.ditamap").getPath());
+        input.setAttribute(ANT_INVOKER_PARAM_BASEDIR, srcDir.getAbsolutePath());
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_FUSED, Boolean.toString(fused));
+        final AbstractFacade facade = new PipelineFacade();
+        facade.setLogger(new TestUtils.TestLogger());
+        facade.setJob(job);
+        facade.execute("DebugAndFilter", input);
+    }
+
+    private PipelineHashIO getInput(final Job job) {
+        final PipelineHashIO input = new PipelineHashIO();
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_DITADIR, ditaDir.getPath());
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_OUTPUTDIR, new File(tempDir, "out").getPath());
+        input.setAttribute(ANT_INVOKER_PARAM_TEMPDIR, job.tempDir.getPath());
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_TRANSTYPE, "xhtml");
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_INDEXTYPE, "xhtml");
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_ENCODING, "en-US");
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_TARGETEXT, ".html");
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_VALIDATE, Boolean.FALSE.toString());
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_GENERATECOPYOUTTER, Integer.toString(NOT_GENERATEOUTTER.type));
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_OUTTERCONTROL, "warn");
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_ONLYTOPICINMAP, Boolean.FALSE.toString());
+        input.setAttribute(ANT_INVOKER_EXT_PARAN_SETSYSTEMID, "no");
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_GENERATE_DEBUG_ATTR, Boolean.TRUE.toString());
+        return input;
+    }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.module;
+
+import static org.dita.dost.util.Constants.*;
+import static org.dita.dost.util.Job.Generate.NOT_GENERATEOUTTER;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.dita.dost.TestUtils;
+import org.dita.dost.TestUtils.CachingLogger;
+import org.dita.dost.pipeline.PipelineHashIO;
+import org.dita.dost.util.BuildManifest;
+import org.dita.dost.util.Job;
+import org.dita.dost.util.Job.FileInfo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IncrementalBuildTest {
+
+    private final File resourceDir = TestUtils.getResourceDir(IncrementalBuildTest.class);
+    private File tempDir;
+    private File srcDir;
+    private File tmpDir;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = TestUtils.createTempDir(getClass());
+        srcDir = new File(tempDir, "src");
+        tmpDir = new File(tempDir, "temp");
+        tmpDir.mkdirs();
+        TestUtils.copy(new File(resourceDir, "src"), srcDir);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Test
+    public void testUnchanged() throws Exception {
+        build();
+        final Job job = genList();
+        for (final String file: new String[] {"a.dita", "b.dita", "c.dita"}) {
+            assertTrue(file, job.getFileInfo(new URI(file)).isUpToDate());
+        }
+        assertFalse(job.getFileInfo(new URI("map.ditamap")).isUpToDate());
+
+        final CachingLogger logger = new CachingLogger();
+        final XsltModule m = new XsltModule();
+        m.setJob(job);
+        m.setLogger(logger);
+        m.setStyle(new File(TestUtils.getResourceDir(XsltModuleTest.class), "test.xsl"));
+        m.setSorceDir(tmpDir);
+        m.setDestinationDir(tmpDir);
+        final List<File> includes = new ArrayList<>();
+        for (final String file: new String[] {"map.ditamap", "a.dita", "b.dita", "c.dita"}) {
+            includes.add(new File(file));
+        }
+        m.setIncludes(includes);
+        m.setFilenameParam("file-being-processed");
+        m.execute(null);
+        assertTrue(hasMessage(logger, "Skipping 3 up-to-date files"));
+    }
+
+    @Test
+    public void testRemoved() throws Exception {
+        build();
+        final File map = new File(srcDir, "map.ditamap");
+        FileUtils.writeStringToFile(map,
+                FileUtils.readFileToString(map, "UTF-8").replaceAll("\\s*<topicref[^>]+c\\.dita\"/>", ""), "UTF-8");
+        final Job job = genList();
+        assertNotNull(job.getFileInfo(new URI("a.dita")));
+        assertNull(job.getFileInfo(new URI("c.dita")));
+        assertFalse(new File(tmpDir, "c.dita").exists());
+        assertNull(new Job(tmpDir).getFileInfo(new URI("c.dita")));
+    }
+
+    @Test
+    public void testChangedConrefTarget() throws Exception {
+        build();
+        append("a.dita", "<!-- changed -->");
+        assertUpToDate(genList(), "b.dita", "c.dita", "e.dita", "f.dita");
+    }
+
+    @Test
+    public void testChangedKeyrefTarget() throws Exception {
+        build();
+        append("b.dita", "<!-- changed -->");
+        assertUpToDate(genList(), "a.dita", "c.dita", "d.dita", "f.dita");
+    }
+
+    @Test
+    public void testChangedCoderefTarget() throws Exception {
+        build();
+        append("code.txt", "// changed");
+        assertUpToDate(genList(), "a.dita", "b.dita", "c.dita", "d.dita", "e.dita");
+    }
+
+    private void append(final String file, final String content) throws IOException {
+        final File f = new File(srcDir, file);
+        FileUtils.writeStringToFile(f, FileUtils.readFileToString(f, "UTF-8") + content, "UTF-8");
+    }
+
+    /**
+     * Assert that the given topics are up to date and all other topics are processed again.
+     */
+    private void assertUpToDate(final Job job, final String... files) throws Exception {
+        final List<String> upToDate = Arrays.asList(files);
+        for (final String file: new String[] {"a.dita", "b.dita", "c.dita", "d.dita", "e.dita", "f.dita"}) {
+            assertEquals(file, upToDate.contains(file), job.getFileInfo(new URI(file)).isUpToDate());
+        }
+    }
+
+    /**
+     * Run preprocessing of a full build: list files, write temporary files and commit build manifest.
+     */
+    private void build() throws Exception {
+        final Job job = genList();
+        for (final FileInfo f: job.getFileInfo()) {
+            assertFalse(f.isUpToDate());
+            FileUtils.copyFile(new File(f.src), new File(tmpDir, f.file.getPath()));
+        }
+        assertTrue(new File(tmpDir, BuildManifest.PENDING_FILE_NAME)
+                .renameTo(new File(tmpDir, BuildManifest.FILE_NAME)));
+    }
+
+    private Job genList() throws Exception {
+        final Job job = new Job(tmpDir);
+        final PipelineHashIO input = new PipelineHashIO();
+        input.setAttribute(ANT_INVOKER_PARAM_INPUTMAP, "map.ditamap");
+        input.setAttribute(ANT_INVOKER_PARAM_BASEDIR, srcDir.getAbsolutePath());
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_DITADIR, new File("src" + File.separator + "main").getAbsolutePath());
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_OUTPUTDIR, new File(tempDir, "out").getPath());
+        input.setAttribute(ANT_INVOKER_PARAM_TEMPDIR, tmpDir.getPath());
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_TRANSTYPE, "xhtml");
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_INDEXTYPE, "xhtml");
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_ENCODING, "en-US");
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_TARGETEXT, ".html");
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_VALIDATE, Boolean.FALSE.toString());
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_GENERATECOPYOUTTER, Integer.toString(NOT_GENERATEOUTTER.type));
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_OUTTERCONTROL, "warn");
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_ONLYTOPICINMAP, Boolean.FALSE.toString());
+        input.setAttribute(ANT_INVOKER_EXT_PARAN_SETSYSTEMID, "no");
+        input.setAttribute(ANT_INVOKER_EXT_PARAM_INCREMENTAL, Boolean.TRUE.toString());
+        final GenMapAndTopicListModule m = new GenMapAndTopicListModule();
+        m.setLogger(new TestUtils.TestLogger());
+        m.setJob(job);
+        m.execute(input);
+        return job;
+    }
+
+    private boolean hasMessage(final CachingLogger logger, final String msg) {
+        for (final CachingLogger.Message m: logger.getMessages()) {
+            if (m.message.equals(msg)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
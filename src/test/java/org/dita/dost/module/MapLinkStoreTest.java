@@ -0,0 +1,70 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.module;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Element;
+
+import org.dita.dost.TestUtils;
+
+public class MapLinkStoreTest {
+
+    private File tempDir;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = TestUtils.createTempDir(MapLinkStoreTest.class);
+    }
+
+    @Test
+    public void testGetLinks() throws Exception {
+        final File spool = new File(tempDir, "maplinks.temp");
+        final MapLinkStore store = new MapLinkStore(spool);
+        TransformerFactory.newInstance().newTransformer().transform(new StreamSource(new StringReader(
+                "<mapcollection xmlns:x='urn:x'>" +
+                  "<maplinks href='a.dita'><linkpool><link href='b.dita' x:y='z'/></linkpool></maplinks>" +
+                  "<maplinks href='dir/b.dita#b'><linkpool><link href='../a.dita'/></linkpool></maplinks>" +
+                  "<maplinks href='a.dita'><linklist><!-- c --><link href='c.dita'/></linklist></maplinks>" +
+                "</mapcollection>")),
+                store.getResult());
+        assertTrue(spool.exists());
+        assertEquals(2, store.getFiles().size());
+
+        final Map<String, Element> a = store.getLinks(new File("a.dita"));
+        assertEquals(1, a.size());
+        final Element root = a.get("#");
+        assertEquals(2, root.getChildNodes().getLength());
+        assertEquals("linkpool", root.getFirstChild().getNodeName());
+        assertEquals("z", ((Element) root.getFirstChild().getFirstChild()).getAttributeNS("urn:x", "y"));
+        assertEquals("linklist", root.getLastChild().getNodeName());
+        assertEquals(2, root.getLastChild().getChildNodes().getLength());
+
+        final Map<String, Element> b = store.getLinks(new File("dir" + File.separator + "b.dita"));
+        assertEquals(1, b.size());
+        assertNotNull(b.get("b"));
+        assertTrue(store.getLinks(new File("c.dita")).isEmpty());
+
+        store.close();
+        assertFalse(spool.exists());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+}
@@ -80,6 +80,11 @@ public class TestGenMapAndTopicListModule {
     }
 
     private static void generate(final File inputDir, final File inputMap, final File outDir, final File tempDir) throws DITAOTException, IOException {
+        generate(inputDir, inputMap, outDir, tempDir, false);
+    }
+
+    private static void generate(final File inputDir, final File inputMap, final File outDir, final File tempDir,
+                                 final boolean parallel) throws DITAOTException, IOException {
         final PipelineHashIO pipelineInput = new PipelineHashIO();
         pipelineInput.setAttribute(ANT_INVOKER_PARAM_INPUTMAP, inputMap.getPath());
         pipelineInput.setAttribute(ANT_INVOKER_PARAM_BASEDIR, srcDir.getAbsolutePath());
@@ -97,6 +102,7 @@ public class TestGenMapAndTopicListModule {
         //pipelineInput.setAttribute("ditalist", new File(tempDir, FILE_NAME_DITA_LIST).getPath());
         pipelineInput.setAttribute(ANT_INVOKER_PARAM_MAPLINKS, new File(tempDir, "maplinks.unordered").getPath());
         pipelineInput.setAttribute(ANT_INVOKER_EXT_PARAN_SETSYSTEMID, "no");
+        pipelineInput.setAttribute(ANT_INVOKER_EXT_PARAM_PARALLEL, Boolean.toString(parallel));
 
         final AbstractFacade facade = new PipelineFacade();
         facade.setLogger(new TestUtils.TestLogger());
@@ -179,6 +185,39 @@ public class TestGenMapAndTopicListModule {
         assertEquals(".." + File.separator, job.getProperty("uplevels"));
     }
     
+    @Test
+    public void testParallelCrawl() throws Exception {
+        final File serialDir = new File(tempDir, "crawl-serial");
+        final File parallelDir = new File(tempDir, "crawl-parallel");
+        serialDir.mkdirs();
+        parallelDir.mkdirs();
+        final File inputMap = new File(".", "root-map-02.ditamap");
+        generate(new File("."), inputMap, new File(serialDir, "out"), serialDir, false);
+        generate(new File("."), inputMap, new File(parallelDir, "out"), parallelDir, true);
+
+        final Job serial = new Job(serialDir);
+        final Job parallel = new Job(parallelDir);
+        assertEquals(serial.getProperty("uplevels"), parallel.getProperty("uplevels"));
+        assertEquals(serial.getCopytoMap(), parallel.getCopytoMap());
+        assertEquals(serial.getFileInfo().size(), parallel.getFileInfo().size());
+        for (final Job.FileInfo f: serial.getFileInfo()) {
+            assertEquals(f.toString(), parallel.getFileInfo(f.uri).toString());
+        }
+        for (final String name: new String[] {FILE_NAME_SUBJECT_RELATION, FILE_NAME_SUBJECT_DICTIONARY}) {
+            assertEquals(readFile(new File(serialDir, name)), readFile(new File(parallelDir, name)));
+        }
+    }
+
+    private static String readFile(final File file) throws IOException {
+        final StringBuilder buf = new StringBuilder();
+        try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                buf.append(line).append('\n');
+            }
+        }
+        return buf.toString();
+    }
+
     @Test
     public void testFileContentAbove() throws Exception{
         final File e = new File(expDir, "above");
@@ -0,0 +1,130 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.module;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.dita.dost.TestUtils;
+import org.dita.dost.TestUtils.CachingLogger;
+import org.dita.dost.exception.DITAOTException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class XsltModuleTest {
+
+    private static final int FILE_COUNT = 20;
+
+    private final File resourceDir = TestUtils.getResourceDir(XsltModuleTest.class);
+    private File tempDir;
+    private List<File> includes;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = TestUtils.createTempDir(getClass());
+        includes = new ArrayList<>();
+        for (int i = 0; i < FILE_COUNT; i++) {
+            final File include = new File("dir" + (i % 3), "topic" + i + ".dita");
+            FileUtils.writeStringToFile(new File(tempDir, include.getPath()),
+                    "<topic id=\"topic" + i + "\"><title>Topic " + i + "</title></topic>", "UTF-8");
+            includes.add(include);
+        }
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Test
+    public void testSerial() throws DITAOTException, IOException {
+        final CachingLogger logger = new CachingLogger();
+        execute(false, logger);
+        assertOutput();
+        assertEquals(0, countErrors(logger));
+    }
+
+    @Test
+    public void testParallel() throws DITAOTException, IOException {
+        final CachingLogger logger = new CachingLogger();
+        execute(true, logger);
+        assertOutput();
+        assertEquals(0, countErrors(logger));
+    }
+
+    @Test
+    public void testParallelDocument() throws DITAOTException, IOException {
+        final CachingLogger logger = new CachingLogger();
+        execute(true, logger, "document.xsl");
+        assertEquals(0, countErrors(logger));
+        // every transformation reads the original of the previous file
+        for (int i = 0; i < FILE_COUNT; i++) {
+            final File include = includes.get(i);
+            final String act = FileUtils.readFileToString(new File(tempDir, include.getPath()), "UTF-8");
+            assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><topic file=\"topic" + i + ".dita\""
+                    + (i > 0 ? " previous=\"\"" : "") + " id=\"topic" + i
+                    + "\"><title>Topic " + i + "</title></topic>", act);
+        }
+        for (int i = 0; i < 3; i++) {
+            for (final String name: new File(tempDir, "dir" + i).list()) {
+                assertTrue(name, name.endsWith(".dita"));
+            }
+        }
+    }
+
+    @Test
+    public void testParallelFailure() throws DITAOTException, IOException {
+        FileUtils.writeStringToFile(new File(tempDir, includes.get(5).getPath()), "<topic>", "UTF-8");
+        FileUtils.writeStringToFile(new File(tempDir, includes.get(11).getPath()), "<topic>", "UTF-8");
+        final CachingLogger logger = new CachingLogger();
+        execute(true, logger);
+        assertEquals(2, countErrors(logger));
+        assertEquals("<topic>", FileUtils.readFileToString(new File(tempDir, includes.get(5).getPath()), "UTF-8"));
+    }
+
+    private void execute(final boolean parallel, final CachingLogger logger) throws DITAOTException {
+        execute(parallel, logger, "test.xsl");
+    }
+
+    private void execute(final boolean parallel, final CachingLogger logger, final String style) throws DITAOTException {
+        final XsltModule m = new XsltModule();
+        m.setLogger(logger);
+        m.setStyle(new File(resourceDir, style));
+        m.setSorceDir(tempDir);
+        m.setDestinationDir(tempDir);
+        m.setIncludes(includes);
+        m.setFilenameParam("file-being-processed");
+        m.setParallel(parallel);
+        m.setThreads(4);
+        m.execute(null);
+    }
+
+    private void assertOutput() throws IOException {
+        for (int i = 0; i < FILE_COUNT; i++) {
+            final File include = includes.get(i);
+            final String act = FileUtils.readFileToString(new File(tempDir, include.getPath()), "UTF-8");
+            assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><topic file=\"topic" + i + ".dita\" id=\"topic" + i
+                    + "\"><title>Topic " + i + "</title></topic>", act);
+        }
+    }
+
+    private int countErrors(final CachingLogger logger) {
+        int count = 0;
+        for (final CachingLogger.Message m: logger.getMessages()) {
+            if (m.level == CachingLogger.Message.Level.ERROR) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.reader;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.xerces.impl.dtd.XMLDTDDescription;
+import org.apache.xerces.xni.grammars.XMLGrammarPool;
+import org.dita.dost.util.XMLUtils;
+import org.junit.Test;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+public class GrammarPoolManagerTest {
+
+    @Test
+    public void testGetGrammarPoolShared() throws InterruptedException {
+        final XMLGrammarPool pool = GrammarPoolManager.getGrammarPool();
+        assertNotNull(pool);
+        assertSame(pool, GrammarPoolManager.getGrammarPool());
+
+        final AtomicReference<XMLGrammarPool> other = new AtomicReference<>();
+        final Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                other.set(GrammarPoolManager.getGrammarPool());
+            }
+        });
+        t.start();
+        t.join();
+        assertSame(pool, other.get());
+    }
+
+    @Test
+    public void testGetGrammarPoolFingerprint() throws Exception {
+        final XMLGrammarPool pool = GrammarPoolManager.getGrammarPool(new byte[] {1});
+        parse(pool);
+        final XMLDTDDescription desc = new XMLDTDDescription(null, "urn:test:pooled.dtd", null, "urn:test:pooled.dtd", "topic");
+        assertNotNull(pool.retrieveGrammar(desc));
+
+        assertSame(pool, GrammarPoolManager.getGrammarPool(new byte[] {1}));
+        assertNotNull(pool.retrieveGrammar(desc));
+        assertSame(pool, GrammarPoolManager.getGrammarPool(new byte[] {2}));
+        assertNull(pool.retrieveGrammar(desc));
+    }
+
+    private void parse(final XMLGrammarPool pool) throws Exception {
+        final XMLReader parser = XMLUtils.getXMLReader();
+        parser.setProperty("http://apache.org/xml/properties/internal/grammar-pool", pool);
+        parser.setContentHandler(new DefaultHandler());
+        parser.setEntityResolver(new EntityResolver() {
+            @Override
+            public InputSource resolveEntity(final String publicId, final String systemId) {
+                final InputSource in = new InputSource(new StringReader("<!ELEMENT topic EMPTY>"));
+                in.setSystemId(systemId);
+                return in;
+            }
+        });
+        final InputSource in = new InputSource(new StringReader("<!DOCTYPE topic SYSTEM 'urn:test:pooled.dtd'><topic/>"));
+        in.setSystemId("urn:test:topic.xml");
+        parser.parse(in);
+    }
+
+}
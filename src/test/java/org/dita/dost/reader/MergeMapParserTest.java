@@ -12,7 +12,13 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+
 import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
 import org.xml.sax.InputSource;
 import org.dita.dost.TestUtils;
 import org.dita.dost.util.Job;
@@ -52,4 +58,21 @@ public class MergeMapParserTest {
                 new InputSource(new ByteArrayInputStream(output.toByteArray())));
     }
     
+    @Test
+    public void testReadContentHandler() throws Exception {
+        final MergeMapParser parser = new MergeMapParser();
+        parser.setLogger(new TestUtils.TestLogger());
+        parser.setJob(new Job(srcDir));
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final TransformerHandler handler = ((SAXTransformerFactory) TransformerFactory.newInstance()).newTransformerHandler();
+        handler.setResult(new StreamResult(output));
+        handler.startDocument();
+        handler.startElement("", "wrapper", "wrapper", new AttributesImpl());
+        parser.read(new File(srcDir, "test.ditamap").getAbsoluteFile(), srcDir.getAbsoluteFile(), handler);
+        handler.endElement("", "wrapper", "wrapper");
+        handler.endDocument();
+        assertXMLEqual(new InputSource(new File(expDir, "merged.xml").toURI().toString()),
+                new InputSource(new ByteArrayInputStream(output.toByteArray())));
+    }
+    
 }
@@ -0,0 +1,91 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.dita.dost.TestUtils;
+
+public final class BuildManifestTest {
+
+    private static final URI MAP = URI.create("file:/src/root.ditamap");
+    private static final URI A = URI.create("file:/src/a.dita");
+    private static final URI B = URI.create("file:/src/b.dita");
+    private static final URI C = URI.create("file:/src/c.dita");
+
+    private File tempDir;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = TestUtils.createTempDir(BuildManifestTest.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    private static BuildManifest create(final String aHash) {
+        final BuildManifest manifest = new BuildManifest();
+        manifest.setFingerprint("fingerprint");
+        manifest.put(MAP, "0", "0", Arrays.asList(A, B, C));
+        manifest.put(A, aHash, "1", Arrays.asList(A));
+        manifest.put(B, "2", "2", Arrays.asList(A));
+        manifest.put(C, "3", "3", Collections.<URI>emptyList());
+        return manifest;
+    }
+
+    @Test
+    public void testGetChanged() {
+        final BuildManifest previous = create("1");
+        assertEquals(Collections.emptySet(), create("1").getChanged(previous));
+        assertEquals(new HashSet<>(Arrays.asList(A)), create("changed").getChanged(previous));
+
+        final BuildManifest current = new BuildManifest();
+        current.put(MAP, "0", "0", Collections.<URI>emptyList());
+        assertEquals(new HashSet<>(Arrays.asList(A, B, C)), current.getChanged(previous));
+    }
+
+    @Test
+    public void testGetAffected() {
+        final BuildManifest manifest = create("1");
+        assertEquals(Collections.emptySet(), manifest.get(A).dependencies);
+        assertEquals(new HashSet<>(Arrays.asList(MAP, A, B)), manifest.getAffected(Collections.singleton(A)));
+        assertEquals(new HashSet<>(Arrays.asList(MAP, C)), manifest.getAffected(Collections.singleton(C)));
+    }
+
+    @Test
+    public void testReadWrite() throws IOException {
+        final File file = new File(tempDir, BuildManifest.FILE_NAME);
+        assertNull(BuildManifest.read(file));
+
+        create("1").write(file);
+        final BuildManifest act = BuildManifest.read(file);
+        assertEquals("fingerprint", act.getFingerprint());
+        assertEquals(new HashSet<>(Arrays.asList(MAP, A, B, C)), act.getFiles());
+        assertEquals("2", act.get(B).hash);
+        final Set<URI> deps = act.get(MAP).dependencies;
+        assertEquals(new HashSet<>(Arrays.asList(A, B, C)), deps);
+        assertEquals(Collections.emptySet(), create("1").getChanged(act));
+    }
+
+    @Test
+    public void testDigest() {
+        assertEquals("a9993e364706816aba3e25717850c26c9cd0d89d", BuildManifest.digest("abc"));
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.dita.dost.TestUtils;
+
+public final class BuildProfileTest {
+
+    private File tempDir;
+    private File src;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = TestUtils.createTempDir(BuildProfileTest.class);
+        src = new File(tempDir, "topic \"1\".dita");
+        FileUtils.write(src, "<topic/>", "UTF-8");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        BuildProfile.stop();
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Test
+    public void testDisabled() {
+        BuildProfile.stop();
+        assertFalse(BuildProfile.isEnabled());
+        assertEquals(0L, BuildProfile.now());
+        BuildProfile.moduleStarted("module");
+        BuildProfile.fileProcessed(BuildProfile.PARSE, src, BuildProfile.now());
+        BuildProfile.count("counter", 1);
+        BuildProfile.moduleFinished();
+        assertNull(BuildProfile.stop());
+    }
+
+    @Test
+    public void testWriteJson() throws Exception {
+        final BuildProfile profile = record();
+        final File out = new File(tempDir, "profile.json");
+        profile.write(out);
+        final String json = FileUtils.readFileToString(out, "UTF-8");
+        assertTrue(json.contains("\"name\": \"GenMapAndTopicListModule\", \"invocations\": 1,"));
+        assertTrue(json.contains("\"files\": 2, \"bytes\": 16, \"counters\": {\"excludedElements\": 3, \"parse_ms\": "));
+        assertTrue(json.contains("\"name\": \"preprocess\""));
+        assertTrue(json.contains("\"file\": " + json(src.getAbsolutePath())));
+        assertTrue(json.contains("\"slowest\": [\n    {\"module\": \"GenMapAndTopicListModule\""));
+        assertTrue(json.contains("\"caches\": [\n    {\"name\": \"templates\", \"hits\": 1, \"misses\": 1}"));
+    }
+
+    @Test
+    public void testWriteCsv() throws Exception {
+        final BuildProfile profile = record();
+        final File out = new File(tempDir, "profile.csv");
+        profile.write(out);
+        final List<String> lines = FileUtils.readLines(out, "UTF-8");
+        assertEquals("record,name,file,invocations,time_ms,gc_ms,heap_peak_bytes,files,bytes,parse_ms,xslt_ms", lines.get(0));
+        assertTrue(lines.get(1).startsWith("build,"));
+        assertTrue(lines.get(2).startsWith("target,preprocess,,,"));
+        assertTrue(lines.get(3).startsWith("module,GenMapAndTopicListModule,,1,"));
+        assertTrue(lines.get(4).startsWith("file,GenMapAndTopicListModule,\"" + src.getAbsolutePath().replace("\"", "\"\"") + "\",,"));
+        assertTrue(lines.get(5).startsWith("slowest,GenMapAndTopicListModule,"));
+        assertEquals("cache,templates.hits,,1,,,,,,,", lines.get(6));
+        assertEquals("cache,templates.misses,,1,,,,,,,", lines.get(7));
+        assertEquals(8, lines.size());
+    }
+
+    private BuildProfile record() throws Exception {
+        final File style = new File(tempDir, "style.xsl");
+        FileUtils.write(style, "<xsl:stylesheet xmlns:xsl='http://www.w3.org/1999/XSL/Transform' version='2.0'/>", "UTF-8");
+        TemplatesCache.getInstance().clear();
+        final BuildProfile profile = BuildProfile.start();
+        assertTrue(BuildProfile.isEnabled());
+        BuildProfile.moduleStarted("GenMapAndTopicListModule");
+        BuildProfile.fileProcessed(BuildProfile.PARSE, src, BuildProfile.now());
+        BuildProfile.fileProcessed(BuildProfile.PARSE, src.toURI(), BuildProfile.now());
+        BuildProfile.count("excludedElements", 3);
+        TemplatesCache.getInstance().getTemplates(style, null);
+        TemplatesCache.getInstance().getTemplates(style, null);
+        BuildProfile.moduleFinished();
+        profile.addTarget("preprocess", 1000000L);
+        assertSame(profile, BuildProfile.stop());
+        return profile;
+    }
+
+    private static String json(final String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+}
@@ -0,0 +1,244 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+
+import org.apache.xerces.util.XMLGrammarPoolImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import org.dita.dost.TestUtils;
+
+public final class CachingXMLReaderTest {
+
+    private static final byte[] FINGERPRINT = "fingerprint".getBytes(UTF_8);
+    private static final String DOC =
+            "<?xml version='1.0'?>\n" +
+            "<!DOCTYPE topic [\n" +
+            "<!ATTLIST topic class CDATA '- topic/topic '>\n" +
+            "<!ATTLIST p class CDATA '- topic/p '>\n" +
+            "]>\n" +
+            "<!-- comment -->\n" +
+            "<topic id='t' xmlns:x='urn:x'>\n" +
+            "  <?pi data?>\n" +
+            "  <p x:a='b'>text &amp; <![CDATA[<cdata>]]>ä€</p>\n" +
+            "</topic>";
+
+    private File tempDir;
+    private File cacheDir;
+    private File src;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = TestUtils.createTempDir(CachingXMLReaderTest.class);
+        cacheDir = new File(tempDir, "cache");
+        src = new File(tempDir, "topic.dita");
+        Files.write(src.toPath(), DOC.getBytes(UTF_8));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        final ParseCache cache = ParseCache.getInstance(cacheDir, ParseCache.DEFAULT_MAX_SIZE);
+        final String exp = serialize(XMLUtils.getXMLReader());
+
+        assertEquals(exp, serialize(new CachingXMLReader(XMLUtils.getXMLReader(), cache, FINGERPRINT)));
+        assertEquals(1, countEntries());
+        // cache hit must not parse
+        final XMLReader failing = new XMLFilterImpl(XMLUtils.getXMLReader()) {
+            @Override
+            public void parse(final InputSource input) {
+                throw new AssertionError("Parsed " + input.getSystemId());
+            }
+        };
+        assertEquals(exp, serialize(new CachingXMLReader(failing, cache, FINGERPRINT)));
+    }
+
+    @Test
+    public void testFeaturesAndFingerprint() throws Exception {
+        final ParseCache cache = ParseCache.getInstance(cacheDir, ParseCache.DEFAULT_MAX_SIZE);
+        serialize(new CachingXMLReader(XMLUtils.getXMLReader(), cache, FINGERPRINT));
+        final XMLReader parser = XMLUtils.getXMLReader();
+        parser.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        serialize(new CachingXMLReader(parser, cache, FINGERPRINT));
+        assertEquals(2, countEntries());
+        final XMLReader external = new CachingXMLReader(XMLUtils.getXMLReader(), cache, FINGERPRINT);
+        external.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        serialize(external);
+        assertEquals(2, countEntries());
+        serialize(new CachingXMLReader(XMLUtils.getXMLReader(), cache, "changed".getBytes(UTF_8)));
+        assertEquals(3, countEntries());
+    }
+
+    @Test
+    public void testNamespacePrefixes() throws Exception {
+        final ParseCache cache = ParseCache.getInstance(cacheDir, ParseCache.DEFAULT_MAX_SIZE);
+        final XMLReader prefixes = XMLUtils.getXMLReader();
+        prefixes.setFeature("http://xml.org/sax/features/namespace-prefixes", true);
+        final String expPrefixes = listAttributes(prefixes);
+        final String exp = listAttributes(XMLUtils.getXMLReader());
+        assertTrue(expPrefixes.contains("xmlns:x"));
+        assertFalse(exp.contains("xmlns:x"));
+
+        // miss records namespace declarations, but does not report them
+        assertEquals(exp, listAttributes(new CachingXMLReader(XMLUtils.getXMLReader(), cache, FINGERPRINT)));
+        final XMLReader cachingPrefixes = new CachingXMLReader(XMLUtils.getXMLReader(), cache, FINGERPRINT);
+        cachingPrefixes.setFeature("http://xml.org/sax/features/namespace-prefixes", true);
+        assertEquals(expPrefixes, listAttributes(cachingPrefixes));
+        assertEquals(exp, listAttributes(new CachingXMLReader(XMLUtils.getXMLReader(), cache, FINGERPRINT)));
+        assertEquals(1, countEntries());
+    }
+
+    @Test
+    public void testErrorsNotCached() throws Exception {
+        final ParseCache cache = ParseCache.getInstance(cacheDir, ParseCache.DEFAULT_MAX_SIZE);
+        Files.write(src.toPath(), "<topic><p></topic>".getBytes(UTF_8));
+        final XMLReader reader = new CachingXMLReader(XMLUtils.getXMLReader(), cache, FINGERPRINT);
+        reader.setErrorHandler(new DefaultHandler());
+        try {
+            reader.parse(src.toURI().toString());
+            fail();
+        } catch (final SAXParseException e) {
+            // expected
+        }
+        assertEquals(0, countEntries());
+    }
+
+    @Test
+    public void testExternalDtd() throws Exception {
+        final ParseCache cache = ParseCache.getInstance(cacheDir, ParseCache.DEFAULT_MAX_SIZE);
+        final File dtd = new File(tempDir, "local.dtd");
+        Files.write(dtd.toPath(), "<!ATTLIST topic class CDATA '- topic/topic '>".getBytes(UTF_8));
+        Files.write(src.toPath(), "<!DOCTYPE topic SYSTEM 'local.dtd'><topic/>".getBytes(UTF_8));
+        assertTrue(serialize(new CachingXMLReader(XMLUtils.getXMLReader(), cache, FINGERPRINT)).contains("- topic/topic "));
+        assertEquals(1, countEntries());
+
+        Files.write(dtd.toPath(), "<!ATTLIST topic class CDATA '- topic/topic local-d/topic '>".getBytes(UTF_8));
+        assertTrue(dtd.setLastModified(dtd.lastModified() - 10000));
+        assertTrue(serialize(new CachingXMLReader(XMLUtils.getXMLReader(), cache, FINGERPRINT)).contains("- topic/topic local-d/topic "));
+    }
+
+    @Test
+    public void testGrammarPool() throws Exception {
+        final ParseCache cache = ParseCache.getInstance(cacheDir, ParseCache.DEFAULT_MAX_SIZE);
+        final File dtd = new File(tempDir, "pooled.dtd");
+        Files.write(dtd.toPath(), "<!ATTLIST topic class CDATA '- topic/topic '>".getBytes(UTF_8));
+        Files.write(src.toPath(), "<!DOCTYPE topic SYSTEM 'pooled.dtd'><topic/>".getBytes(UTF_8));
+        final XMLGrammarPoolImpl pool = new XMLGrammarPoolImpl();
+        // DTD read into pool by a reader that does not record its files
+        final XMLReader parser = XMLUtils.getXMLReader();
+        parser.setProperty("http://apache.org/xml/properties/internal/grammar-pool", pool);
+        serialize(parser);
+
+        final XMLReader pooled = XMLUtils.getXMLReader();
+        pooled.setProperty("http://apache.org/xml/properties/internal/grammar-pool", pool);
+        assertTrue(serialize(new CachingXMLReader(pooled, cache, FINGERPRINT)).contains("- topic/topic "));
+        assertEquals(0, countEntries());
+    }
+
+    @Test
+    public void testGrammarFingerprint() throws Exception {
+        final File ditaDir = new File(tempDir, "dita");
+        final File dtd = new File(ditaDir, "plugins" + File.separator + "p" + File.separator + "topic.dtd");
+        final File out = new File(ditaDir, "out" + File.separator + "topic.dtd");
+        assertTrue(dtd.getParentFile().mkdirs());
+        assertTrue(out.getParentFile().mkdirs());
+        Files.write(dtd.toPath(), "<!ELEMENT topic EMPTY>".getBytes(UTF_8));
+        Files.write(out.toPath(), "<!ELEMENT topic EMPTY>".getBytes(UTF_8));
+        final byte[] fingerprint = CachingXMLReader.getGrammarFingerprint(ditaDir);
+
+        Files.write(out.toPath(), "<!ELEMENT topic ANY>".getBytes(UTF_8));
+        assertArrayEquals(fingerprint, CachingXMLReader.getGrammarFingerprint(ditaDir));
+        Files.write(dtd.toPath(), "<!ELEMENT topic ANY>".getBytes(UTF_8));
+        assertFalse(Arrays.equals(fingerprint, CachingXMLReader.getGrammarFingerprint(ditaDir)));
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        final ParseCache cache = ParseCache.getInstance(cacheDir, 10);
+        cache.put("aa", new byte[4]);
+        cache.put("bb", new byte[4]);
+        assertNotNull(cache.get("aa"));
+        cache.put("cc", new byte[4]);
+        assertNotNull(cache.get("aa"));
+        assertNull(cache.get("bb"));
+        assertNotNull(cache.get("cc"));
+        assertEquals(2, countEntries());
+
+        cache.clear();
+        assertFalse(cacheDir.exists());
+        assertNull(cache.get("cc"));
+        cache.put("dd", new byte[4]);
+        assertNotNull(cache.get("dd"));
+    }
+
+    private String serialize(final XMLReader reader) throws IOException, SAXException {
+        final TransformerHandler serializer;
+        try {
+            serializer = ((SAXTransformerFactory) TransformerFactory.newInstance()).newTransformerHandler();
+        } catch (final Exception e) {
+            throw new RuntimeException(e);
+        }
+        final StringWriter buf = new StringWriter();
+        serializer.setResult(new StreamResult(buf));
+        reader.setContentHandler(serializer);
+        reader.setProperty("http://xml.org/sax/properties/lexical-handler", serializer);
+        reader.parse(src.toURI().toString());
+        return buf.toString();
+    }
+
+    private String listAttributes(final XMLReader reader) throws IOException, SAXException {
+        final StringBuilder buf = new StringBuilder();
+        reader.setContentHandler(new DefaultHandler() {
+            @Override
+            public void startElement(final String uri, final String localName, final String qName, final Attributes atts) {
+                buf.append(qName).append('[');
+                for (int i = 0; i < atts.getLength(); i++) {
+                    buf.append(' ').append(atts.getQName(i)).append('=').append(atts.getValue(i));
+                }
+                buf.append(']');
+            }
+        });
+        reader.parse(src.toURI().toString());
+        return buf.toString();
+    }
+
+    private int countEntries() {
+        int count = 0;
+        final File[] dirs = cacheDir.listFiles();
+        if (dirs != null) {
+            for (final File dir: dirs) {
+                count += dir.list().length;
+            }
+        }
+        return count;
+    }
+
+}
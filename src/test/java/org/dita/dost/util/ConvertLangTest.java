@@ -0,0 +1,84 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.tools.ant.Project;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.dita.dost.TestUtils;
+
+public final class ConvertLangTest {
+
+    private static final File resourceDir = TestUtils.getResourceDir(ConvertLangTest.class);
+    private static final File srcDir = new File(resourceDir, "src");
+    private static final File expDir = new File(resourceDir, "exp");
+    private static final String[] FILES = {
+        "topic.html", "sub" + File.separator + "nested.html", "toc.hhc", "index.hhk", "help.hhp", "notes.txt"
+    };
+
+    private File tempDir;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = TestUtils.createTempDir(ConvertLangTest.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Test
+    public void testExecute() throws Exception {
+        test("de-de", false);
+        test("ja-jp", false);
+    }
+
+    @Test
+    public void testExecuteParallel() throws Exception {
+        test("de-de", true);
+        test("ja-jp", true);
+    }
+
+    private void test(final String langcode, final boolean parallel) throws Exception {
+        final File outputDir = new File(tempDir, langcode + (parallel ? "-parallel" : ""));
+        TestUtils.copy(srcDir, outputDir);
+        final ConvertLang task = new ConvertLang();
+        final Project project = new Project();
+        project.init();
+        task.setProject(project);
+        task.setBasedir(tempDir.getAbsolutePath());
+        task.setOutputdir(outputDir.getName());
+        task.setLangcode(langcode);
+        task.setParallel(parallel);
+        task.execute();
+
+        for (final String file: FILES) {
+            assertArrayEquals(file, read(new File(new File(expDir, langcode), file)), read(new File(outputDir, file)));
+            assertFalse(new File(outputDir, file + Constants.FILE_EXTENSION_TEMP).exists());
+        }
+    }
+
+    /** Read file contents with line separators normalized. */
+    private byte[] read(final File file) throws IOException {
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        for (final byte b: Files.readAllBytes(file.toPath())) {
+            if (b != '\r') {
+                buf.write(b);
+            }
+        }
+        return buf.toByteArray();
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+import javax.imageio.spi.IIORegistry;
+import javax.imageio.spi.ImageInputStreamSpi;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.dita.dost.TestUtils;
+
+public final class ImageMetadataCacheTest {
+
+    private static final File resourceDir = TestUtils.getResourceDir(ImageMetadataCacheTest.class);
+    private static final File srcDir = new File(resourceDir, "src");
+
+    private File tempDir;
+    private File cacheDir;
+    private File jpg;
+    private File gif;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = TestUtils.createTempDir(ImageMetadataCacheTest.class);
+        cacheDir = new File(tempDir, "cache");
+        jpg = new File(tempDir, "img.jpg");
+        gif = new File(tempDir, "img.gif");
+        TestUtils.copy(new File(srcDir, "img.jpg"), jpg);
+        TestUtils.copy(new File(srcDir, "img.gif"), gif);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Test
+    public void testGet() throws Exception {
+        final ImageMetadataCache cache = new ImageMetadataCache(null);
+        final ImageMetadataCache.Metadata m = cache.get(jpg);
+        assertEquals(135, m.width);
+        assertEquals(95, m.height);
+        assertEquals(100, m.horizontalDpi);
+        assertEquals(100, m.verticalDpi);
+        final ImageMetadataCache.Metadata g = cache.get(gif);
+        assertEquals(135, g.width);
+        assertEquals(95, g.height);
+        assertEquals(-1, g.horizontalDpi);
+        assertEquals(-1, g.verticalDpi);
+        assertSame(m, cache.get(jpg));
+    }
+
+    @Test
+    public void testSizeLimit() throws Exception {
+        final ImageMetadataCache cache = new ImageMetadataCache(null, 1);
+        final ImageMetadataCache.Metadata m = cache.get(jpg);
+        assertSame(m, cache.get(jpg));
+        cache.get(gif);
+        assertNotSame(m, cache.get(jpg));
+    }
+
+    @Test
+    public void testReadWithoutStreamProvider() throws Exception {
+        final IIORegistry registry = IIORegistry.getDefaultInstance();
+        final List<ImageInputStreamSpi> spis = new ArrayList<>();
+        final Iterator<ImageInputStreamSpi> i = registry.getServiceProviders(ImageInputStreamSpi.class, true);
+        while (i.hasNext()) {
+            final ImageInputStreamSpi spi = i.next();
+            if (spi.getInputClass().isAssignableFrom(InputStream.class)) {
+                spis.add(spi);
+            }
+        }
+        for (final ImageInputStreamSpi spi: spis) {
+            registry.deregisterServiceProvider(spi, ImageInputStreamSpi.class);
+        }
+        try (final InputStream in = new FileInputStream(jpg)) {
+            assertNull(ImageIO.createImageInputStream(new ByteArrayInputStream(new byte[0])));
+            final ImageMetadataCache.Metadata m = ImageMetadataCache.read(in);
+            assertEquals(135, m.width);
+            assertEquals(95, m.height);
+        } finally {
+            for (final ImageInputStreamSpi spi: spis) {
+                registry.registerServiceProvider(spi, ImageInputStreamSpi.class);
+            }
+        }
+    }
+
+    @Test
+    public void testPersistence() throws Exception {
+        final ImageMetadataCache cache = new ImageMetadataCache(cacheDir);
+        cache.prefetch(Arrays.asList(jpg, gif, new File(tempDir, "missing.png")), 2);
+        cache.flush();
+        assertTrue(new File(cacheDir, ImageMetadataCache.INDEX_FILE_NAME).exists());
+
+        // unchanged size and modification time must not read the image
+        final long lastModified = jpg.lastModified();
+        Files.write(jpg.toPath(), new byte[(int) jpg.length()]);
+        assertTrue(jpg.setLastModified(lastModified));
+        final ImageMetadataCache restored = new ImageMetadataCache(cacheDir);
+        assertEquals(135, restored.get(jpg).width);
+        assertEquals(95, restored.get(gif).height);
+
+        assertTrue(jpg.setLastModified(lastModified - 10000));
+        assertFalse(restored.get(jpg).isSupported());
+    }
+
+    @Test
+    public void testInvalidIndex() throws Exception {
+        assertTrue(cacheDir.mkdirs());
+        Files.write(new File(cacheDir, ImageMetadataCache.INDEX_FILE_NAME).toPath(), new byte[] { 1, 2, 3 });
+        final ImageMetadataCache cache = new ImageMetadataCache(cacheDir);
+        assertEquals(135, cache.get(jpg).width);
+    }
+
+}
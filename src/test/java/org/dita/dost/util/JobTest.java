@@ -12,6 +12,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -76,6 +77,152 @@ public final class JobTest {
         assertEquals(new URI("file:/foo/bar"), job.getInputDir());
     }
 
+    @Test
+    public void testWriteJournal() throws IOException {
+        final File dir = new File(tempDir, "journal");
+        TestUtils.copy(srcDir, dir);
+        final Job orig = new Job(dir);
+        orig.add(new Job.FileInfo.Builder().uri(toURI("foo/bar.dita")).src(toURI("file:/src/foo/bar.dita"))
+                .format(ATTR_FORMAT_VALUE_DITA).hasConref(true).isTarget(true).build());
+        orig.write();
+        final File journal = new File(dir, ".job.journal");
+        assertTrue(journal.exists());
+
+        final Job act = new Job(dir);
+        assertEquals(orig.getProperties(), act.getProperties());
+        assertEquals(orig.getCopytoMap(), act.getCopytoMap());
+        assertEquals(orig.getFileInfo().size(), act.getFileInfo().size());
+        for (final Job.FileInfo f: orig.getFileInfo()) {
+            assertEquals(f.toString(), act.getFileInfo(f.uri).toString());
+        }
+        assertEquals(toURI("file:/src/foo/bar.dita"), act.getFileInfo(toURI("foo/bar.dita")).src);
+    }
+
+    @Test
+    public void testWriteJournalDelta() throws IOException {
+        final File dir = new File(tempDir, "delta");
+        TestUtils.copy(srcDir, dir);
+        final Job job = new Job(dir);
+        for (int i = 0; i < 100; i++) {
+            job.getOrCreateFileInfo(toURI("topic" + i + ".dita")).format = ATTR_FORMAT_VALUE_DITA;
+        }
+        job.write();
+        final File journal = new File(dir, ".job.journal");
+        final long full = journal.length();
+
+        job.write();
+        assertEquals(full, journal.length());
+
+        job.getOrCreateFileInfo(toURI("topic0.dita")).setHasKeyref(true);
+        job.setProperty("foo", "bar");
+        job.write();
+        final long delta = journal.length() - full;
+        assertTrue(delta > 0);
+        assertTrue(delta < full / 10);
+
+        final Job act = new Job(dir);
+        assertTrue(act.getFileInfo(toURI("topic0.dita")).hasKeyref());
+        assertFalse(act.getFileInfo(toURI("topic1.dita")).hasKeyref());
+        assertEquals("bar", act.getProperty("foo"));
+    }
+
+    @Test
+    public void testWriteJournalCompact() throws IOException {
+        final File dir = new File(tempDir, "compact");
+        TestUtils.copy(srcDir, dir);
+        final Job job = new Job(dir);
+        for (int i = 0; i < 600; i++) {
+            job.getOrCreateFileInfo(toURI("topic" + i + ".dita")).format = ATTR_FORMAT_VALUE_DITA;
+        }
+        job.write();
+        final File journal = new File(dir, ".job.journal");
+        final long full = journal.length();
+
+        for (final Job.FileInfo f: job.getFileInfo()) {
+            f.setHasKeyref(true);
+        }
+        job.write();
+        assertTrue(journal.length() > full);
+        for (final Job.FileInfo f: job.getFileInfo()) {
+            f.setHasKeyref(false);
+            f.setHasConref(true);
+        }
+        job.write();
+        assertEquals(full, journal.length());
+
+        final Job act = new Job(dir);
+        assertEquals(job.getFileInfo().size(), act.getFileInfo().size());
+        for (final Job.FileInfo f: act.getFileInfo()) {
+            assertTrue(f.hasConref());
+            assertFalse(f.hasKeyref());
+        }
+        assertSame(ATTR_FORMAT_VALUE_DITA, act.getFileInfo(toURI("topic0.dita")).format);
+    }
+
+    @Test
+    public void testExportXml() throws IOException {
+        final File dir = new File(tempDir, "export");
+        TestUtils.copy(srcDir, dir);
+        final Job job = new Job(dir);
+        job.getOrCreateFileInfo(toURI("foo/bar.dita")).setHasLink(true);
+        job.write();
+        job.exportXml();
+        assertTrue(new File(dir, ".job.journal").delete());
+
+        final Job act = new Job(dir);
+        assertEquals(job.getProperties(), act.getProperties());
+        assertTrue(act.getFileInfo(toURI("foo/bar.dita")).hasLink());
+    }
+
+    @Test
+    public void testGetFileInfoFlag() throws IOException {
+        final File dir = new File(tempDir, "flag");
+        TestUtils.copy(srcDir, dir);
+        final Job job = new Job(dir);
+        assertTrue(job.getFileInfo(Job.FileInfo.Flag.HAS_KEYREF).isEmpty());
+
+        job.add(new Job.FileInfo.Builder().uri(toURI("a.dita")).hasKeyref(true).build());
+        job.add(new Job.FileInfo.Builder().uri(toURI("b.dita")).hasKeyref(true).isUpToDate(true).build());
+        job.add(new Job.FileInfo.Builder().uri(toURI("c.dita")).hasCoderef(true).build());
+        assertEquals(2, job.getFileInfo(Job.FileInfo.Flag.HAS_KEYREF).size());
+        final Collection<Job.FileInfo> act = job.getFileInfo(Job.FileInfo.Flag.HAS_KEYREF, new Job.FileInfo.Filter() {
+            @Override
+            public boolean accept(final Job.FileInfo f) {
+                return !f.isUpToDate();
+            }
+        });
+        assertEquals(1, act.size());
+        assertEquals(toURI("a.dita"), act.iterator().next().uri);
+
+        // replaced and removed file infos
+        job.add(new Job.FileInfo.Builder().uri(toURI("a.dita")).build());
+        job.remove(job.getFileInfo(toURI("b.dita")));
+        assertTrue(job.getFileInfo(Job.FileInfo.Flag.HAS_KEYREF).isEmpty());
+
+        // flags set in place are indexed immediately
+        job.getOrCreateFileInfo(toURI("d.dita")).setHasKeyref(true);
+        assertEquals(1, job.getFileInfo(Job.FileInfo.Flag.HAS_KEYREF).size());
+        assertEquals(toURI("d.dita"), job.getFileInfo(Job.FileInfo.Flag.HAS_KEYREF).iterator().next().uri);
+        job.getFileInfo(toURI("c.dita")).setHasKeyref(true);
+        job.getFileInfo(toURI("c.dita")).set(Job.FileInfo.Flag.HAS_CODEREF, false);
+        assertEquals(2, job.getFileInfo(Job.FileInfo.Flag.HAS_KEYREF).size());
+        assertTrue(job.getFileInfo(Job.FileInfo.Flag.HAS_CODEREF).isEmpty());
+        job.getFileInfo(toURI("c.dita")).setHasKeyref(false);
+        job.getFileInfo(toURI("c.dita")).setHasCoderef(true);
+        assertEquals(1, job.getFileInfo(Job.FileInfo.Flag.HAS_KEYREF).size());
+
+        // replaced file info no longer updates index
+        final Job.FileInfo old = job.getFileInfo(toURI("a.dita"));
+        job.add(new Job.FileInfo.Builder(old).build());
+        old.setHasKeyref(true);
+        assertEquals(1, job.getFileInfo(Job.FileInfo.Flag.HAS_KEYREF).size());
+
+        job.write();
+        assertEquals(1, job.getFileInfo(Job.FileInfo.Flag.HAS_KEYREF).size());
+        assertEquals(toURI("d.dita"), new Job(dir).getFileInfo(Job.FileInfo.Flag.HAS_KEYREF).iterator().next().uri);
+        assertEquals(toURI("c.dita"), new Job(dir).getFileInfo(Job.FileInfo.Flag.HAS_CODEREF).iterator().next().uri);
+    }
+
     @AfterClass
     public static void tearDown() throws IOException {
         TestUtils.forceDelete(tempDir);
@@ -0,0 +1,156 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.URIResolver;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.types.XMLCatalog;
+import org.apache.xml.resolver.CatalogManager;
+import org.apache.xml.resolver.tools.CatalogResolver;
+import org.dita.dost.TestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public final class TemplatesCacheTest {
+
+    private File tempDir;
+    private File style;
+    private File module;
+    private File catalog;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = TestUtils.createTempDir(TemplatesCacheTest.class);
+        style = new File(tempDir, "style.xsl");
+        module = new File(tempDir, "module.xsl");
+        FileUtils.writeStringToFile(style,
+                "<xsl:stylesheet xmlns:xsl='http://www.w3.org/1999/XSL/Transform' version='2.0'>" +
+                "<xsl:import href='module.xsl'/>" +
+                "</xsl:stylesheet>", "UTF-8");
+        FileUtils.writeStringToFile(module,
+                "<xsl:stylesheet xmlns:xsl='http://www.w3.org/1999/XSL/Transform' version='2.0'/>", "UTF-8");
+        catalog = new File(tempDir, "catalog.xml");
+        FileUtils.writeStringToFile(catalog,
+                "<catalog xmlns='urn:oasis:names:tc:entity:xmlns:xml:catalog'/>", "UTF-8");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+    @Test
+    public void testGetTemplates() throws Exception {
+        final TemplatesCache cache = new TemplatesCache(2);
+        final Templates first = cache.getTemplates(style, null);
+        assertSame(first, cache.getTemplates(style, null));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testGetTemplatesModifiedImport() throws Exception {
+        final TemplatesCache cache = new TemplatesCache(2);
+        final Templates first = cache.getTemplates(style, null);
+        assertTrue(module.setLastModified(module.lastModified() - 10000));
+        assertNotSame(first, cache.getTemplates(style, null));
+        assertEquals(0, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void testGetTemplatesResolver() throws Exception {
+        final TemplatesCache cache = new TemplatesCache(4);
+        final URIResolver first = new NullURIResolver();
+        final URIResolver second = new NullURIResolver();
+        final Templates templates = cache.getTemplates(style, first);
+        assertSame(templates, cache.getTemplates(style, first));
+        assertNotSame(templates, cache.getTemplates(style, second));
+        assertNotSame(templates, cache.getTemplates(style, null));
+        assertEquals(1, cache.getHits());
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    public void testGetTemplatesEqualXMLCatalog() throws Exception {
+        final TemplatesCache cache = new TemplatesCache(4);
+        final Templates templates = cache.getTemplates(style, createXMLCatalog());
+        assertSame(templates, cache.getTemplates(style, createXMLCatalog()));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        assertTrue(catalog.setLastModified(catalog.lastModified() - 10000));
+        assertNotSame(templates, cache.getTemplates(style, createXMLCatalog()));
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void testGetTemplatesEqualCatalogResolver() throws Exception {
+        final TemplatesCache cache = new TemplatesCache(4);
+        final Templates templates = cache.getTemplates(style, createCatalogResolver());
+        assertSame(templates, cache.getTemplates(style, createCatalogResolver()));
+        assertNotSame(templates, cache.getTemplates(style, createXMLCatalog()));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void testResolverNotRetained() throws Exception {
+        final TemplatesCache cache = new TemplatesCache(2);
+        URIResolver resolver = new NullURIResolver();
+        final WeakReference<URIResolver> ref = new WeakReference<>(resolver);
+        final Templates templates = cache.getTemplates(style, resolver);
+        resolver = null;
+        for (int i = 0; i < 20 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(ref.get());
+        assertNotNull(templates.newTransformer());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        final TemplatesCache cache = new TemplatesCache(1);
+        final Templates first = cache.getTemplates(style, null);
+        cache.getTemplates(module, null);
+        assertNotSame(first, cache.getTemplates(style, null));
+        assertEquals(3, cache.getMisses());
+    }
+
+    private XMLCatalog createXMLCatalog() {
+        final XMLCatalog xmlCatalog = new XMLCatalog();
+        xmlCatalog.setProject(new Project());
+        xmlCatalog.createCatalogPath().setLocation(catalog);
+        return xmlCatalog;
+    }
+
+    private CatalogResolver createCatalogResolver() {
+        final CatalogManager manager = new CatalogManager();
+        manager.setIgnoreMissingProperties(true);
+        manager.setUseStaticCatalog(false);
+        manager.setCatalogFiles(catalog.toURI().toASCIIString());
+        return new CatalogResolver(manager);
+    }
+
+    private static final class NullURIResolver implements URIResolver {
+        @Override
+        public Source resolve(final String href, final String base) {
+            return null;
+        }
+    }
+
+}
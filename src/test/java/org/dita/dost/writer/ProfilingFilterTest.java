@@ -1,6 +1,7 @@
 package org.dita.dost.writer;
 
 import static org.custommonkey.xmlunit.XMLAssert.assertXMLEqual;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.InputStream;
@@ -13,9 +14,11 @@ import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.sax.SAXSource;
 
+import org.apache.commons.io.FileUtils;
 import org.custommonkey.xmlunit.XMLUnit;
 import org.dita.dost.TestUtils;
 import org.dita.dost.reader.DitaValReader;
+import org.dita.dost.util.BuildProfile;
 import org.dita.dost.util.FilterUtils;
 import org.dita.dost.util.XMLUtils;
 import org.junit.BeforeClass;
@@ -46,6 +49,29 @@ public class ProfilingFilterTest {
         test(new FilterUtils(true, Collections.EMPTY_MAP), "map.ditamap", "map_pdf.ditamap");
 	}
 	
+	@Test
+	public void testProfile() throws Exception {
+		final DitaValReader filterReader = new DitaValReader();
+		filterReader.read(new File(getClass().getClassLoader().getResource("ProfilingFilterTest/src/topic1.ditaval").toURI()).getAbsoluteFile());
+		final FilterUtils filterUtils = new FilterUtils(false, filterReader.getFilterMap());
+		final File tempDir = TestUtils.createTempDir(getClass());
+		try {
+			final BuildProfile profile = BuildProfile.start();
+			BuildProfile.moduleStarted("FilterModule");
+			test(filterUtils, "topic.dita", "topic1.dita");
+			BuildProfile.moduleFinished();
+			BuildProfile.stop();
+			final File out = new File(tempDir, "profile.json");
+			profile.write(out);
+			final String json = FileUtils.readFileToString(out, "UTF-8");
+			assertTrue(json.contains("\"ProfilingFilter.excludedElements\": "));
+			assertTrue(json.contains("\"ProfilingFilter.files\": 1"));
+		} finally {
+			BuildProfile.stop();
+			TestUtils.forceDelete(tempDir);
+		}
+	}
+
 	private void test(final FilterUtils filterUtils, final String srcFile, final String expFile) throws Exception {
 		final Transformer t = TransformerFactory.newInstance().newTransformer();
 		final InputStream src = getClass().getClassLoader().getResourceAsStream("ProfilingFilterTest/src/" + srcFile);
@@ -0,0 +1,69 @@
+/*
+ * This file is part of the DITA Open Toolkit project.
+ * See the accompanying license.txt file for applicable licenses.
+ */
+package org.dita.dost.writer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.dita.dost.TestUtils;
+import org.dita.dost.exception.DITAOTException;
+import org.dita.dost.util.Job;
+
+public class TopicRefWriterTest {
+
+    private static final File resourceDir = TestUtils.getResourceDir(TopicRefWriterTest.class);
+    private static final File srcDir = new File(resourceDir, "src");
+    private static File tempDir;
+    private static TopicRefWriter writer;
+
+    @BeforeClass
+    public static void setup() throws IOException {
+        tempDir = TestUtils.createTempDir(TopicRefWriterTest.class);
+        TestUtils.copy(srcDir, tempDir);
+        final Map<String, String> changeTable = new HashMap<>();
+        changeTable.put(new File(tempDir, "old.dita").getAbsolutePath(), new File(tempDir, "new.dita").getAbsolutePath());
+        changeTable.put(new File(tempDir, "unchanged.dita").getAbsolutePath(), new File(tempDir, "unchanged.dita").getAbsolutePath());
+        changeTable.put(new File(tempDir, "self.dita").getAbsolutePath(), new File(tempDir, "chunk.dita").getAbsolutePath());
+        writer = new TopicRefWriter();
+        writer.setLogger(new TestUtils.TestLogger());
+        writer.setJob(new Job(tempDir));
+        writer.setChangeTable(changeTable);
+        writer.setup(Collections.<String, String>emptyMap());
+    }
+
+    @Test
+    public void testIsAffected() throws IOException {
+        assertTrue(writer.isAffected(new File(tempDir, "links.dita")));
+        assertFalse(writer.isAffected(new File(tempDir, "other.dita")));
+        assertTrue(writer.isAffected(new File(tempDir, "escaped.dita")));
+        assertTrue(writer.isAffected(new File(tempDir, "encoded.dita")));
+        assertTrue(writer.isAffected(new File(tempDir, "self.dita")));
+    }
+
+    @Test
+    public void testWrite() throws DITAOTException, IOException {
+        final File f = new File(tempDir, "write.dita").getAbsoluteFile();
+        Files.copy(new File(srcDir, "links.dita").toPath(), f.toPath());
+        writer.write(f);
+        assertTrue(new String(Files.readAllBytes(f.toPath()), UTF_8).contains("href=\"new.dita#old\""));
+    }
+
+    @AfterClass
+    public static void teardown() throws IOException {
+        TestUtils.forceDelete(tempDir);
+    }
+
+}
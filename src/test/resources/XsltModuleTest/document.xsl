@@ -0,0 +1,26 @@
+<?xml version="1.0" encoding="UTF-8"?>
+<xsl:stylesheet xmlns:xsl="http://www.w3.org/1999/XSL/Transform" xmlns:xs="http://www.w3.org/2001/XMLSchema"
+                exclude-result-prefixes="xs"
+                version="2.0">
+  
+  <xsl:param name="file-being-processed"/>
+  
+  <xsl:template match="/*">
+    <xsl:copy>
+      <xsl:attribute name="file" select="$file-being-processed"/>
+      <xsl:variable name="n" select="xs:integer(substring-before(substring-after($file-being-processed, 'topic'), '.dita'))"/>
+      <xsl:if test="$n gt 0">
+        <xsl:attribute name="previous"
+                       select="string(document(concat('../dir', ($n - 1) mod 3, '/topic', $n - 1, '.dita'), .)/*/@file)"/>
+      </xsl:if>
+      <xsl:apply-templates select="@* | node()"/>
+    </xsl:copy>
+  </xsl:template>
+  
+  <xsl:template match="@* | node()">
+    <xsl:copy>
+      <xsl:apply-templates select="@* | node()"/>
+    </xsl:copy>
+  </xsl:template>
+  
+</xsl:stylesheet>